@@ -18,6 +18,7 @@ package org.springframework.cloud.sleuth.benchmarks.app;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -96,6 +97,10 @@ public class SleuthBenchmarkingSpringApp implements
 		return this.aClass.newSpan();
 	}
 
+	public String newSpanWithTagExpression() {
+		return this.aClass.newSpanWithTagExpression();
+	}
+
 	@Override
 	public void onApplicationEvent(EmbeddedServletContainerInitializedEvent event) {
 		this.port = event.getEmbeddedServletContainer().getPort();
@@ -124,6 +129,10 @@ public class SleuthBenchmarkingSpringApp implements
 		return new AClass(this.tracer, anotherClass());
 	}
 
+	@Bean Executor directExecutor() {
+		return new DirectExecutor();
+	}
+
 	public ExecutorService getPool() {
 		return this.pool;
 	}
@@ -154,6 +163,11 @@ class AClass {
 	public String newSpan() {
 		return this.anotherClass.continuedAnnotation("bar");
 	}
+
+	@NewSpan
+	public String newSpanWithTagExpression() {
+		return this.anotherClass.continuedAnnotationWithTagExpression("bar");
+	}
 }
 
 class AnotherClass {
@@ -168,6 +182,12 @@ class AnotherClass {
 		return "continued";
 	}
 
+	@ContinueSpan(log = "continuedspan")
+	public String continuedAnnotationWithTagExpression(
+			@SpanTag(value = "foo", expression = "length() + ' characters'") String tagValue) {
+		return "continued";
+	}
+
 	public String continuedSpan() {
 		Span continuedSpan = this.tracer.continueSpan(this.tracer.getCurrentSpan());
 		this.tracer.addTag("foo", "bar");
@@ -177,3 +197,14 @@ class AnotherClass {
 		return response;
 	}
 }
+
+/**
+ * Runs the commands in the calling thread, so that only the cost of submitting
+ * a task to an executor is measured
+ */
+class DirectExecutor implements Executor {
+
+	@Override public void execute(Runnable command) {
+		command.run();
+	}
+}
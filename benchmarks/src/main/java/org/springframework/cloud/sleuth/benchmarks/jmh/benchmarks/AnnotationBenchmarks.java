@@ -78,4 +78,11 @@ public class AnnotationBenchmarks {
 		then(context.sleuth.newSpan()).isEqualTo("continued");
 		then(ExceptionUtils.getLastException()).isNull();
 	}
-}
\ No newline at end of file
+
+	@Benchmark
+	public void spanCreatedWithAnnotationsAndTagExpression(BenchmarkContext context)
+			throws Exception {
+		then(context.sleuth.newSpanWithTagExpression()).isEqualTo("continued");
+		then(ExceptionUtils.getLastException()).isNull();
+	}
+}
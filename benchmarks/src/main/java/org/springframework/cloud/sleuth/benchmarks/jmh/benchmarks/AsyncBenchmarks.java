@@ -15,6 +15,12 @@
  */
 package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.Benchmark;
@@ -31,6 +37,7 @@ import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.springframework.boot.SpringApplication;
 import org.springframework.cloud.sleuth.benchmarks.app.SleuthBenchmarkingSpringApp;
+import org.springframework.cloud.sleuth.instrument.async.TraceableExecutorService;
 import org.springframework.context.ConfigurableApplicationContext;
 
 import static org.assertj.core.api.BDDAssertions.then;
@@ -47,8 +54,24 @@ public class AsyncBenchmarks {
 	public static class BenchmarkContext {
 		volatile ConfigurableApplicationContext withSleuth;
 		volatile ConfigurableApplicationContext withoutSleuth;
+		volatile ConfigurableApplicationContext withSleuthContextOnly;
 		volatile SleuthBenchmarkingSpringApp tracedAsyncMethodHavingBean;
 		volatile SleuthBenchmarkingSpringApp untracedAsyncMethodHavingBean;
+		volatile Executor tracedExecutor;
+		volatile Executor untracedExecutor;
+		volatile ExecutorService untracedExecutorService;
+		volatile ExecutorService tracedExecutorService;
+		volatile ExecutorService contextOnlyExecutorService;
+		final Runnable task = new Runnable() {
+			@Override public void run() {
+			}
+		};
+		final List<Callable<String>> callables = Collections.<Callable<String>>singletonList(
+				new Callable<String>() {
+					@Override public String call() {
+						return "callable";
+					}
+				});
 
 		@Setup public void setup() {
 			this.withSleuth = new SpringApplication(
@@ -61,10 +84,22 @@ public class AsyncBenchmarks {
 							"--spring.application.name=withoutSleuth",
 							"--spring.sleuth.enabled=false",
 							"--spring.sleuth.async.enabled=false");
+			this.withSleuthContextOnly = new SpringApplication(
+					SleuthBenchmarkingSpringApp.class)
+					.run("--spring.jmx.enabled=false",
+							"--spring.application.name=withSleuthContextOnly",
+							"--spring.sleuth.async.context-only=true");
 			this.tracedAsyncMethodHavingBean = this.withSleuth.getBean(
 					SleuthBenchmarkingSpringApp.class);
 			this.untracedAsyncMethodHavingBean = this.withoutSleuth.getBean(
 					SleuthBenchmarkingSpringApp.class);
+			this.tracedExecutor = this.withSleuth.getBean("directExecutor", Executor.class);
+			this.untracedExecutor = this.withoutSleuth.getBean("directExecutor", Executor.class);
+			this.untracedExecutorService = new DirectExecutorService();
+			this.tracedExecutorService = new TraceableExecutorService(
+					this.withSleuth.getBeanFactory(), new DirectExecutorService());
+			this.contextOnlyExecutorService = new TraceableExecutorService(
+					this.withSleuthContextOnly.getBeanFactory(), new DirectExecutorService());
 		}
 
 		@TearDown public void clean() {
@@ -72,6 +107,7 @@ public class AsyncBenchmarks {
 			this.untracedAsyncMethodHavingBean.clean();
 			this.withSleuth.close();
 			this.withoutSleuth.close();
+			this.withSleuthContextOnly.close();
 		}
 	}
 
@@ -86,4 +122,85 @@ public class AsyncBenchmarks {
 			throws Exception {
 		then(context.tracedAsyncMethodHavingBean.async().get()).isEqualTo("async");
 	}
-}
\ No newline at end of file
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void executorSubmissionWithoutSleuth(BenchmarkContext context) {
+		context.untracedExecutor.execute(context.task);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void executorSubmissionWithSleuth(BenchmarkContext context) {
+		context.tracedExecutor.execute(context.task);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void executorServiceSubmissionWithoutSleuth(BenchmarkContext context) {
+		context.untracedExecutorService.execute(context.task);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void executorServiceSubmissionWithSleuth(BenchmarkContext context) {
+		context.tracedExecutorService.execute(context.task);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public void executorServiceSubmissionWithSleuthContextOnly(BenchmarkContext context) {
+		context.contextOnlyExecutorService.execute(context.task);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public Object executorServiceInvokeAllWithoutSleuth(BenchmarkContext context)
+			throws Exception {
+		return context.untracedExecutorService.invokeAll(context.callables);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public Object executorServiceInvokeAllWithSleuthContextOnly(BenchmarkContext context)
+			throws Exception {
+		return context.contextOnlyExecutorService.invokeAll(context.callables);
+	}
+
+	/**
+	 * Runs the tasks in the submitting thread, so that only the cost of the submission
+	 * is measured
+	 */
+	static class DirectExecutorService extends AbstractExecutorService {
+
+		@Override public void execute(Runnable command) {
+			command.run();
+		}
+
+		@Override public void shutdown() {
+		}
+
+		@Override public List<Runnable> shutdownNow() {
+			return Collections.emptyList();
+		}
+
+		@Override public boolean isShutdown() {
+			return false;
+		}
+
+		@Override public boolean isTerminated() {
+			return false;
+		}
+
+		@Override public boolean awaitTermination(long timeout, TimeUnit unit) {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.instrument.async.TraceableForkJoinPool;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+
+/**
+ * Overhead of propagating the current span with {@link TraceableForkJoinPool} to a
+ * parallel stream and to {@link CompletableFuture} stages run by the common pool.
+ * The parallelism of the common pool is the number of CPUs minus one, so only
+ * results of a machine with several CPUs are representative.
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class ForkJoinPoolBenchmarks {
+
+	@State(Scope.Thread)
+	public static class BenchmarkContext {
+		volatile Tracer tracer;
+		volatile Span span;
+		volatile ForkJoinPool untracedPool;
+		volatile TraceableForkJoinPool tracedPool;
+		volatile List<Integer> numbers;
+
+		@Setup public void setup() {
+			this.tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+					new DefaultSpanNamer(), new NoOpSpanLogger(), new NoOpSpanReporter(),
+					new TraceKeys());
+			this.span = this.tracer.createSpan("benchmark");
+			this.untracedPool = ForkJoinPool.commonPool();
+			this.tracedPool = TraceableForkJoinPool.commonPool(this.tracer);
+			this.numbers = new ArrayList<>();
+			for (int i = 0; i < 10_000; i++) {
+				this.numbers.add(i);
+			}
+		}
+
+		@TearDown public void clean() {
+			this.tracer.close(this.span);
+		}
+	}
+
+	@Benchmark
+	public long parallelStreamWithoutSleuth(BenchmarkContext context) throws Exception {
+		return sum(context.untracedPool, context.numbers);
+	}
+
+	@Benchmark
+	public long parallelStreamWithSleuth(BenchmarkContext context) throws Exception {
+		return sum(context.tracedPool, context.numbers);
+	}
+
+	@Benchmark
+	public String completableFutureWithoutSleuth(BenchmarkContext context) throws Exception {
+		return CompletableFuture.supplyAsync(() -> "foo", context.untracedPool)
+				.thenApplyAsync(String::toUpperCase, context.untracedPool).get();
+	}
+
+	@Benchmark
+	public String completableFutureWithSleuth(BenchmarkContext context) throws Exception {
+		return CompletableFuture.supplyAsync(() -> "foo", context.tracedPool)
+				.thenApplyAsync(String::toUpperCase, context.tracedPool).get();
+	}
+
+	private static long sum(ForkJoinPool pool, List<Integer> numbers) throws Exception {
+		return pool.submit(() -> numbers.parallelStream()
+				.mapToLong(Integer::longValue).map(i -> i * i).sum()).get();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.cloud.commons.util.IdUtils;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanAdjuster;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.recent.RecentSpans;
+import org.springframework.cloud.sleuth.recent.RecentSpansSpanReporter;
+import org.springframework.cloud.sleuth.util.CachedInstanceId;
+import org.springframework.cloud.sleuth.zipkin.ZipkinSpanListener;
+import org.springframework.cloud.sleuth.zipkin.ZipkinSpanReporter;
+import org.springframework.mock.env.MockEnvironment;
+
+import zipkin.Endpoint;
+
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(Threads.MAX)
+public class ReporterBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+		volatile MockEnvironment environment;
+		volatile CachedInstanceId instanceId;
+		volatile ZipkinSpanListener listener;
+		volatile Span rpcSpan;
+		volatile SpanReporter noOpReporter;
+		volatile SpanReporter recentSpansReporter;
+
+		@Setup public void setup() {
+			this.environment = new MockEnvironment();
+			this.environment.setProperty("spring.application.name", "reporter-benchmarks");
+			this.environment.setProperty("server.port", "8080");
+			this.instanceId = new CachedInstanceId(this.environment);
+			ZipkinSpanReporter noOp = span -> { };
+			Endpoint endpoint = Endpoint.create("reporter-benchmarks", 127 << 24 | 1, 8080);
+			this.listener = new ZipkinSpanListener(noOp, () -> endpoint,
+					Collections.<SpanAdjuster>emptyList(), this.instanceId);
+			this.rpcSpan = Span.builder().name("http:/foo").traceId(1L).spanId(2L)
+					.exportable(true).build();
+			this.rpcSpan.logEvent(Span.SERVER_RECV);
+			this.rpcSpan.logEvent(Span.SERVER_SEND);
+			this.rpcSpan.stop();
+			this.noOpReporter = new NoOpSpanReporter();
+			this.recentSpansReporter = new RecentSpansSpanReporter(new NoOpSpanReporter(),
+					new RecentSpans(1024));
+		}
+	}
+
+	@Benchmark
+	public void instanceIdResolvedPerSpan(BenchmarkContext context, Blackhole blackhole) {
+		blackhole.consume(IdUtils.getDefaultInstanceId(context.environment));
+	}
+
+	@Benchmark
+	public void instanceIdCached(BenchmarkContext context, Blackhole blackhole) {
+		blackhole.consume(context.instanceId.getUtf8Bytes());
+	}
+
+	@Benchmark
+	public void reportRpcSpanToZipkin(BenchmarkContext context) {
+		context.listener.report(context.rpcSpan);
+	}
+
+	@Benchmark
+	public void reportToNoOpReporter(BenchmarkContext context) {
+		context.noOpReporter.report(context.rpcSpan);
+	}
+
+	@Benchmark
+	public void reportToRecentSpansReporter(BenchmarkContext context) {
+		context.recentSpansReporter.report(context.rpcSpan);
+	}
+}
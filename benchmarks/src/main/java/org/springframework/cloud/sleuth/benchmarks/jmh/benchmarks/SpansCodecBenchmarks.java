@@ -0,0 +1,111 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.stream.SpansCodec;
+
+/**
+ * Encoding and decoding a message of 100 server spans as JSON (what Spring Cloud
+ * Stream does by default) and with the binary {@link SpansCodec}
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class SpansCodecBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+		volatile ObjectMapper objectMapper;
+		volatile Spans spans;
+		volatile byte[] json;
+		volatile byte[] binary;
+
+		@Setup public void setup() throws Exception {
+			this.objectMapper = new ObjectMapper();
+			this.spans = spans();
+			this.json = this.objectMapper.writeValueAsBytes(this.spans);
+			this.binary = SpansCodec.encode(this.spans);
+		}
+	}
+
+	@Benchmark
+	public byte[] encodeJson(BenchmarkContext context) throws Exception {
+		return context.objectMapper.writeValueAsBytes(context.spans);
+	}
+
+	@Benchmark
+	public byte[] encodeBinary(BenchmarkContext context) {
+		return SpansCodec.encode(context.spans);
+	}
+
+	@Benchmark
+	public Spans decodeJson(BenchmarkContext context) throws Exception {
+		return context.objectMapper.readValue(context.json, Spans.class);
+	}
+
+	@Benchmark
+	public Spans decodeBinary(BenchmarkContext context) {
+		return SpansCodec.decode(context.binary);
+	}
+
+	/**
+	 * @return a message of 100 server spans of 25 traces
+	 */
+	static Spans spans() {
+		List<Span> spans = new ArrayList<>();
+		long traceId = 0x463ac35c9f6413adL;
+		for (int i = 0; i < 100; i++) {
+			if (i % 4 == 0) {
+				traceId = traceId * 31 + i;
+			}
+			long begin = 1_500_000_000_000L + i;
+			Span span = Span.builder().name("http:/users/" + (i % 5)).traceId(traceId)
+					.spanId(traceId + i).parent(traceId).begin(begin).end(begin + 12)
+					.processId("process").remote(true)
+					.tag("http.url", "http://localhost:8080/users/" + (i % 5))
+					.tag("http.method", "GET").tag("http.status_code", "200")
+					.tag("mvc.controller.class", "UserController")
+					.build();
+			span.logEvent(Span.SERVER_RECV);
+			span.logEvent(Span.SERVER_SEND);
+			spans.add(span);
+		}
+		return new Spans(new Host("users", "10.0.0.1", 8080), spans);
+	}
+}
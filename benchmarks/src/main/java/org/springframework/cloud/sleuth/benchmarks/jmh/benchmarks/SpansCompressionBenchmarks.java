@@ -0,0 +1,83 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.stream.SpansCodec;
+import org.springframework.cloud.sleuth.stream.SpansCompressor;
+
+/**
+ * Compressing and decompressing a message of 100 server spans encoded as JSON and with
+ * the binary {@link SpansCodec}. The CPU cost per byte saved is the average time divided
+ * by the difference between the sizes printed at setup.
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class SpansCompressionBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+		@Param({ "json", "binary" })
+		volatile String format;
+		@Param({ "GZIP", "DEFLATE" })
+		volatile SpansCompressor.Encoding encoding;
+		@Param({ "1", "6" })
+		volatile int level;
+
+		volatile SpansCompressor compressor;
+		volatile byte[] payload;
+		volatile byte[] compressed;
+
+		@Setup public void setup() throws Exception {
+			Spans spans = SpansCodecBenchmarks.spans();
+			this.payload = "json".equals(this.format) ?
+					new ObjectMapper().writeValueAsBytes(spans) : SpansCodec.encode(spans);
+			this.compressor = new SpansCompressor(this.encoding, this.level,
+					SpansCompressor.DEFAULT_POOL_SIZE);
+			this.compressed = this.compressor.compress(this.payload);
+		}
+	}
+
+	@Benchmark
+	public byte[] compress(BenchmarkContext context) {
+		return context.compressor.compress(context.payload);
+	}
+
+	@Benchmark
+	public byte[] decompress(BenchmarkContext context) {
+		return context.compressor.decompress(context.compressed);
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanAdjuster;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.StreamSpanReporter;
+
+/**
+ * Many producer threads reporting spans to the stream reporter, both when the
+ * poller keeps up and when the queue is constantly full (overload)
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(Threads.MAX)
+public class StreamReporterBenchmarks {
+
+	static final Span SPAN = Span.builder().name("http:/foo").traceId(1L).spanId(2L)
+			.exportable(true).build();
+
+	static StreamSpanReporter reporter() {
+		final Host host = new Host("stream-benchmarks", "127.0.0.1", 8080);
+		return new StreamSpanReporter(span -> host, new NoOpSpanMetricReporter(),
+				Collections.<SpanAdjuster>emptyList(), null);
+	}
+
+	@State(Scope.Benchmark)
+	public static class Overloaded {
+		volatile StreamSpanReporter boundedQueueReporter;
+		volatile StreamSpanReporter blockingQueueReporter;
+		volatile BlockingQueue<Span> fullBlockingQueue;
+
+		@Setup public void setup() {
+			this.boundedQueueReporter = reporter();
+			this.boundedQueueReporter.setQueueSize(16);
+			this.blockingQueueReporter = reporter();
+			this.blockingQueueReporter.setQueue(new LinkedBlockingQueue<>(16));
+			this.fullBlockingQueue = new LinkedBlockingQueue<>(16);
+			for (int i = 0; i < 16; i++) {
+				this.boundedQueueReporter.report(SPAN);
+				this.blockingQueueReporter.report(SPAN);
+				this.fullBlockingQueue.add(SPAN);
+			}
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Polled {
+		volatile StreamSpanReporter boundedQueueReporter;
+		volatile StreamSpanReporter blockingQueueReporter;
+		volatile ScheduledExecutorService poller;
+
+		@Setup public void setup() {
+			this.boundedQueueReporter = reporter();
+			this.blockingQueueReporter = reporter();
+			this.blockingQueueReporter.setQueue(
+					new LinkedBlockingQueue<>(StreamSpanReporter.DEFAULT_QUEUE_SIZE));
+			this.poller = Executors.newSingleThreadScheduledExecutor();
+			this.poller.scheduleWithFixedDelay(() -> {
+				this.boundedQueueReporter.poll();
+				this.blockingQueueReporter.poll();
+			}, 1, 1, TimeUnit.MILLISECONDS);
+		}
+
+		@TearDown public void tearDown() {
+			this.poller.shutdownNow();
+		}
+	}
+
+	/**
+	 * What the reporter used to do on a full queue
+	 */
+	@Benchmark
+	public boolean addToFullQueueAndCatchException(Overloaded context) {
+		try {
+			return context.fullBlockingQueue.add(SPAN);
+		}
+		catch (IllegalStateException e) {
+			return false;
+		}
+	}
+
+	@Benchmark
+	public void reportToFullBlockingQueue(Overloaded context) {
+		context.blockingQueueReporter.report(SPAN);
+	}
+
+	@Benchmark
+	public void reportToFullBoundedQueue(Overloaded context) {
+		context.boundedQueueReporter.report(SPAN);
+	}
+
+	@Benchmark
+	public void reportToPolledBlockingQueue(Polled context) {
+		context.blockingQueueReporter.report(SPAN);
+	}
+
+	@Benchmark
+	public void reportToPolledBoundedQueue(Polled context) {
+		context.boundedQueueReporter.report(SPAN);
+	}
+}
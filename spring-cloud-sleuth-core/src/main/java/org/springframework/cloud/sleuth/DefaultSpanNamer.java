@@ -17,8 +17,11 @@
 package org.springframework.cloud.sleuth;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Default implementation of SpanNamer that tries to get the span name as follows:
@@ -38,30 +41,67 @@ import org.springframework.core.annotation.AnnotationUtils;
  */
 public class DefaultSpanNamer implements SpanNamer {
 
+	// the way a class gets named doesn't change, so it's shared by all instances
+	private static final Map<Class<?>, ClassSpanName> CLASS_NAMES =
+			new ConcurrentReferenceHashMap<>();
+
 	@Override
 	public String name(Object object, String defaultValue) {
-		SpanName annotation = annotation(object);
-		String spanName = annotation != null ? annotation.value() : object.toString();
+		if (object instanceof Method) {
+			return methodName((Method) object, defaultValue);
+		}
+		ClassSpanName className = classSpanName(object.getClass());
+		if (className.spanName != null) {
+			return className.spanName;
+		}
 		// If there is no overridden toString method we'll put a constant value
+		if (!className.overridesToString) {
+			return defaultValue;
+		}
+		String spanName = object.toString();
 		if (isDefaultToString(object, spanName)) {
 			return defaultValue;
 		}
 		return spanName;
 	}
 
-	private SpanName annotation(Object o) {
-		if (o instanceof Method) {
-			return AnnotationUtils.findAnnotation((Method) o, SpanName.class);
+	private String methodName(Method method, String defaultValue) {
+		SpanName annotation = AnnotationUtils.findAnnotation(method, SpanName.class);
+		if (annotation == null || annotation.value().equals(method.toString())) {
+			return defaultValue;
 		}
-		return AnnotationUtils
-				.findAnnotation(o.getClass(), SpanName.class);
+		return annotation.value();
 	}
 
-	private static boolean isDefaultToString(Object delegate, String spanName) {
-		if (delegate instanceof Method) {
-			return delegate.toString().equals(spanName);
+	private static ClassSpanName classSpanName(Class<?> clazz) {
+		ClassSpanName className = CLASS_NAMES.get(clazz);
+		if (className == null) {
+			className = new ClassSpanName(clazz);
+			CLASS_NAMES.put(clazz, className);
 		}
+		return className;
+	}
+
+	private static boolean isDefaultToString(Object delegate, String spanName) {
 		return (delegate.getClass().getName() + "@" +
 				Integer.toHexString(delegate.hashCode())).equals(spanName);
 	}
+
+	/**
+	 * The {@link SpanName} value of a class and whether it overrides
+	 * {@link Object#toString()}
+	 */
+	private static final class ClassSpanName {
+		// Nullable
+		final String spanName;
+		final boolean overridesToString;
+
+		ClassSpanName(Class<?> clazz) {
+			SpanName annotation = AnnotationUtils.findAnnotation(clazz, SpanName.class);
+			this.spanName = annotation != null ? annotation.value() : null;
+			Method toString = ReflectionUtils.findMethod(clazz, "toString");
+			this.overridesToString = toString != null &&
+					toString.getDeclaringClass() != Object.class;
+		}
+	}
 }
@@ -225,7 +225,8 @@ public class Span implements SpanContext {
 		}
 		if (builder.end > 0) {
 			this.end = builder.end;
-			this.durationMicros = (this.end - this.begin) * 1000;
+			this.durationMicros = builder.durationMicros != null ? builder.durationMicros
+					: (this.end - this.begin) * 1000;
 		}
 		this.name = builder.name != null ? builder.name : "";
 		this.traceIdHigh = builder.traceIdHigh;
@@ -632,6 +633,7 @@ public class Span implements SpanContext {
 	public static class SpanBuilder {
 		private long begin;
 		private long end;
+		private Long durationMicros; // Nullable
 		private String name;
 		private long traceIdHigh;
 		private long traceId;
@@ -665,6 +667,16 @@ public class Span implements SpanContext {
 			return this;
 		}
 
+		/**
+		 * Sets the precise duration of a span with an {@link #end(long)} time, e.g. when
+		 * recreating a span received from another process. Otherwise the duration is
+		 * calculated from the begin and end millis.
+		 */
+		public Span.SpanBuilder durationMicros(long durationMicros) {
+			this.durationMicros = durationMicros;
+			return this;
+		}
+
 		public Span.SpanBuilder name(String name) {
 			this.name = name;
 			return this;
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth;
+
+/**
+ * Decorates the {@link SpanReporter} used by the {@link Tracer}, e.g. to observe every
+ * finished span before it's reported. Only the reporter passed to the tracer is
+ * decorated - the {@link SpanReporter} beans keep their types. Decorators are applied
+ * in their {@link org.springframework.core.Ordered order}, so the one with the highest
+ * precedence wraps the reporter first.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public interface SpanReporterDecorator {
+
+	/**
+	 * @param spanReporter reporter used by the tracer, possibly already decorated
+	 * @return reporter that should be used by the tracer instead
+	 */
+	SpanReporter decorate(SpanReporter spanReporter);
+}
@@ -420,6 +420,12 @@ public class TraceKeys {
 		 */
 		private String methodNameKey = "method";
 
+		/**
+		 * Time in microseconds that a task waited in the executor's queue before
+		 * a thread started running it
+		 */
+		private String queueWaitKey = "queue.wait";
+
 		public String getPrefix() {
 			return this.prefix;
 		}
@@ -436,6 +442,10 @@ public class TraceKeys {
 			return this.methodNameKey;
 		}
 
+		public String getQueueWaitKey() {
+			return this.queueWaitKey;
+		}
+
 		public void setPrefix(String prefix) {
 			this.prefix = prefix;
 		}
@@ -451,6 +461,10 @@ public class TraceKeys {
 		public void setMethodNameKey(String methodNameKey) {
 			this.methodNameKey = methodNameKey;
 		}
+
+		public void setQueueWaitKey(String queueWaitKey) {
+			this.queueWaitKey = queueWaitKey;
+		}
 	}
 
 	/**
@@ -53,7 +53,10 @@ class DefaultSpanCreator implements SpanCreator {
 		return createSpan(changedName);
 	}
 
-	private Span createSpan(String name) {
+	/**
+	 * Creates a span with an already resolved name
+	 */
+	Span createSpan(String name) {
 		if (this.tracer.isTracing()) {
 			return this.tracer.createSpan(name, this.tracer.getCurrentSpan());
 		}
@@ -16,9 +16,10 @@
 
 package org.springframework.cloud.sleuth.annotation;
 
-import java.lang.annotation.Annotation;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.PostConstruct;
@@ -33,17 +34,20 @@ import org.springframework.aop.IntroductionInterceptor;
 import org.springframework.aop.Pointcut;
 import org.springframework.aop.support.AbstractPointcutAdvisor;
 import org.springframework.aop.support.AopUtils;
-import org.springframework.aop.support.DynamicMethodMatcherPointcut;
-import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.cloud.sleuth.ErrorParser;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils;
-import org.springframework.util.StringUtils;
 
 /**
  * Custom pointcut advisor that picks all classes / interfaces that
@@ -53,7 +57,8 @@ import org.springframework.util.StringUtils;
  * @since 1.2.0
  */
 @SuppressWarnings("serial")
-class SleuthAdvisorConfig  extends AbstractPointcutAdvisor implements BeanFactoryAware {
+class SleuthAdvisorConfig  extends AbstractPointcutAdvisor implements BeanFactoryAware,
+		BeanClassLoaderAware, EnvironmentAware {
 
 	private Advice advice;
 
@@ -61,6 +66,10 @@ class SleuthAdvisorConfig  extends AbstractPointcutAdvisor implements BeanFactor
 
 	private BeanFactory beanFactory;
 
+	private ClassLoader classLoader;
+
+	private Environment environment;
+
 	@PostConstruct
 	public void init() {
 		this.pointcut = buildPointcut();
@@ -78,6 +87,16 @@ class SleuthAdvisorConfig  extends AbstractPointcutAdvisor implements BeanFactor
 		this.beanFactory = beanFactory;
 	}
 
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	@Override
+	public void setEnvironment(Environment environment) {
+		this.environment = environment;
+	}
+
 	@Override
 	public Advice getAdvice() {
 		return this.advice;
@@ -93,82 +112,94 @@ class SleuthAdvisorConfig  extends AbstractPointcutAdvisor implements BeanFactor
 	}
 
 	private Pointcut buildPointcut() {
-		return new AnnotationClassOrMethodOrArgsPointcut();
+		return new AnnotatedMethodPointcut(useIndex() ?
+				SleuthAnnotationIndex.load(this.classLoader) : null);
 	}
 
 	/**
-	 * Checks if a class or a method is is annotated with Sleuth related annotations
+	 * The index only lists the types of the modules that were compiled with the
+	 * processor, so it has to be enabled explicitly.
 	 */
-	private final class AnnotationClassOrMethodOrArgsPointcut extends
-			DynamicMethodMatcherPointcut {
-
-		@Override
-		public boolean matches(Method method, Class<?> targetClass, Object... args) {
-			return getClassFilter().matches(targetClass);
-		}
+	private boolean useIndex() {
+		return this.environment != null && this.environment
+				.getProperty("spring.sleuth.annotation.use-index", Boolean.class, false);
+	}
 
-		@Override public ClassFilter getClassFilter() {
-			return new ClassFilter() {
+	/**
+	 * Matches the methods that are annotated with Sleuth related annotations, directly,
+	 * on an interface or on a superclass. It's a static pointcut, so the matching is done
+	 * once per method when the proxy is created and not on each invocation, and the
+	 * methods that are not annotated run without the interceptor. The results are
+	 * cached per class and per method and target class, in soft reference maps so that
+	 * the classes can still be unloaded. If the compile time
+	 * {@link SleuthAnnotationIndex} is enabled and present only the indexed classes are
+	 * inspected, otherwise all methods of a class are scanned.
+	 */
+	private static final class AnnotatedMethodPointcut extends StaticMethodMatcherPointcut {
+
+		private final ConcurrentMap<Class<?>, Boolean> classes =
+				new ConcurrentReferenceHashMap<>();
+		private final ConcurrentMap<MethodClassKey, Boolean> methods =
+				new ConcurrentReferenceHashMap<>();
+		// Nullable
+		private final SleuthAnnotationIndex index;
+
+		AnnotatedMethodPointcut(SleuthAnnotationIndex index) {
+			this.index = index;
+			setClassFilter(new ClassFilter() {
 				@Override public boolean matches(Class<?> clazz) {
-					return new AnnotationClassOrMethodFilter(NewSpan.class).matches(clazz) ||
-							new AnnotationClassOrMethodFilter(ContinueSpan.class).matches(clazz);
+					return hasAnnotatedMethods(clazz);
 				}
-			};
-		}
-
-	}
-
-	private final class AnnotationClassOrMethodFilter extends AnnotationClassFilter {
-
-		private final AnnotationMethodsResolver methodResolver;
-
-		AnnotationClassOrMethodFilter(Class<? extends Annotation> annotationType) {
-			super(annotationType, true);
-			this.methodResolver = new AnnotationMethodsResolver(annotationType);
+			});
 		}
 
 		@Override
-		public boolean matches(Class<?> clazz) {
-			return super.matches(clazz) || this.methodResolver.hasAnnotatedMethods(clazz);
+		public boolean matches(Method method, Class<?> targetClass) {
+			Class<?> clazz = targetClass != null ? targetClass : method.getDeclaringClass();
+			MethodClassKey key = new MethodClassKey(method, clazz);
+			Boolean matches = this.methods.get(key);
+			if (matches == null) {
+				matches = (this.index == null || this.index.mayBeAnnotated(method.getName(), clazz))
+						&& isAnnotated(AopUtils.getMostSpecificMethod(method, clazz));
+				this.methods.put(key, matches);
+			}
+			return matches;
 		}
 
-	}
-
-	/**
-	 * Checks if a method is properly annotated with a given Sleuth annotation
-	 */
-	private static class AnnotationMethodsResolver {
-
-		private final Class<? extends Annotation> annotationType;
-
-		public AnnotationMethodsResolver(Class<? extends Annotation> annotationType) {
-			this.annotationType = annotationType;
+		private boolean hasAnnotatedMethods(Class<?> clazz) {
+			Boolean matches = this.classes.get(clazz);
+			if (matches == null) {
+				matches = this.index != null ? this.index.hasAnnotatedMethods(clazz) :
+						scanForAnnotatedMethods(clazz);
+				this.classes.put(clazz, matches);
+			}
+			return matches;
 		}
 
-		public boolean hasAnnotatedMethods(Class<?> clazz) {
+		private static boolean scanForAnnotatedMethods(Class<?> clazz) {
 			final AtomicBoolean found = new AtomicBoolean(false);
-			ReflectionUtils.doWithMethods(clazz,
-					new ReflectionUtils.MethodCallback() {
-						@Override
-						public void doWith(Method method) throws IllegalArgumentException,
-								IllegalAccessException {
-							if (found.get()) {
-								return;
-							}
-							Annotation annotation = AnnotationUtils.findAnnotation(method,
-									AnnotationMethodsResolver.this.annotationType);
-							if (annotation != null) { found.set(true); }
-						}
-					});
+			ReflectionUtils.doWithMethods(clazz, new ReflectionUtils.MethodCallback() {
+				@Override
+				public void doWith(Method method) {
+					if (!found.get() && isAnnotated(method)) {
+						found.set(true);
+					}
+				}
+			});
 			return found.get();
 		}
 
+		private static boolean isAnnotated(Method method) {
+			return AnnotationUtils.findAnnotation(method, NewSpan.class) != null ||
+					AnnotationUtils.findAnnotation(method, ContinueSpan.class) != null;
+		}
 	}
 }
 
 /**
  * Interceptor that creates or continues a span depending on the provided
- * annotation. Also it adds logs and tags if necessary.
+ * annotation. Also it adds logs and tags if necessary. The annotations are looked
+ * up once per method and target class, see {@link SleuthInvocationPlan}.
  */
 class SleuthInterceptor  implements IntroductionInterceptor, BeanFactoryAware  {
 
@@ -180,52 +211,75 @@ class SleuthInterceptor  implements IntroductionInterceptor, BeanFactoryAware  {
 	private SpanTagAnnotationHandler spanTagAnnotationHandler;
 	private ErrorParser errorParser;
 
+	private final ConcurrentMap<MethodClassKey, SleuthInvocationPlan> plans =
+			new ConcurrentHashMap<>();
+
 	@Override
 	public Object invoke(MethodInvocation invocation) throws Throwable {
 		Method method = invocation.getMethod();
 		if (method == null) {
 			return invocation.proceed();
 		}
-		Method mostSpecificMethod = AopUtils
-				.getMostSpecificMethod(method, invocation.getThis().getClass());
-		NewSpan newSpan = SleuthAnnotationUtils.findAnnotation(mostSpecificMethod, NewSpan.class);
-		ContinueSpan continueSpan = SleuthAnnotationUtils.findAnnotation(mostSpecificMethod, ContinueSpan.class);
-		if (newSpan == null && continueSpan == null) {
+		SleuthInvocationPlan plan = plan(method, invocation.getThis().getClass());
+		if (!plan.isAnnotated()) {
 			return invocation.proceed();
 		}
 		Span span = tracer().getCurrentSpan();
-		String log = log(continueSpan);
-		boolean hasLog = StringUtils.hasText(log);
+		boolean hasLog = plan.hasLog();
 		try {
-			if (newSpan != null) {
-				span = spanCreator().createSpan(invocation, newSpan);
+			if (plan.newSpan != null) {
+				span = createSpan(invocation, plan);
 			}
 			if (hasLog) {
-				logEvent(span, log + ".before");
+				logEvent(span, plan.beforeEvent);
+			}
+			if (plan.taggedParameters.length > 0) {
+				spanTagAnnotationHandler().addAnnotatedParameters(plan,
+						invocation.getArguments());
 			}
-			spanTagAnnotationHandler().addAnnotatedParameters(invocation);
 			return invocation.proceed();
 		} catch (Exception e) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Exception occurred while trying to continue the pointcut", e);
 			}
 			if (hasLog) {
-				logEvent(span, log + ".afterFailure");
+				logEvent(span, plan.afterFailureEvent);
 			}
 			errorParser().parseErrorTags(tracer().getCurrentSpan(), e);
 			throw e;
 		} finally {
 			if (span != null) {
 				if (hasLog) {
-					logEvent(span, log + ".after");
+					logEvent(span, plan.afterEvent);
 				}
-				if (newSpan != null) {
+				if (plan.newSpan != null) {
 					tracer().close(span);
 				}
 			}
 		}
 	}
 
+	private SleuthInvocationPlan plan(Method method, Class<?> targetClass) {
+		MethodClassKey key = new MethodClassKey(method, targetClass);
+		SleuthInvocationPlan plan = this.plans.get(key);
+		if (plan == null) {
+			plan = SleuthInvocationPlan.of(method, targetClass, spanTagAnnotationHandler());
+			this.plans.put(key, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * The default creator gets the precomputed span name, custom ones the annotation
+	 */
+	private Span createSpan(MethodInvocation invocation, SleuthInvocationPlan plan) {
+		SpanCreator spanCreator = spanCreator();
+		if (spanCreator instanceof DefaultSpanCreator) {
+			return ((DefaultSpanCreator) spanCreator).createSpan(plan.spanName);
+		}
+		return spanCreator.createSpan(invocation, plan.newSpan);
+	}
+
 	private void logEvent(Span span, String name) {
 		if (span == null) {
 			logger.warn("You were trying to continue a span which was null. Please "
@@ -236,13 +290,6 @@ class SleuthInterceptor  implements IntroductionInterceptor, BeanFactoryAware  {
 		span.logEvent(name);
 	}
 
-	private String log(ContinueSpan continueSpan) {
-		if (continueSpan != null) {
-			return continueSpan.log();
-		}
-		return "";
-	}
-
 	private Tracer tracer() {
 		if (this.tracer == null) {
 			this.tracer = this.beanFactory.getBean(Tracer.class);
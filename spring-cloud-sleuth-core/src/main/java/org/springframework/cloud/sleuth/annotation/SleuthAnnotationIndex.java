@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.annotation;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Compile time index of the classes and interfaces that declare methods annotated
+ * with {@link NewSpan} or {@link ContinueSpan}. It's generated by the
+ * {@code spring-cloud-sleuth-indexer} annotation processor to
+ * {@value #INDEX_LOCATION}. It's only used when
+ * {@code spring.sleuth.annotation.use-index} is {@code true}, in which case only the
+ * indexed types are considered, so every module with Sleuth annotated methods has to
+ * be compiled with the processor.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class SleuthAnnotationIndex {
+
+	private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
+
+	static final String INDEX_LOCATION = "META-INF/spring-cloud-sleuth.index";
+
+	private final Map<String, Set<String>> methodsByClass;
+
+	SleuthAnnotationIndex(Map<String, Set<String>> methodsByClass) {
+		this.methodsByClass = methodsByClass;
+	}
+
+	/**
+	 * Loads and merges all indexes visible to the given class loader.
+	 *
+	 * @return the index or {@code null} if there is none or it can't be read, in which
+	 * case the bean classes should be scanned
+	 */
+	static SleuthAnnotationIndex load(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader != null ?
+					classLoader.getResources(INDEX_LOCATION) :
+					ClassLoader.getSystemResources(INDEX_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return null;
+			}
+			Map<String, Set<String>> methodsByClass = new HashMap<>();
+			while (urls.hasMoreElements()) {
+				Properties properties = PropertiesLoaderUtils
+						.loadProperties(new UrlResource(urls.nextElement()));
+				for (String className : properties.stringPropertyNames()) {
+					Set<String> methods = methodsByClass.get(className);
+					if (methods == null) {
+						methods = new HashSet<>();
+						methodsByClass.put(className, methods);
+					}
+					methods.addAll(StringUtils.commaDelimitedListToSet(
+							properties.getProperty(className)));
+				}
+			}
+			return new SleuthAnnotationIndex(methodsByClass);
+		}
+		catch (IOException e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Unable to load the Sleuth annotation index, will scan the classes instead", e);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * @return {@code true} if the class, one of its superclasses or interfaces is indexed
+	 */
+	boolean hasAnnotatedMethods(Class<?> clazz) {
+		for (Class<?> type : hierarchy(clazz)) {
+			if (this.methodsByClass.containsKey(type.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return {@code false} if no type in the hierarchy of the class has an annotated
+	 * method with the given name
+	 */
+	boolean mayBeAnnotated(String methodName, Class<?> clazz) {
+		for (Class<?> type : hierarchy(clazz)) {
+			Set<String> methods = this.methodsByClass.get(type.getName());
+			if (methods != null && methods.contains(methodName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Set<Class<?>> hierarchy(Class<?> clazz) {
+		Set<Class<?>> types = new HashSet<>();
+		for (Class<?> type = clazz; type != null && type != Object.class;
+				type = type.getSuperclass()) {
+			types.add(type);
+			Collections.addAll(types, ClassUtils.getAllInterfacesForClass(type));
+		}
+		return types;
+	}
+}
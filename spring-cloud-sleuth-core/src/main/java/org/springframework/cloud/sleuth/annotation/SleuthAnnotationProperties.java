@@ -29,6 +29,14 @@ public class SleuthAnnotationProperties {
 
 	private boolean enabled = true;
 
+	/**
+	 * Use the index generated by the spring-cloud-sleuth-indexer annotation processor,
+	 * if present, instead of scanning the methods of all bean classes. Only enable it
+	 * if all modules with Sleuth annotated methods are compiled with the processor,
+	 * since the types missing from the index aren't traced.
+	 */
+	private boolean useIndex = false;
+
 	public boolean isEnabled() {
 		return this.enabled;
 	}
@@ -36,4 +44,12 @@ public class SleuthAnnotationProperties {
 	public void setEnabled(boolean enabled) {
 		this.enabled = enabled;
 	}
+
+	public boolean isUseIndex() {
+		return this.useIndex;
+	}
+
+	public void setUseIndex(boolean useIndex) {
+		this.useIndex = useIndex;
+	}
 }
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cloud.sleuth.util.SpanNameUtil;
+import org.springframework.util.StringUtils;
+
+/**
+ * Everything {@link SleuthInterceptor} needs to know about an invoked method that
+ * doesn't change between invocations: the Sleuth annotations of the most specific
+ * method, the name of the new span, the events to log and the parameters annotated
+ * with {@link SpanTag} (on the method itself, on the interfaces of the target class
+ * and on the invoked method), together with the resolvers of their tag values.
+ * Computed once per method and target class.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class SleuthInvocationPlan {
+
+	final NewSpan newSpan; // Nullable
+	final ContinueSpan continueSpan; // Nullable
+	final String spanName; // Nullable
+	final String beforeEvent; // Nullable
+	final String afterEvent; // Nullable
+	final String afterFailureEvent; // Nullable
+	final TaggedParameter[] taggedParameters;
+
+	private SleuthInvocationPlan(Method method, NewSpan newSpan, ContinueSpan continueSpan,
+			TaggedParameter[] taggedParameters) {
+		this.newSpan = newSpan;
+		this.continueSpan = continueSpan;
+		this.spanName = newSpan != null ? spanName(method, newSpan) : null;
+		String log = continueSpan != null ? continueSpan.log() : "";
+		boolean hasLog = StringUtils.hasText(log);
+		this.beforeEvent = hasLog ? log + ".before" : null;
+		this.afterEvent = hasLog ? log + ".after" : null;
+		this.afterFailureEvent = hasLog ? log + ".afterFailure" : null;
+		this.taggedParameters = taggedParameters;
+	}
+
+	static SleuthInvocationPlan of(Method method, Class<?> targetClass,
+			SpanTagAnnotationHandler spanTagAnnotationHandler) {
+		Method mostSpecificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+		NewSpan newSpan = SleuthAnnotationUtils.findAnnotation(mostSpecificMethod, NewSpan.class);
+		ContinueSpan continueSpan = SleuthAnnotationUtils.findAnnotation(mostSpecificMethod,
+				ContinueSpan.class);
+		if (newSpan == null && continueSpan == null) {
+			return new SleuthInvocationPlan(method, null, null, new TaggedParameter[0]);
+		}
+		return new SleuthInvocationPlan(method, newSpan, continueSpan,
+				taggedParameters(method, mostSpecificMethod, targetClass,
+						spanTagAnnotationHandler));
+	}
+
+	boolean isAnnotated() {
+		return this.newSpan != null || this.continueSpan != null;
+	}
+
+	boolean hasLog() {
+		return this.beforeEvent != null;
+	}
+
+	/**
+	 * Same name as the one of {@link DefaultSpanCreator}
+	 */
+	private static String spanName(Method method, NewSpan newSpan) {
+		String name = StringUtils.isEmpty(newSpan.name()) ? method.getName() : newSpan.name();
+		return SpanNameUtil.toLowerHyphen(name);
+	}
+
+	/**
+	 * Parameters of the most specific method come first, then the ones of the matching
+	 * interface methods and of the invoked method, if a parameter isn't tagged yet
+	 */
+	private static TaggedParameter[] taggedParameters(Method method,
+			Method mostSpecificMethod, Class<?> targetClass,
+			SpanTagAnnotationHandler spanTagAnnotationHandler) {
+		List<TaggedParameter> tagged = new ArrayList<>();
+		merge(tagged, mostSpecificMethod, spanTagAnnotationHandler);
+		for (Class<?> implementedInterface : targetClass.getInterfaces()) {
+			for (Method methodFromInterface : implementedInterface.getMethods()) {
+				if (methodFromInterface.getName().equals(mostSpecificMethod.getName())
+						&& Arrays.equals(methodFromInterface.getParameterTypes(),
+						mostSpecificMethod.getParameterTypes())) {
+					merge(tagged, methodFromInterface, spanTagAnnotationHandler);
+				}
+			}
+		}
+		// that can happen if we have an abstraction and a concrete class that is
+		// annotated with @NewSpan annotation
+		if (!method.equals(mostSpecificMethod)) {
+			merge(tagged, method, spanTagAnnotationHandler);
+		}
+		return tagged.toArray(new TaggedParameter[tagged.size()]);
+	}
+
+	private static void merge(List<TaggedParameter> tagged, Method method,
+			SpanTagAnnotationHandler spanTagAnnotationHandler) {
+		Annotation[][] parameters = method.getParameterAnnotations();
+		for (int i = 0; i < parameters.length; i++) {
+			for (Annotation annotation : parameters[i]) {
+				if (annotation instanceof SpanTag && !contains(tagged, i)) {
+					tagged.add(spanTagAnnotationHandler.taggedParameter(i, (SpanTag) annotation));
+				}
+			}
+		}
+	}
+
+	private static boolean contains(List<TaggedParameter> tagged, int index) {
+		for (TaggedParameter parameter : tagged) {
+			if (parameter.parameterIndex == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A parameter of the method annotated with {@link SpanTag}, with the resolver or
+	 * the expression giving the value of its tag. If there's neither, the value is the
+	 * argument's {@code toString()}.
+	 */
+	static final class TaggedParameter {
+		final int parameterIndex;
+		final String tagName;
+		final TagValueResolver resolver; // Nullable
+		final String expression; // Nullable
+
+		TaggedParameter(int parameterIndex, String tagName, TagValueResolver resolver,
+				String expression) {
+			this.parameterIndex = parameterIndex;
+			this.tagName = tagName;
+			this.resolver = resolver;
+			this.expression = expression;
+		}
+	}
+}
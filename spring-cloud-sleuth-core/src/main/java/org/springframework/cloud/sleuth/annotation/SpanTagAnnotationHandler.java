@@ -16,129 +16,76 @@
 
 package org.springframework.cloud.sleuth.annotation;
 
-import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.List;
-
-import org.aopalliance.intercept.MethodInvocation;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.util.StringUtils;
 
 /**
- * This class is able to find all methods annotated with the
- * Sleuth annotations. All methods mean that if you have both an interface
- * and an implementation annotated with Sleuth annotations then this class is capable
- * of finding both of them and merging into one set of tracing information.
- *
- * This information is then used to add proper tags to the span from the
- * method arguments that are annotated with {@link SpanTag}.
+ * Adds tags to the current span from the method arguments that are annotated with
+ * {@link SpanTag}. The annotated parameters are found once per method by
+ * {@link SleuthInvocationPlan}, which gets the resolvers of their tag values from
+ * {@link #taggedParameter(int, SpanTag)}. If you have both an interface and an
+ * implementation annotated with Sleuth annotations then both of them are merged into
+ * one set of tracing information.
  *
  * @author Christian Schwerdtfeger
  * @since 1.2.0
  */
 class SpanTagAnnotationHandler {
 
-	private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
-
 	private final BeanFactory beanFactory;
 	private Tracer tracer;
+	private TagValueExpressionResolver tagValueExpressionResolver;
 	
 	SpanTagAnnotationHandler(BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
 	}
 
-	void addAnnotatedParameters(MethodInvocation pjp) {
-		try {
-			Method method = pjp.getMethod();
-			Method mostSpecificMethod = AopUtils.getMostSpecificMethod(method,
-					pjp.getThis().getClass());
-			List<SleuthAnnotatedParameter> annotatedParameters =
-					SleuthAnnotationUtils.findAnnotatedParameters(mostSpecificMethod, pjp.getArguments());
-			getAnnotationsFromInterfaces(pjp, mostSpecificMethod, annotatedParameters);
-			mergeAnnotatedMethodsIfNecessary(pjp, method, mostSpecificMethod,
-					annotatedParameters);
-			addAnnotatedArguments(annotatedParameters);
-		} catch (SecurityException e) {
-			log.error("Exception occurred while trying to add annotated parameters", e);
-		}
-	}
-
-	private void getAnnotationsFromInterfaces(MethodInvocation pjp,
-			Method mostSpecificMethod,
-			List<SleuthAnnotatedParameter> annotatedParameters) {
-		Class<?>[] implementedInterfaces = pjp.getThis().getClass().getInterfaces();
-		if (implementedInterfaces.length > 0) {
-			for (Class<?> implementedInterface : implementedInterfaces) {
-				for (Method methodFromInterface : implementedInterface.getMethods()) {
-					if (methodsAreTheSame(mostSpecificMethod, methodFromInterface)) {
-						List<SleuthAnnotatedParameter> annotatedParametersForActualMethod =
-								SleuthAnnotationUtils.findAnnotatedParameters(methodFromInterface, pjp.getArguments());
-						mergeAnnotatedParameters(annotatedParameters, annotatedParametersForActualMethod);
-					}
-				}
-			}
-		}
-	}
-
-	private boolean methodsAreTheSame(Method mostSpecificMethod, Method method1) {
-		return method1.getName().equals(mostSpecificMethod.getName()) &&
-				Arrays.equals(method1.getParameterTypes(), mostSpecificMethod.getParameterTypes());
-	}
-
-	private void mergeAnnotatedMethodsIfNecessary(MethodInvocation pjp, Method method,
-			Method mostSpecificMethod, List<SleuthAnnotatedParameter> annotatedParameters) {
-		// that can happen if we have an abstraction and a concrete class that is
-		// annotated with @NewSpan annotation
-		if (!method.equals(mostSpecificMethod)) {
-			List<SleuthAnnotatedParameter> annotatedParametersForActualMethod = SleuthAnnotationUtils.findAnnotatedParameters(
-					method, pjp.getArguments());
-			mergeAnnotatedParameters(annotatedParameters, annotatedParametersForActualMethod);
-		}
-	}
-
-	private void mergeAnnotatedParameters(List<SleuthAnnotatedParameter> annotatedParametersIndices,
-			List<SleuthAnnotatedParameter> annotatedParametersIndicesForActualMethod) {
-		for (SleuthAnnotatedParameter container : annotatedParametersIndicesForActualMethod) {
-			final int index = container.parameterIndex;
-			boolean parameterContained = false;
-			for (SleuthAnnotatedParameter parameterContainer : annotatedParametersIndices) {
-				if (parameterContainer.parameterIndex == index) {
-					parameterContained = true;
-					break;
-				}
-			}
-			if (!parameterContained) {
-				annotatedParametersIndices.add(container);
-			}
+	/**
+	 * Resolves how the value of the tag of an annotated parameter is computed. Called
+	 * once per parameter when the {@link SleuthInvocationPlan} is built.
+	 */
+	SleuthInvocationPlan.TaggedParameter taggedParameter(int parameterIndex, SpanTag annotation) {
+		if (annotation.resolver() != NoOpTagValueResolver.class) {
+			return new SleuthInvocationPlan.TaggedParameter(parameterIndex, annotation.value(),
+					this.beanFactory.getBean(annotation.resolver()), null);
 		}
+		String expression = StringUtils.hasText(annotation.expression()) ?
+				annotation.expression() : null;
+		return new SleuthInvocationPlan.TaggedParameter(parameterIndex, annotation.value(),
+				null, expression);
 	}
 
-	private void addAnnotatedArguments(List<SleuthAnnotatedParameter> toBeAdded) {
-		for (SleuthAnnotatedParameter container : toBeAdded) {
-			String tagValue = resolveTagValue(container.annotation, container.argument);
-			tracer().addTag(container.annotation.value(), tagValue);
+	/**
+	 * Tags the current span with the arguments of the parameters of the plan
+	 */
+	void addAnnotatedParameters(SleuthInvocationPlan plan, Object[] arguments) {
+		for (SleuthInvocationPlan.TaggedParameter parameter : plan.taggedParameters) {
+			String tagValue = resolveTagValue(parameter, arguments[parameter.parameterIndex]);
+			tracer().addTag(parameter.tagName, tagValue);
 		}
 	}
 
-	String resolveTagValue(SpanTag annotation, Object argument) {
+	String resolveTagValue(SleuthInvocationPlan.TaggedParameter parameter, Object argument) {
 		if (argument == null) {
 			return "";
 		}
-		if (annotation.resolver() != NoOpTagValueResolver.class) {
-			TagValueResolver tagValueResolver = this.beanFactory.getBean(annotation.resolver());
-			return tagValueResolver.resolve(argument);
-		} else if (StringUtils.hasText(annotation.expression())) {
-			return this.beanFactory.getBean(TagValueExpressionResolver.class)
-					.resolve(annotation.expression(), argument);
+		if (parameter.resolver != null) {
+			return parameter.resolver.resolve(argument);
+		} else if (parameter.expression != null) {
+			return tagValueExpressionResolver().resolve(parameter.expression, argument);
 		}
 		return argument.toString();
 	}
 
+	private TagValueExpressionResolver tagValueExpressionResolver() {
+		if (this.tagValueExpressionResolver == null) {
+			this.tagValueExpressionResolver = this.beanFactory
+					.getBean(TagValueExpressionResolver.class);
+		}
+		return this.tagValueExpressionResolver;
+	}
+
 	private Tracer tracer() {
 		if (this.tracer == null) {
 			this.tracer = this.beanFactory.getBean(Tracer.class);
@@ -17,16 +17,21 @@
 package org.springframework.cloud.sleuth.annotation;
 
 import java.lang.invoke.MethodHandles;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 /**
  * Uses SPEL to evaluate the expression. If an exception is thrown will return
- * the {@code toString()} of the parameter.
+ * the {@code toString()} of the parameter. Expressions are parsed once and compiled
+ * to bytecode once they have been interpreted a few times, where SPEL supports it.
  *
  * @author Marcin Grzejszczak
  * @since 1.2.0
@@ -34,15 +39,28 @@ import org.springframework.expression.spel.standard.SpelExpressionParser;
 class SpelTagValueExpressionResolver implements TagValueExpressionResolver {
 	private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
 
+	private final ExpressionParser expressionParser = new SpelExpressionParser(
+			new SpelParserConfiguration(SpelCompilerMode.MIXED,
+					SpelTagValueExpressionResolver.class.getClassLoader()));
+	// expressions come from annotations, so there's a fixed number of them
+	private final ConcurrentMap<String, Expression> expressions = new ConcurrentHashMap<>();
+
 	@Override
 	public String resolve(String expression, Object parameter) {
 		try {
-			ExpressionParser expressionParser = new SpelExpressionParser();
-			Expression expressionToEvaluate = expressionParser.parseExpression(expression);
-			return expressionToEvaluate.getValue(parameter, String.class);
+			return expression(expression).getValue(parameter, String.class);
 		} catch (Exception e) {
 			log.error("Exception occurred while tying to evaluate the SPEL expression [" + expression + "]", e);
 		}
 		return parameter.toString();
 	}
+
+	private Expression expression(String expression) {
+		Expression parsed = this.expressions.get(expression);
+		if (parsed == null) {
+			parsed = this.expressionParser.parseExpression(expression);
+			this.expressions.put(expression, parsed);
+		}
+		return parsed;
+	}
 }
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.sleuth.autoconfig;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +33,7 @@ import org.springframework.cloud.sleuth.Sampler;
 import org.springframework.cloud.sleuth.SpanAdjuster;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.SpanReporterDecorator;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.log.SpanLogger;
@@ -38,6 +41,7 @@ import org.springframework.cloud.sleuth.sampler.NeverSampler;
 import org.springframework.cloud.sleuth.trace.DefaultTracer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 
 /**
  * {@link org.springframework.boot.autoconfigure.EnableAutoConfiguration Auto-configuration}
@@ -53,6 +57,8 @@ import org.springframework.context.annotation.Configuration;
 public class TraceAutoConfiguration {
 	@Autowired
 	SleuthProperties properties;
+	@Autowired(required = false)
+	List<SpanReporterDecorator> spanReporterDecorators = new ArrayList<>();
 
 	@Bean
 	@ConditionalOnMissingBean
@@ -72,7 +78,17 @@ public class TraceAutoConfiguration {
 			SpanNamer spanNamer, SpanLogger spanLogger,
 			SpanReporter spanReporter, TraceKeys traceKeys) {
 		return new DefaultTracer(sampler, random, spanNamer, spanLogger,
-				spanReporter, this.properties.isTraceId128(), traceKeys);
+				decorate(spanReporter), this.properties.isTraceId128(), traceKeys);
+	}
+
+	private SpanReporter decorate(SpanReporter spanReporter) {
+		List<SpanReporterDecorator> decorators = new ArrayList<>(this.spanReporterDecorators);
+		AnnotationAwareOrderComparator.sort(decorators);
+		SpanReporter decorated = spanReporter;
+		for (SpanReporterDecorator decorator : decorators) {
+			decorated = decorator.decorate(decorated);
+		}
+		return decorated;
 	}
 
 	@Bean
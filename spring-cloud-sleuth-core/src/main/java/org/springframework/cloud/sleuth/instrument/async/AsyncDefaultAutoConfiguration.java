@@ -17,15 +17,23 @@
 package org.springframework.cloud.sleuth.instrument.async;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.AsyncTaskMetrics;
+import org.springframework.cloud.sleuth.metric.AsyncTaskPublicMetrics;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.SimpleAsyncTaskExecutor;
@@ -43,12 +51,14 @@ import org.springframework.scheduling.annotation.EnableAsync;
  *
  * @see LazyTraceExecutor
  * @see TraceAsyncAspect
+ * @see TraceableForkJoinPool
  */
 @EnableAsync
 @Configuration
 @ConditionalOnProperty(value = "spring.sleuth.async.enabled", matchIfMissing = true)
 @ConditionalOnBean(Tracer.class)
 @AutoConfigureAfter(AsyncCustomAutoConfiguration.class)
+@EnableConfigurationProperties(SleuthAsyncProperties.class)
 public class AsyncDefaultAutoConfiguration {
 
 	@Autowired private BeanFactory beanFactory;
@@ -76,4 +86,42 @@ public class AsyncDefaultAutoConfiguration {
 		return new ExecutorBeanPostProcessor(this.beanFactory);
 	}
 
+	@Configuration
+	@ConditionalOnProperty("spring.sleuth.async.common-pool.enabled")
+	@ConditionalOnJava(ConditionalOnJava.JavaVersion.EIGHT)
+	static class TraceableCommonPoolConfiguration {
+
+		// the common pool isn't owned by the context, so it's not shut down with it
+		@Bean(destroyMethod = "")
+		@ConditionalOnMissingBean(ForkJoinPool.class)
+		public TraceableForkJoinPool traceableCommonPool(Tracer tracer) {
+			return TraceableForkJoinPool.commonPool(tracer);
+		}
+	}
+
+	@Configuration
+	@ConditionalOnProperty(value = { "spring.sleuth.async.context-only",
+			"spring.sleuth.async.metrics.enabled" })
+	static class AsyncTaskMetricsConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public AsyncTaskMetrics asyncTaskMetrics(SleuthAsyncProperties sleuthAsyncProperties) {
+			return new AsyncTaskMetrics(sleuthAsyncProperties.getMetrics().getInterval(),
+					TimeUnit.SECONDS);
+		}
+
+		@Configuration
+		@ConditionalOnProperty(value = { "spring.sleuth.async.context-only",
+				"spring.sleuth.async.metrics.enabled" })
+		@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+		static class AsyncTaskPublicMetricsConfiguration {
+
+			@Bean
+			public PublicMetrics asyncTaskPublicMetrics(AsyncTaskMetrics asyncTaskMetrics) {
+				return new AsyncTaskPublicMetrics(asyncTaskMetrics);
+			}
+		}
+	}
+
 }
\ No newline at end of file
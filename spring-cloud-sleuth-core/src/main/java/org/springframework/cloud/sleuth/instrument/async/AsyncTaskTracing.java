@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.AsyncTaskMetrics;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolves, once per executor, whether its tasks should only propagate the tracing
+ * context (see {@link SleuthAsyncProperties#isContextOnly()}) and wraps the tasks
+ * accordingly. Tasks submitted without a current span and without metrics to record
+ * are not wrapped at all. The settings are looked up lazily, since executors are often
+ * created before the rest of the tracing beans.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+class AsyncTaskTracing {
+
+	private static final Settings SPAN_PER_TASK = new Settings(false, null);
+
+	// Nullable
+	private final BeanFactory beanFactory;
+	private final String executorName;
+	private volatile Settings settings;
+
+	AsyncTaskTracing(BeanFactory beanFactory, String executorName) {
+		this.beanFactory = beanFactory;
+		this.executorName = executorName;
+	}
+
+	boolean isContextOnly() {
+		return settings().contextOnly;
+	}
+
+	/**
+	 * @return {@code true} if in the context-only mode there is nothing to propagate or
+	 * record, in which case {@link #wrap} returns the task itself
+	 */
+	boolean isPassThrough(Tracer tracer) {
+		return settings().recorder == null && !tracer.isTracing();
+	}
+
+	Runnable wrap(Tracer tracer, Runnable task) {
+		if (isPassThrough(tracer)) {
+			return task;
+		}
+		return new ContextPropagatingTraceRunnable(tracer, task, settings().recorder);
+	}
+
+	<T> Callable<T> wrap(Tracer tracer, Callable<T> task) {
+		if (isPassThrough(tracer)) {
+			return task;
+		}
+		return new ContextPropagatingTraceCallable<>(tracer, task, settings().recorder);
+	}
+
+	/**
+	 * Like {@link #wrap(Tracer, Runnable)}, but for a task that is scheduled with a delay
+	 * or run periodically, whose queue wait time isn't recorded
+	 */
+	Runnable wrapScheduled(Tracer tracer, Runnable task) {
+		if (isPassThrough(tracer)) {
+			return task;
+		}
+		return new ContextPropagatingTraceRunnable(tracer, task, settings().recorder)
+				.scheduled();
+	}
+
+	<T> Callable<T> wrapScheduled(Tracer tracer, Callable<T> task) {
+		if (isPassThrough(tracer)) {
+			return task;
+		}
+		return new ContextPropagatingTraceCallable<>(tracer, task, settings().recorder)
+				.scheduled();
+	}
+
+	private Settings settings() {
+		Settings settings = this.settings;
+		if (settings == null) {
+			settings = resolve();
+			this.settings = settings;
+		}
+		return settings;
+	}
+
+	private Settings resolve() {
+		if (this.beanFactory == null) {
+			return SPAN_PER_TASK;
+		}
+		SleuthAsyncProperties properties;
+		try {
+			properties = this.beanFactory.getBean(SleuthAsyncProperties.class);
+		}
+		catch (NoSuchBeanDefinitionException e) {
+			return SPAN_PER_TASK;
+		}
+		if (!properties.isContextOnly()) {
+			return SPAN_PER_TASK;
+		}
+		AsyncTaskMetrics.Recorder recorder = null;
+		if (properties.getMetrics().isEnabled()) {
+			try {
+				recorder = this.beanFactory.getBean(AsyncTaskMetrics.class)
+						.recorder(this.executorName);
+			}
+			catch (NoSuchBeanDefinitionException e) {
+				// metrics are optional
+			}
+		}
+		return new Settings(true, recorder);
+	}
+
+	/**
+	 * @return name under which the tasks of an executor without a bean name are recorded
+	 */
+	static String executorName(Object executor) {
+		String name = executor != null ?
+				ClassUtils.getUserClass(executor).getSimpleName() : null;
+		return StringUtils.hasText(name) ? StringUtils.uncapitalize(name) : "executor";
+	}
+
+	private static final class Settings {
+		final boolean contextOnly;
+		// Nullable
+		final AsyncTaskMetrics.Recorder recorder;
+
+		Settings(boolean contextOnly, AsyncTaskMetrics.Recorder recorder) {
+			this.contextOnly = contextOnly;
+			this.recorder = recorder;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceCallable;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.AsyncTaskMetrics;
+
+/**
+ * Callable that only continues the span that was current when it was created. Unlike
+ * {@link SpanContinuingTraceCallable} it doesn't create a span if there was none.
+ * Optionally records the number, queue wait time and duration of the calls.
+ * <p>
+ * If the task runs on a thread where the span is already current, e.g. on the caller's
+ * thread with a {@code CallerRunsPolicy}, the context is left untouched. Otherwise the
+ * span that was current on the thread before is restored afterwards.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class ContextPropagatingTraceCallable<V> extends TraceCallable<V> {
+
+	// Nullable
+	private final AsyncTaskMetrics.Recorder recorder;
+	private final long enqueuedNanos;
+	private boolean recordQueueWait = true;
+
+	public ContextPropagatingTraceCallable(Tracer tracer, Callable<V> delegate) {
+		this(tracer, delegate, null);
+	}
+
+	public ContextPropagatingTraceCallable(Tracer tracer, Callable<V> delegate,
+			AsyncTaskMetrics.Recorder recorder) {
+		super(tracer, null, delegate);
+		this.recorder = recorder;
+		this.enqueuedNanos = recorder != null ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records no queue wait time, for tasks that are scheduled with a delay or run
+	 * periodically.
+	 */
+	ContextPropagatingTraceCallable<V> scheduled() {
+		this.recordQueueWait = false;
+		return this;
+	}
+
+	@Override
+	public V call() throws Exception {
+		Span previous = getTracer().getCurrentSpan();
+		Span span = getParent() != null && !getParent().equals(previous) ?
+				continueSpan(getParent()) : null;
+		long start = this.recorder != null ? System.nanoTime() : 0;
+		boolean error = true;
+		try {
+			V result = this.getDelegate().call();
+			error = false;
+			return result;
+		}
+		finally {
+			if (span != null) {
+				detachSpan(span);
+				if (previous != null) {
+					continueSpan(previous);
+				}
+			}
+			if (this.recorder != null) {
+				this.recorder.record(this.recordQueueWait ? this.enqueuedNanos : start,
+						start, error);
+			}
+		}
+	}
+}
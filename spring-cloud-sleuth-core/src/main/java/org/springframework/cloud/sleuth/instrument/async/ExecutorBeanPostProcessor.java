@@ -18,6 +18,9 @@ package org.springframework.cloud.sleuth.instrument.async;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 
 import org.aopalliance.intercept.MethodInterceptor;
@@ -26,6 +29,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.aop.framework.AopConfigException;
 import org.springframework.aop.framework.ProxyFactoryBean;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.BeanPostProcessor;
@@ -59,20 +63,21 @@ class ExecutorBeanPostProcessor implements BeanPostProcessor {
 	@Override
 	public Object postProcessAfterInitialization(Object bean, String beanName)
 			throws BeansException {
-		if (bean instanceof Executor && !(bean instanceof ThreadPoolTaskExecutor)) {
+		if (bean instanceof Executor && !(bean instanceof ThreadPoolTaskExecutor)
+				&& !(bean instanceof TraceableForkJoinPool)) {
 			Method execute = ReflectionUtils.findMethod(bean.getClass(), "execute", Runnable.class);
 			boolean methodFinal = Modifier.isFinal(execute.getModifiers());
 			boolean classFinal = Modifier.isFinal(bean.getClass().getModifiers());
 			boolean cglibProxy = !methodFinal && !classFinal;
 			Executor executor = (Executor) bean;
 			try {
-				return createProxy(bean, cglibProxy, executor);
+				return createProxy(bean, cglibProxy, executor, beanName);
 			} catch (AopConfigException e) {
 				if (cglibProxy) {
 					if (log.isDebugEnabled()) {
 						log.debug("Exception occurred while trying to create a proxy, falling back to JDK proxy", e);
 					}
-					return createProxy(bean, false, executor);
+					return createProxy(bean, false, executor, beanName);
 				}
 				throw e;
 			}
@@ -80,18 +85,19 @@ class ExecutorBeanPostProcessor implements BeanPostProcessor {
 			boolean classFinal = Modifier.isFinal(bean.getClass().getModifiers());
 			boolean cglibProxy = !classFinal;
 			ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) bean;
-			return createThreadPoolTaskExecutorProxy(bean, cglibProxy, executor);
+			return createThreadPoolTaskExecutorProxy(bean, cglibProxy, executor, beanName);
 		}
 		return bean;
 	}
 
 	Object createThreadPoolTaskExecutorProxy(Object bean, boolean cglibProxy,
-			ThreadPoolTaskExecutor executor) {
+			ThreadPoolTaskExecutor executor, String beanName) {
 		ProxyFactoryBean factory = new ProxyFactoryBean();
 		factory.setProxyTargetClass(cglibProxy);
-		factory.addAdvice(new ExecutorMethodInterceptor<ThreadPoolTaskExecutor>(executor, this.beanFactory) {
-			@Override Executor executor(BeanFactory beanFactory, ThreadPoolTaskExecutor executor) {
-				return new LazyTraceThreadPoolTaskExecutor(beanFactory, executor);
+		factory.addAdvice(new ExecutorMethodInterceptor<ThreadPoolTaskExecutor>(executor, this.beanFactory, beanName) {
+			@Override Executor executor(BeanFactory beanFactory, ThreadPoolTaskExecutor executor,
+					String beanName) {
+				return new LazyTraceThreadPoolTaskExecutor(beanFactory, executor, beanName);
 			}
 		});
 		factory.setTarget(bean);
@@ -99,42 +105,92 @@ class ExecutorBeanPostProcessor implements BeanPostProcessor {
 	}
 
 	@SuppressWarnings("unchecked")
-	Object createProxy(Object bean, boolean cglibProxy, Executor executor) {
+	Object createProxy(Object bean, boolean cglibProxy, Executor executor, String beanName) {
 		ProxyFactoryBean factory = new ProxyFactoryBean();
 		factory.setProxyTargetClass(cglibProxy);
-		factory.addAdvice(new ExecutorMethodInterceptor(executor, this.beanFactory));
+		factory.addAdvice(new ExecutorMethodInterceptor(executor, this.beanFactory, beanName));
 		factory.setTarget(bean);
 		return factory.getObject();
 	}
 }
 
+/**
+ * Redirects the calls on the proxied executor to its traced counterpart. The traced
+ * executor is created once per bean and the method to call on it is resolved once
+ * per invoked method. {@link Executor#execute(Runnable)} is called directly.
+ */
 class ExecutorMethodInterceptor<T extends Executor> implements MethodInterceptor {
 
 	private final T delegate;
 	private final BeanFactory beanFactory;
+	private final String beanName;
+	private final ConcurrentMap<Method, TracedMethod> tracedMethods =
+			new ConcurrentHashMap<>();
+	private volatile Executor tracedExecutor;
 
-	ExecutorMethodInterceptor(T delegate, BeanFactory beanFactory) {
+	ExecutorMethodInterceptor(T delegate, BeanFactory beanFactory, String beanName) {
 		this.delegate = delegate;
 		this.beanFactory = beanFactory;
+		this.beanName = beanName;
 	}
 
 	@Override public Object invoke(MethodInvocation invocation)
 			throws Throwable {
-		Executor executor = executor(this.beanFactory, this.delegate);
-		Method methodOnTracedBean = getMethod(invocation, executor);
-		if (methodOnTracedBean != null) {
-			return methodOnTracedBean.invoke(executor, invocation.getArguments());
+		Executor executor = tracedExecutor();
+		TracedMethod tracedMethod = tracedMethod(invocation.getMethod(), executor);
+		if (tracedMethod.execute) {
+			executor.execute((Runnable) invocation.getArguments()[0]);
+			return null;
+		}
+		if (tracedMethod.method != null) {
+			return AopUtils.invokeJoinpointUsingReflection(executor,
+					tracedMethod.method, invocation.getArguments());
 		}
 		return invocation.proceed();
 	}
 
-	private Method getMethod(MethodInvocation invocation, Object object) {
-		Method method = invocation.getMethod();
-		return ReflectionUtils
-				.findMethod(object.getClass(), method.getName(), method.getParameterTypes());
+	private Executor tracedExecutor() {
+		Executor executor = this.tracedExecutor;
+		if (executor == null) {
+			executor = executor(this.beanFactory, this.delegate, this.beanName);
+			this.tracedExecutor = executor;
+		}
+		return executor;
+	}
+
+	private TracedMethod tracedMethod(Method method, Executor executor) {
+		TracedMethod tracedMethod = this.tracedMethods.get(method);
+		if (tracedMethod == null) {
+			tracedMethod = TracedMethod.of(ReflectionUtils.findMethod(executor.getClass(),
+					method.getName(), method.getParameterTypes()));
+			this.tracedMethods.put(method, tracedMethod);
+		}
+		return tracedMethod;
 	}
 
-	Executor executor(BeanFactory beanFactory, T executor) {
-		return new LazyTraceExecutor(beanFactory, executor);
+	Executor executor(BeanFactory beanFactory, T executor, String beanName) {
+		return new LazyTraceExecutor(beanFactory, executor, beanName);
+	}
+
+	private static final class TracedMethod {
+		private static final TracedMethod NONE = new TracedMethod(null, false);
+
+		// Nullable
+		final Method method;
+		final boolean execute;
+
+		private TracedMethod(Method method, boolean execute) {
+			this.method = method;
+			this.execute = execute;
+		}
+
+		static TracedMethod of(Method method) {
+			if (method == null) {
+				return NONE;
+			}
+			boolean execute = method.getName().equals("execute")
+					&& Arrays.equals(method.getParameterTypes(), new Class<?>[] { Runnable.class });
+			return new TracedMethod(method, execute);
+		}
 	}
 }
@@ -45,10 +45,19 @@ public class LazyTraceExecutor implements Executor {
 	private final Executor delegate;
 	private TraceKeys traceKeys;
 	private SpanNamer spanNamer;
+	private final AsyncTaskTracing taskTracing;
 
 	public LazyTraceExecutor(BeanFactory beanFactory, Executor delegate) {
+		this(beanFactory, delegate, AsyncTaskTracing.executorName(delegate));
+	}
+
+	/**
+	 * @param name name of the executor under which the metrics of its tasks are recorded
+	 */
+	public LazyTraceExecutor(BeanFactory beanFactory, Executor delegate, String name) {
 		this.beanFactory = beanFactory;
 		this.delegate = delegate;
+		this.taskTracing = new AsyncTaskTracing(beanFactory, name);
 	}
 
 	@Override
@@ -62,6 +71,10 @@ public class LazyTraceExecutor implements Executor {
 				return;
 			}
 		}
+		if (this.taskTracing.isContextOnly()) {
+			this.delegate.execute(this.taskTracing.wrap(this.tracer, command));
+			return;
+		}
 		this.delegate.execute(new SpanContinuingTraceRunnable(this.tracer, traceKeys(), spanNamer(), command));
 	}
 
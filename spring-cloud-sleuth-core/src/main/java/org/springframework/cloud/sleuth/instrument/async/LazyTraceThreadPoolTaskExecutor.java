@@ -48,41 +48,51 @@ public class LazyTraceThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
 	private final ThreadPoolTaskExecutor delegate;
 	private TraceKeys traceKeys;
 	private SpanNamer spanNamer;
+	private final AsyncTaskTracing taskTracing;
 
 	public LazyTraceThreadPoolTaskExecutor(BeanFactory beanFactory,
 			ThreadPoolTaskExecutor delegate) {
+		this(beanFactory, delegate, AsyncTaskTracing.executorName(delegate));
+	}
+
+	/**
+	 * @param name name of the executor under which the metrics of its tasks are recorded
+	 */
+	public LazyTraceThreadPoolTaskExecutor(BeanFactory beanFactory,
+			ThreadPoolTaskExecutor delegate, String name) {
 		this.beanFactory = beanFactory;
 		this.delegate = delegate;
+		this.taskTracing = new AsyncTaskTracing(beanFactory, name);
 	}
 
 	@Override
 	public void execute(Runnable task) {
-		this.delegate.execute(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task));
+		this.delegate.execute(wrap(task));
 	}
 
 	@Override
 	public void execute(Runnable task, long startTimeout) {
-		this.delegate.execute(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task), startTimeout);
+		this.delegate.execute(wrap(task), startTimeout);
 	}
 
 	@Override
 	public Future<?> submit(Runnable task) {
-		return this.delegate.submit(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submit(wrap(task));
 	}
 
 	@Override
 	public <T> Future<T> submit(Callable<T> task) {
-		return this.delegate.submit(new SpanContinuingTraceCallable<>(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submit(wrap(task));
 	}
 
 	@Override
 	public ListenableFuture<?> submitListenable(Runnable task) {
-		return this.delegate.submitListenable(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submitListenable(wrap(task));
 	}
 
 	@Override
 	public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
-		return this.delegate.submitListenable(new SpanContinuingTraceCallable<>(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submitListenable(wrap(task));
 	}
 
 	@Override
@@ -107,6 +117,20 @@ public class LazyTraceThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
 		this.delegate.shutdown();
 	}
 
+	private Runnable wrap(Runnable task) {
+		if (this.taskTracing.isContextOnly()) {
+			return this.taskTracing.wrap(tracer(), task);
+		}
+		return new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task);
+	}
+
+	private <T> Callable<T> wrap(Callable<T> task) {
+		if (this.taskTracing.isContextOnly()) {
+			return this.taskTracing.wrap(tracer(), task);
+		}
+		return new SpanContinuingTraceCallable<>(tracer(), traceKeys(), spanNamer(), task);
+	}
+
 	private Tracer tracer() {
 		if (this.tracer == null) {
 			this.tracer = this.beanFactory.getBean(Tracer.class);
@@ -17,6 +17,7 @@
 package org.springframework.cloud.sleuth.instrument.async;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.SpanNamer;
@@ -25,7 +26,9 @@ import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.TraceKeys;
 
 /**
- * Callable that starts a span that is a local component span.
+ * Callable that starts a span that is a local component span. The time the task
+ * waited for a thread since it was created is added as a tag, unless it's a scheduled
+ * task, which isn't meant to run when it's created.
  *
  * @author Marcin Grzejszczak
  * @since 1.0.0
@@ -35,6 +38,8 @@ public class LocalComponentTraceCallable<V> extends TraceCallable<V> {
 	protected static final String ASYNC_COMPONENT = "async";
 
 	private final TraceKeys traceKeys;
+	private final long enqueuedNanos = System.nanoTime();
+	private boolean tagQueueWait = true;
 
 	public LocalComponentTraceCallable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, Callable<V> delegate) {
@@ -48,6 +53,15 @@ public class LocalComponentTraceCallable<V> extends TraceCallable<V> {
 		this.traceKeys = traceKeys;
 	}
 
+	/**
+	 * Skips the queue wait tag, for tasks that are scheduled with a delay or run
+	 * periodically.
+	 */
+	LocalComponentTraceCallable<V> scheduled() {
+		this.tagQueueWait = false;
+		return this;
+	}
+
 	@Override
 	public V call() throws Exception {
 		Span span = startSpan();
@@ -61,10 +75,16 @@ public class LocalComponentTraceCallable<V> extends TraceCallable<V> {
 
 	@Override
 	protected Span startSpan() {
+		long queueWait = System.nanoTime() - this.enqueuedNanos;
 		Span span = getTracer().createSpan(getSpanName(), getParent());
 		getTracer().addTag(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, ASYNC_COMPONENT);
 		getTracer().addTag(this.traceKeys.getAsync().getPrefix() +
 				this.traceKeys.getAsync().getThreadNameKey(), Thread.currentThread().getName());
+		if (this.tagQueueWait) {
+			getTracer().addTag(this.traceKeys.getAsync().getPrefix() +
+					this.traceKeys.getAsync().getQueueWaitKey(),
+					String.valueOf(TimeUnit.NANOSECONDS.toMicros(queueWait)));
+		}
 		return span;
 	}
 }
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.sleuth.instrument.async;
 
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceRunnable;
@@ -23,7 +25,9 @@ import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.TraceKeys;
 
 /**
- * Runnable that starts a span that is a local component span.
+ * Runnable that starts a span that is a local component span. The time the task
+ * waited for a thread since it was created is added as a tag, unless it's a scheduled
+ * task, which isn't meant to run when it's created.
  *
  * @author Marcin Grzejszczak
  * @since 1.0.0
@@ -33,6 +37,8 @@ public class LocalComponentTraceRunnable extends TraceRunnable {
 	protected static final String ASYNC_COMPONENT = "async";
 
 	private final TraceKeys traceKeys;
+	private final long enqueuedNanos = System.nanoTime();
+	private boolean tagQueueWait = true;
 
 	public LocalComponentTraceRunnable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, Runnable delegate) {
@@ -46,6 +52,15 @@ public class LocalComponentTraceRunnable extends TraceRunnable {
 		this.traceKeys = traceKeys;
 	}
 
+	/**
+	 * Skips the queue wait tag, for tasks that are scheduled with a delay or run
+	 * periodically.
+	 */
+	LocalComponentTraceRunnable scheduled() {
+		this.tagQueueWait = false;
+		return this;
+	}
+
 	@Override
 	public void run() {
 		Span span = startSpan();
@@ -59,10 +74,16 @@ public class LocalComponentTraceRunnable extends TraceRunnable {
 
 	@Override
 	protected Span startSpan() {
+		long queueWait = System.nanoTime() - this.enqueuedNanos;
 		Span span = getTracer().createSpan(getSpanName(), getParent());
 		getTracer().addTag(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, ASYNC_COMPONENT);
 		getTracer().addTag(this.traceKeys.getAsync().getPrefix() +
 				this.traceKeys.getAsync().getThreadNameKey(), Thread.currentThread().getName());
+		if (this.tagQueueWait) {
+			getTracer().addTag(this.traceKeys.getAsync().getPrefix() +
+					this.traceKeys.getAsync().getQueueWaitKey(),
+					String.valueOf(TimeUnit.NANOSECONDS.toMicros(queueWait)));
+		}
 		return span;
 	}
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration properties for the tracing of asynchronous tasks
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+@ConfigurationProperties("spring.sleuth.async")
+public class SleuthAsyncProperties {
+
+	/**
+	 * When true the traced executors and {@link org.springframework.scheduling.annotation.Async}
+	 * methods only propagate the current span to the thread that runs the task. No
+	 * span is created per task. Applies to the executors created with a
+	 * {@link org.springframework.beans.factory.BeanFactory}, decorators created with an
+	 * explicit {@link org.springframework.cloud.sleuth.Tracer} always create a span per task.
+	 */
+	private boolean contextOnly = false;
+
+	private Metrics metrics = new Metrics();
+
+	private CommonPool commonPool = new CommonPool();
+
+	public boolean isContextOnly() {
+		return this.contextOnly;
+	}
+
+	public void setContextOnly(boolean contextOnly) {
+		this.contextOnly = contextOnly;
+	}
+
+	public Metrics getMetrics() {
+		return this.metrics;
+	}
+
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public CommonPool getCommonPool() {
+		return this.commonPool;
+	}
+
+	public void setCommonPool(CommonPool commonPool) {
+		this.commonPool = commonPool;
+	}
+
+	public static class Metrics {
+
+		/**
+		 * Record the number and duration of tasks per executor when only the context
+		 * is propagated.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Interval in seconds from which duration percentiles are calculated
+		 */
+		private int interval = 60;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getInterval() {
+			return this.interval;
+		}
+
+		public void setInterval(int interval) {
+			this.interval = interval;
+		}
+	}
+
+	public static class CommonPool {
+
+		/**
+		 * Register a {@link TraceableForkJoinPool} bean that decorates
+		 * {@code ForkJoinPool.commonPool()} (Java 8 and newer).
+		 */
+		private boolean enabled = false;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+	}
+}
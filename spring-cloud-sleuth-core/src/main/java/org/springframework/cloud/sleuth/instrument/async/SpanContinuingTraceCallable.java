@@ -47,6 +47,14 @@ public class SpanContinuingTraceCallable<V> extends TraceCallable<V> {
 		this.traceCallable = new LocalComponentTraceCallable<>(tracer, traceKeys, spanNamer, name, delegate);
 	}
 
+	/**
+	 * @see LocalComponentTraceCallable#scheduled()
+	 */
+	SpanContinuingTraceCallable<V> scheduled() {
+		this.traceCallable.scheduled();
+		return this;
+	}
+
 	@Override
 	public V call() throws Exception {
 		Span span = startSpan();
@@ -45,6 +45,14 @@ public class SpanContinuingTraceRunnable extends TraceRunnable {
 		this.traceRunnable = new LocalComponentTraceRunnable(tracer, traceKeys, spanNamer, delegate, name);
 	}
 
+	/**
+	 * @see LocalComponentTraceRunnable#scheduled()
+	 */
+	SpanContinuingTraceRunnable scheduled() {
+		this.traceRunnable.scheduled();
+		return this;
+	}
+
 	@Override
 	public void run() {
 		Span span = startSpan();
@@ -33,6 +33,11 @@ import java.lang.reflect.Method;
 /**
  * Aspect that creates a new Span for running threads executing methods annotated with
  * {@link org.springframework.scheduling.annotation.Async} annotation.
+ * <p>
+ * In the context-only mode (see {@link SleuthAsyncProperties#isContextOnly()}) no
+ * span is created. The aspect relies on the executor running the method to have
+ * propagated the caller's span, which the executors traced by Sleuth do. A method run
+ * by an executor that isn't traced continues no span.
  *
  * @author Marcin Grzejszczak
  * @since 1.0.0
@@ -48,15 +53,21 @@ public class TraceAsyncAspect {
 	private final TraceKeys traceKeys;
 	private final BeanFactory beanFactory;
 	private SpanNamer spanNamer;
+	private final AsyncTaskTracing taskTracing;
 
 	public TraceAsyncAspect(Tracer tracer, TraceKeys traceKeys, BeanFactory beanFactory) {
 		this.tracer = tracer;
 		this.traceKeys = traceKeys;
 		this.beanFactory = beanFactory;
+		this.taskTracing = new AsyncTaskTracing(beanFactory, ASYNC_COMPONENT);
 	}
 
 	@Around("execution (@org.springframework.scheduling.annotation.Async  * *.*(..))")
 	public Object traceBackgroundThread(final ProceedingJoinPoint pjp) throws Throwable {
+		if (this.taskTracing.isContextOnly()) {
+			// the traced executor has already propagated the caller's span
+			return pjp.proceed();
+		}
 		String spanName = spanNamer().name(getMethod(pjp, pjp.getTarget()),
 				SpanNameUtil.toLowerHyphen(pjp.getSignature().getName()));
 		Span span = this.tracer.createSpan(spanName);
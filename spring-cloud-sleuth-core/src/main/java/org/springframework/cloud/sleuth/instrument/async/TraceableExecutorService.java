@@ -43,18 +43,37 @@ public class TraceableExecutorService implements ExecutorService {
 	TraceKeys traceKeys;
 	SpanNamer spanNamer;
 	BeanFactory beanFactory;
+	final AsyncTaskTracing taskTracing;
 
+	/**
+	 * Creates a span per task. Since the tracing beans are passed explicitly, the
+	 * {@link SleuthAsyncProperties#isContextOnly() context-only mode} isn't looked up.
+	 * Use the constructors taking a {@link BeanFactory} to respect it.
+	 */
 	public TraceableExecutorService(final ExecutorService delegate, final Tracer tracer,
 			TraceKeys traceKeys, SpanNamer spanNamer) {
 		this(delegate, tracer, traceKeys, spanNamer, null);
 	}
 
 	public TraceableExecutorService(BeanFactory beanFactory, final ExecutorService delegate) {
+		this(beanFactory, delegate, AsyncTaskTracing.executorName(delegate));
+	}
+
+	/**
+	 * @param name name of the executor under which the metrics of its tasks are recorded
+	 */
+	public TraceableExecutorService(BeanFactory beanFactory, final ExecutorService delegate,
+			String name) {
 		this.delegate = delegate;
 		this.beanFactory = beanFactory;
 		this.spanName = null;
+		this.taskTracing = new AsyncTaskTracing(beanFactory, name);
 	}
 
+	/**
+	 * Creates a span per task, named {@code spanName} if it's given. The
+	 * {@link SleuthAsyncProperties#isContextOnly() context-only mode} isn't looked up.
+	 */
 	public TraceableExecutorService(final ExecutorService delegate, final Tracer tracer,
 			TraceKeys traceKeys, SpanNamer spanNamer, String spanName) {
 		this.delegate = delegate;
@@ -62,10 +81,15 @@ public class TraceableExecutorService implements ExecutorService {
 		this.spanName = spanName;
 		this.traceKeys = traceKeys;
 		this.spanNamer = spanNamer;
+		this.taskTracing = new AsyncTaskTracing(null, AsyncTaskTracing.executorName(delegate));
 	}
 
 	@Override
 	public void execute(Runnable command) {
+		if (this.taskTracing.isContextOnly()) {
+			this.delegate.execute(this.taskTracing.wrap(tracer(), command));
+			return;
+		}
 		final Runnable r = new LocalComponentTraceRunnable(tracer(), traceKeys(),
 				spanNamer(), command, this.spanName);
 		this.delegate.execute(r);
@@ -98,6 +122,9 @@ public class TraceableExecutorService implements ExecutorService {
 
 	@Override
 	public <T> Future<T> submit(Callable<T> task) {
+		if (this.taskTracing.isContextOnly()) {
+			return this.delegate.submit(this.taskTracing.wrap(tracer(), task));
+		}
 		Callable<T> c = new SpanContinuingTraceCallable<>(tracer(), traceKeys(),
 				spanNamer(), this.spanName, task);
 		return this.delegate.submit(c);
@@ -105,6 +132,9 @@ public class TraceableExecutorService implements ExecutorService {
 
 	@Override
 	public <T> Future<T> submit(Runnable task, T result) {
+		if (this.taskTracing.isContextOnly()) {
+			return this.delegate.submit(this.taskTracing.wrap(tracer(), task), result);
+		}
 		Runnable r = new SpanContinuingTraceRunnable(tracer(), traceKeys(),
 				spanNamer(), task, this.spanName);
 		return this.delegate.submit(r, result);
@@ -112,6 +142,9 @@ public class TraceableExecutorService implements ExecutorService {
 
 	@Override
 	public Future<?> submit(Runnable task) {
+		if (this.taskTracing.isContextOnly()) {
+			return this.delegate.submit(this.taskTracing.wrap(tracer(), task));
+		}
 		Runnable r = new LocalComponentTraceRunnable(tracer(), traceKeys(),
 				spanNamer(), task, this.spanName);
 		return this.delegate.submit(r);
@@ -140,12 +173,22 @@ public class TraceableExecutorService implements ExecutorService {
 	}
 
 	private <T> Collection<? extends Callable<T>> wrapCallableCollection(Collection<? extends Callable<T>> tasks) {
-		List<Callable<T>> ts = new ArrayList<>();
+		boolean contextOnly = this.taskTracing.isContextOnly();
+		if (contextOnly && this.taskTracing.isPassThrough(tracer())) {
+			return tasks;
+		}
+		List<Callable<T>> ts = new ArrayList<>(tasks.size());
 		for (Callable<T> task : tasks) {
-			if (!(task instanceof SpanContinuingTraceCallable)) {
+			if (contextOnly) {
+				ts.add(this.taskTracing.wrap(tracer(), task));
+			}
+			else if (!(task instanceof SpanContinuingTraceCallable)) {
 				ts.add(new SpanContinuingTraceCallable<>(tracer(), traceKeys(),
 						spanNamer(), this.spanName, task));
 			}
+			else {
+				ts.add(task);
+			}
 		}
 		return ts;
 	}
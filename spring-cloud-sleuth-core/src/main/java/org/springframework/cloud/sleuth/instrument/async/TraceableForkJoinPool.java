@@ -0,0 +1,301 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * A decorator of a {@link ForkJoinPool} that propagates the current span to the tasks
+ * submitted to the pool. Unlike {@link TraceableExecutorService} no span is created per
+ * task - the span that was current at submission is continued while the task runs and
+ * detached afterwards. Tasks submitted when there is no current span are passed to the
+ * delegate as they are.
+ *
+ * Only the submitted tasks are wrapped. Subtasks forked from a running
+ * {@link ForkJoinTask} (e.g. the splits of a parallel stream) are pushed directly to the
+ * work queue of the worker thread and run without the span if another worker steals them.
+ *
+ * A {@link ForkJoinTask} passed to {@link #submit(ForkJoinTask)} is returned as it is
+ * and invoked by a wrapper queued in the delegate. Cancelling the returned task keeps it
+ * from running, the wrapper then completes right away when it's taken from the queue.
+ *
+ * Since the pool is an {@link java.util.concurrent.Executor} it can be passed to the
+ * asynchronous methods of {@code CompletableFuture} that take an executor. All public
+ * methods are delegated, the protected {@code pollSubmission()} and
+ * {@code drainTasksTo(Collection)} of the delegate can't be reached and act on the
+ * superclass pool, which never gets any task.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class TraceableForkJoinPool extends ForkJoinPool {
+
+	private static final Method COMMON_POOL = ReflectionUtils.findMethod(ForkJoinPool.class,
+			"commonPool");
+	private static final Method AWAIT_QUIESCENCE = ReflectionUtils.findMethod(
+			ForkJoinPool.class, "awaitQuiescence", long.class, TimeUnit.class);
+
+	private final Tracer tracer;
+	private final ForkJoinPool delegate;
+
+	public TraceableForkJoinPool(Tracer tracer, ForkJoinPool delegate) {
+		// the superclass pool is never used, once shut down it won't start any thread
+		super(1);
+		super.shutdown();
+		this.tracer = tracer;
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return a pool that propagates the current span to the tasks run by the common pool
+	 * @throws IllegalStateException if there is no common pool (prior to Java 8)
+	 */
+	public static TraceableForkJoinPool commonPool(Tracer tracer) {
+		if (COMMON_POOL == null) {
+			throw new IllegalStateException("ForkJoinPool.commonPool() is available as of Java 8");
+		}
+		return new TraceableForkJoinPool(tracer,
+				(ForkJoinPool) ReflectionUtils.invokeMethod(COMMON_POOL, null));
+	}
+
+	@Override
+	public <T> T invoke(ForkJoinTask<T> task) {
+		return this.delegate.invoke(wrap(task));
+	}
+
+	@Override
+	public void execute(ForkJoinTask<?> task) {
+		this.delegate.execute(wrap(task));
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		this.delegate.execute(wrap(task));
+	}
+
+	@Override
+	public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+		// the submitted task completes when its wrapper invokes it
+		this.delegate.execute(wrap(task));
+		return task;
+	}
+
+	@Override
+	public <T> ForkJoinTask<T> submit(Callable<T> task) {
+		return this.delegate.submit(wrap(task));
+	}
+
+	@Override
+	public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+		return this.delegate.submit(wrap(task), result);
+	}
+
+	@Override
+	public ForkJoinTask<?> submit(Runnable task) {
+		return this.delegate.submit(wrap(task));
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+		return this.delegate.invokeAll(wrap(tasks));
+	}
+
+	@Override
+	public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks,
+			long timeout, TimeUnit unit) throws InterruptedException {
+		return this.delegate.invokeAll(wrap(tasks), timeout, unit);
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+			throws InterruptedException, ExecutionException {
+		return this.delegate.invokeAny(wrap(tasks));
+	}
+
+	@Override
+	public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout,
+			TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		return this.delegate.invokeAny(wrap(tasks), timeout, unit);
+	}
+
+	@Override
+	public ForkJoinWorkerThreadFactory getFactory() {
+		return this.delegate.getFactory();
+	}
+
+	@Override
+	public Thread.UncaughtExceptionHandler getUncaughtExceptionHandler() {
+		return this.delegate.getUncaughtExceptionHandler();
+	}
+
+	@Override
+	public int getParallelism() {
+		return this.delegate.getParallelism();
+	}
+
+	@Override
+	public int getPoolSize() {
+		return this.delegate.getPoolSize();
+	}
+
+	@Override
+	public boolean getAsyncMode() {
+		return this.delegate.getAsyncMode();
+	}
+
+	@Override
+	public int getRunningThreadCount() {
+		return this.delegate.getRunningThreadCount();
+	}
+
+	@Override
+	public int getActiveThreadCount() {
+		return this.delegate.getActiveThreadCount();
+	}
+
+	@Override
+	public boolean isQuiescent() {
+		return this.delegate.isQuiescent();
+	}
+
+	@Override
+	public long getStealCount() {
+		return this.delegate.getStealCount();
+	}
+
+	@Override
+	public long getQueuedTaskCount() {
+		return this.delegate.getQueuedTaskCount();
+	}
+
+	@Override
+	public int getQueuedSubmissionCount() {
+		return this.delegate.getQueuedSubmissionCount();
+	}
+
+	@Override
+	public boolean hasQueuedSubmissions() {
+		return this.delegate.hasQueuedSubmissions();
+	}
+
+	@Override
+	public void shutdown() {
+		this.delegate.shutdown();
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		return this.delegate.shutdownNow();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return this.delegate.isTerminated();
+	}
+
+	@Override
+	public boolean isTerminating() {
+		return this.delegate.isTerminating();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return this.delegate.isShutdown();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		return this.delegate.awaitTermination(timeout, unit);
+	}
+
+	/**
+	 * Delegates {@code ForkJoinPool.awaitQuiescence(long, TimeUnit)}, available as of
+	 * Java 8
+	 */
+	public boolean awaitQuiescence(long timeout, TimeUnit unit) {
+		if (AWAIT_QUIESCENCE == null) {
+			throw new IllegalStateException("ForkJoinPool.awaitQuiescence() is available as of Java 8");
+		}
+		return (Boolean) ReflectionUtils.invokeMethod(AWAIT_QUIESCENCE, this.delegate,
+				timeout, unit);
+	}
+
+	@Override
+	public String toString() {
+		return "TraceableForkJoinPool{delegate=" + this.delegate + "}";
+	}
+
+	private Runnable wrap(Runnable task) {
+		if (!this.tracer.isTracing()) {
+			return task;
+		}
+		return new ContextPropagatingTraceRunnable(this.tracer, task);
+	}
+
+	private <T> Callable<T> wrap(Callable<T> task) {
+		if (!this.tracer.isTracing()) {
+			return task;
+		}
+		return new ContextPropagatingTraceCallable<>(this.tracer, task);
+	}
+
+	private <T> Collection<? extends Callable<T>> wrap(Collection<? extends Callable<T>> tasks) {
+		if (!this.tracer.isTracing()) {
+			return tasks;
+		}
+		List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+		for (Callable<T> task : tasks) {
+			wrapped.add(new ContextPropagatingTraceCallable<>(this.tracer, task));
+		}
+		return wrapped;
+	}
+
+	private <T> ForkJoinTask<T> wrap(ForkJoinTask<T> task) {
+		if (!this.tracer.isTracing()) {
+			return task;
+		}
+		return ForkJoinTask.adapt(new ContextPropagatingTraceCallable<>(this.tracer,
+				new ForkJoinTaskInvocation<>(task)));
+	}
+
+	private static final class ForkJoinTaskInvocation<T> implements Callable<T> {
+		private final ForkJoinTask<T> task;
+
+		ForkJoinTaskInvocation(ForkJoinTask<T> task) {
+			this.task = task;
+		}
+
+		@Override
+		public T call() {
+			return this.task.invoke();
+		}
+	}
+}
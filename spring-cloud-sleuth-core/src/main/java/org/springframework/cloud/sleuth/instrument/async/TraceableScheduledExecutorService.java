@@ -21,6 +21,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.TraceKeys;
@@ -33,37 +34,68 @@ import org.springframework.cloud.sleuth.TraceKeys;
  */
 public class TraceableScheduledExecutorService extends TraceableExecutorService implements ScheduledExecutorService {
 
+	/**
+	 * Creates a span per task. The
+	 * {@link SleuthAsyncProperties#isContextOnly() context-only mode} isn't looked up.
+	 */
 	public TraceableScheduledExecutorService(ScheduledExecutorService delegate,
 			Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer) {
 		super(delegate, tracer, traceKeys, spanNamer);
 	}
 
+	/**
+	 * @since 1.3.0
+	 */
+	public TraceableScheduledExecutorService(BeanFactory beanFactory,
+			ScheduledExecutorService delegate) {
+		super(beanFactory, delegate);
+	}
+
+	/**
+	 * @param name name of the executor under which the metrics of its tasks are recorded
+	 * @since 1.3.0
+	 */
+	public TraceableScheduledExecutorService(BeanFactory beanFactory,
+			ScheduledExecutorService delegate, String name) {
+		super(beanFactory, delegate, name);
+	}
+
 	private ScheduledExecutorService getScheduledExecutorService() {
 		return (ScheduledExecutorService) this.delegate;
 	}
 
 	@Override
 	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer, command);
-		return getScheduledExecutorService().schedule(r, delay, unit);
+		return getScheduledExecutorService().schedule(wrapScheduled(command), delay, unit);
 	}
 
 	@Override
 	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-		Callable<V> c = new SpanContinuingTraceCallable<>(this.tracer, this.traceKeys, this.spanNamer,  callable);
+		Callable<V> c = this.taskTracing.isContextOnly() ?
+				this.taskTracing.wrapScheduled(tracer(), callable) :
+				new SpanContinuingTraceCallable<>(tracer(), traceKeys(), spanNamer(), callable)
+						.scheduled();
 		return getScheduledExecutorService().schedule(c, delay, unit);
 	}
 
 	@Override
 	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer,  command);
-		return getScheduledExecutorService().scheduleAtFixedRate(r, initialDelay, period, unit);
+		return getScheduledExecutorService().scheduleAtFixedRate(wrapScheduled(command),
+				initialDelay, period, unit);
 	}
 
 	@Override
 	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer,  command);
-		return getScheduledExecutorService().scheduleWithFixedDelay(r, initialDelay, delay, unit);
+		return getScheduledExecutorService().scheduleWithFixedDelay(wrapScheduled(command),
+				initialDelay, delay, unit);
+	}
+
+	private Runnable wrapScheduled(Runnable command) {
+		if (this.taskTracing.isContextOnly()) {
+			return this.taskTracing.wrapScheduled(tracer(), command);
+		}
+		return new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), command)
+				.scheduled();
 	}
 
 }
@@ -42,7 +42,8 @@ import org.springframework.cloud.sleuth.Tracer;
 /**
  * A {@link HystrixConcurrencyStrategy} that wraps a {@link Callable} in a
  * {@link Callable} that either starts a new span or continues one if the tracing was
- * already running before the command was executed.
+ * already running before the command was executed. The time the command waited
+ * for a thread of the Hystrix thread pool is added as a tag.
  *
  * @author Marcin Grzejszczak
  * @since 1.0.0
@@ -150,6 +151,7 @@ public class SleuthHystrixConcurrencyStrategy extends HystrixConcurrencyStrategy
 		private final TraceKeys traceKeys;
 		private final Callable<S> callable;
 		private final Span parent;
+		private final long enqueuedNanos;
 
 		public HystrixTraceCallable(Tracer tracer, TraceKeys traceKeys,
 				Callable<S> callable) {
@@ -157,10 +159,12 @@ public class SleuthHystrixConcurrencyStrategy extends HystrixConcurrencyStrategy
 			this.traceKeys = traceKeys;
 			this.callable = callable;
 			this.parent = tracer.getCurrentSpan();
+			this.enqueuedNanos = System.nanoTime();
 		}
 
 		@Override
 		public S call() throws Exception {
+			long queueWait = System.nanoTime() - this.enqueuedNanos;
 			Span span = this.parent;
 			boolean created = false;
 			if (span != null) {
@@ -184,6 +188,12 @@ public class SleuthHystrixConcurrencyStrategy extends HystrixConcurrencyStrategy
 			if (!span.tags().containsKey(asyncKey)) {
 				this.tracer.addTag(asyncKey, Thread.currentThread().getName());
 			}
+			String queueWaitKey = this.traceKeys.getAsync().getPrefix()
+					+ this.traceKeys.getAsync().getQueueWaitKey();
+			if (!span.tags().containsKey(queueWaitKey)) {
+				this.tracer.addTag(queueWaitKey,
+						String.valueOf(TimeUnit.NANOSECONDS.toMicros(queueWait)));
+			}
 			try {
 				return this.callable.call();
 			}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number, errors, duration and queue wait time of tasks run by traced executors, per
+ * executor. Used instead of a span per task when the executors only propagate the
+ * tracing context. Counts are cumulative, percentiles are taken from the last complete
+ * interval.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class AsyncTaskMetrics {
+
+	private final ConcurrentMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+	private final long intervalNanos;
+
+	/**
+	 * @param interval length of the interval of duration percentiles
+	 * @param unit unit of the interval
+	 */
+	public AsyncTaskMetrics(long interval, TimeUnit unit) {
+		this.intervalNanos = unit.toNanos(interval);
+	}
+
+	/**
+	 * @return recorder of the tasks of the executor with the given name
+	 */
+	public Recorder recorder(String executorName) {
+		Recorder recorder = this.recorders.get(executorName);
+		if (recorder == null) {
+			recorder = new Recorder(executorName, this.intervalNanos);
+			Recorder existing = this.recorders.putIfAbsent(executorName, recorder);
+			if (existing != null) {
+				return existing;
+			}
+		}
+		return recorder;
+	}
+
+	/**
+	 * @return metrics of all executors that have a recorder
+	 */
+	public List<Snapshot> snapshot() {
+		return snapshot(System.nanoTime());
+	}
+
+	List<Snapshot> snapshot(long now) {
+		List<Snapshot> snapshots = new ArrayList<>();
+		for (Recorder recorder : this.recorders.values()) {
+			snapshots.add(recorder.snapshot(now));
+		}
+		return snapshots;
+	}
+
+	/**
+	 * Records the tasks of a single executor
+	 */
+	public static final class Recorder {
+		final String executorName;
+		final AtomicLong count = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		final IntervalLatency duration;
+		final IntervalLatency queueWait;
+
+		Recorder(String executorName, long intervalNanos) {
+			this.executorName = executorName;
+			this.duration = new IntervalLatency(intervalNanos);
+			this.queueWait = new IntervalLatency(intervalNanos);
+		}
+
+		/**
+		 * @param enqueuedNanos {@link System#nanoTime()} when the task was submitted
+		 * @param startNanos {@link System#nanoTime()} when the task started
+		 * @param error whether the task has thrown an exception
+		 */
+		public void record(long enqueuedNanos, long startNanos, boolean error) {
+			long now = System.nanoTime();
+			record(TimeUnit.NANOSECONDS.toMicros(startNanos - enqueuedNanos),
+					TimeUnit.NANOSECONDS.toMicros(now - startNanos), error, now);
+		}
+
+		void record(long queueWaitMicros, long micros, boolean error, long now) {
+			this.count.incrementAndGet();
+			if (error) {
+				this.errors.incrementAndGet();
+			}
+			this.queueWait.record(queueWaitMicros, now);
+			this.duration.record(micros, now);
+		}
+
+		Snapshot snapshot(long now) {
+			return new Snapshot(this.executorName, this.count.get(), this.errors.get(),
+					this.duration.previous(now), this.queueWait.previous(now));
+		}
+	}
+
+	/**
+	 * Metrics of the tasks of a single executor. Durations and queue wait times are in
+	 * microseconds.
+	 */
+	public static final class Snapshot {
+		public final String executorName;
+		public final long count;
+		public final long errors;
+		public final long intervalCount;
+		public final long p50;
+		public final long p95;
+		public final long p99;
+		public final long max;
+		public final long queueWaitP50;
+		public final long queueWaitP95;
+		public final long queueWaitP99;
+		public final long queueWaitMax;
+
+		Snapshot(String executorName, long count, long errors, LatencyHistogram interval,
+				LatencyHistogram queueWait) {
+			this.executorName = executorName;
+			this.count = count;
+			this.errors = errors;
+			this.intervalCount = interval.getTotalCount();
+			this.p50 = interval.getValueAtPercentile(50);
+			this.p95 = interval.getValueAtPercentile(95);
+			this.p99 = interval.getValueAtPercentile(99);
+			this.max = interval.getMaxValue();
+			this.queueWaitP50 = queueWait.getValueAtPercentile(50);
+			this.queueWaitP95 = queueWait.getValueAtPercentile(95);
+			this.queueWaitP99 = queueWait.getValueAtPercentile(99);
+			this.queueWaitMax = queueWait.getMaxValue();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * {@link PublicMetrics} exposing {@link AsyncTaskMetrics}. For each executor the
+ * following metrics are published (durations in milliseconds):
+ *
+ * <ul>
+ *     <li>{@code async.<executor>.count} - number of run tasks</li>
+ *     <li>{@code async.<executor>.errors} - number of tasks that have thrown an exception</li>
+ *     <li>{@code async.<executor>.interval.count} - number of tasks run in the last interval</li>
+ *     <li>{@code async.<executor>.duration.p50}, {@code p95}, {@code p99}, {@code max} -
+ *     durations of tasks run in the last interval</li>
+ *     <li>{@code async.<executor>.queue.wait.p50}, {@code p95}, {@code p99}, {@code max} -
+ *     time that tasks run in the last interval waited in the executor's queue</li>
+ * </ul>
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class AsyncTaskPublicMetrics implements PublicMetrics {
+
+	private static final String PREFIX = "async.";
+
+	private final AsyncTaskMetrics asyncTaskMetrics;
+
+	public AsyncTaskPublicMetrics(AsyncTaskMetrics asyncTaskMetrics) {
+		this.asyncTaskMetrics = asyncTaskMetrics;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		for (AsyncTaskMetrics.Snapshot snapshot : this.asyncTaskMetrics.snapshot()) {
+			String prefix = PREFIX + SpanNamePublicMetrics.sanitize(snapshot.executorName) + ".";
+			metrics.add(new Metric<>(prefix + "count", snapshot.count));
+			metrics.add(new Metric<>(prefix + "errors", snapshot.errors));
+			metrics.add(new Metric<>(prefix + "interval.count", snapshot.intervalCount));
+			metrics.add(new Metric<>(prefix + "duration.p50", millis(snapshot.p50)));
+			metrics.add(new Metric<>(prefix + "duration.p95", millis(snapshot.p95)));
+			metrics.add(new Metric<>(prefix + "duration.p99", millis(snapshot.p99)));
+			metrics.add(new Metric<>(prefix + "duration.max", millis(snapshot.max)));
+			metrics.add(new Metric<>(prefix + "queue.wait.p50", millis(snapshot.queueWaitP50)));
+			metrics.add(new Metric<>(prefix + "queue.wait.p95", millis(snapshot.queueWaitP95)));
+			metrics.add(new Metric<>(prefix + "queue.wait.p99", millis(snapshot.queueWaitP99)));
+			metrics.add(new Metric<>(prefix + "queue.wait.max", millis(snapshot.queueWaitMax)));
+		}
+		return metrics;
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000d;
+	}
+}
@@ -1,37 +1,140 @@
 package org.springframework.cloud.sleuth.metric;
 
 import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.buffer.CounterBuffers;
 
 /**
  * Service to operate on accepted and dropped spans statistics.
- * Operates on a {@link CounterService} underneath
+ * Operates on a {@link CounterService} underneath. Gauges and timers
+ * are submitted to a {@link GaugeService}
  *
  * @author Marcin Grzejszczak
  * @since 1.0.0
  */
-public class CounterServiceBasedSpanMetricReporter implements SpanMetricReporter {
-	private final String acceptedSpansMetricName;
-	private final String droppedSpansMetricName;
+public class CounterServiceBasedSpanMetricReporter implements SpanMetricReporter,
+		SpanTransportMetricReporter {
+	private final SleuthMetricProperties.Span names;
 	private final CounterService counterService;
+	private final GaugeService gaugeService; // Nullable
+	private final CounterBuffers counterBuffers; // Nullable
+	private final boolean transportCounters;
 
+	/**
+	 * Reporter that records only the accepted and dropped spans counters
+	 */
 	public CounterServiceBasedSpanMetricReporter(String acceptedSpansMetricName,
 			String droppedSpansMetricName, CounterService counterService) {
-		this.acceptedSpansMetricName = acceptedSpansMetricName;
-		this.droppedSpansMetricName = droppedSpansMetricName;
+		this(names(acceptedSpansMetricName, droppedSpansMetricName), counterService, null, null, false);
+	}
+
+	/**
+	 * @param names names of the metrics
+	 * @param counterService service used to count spans
+	 * @param gaugeService service used for gauges and timers, if {@code null} they're not recorded
+	 * @param counterBuffers buffers backing the {@code counterService}. If present the counters are
+	 * incremented by a whole batch at once instead of once per span
+	 */
+	public CounterServiceBasedSpanMetricReporter(SleuthMetricProperties.Span names,
+			CounterService counterService, GaugeService gaugeService, CounterBuffers counterBuffers) {
+		this(names, counterService, gaugeService, counterBuffers, true);
+	}
+
+	private CounterServiceBasedSpanMetricReporter(SleuthMetricProperties.Span names,
+			CounterService counterService, GaugeService gaugeService, CounterBuffers counterBuffers,
+			boolean transportCounters) {
+		this.names = names;
 		this.counterService = counterService;
+		this.gaugeService = gaugeService;
+		this.counterBuffers = counterBuffers;
+		this.transportCounters = transportCounters;
+	}
+
+	private static SleuthMetricProperties.Span names(String acceptedSpansMetricName,
+			String droppedSpansMetricName) {
+		SleuthMetricProperties.Span names = new SleuthMetricProperties.Span();
+		names.setAcceptedName(acceptedSpansMetricName);
+		names.setDroppedName(droppedSpansMetricName);
+		return names;
 	}
 
 	@Override
 	public void incrementAcceptedSpans(long quantity) {
-		for (int i = 0; i < quantity; i++) {
-			this.counterService.increment(this.acceptedSpansMetricName);
-		}
+		increment(this.names.getAcceptedName(), quantity);
 	}
 
 	@Override
 	public void incrementDroppedSpans(long quantity) {
-		for (int i = 0; i < quantity; i++) {
-			this.counterService.increment(this.droppedSpansMetricName);
+		increment(this.names.getDroppedName(), quantity);
+	}
+
+	/**
+	 * The gauge is {@code 1} as long as the circuit is open and {@code 0} otherwise
+	 */
+	@Override
+	public void senderCircuitStateChanged(boolean open) {
+		submit(this.names.getSenderCircuitOpenName(), open ? 1 : 0);
+	}
+
+	@Override
+	public void updateQueuedSpans(long quantity) {
+		submit(this.names.getQueuedName(), quantity);
+	}
+
+	@Override
+	public void recordMessageSpans(long quantity) {
+		submit(this.names.getMessageSpansName(), quantity);
+	}
+
+	@Override
+	public void recordMessageBytes(long bytes) {
+		submit(this.names.getMessageBytesName(), bytes);
+	}
+
+	@Override
+	public void recordEncodeTime(long nanos) {
+		submit(this.names.getEncodeTimeName(), nanos / 1_000_000d);
+	}
+
+	@Override
+	public void recordSendTime(long nanos) {
+		submit(this.names.getSendTimeName(), nanos / 1_000_000d);
+	}
+
+	@Override
+	public void incrementSendFailures(Throwable cause) {
+		if (!this.transportCounters) {
+			return;
+		}
+		this.counterService.increment(this.names.getSendFailuresName() + "."
+				+ cause.getClass().getSimpleName());
+	}
+
+	private void increment(String metricName, long quantity) {
+		if (quantity == 1) {
+			this.counterService.increment(metricName);
+		}
+		else if (this.counterBuffers != null) {
+			this.counterBuffers.increment(counterName(metricName), quantity);
+		}
+		else {
+			for (int i = 0; i < quantity; i++) {
+				this.counterService.increment(metricName);
+			}
+		}
+	}
+
+	/** Same prefixing as in {@link org.springframework.boot.actuate.metrics.buffer.BufferCounterService} */
+	private static String counterName(String metricName) {
+		if (metricName.startsWith("counter") || metricName.startsWith("meter")) {
+			return metricName;
+		}
+		return "counter." + metricName;
+	}
+
+	private void submit(String metricName, double value) {
+		if (this.gaugeService != null) {
+			this.gaugeService.submit(metricName, value);
 		}
 	}
-}
\ No newline at end of file
+}
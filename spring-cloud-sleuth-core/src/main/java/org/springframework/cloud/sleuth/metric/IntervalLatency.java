@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latencies recorded in consecutive intervals of a fixed length. Percentiles are read
+ * from the last complete interval.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class IntervalLatency {
+
+	private static final LatencyHistogram EMPTY = new LatencyHistogram();
+
+	private final long intervalNanos;
+	private final AtomicReference<Interval> current;
+	private volatile LatencyHistogram previous = EMPTY;
+
+	IntervalLatency(long intervalNanos) {
+		this.intervalNanos = intervalNanos;
+		this.current = new AtomicReference<>(new Interval(System.nanoTime()));
+	}
+
+	void record(long micros, long now) {
+		currentInterval(now).histogram.record(micros);
+	}
+
+	/**
+	 * @return latencies of the last complete interval
+	 */
+	LatencyHistogram previous(long now) {
+		currentInterval(now);
+		return this.previous;
+	}
+
+	/** Starts a new interval if the current one is over */
+	private Interval currentInterval(long now) {
+		Interval interval = this.current.get();
+		long elapsed = now - interval.start;
+		if (elapsed < this.intervalNanos) {
+			return interval;
+		}
+		Interval next = new Interval(now);
+		if (this.current.compareAndSet(interval, next)) {
+			// an interval without records is followed by an empty one
+			this.previous = elapsed < 2 * this.intervalNanos ? interval.histogram : EMPTY;
+			return next;
+		}
+		return this.current.get();
+	}
+
+	private static final class Interval {
+		final long start;
+		final LatencyHistogram histogram = new LatencyHistogram();
+
+		Interval(long start) {
+			this.start = start;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in microseconds with log-linear buckets, in the
+ * spirit of HdrHistogram. Each power of two range is split into {@code 32} linear
+ * buckets, so the relative error of a returned percentile is below 3.2%. Values above
+ * {@link #MAX_VALUE} are recorded as {@link #MAX_VALUE}.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** Little over 19 hours in microseconds */
+	static final long MAX_VALUE = (1L << 36) - 1;
+	private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong maxValue = new AtomicLong();
+
+	void record(long value) {
+		long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+		this.counts.incrementAndGet(index(clamped));
+		this.totalCount.incrementAndGet();
+		long max = this.maxValue.get();
+		while (clamped > max && !this.maxValue.compareAndSet(max, clamped)) {
+			max = this.maxValue.get();
+		}
+	}
+
+	long getTotalCount() {
+		return this.totalCount.get();
+	}
+
+	long getMaxValue() {
+		return this.maxValue.get();
+	}
+
+	/**
+	 * @param percentile between {@code 0} and {@code 100}
+	 * @return the highest value equivalent to the one at the given percentile or
+	 * {@code 0} if nothing was recorded
+	 */
+	long getValueAtPercentile(double percentile) {
+		long total = this.totalCount.get();
+		if (total == 0) {
+			return 0;
+		}
+		long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long count = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			count += this.counts.get(i);
+			if (count >= countAtPercentile) {
+				return Math.min(lowestEquivalentValue(i + 1) - 1, this.maxValue.get());
+			}
+		}
+		return this.maxValue.get();
+	}
+
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	static long lowestEquivalentValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return subBucket << shift;
+	}
+}
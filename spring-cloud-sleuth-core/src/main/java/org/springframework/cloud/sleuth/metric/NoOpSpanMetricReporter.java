@@ -6,7 +6,7 @@ package org.springframework.cloud.sleuth.metric;
  * @author Marcin Grzejszczak
  * @since 1.0.0
  */
-public class NoOpSpanMetricReporter implements SpanMetricReporter {
+public class NoOpSpanMetricReporter implements SpanMetricReporter, SpanTransportMetricReporter {
 
 	public void incrementAcceptedSpans(long quantity) {
 
@@ -15,4 +15,39 @@ public class NoOpSpanMetricReporter implements SpanMetricReporter {
 	public void incrementDroppedSpans(long quantity) {
 
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void senderCircuitStateChanged(boolean open) {
+
+	}
+
+	@Override
+	public void updateQueuedSpans(long quantity) {
+
+	}
+
+	@Override
+	public void recordMessageSpans(long quantity) {
+
+	}
+
+	@Override
+	public void recordMessageBytes(long bytes) {
+
+	}
+
+	@Override
+	public void recordEncodeTime(long nanos) {
+
+	}
+
+	@Override
+	public void recordSendTime(long nanos) {
+
+	}
+
+	@Override
+	public void incrementSendFailures(Throwable cause) {
+
+	}
+}
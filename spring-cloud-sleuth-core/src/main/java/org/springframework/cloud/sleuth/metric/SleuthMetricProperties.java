@@ -18,6 +18,8 @@ public class SleuthMetricProperties {
 
 	private Span span = new Span();
 
+	private Latency latency = new Latency();
+
 	public boolean isEnabled() {
 		return this.enabled;
 	}
@@ -34,12 +36,56 @@ public class SleuthMetricProperties {
 		this.span = span;
 	}
 
+	public Latency getLatency() {
+		return this.latency;
+	}
+
+	public void setLatency(Latency latency) {
+		this.latency = latency;
+	}
+
 	public static class Span {
 
 		private String acceptedName = "counter.span.accepted";
 
 		private String droppedName = "counter.span.dropped";
 
+		/**
+		 * Name of the gauge that is 1 while the circuit to the span sender is open and 0
+		 * otherwise
+		 */
+		private String senderCircuitOpenName = "gauge.span.sender.circuit.open";
+
+		/**
+		 * Name of the gauge of spans waiting to be sent
+		 */
+		private String queuedName = "gauge.span.queued";
+
+		/**
+		 * Name of the gauge of the number of spans in a sent or received message
+		 */
+		private String messageSpansName = "gauge.span.message.spans";
+
+		/**
+		 * Name of the gauge of the size in bytes of a sent message
+		 */
+		private String messageBytesName = "gauge.span.message.bytes";
+
+		/**
+		 * Name of the timer of encoding or decoding a message of spans
+		 */
+		private String encodeTimeName = "timer.span.message.encode";
+
+		/**
+		 * Name of the timer of sending or storing a message of spans
+		 */
+		private String sendTimeName = "timer.span.message.send";
+
+		/**
+		 * Prefix of the counters of failed sends. The simple name of the cause is appended
+		 */
+		private String sendFailuresName = "counter.span.message.failures";
+
 		public String getAcceptedName() {
 			return this.acceptedName;
 		}
@@ -55,5 +101,104 @@ public class SleuthMetricProperties {
 		public void setDroppedName(String droppedName) {
 			this.droppedName = droppedName;
 		}
+
+		public String getSenderCircuitOpenName() {
+			return this.senderCircuitOpenName;
+		}
+
+		public void setSenderCircuitOpenName(String senderCircuitOpenName) {
+			this.senderCircuitOpenName = senderCircuitOpenName;
+		}
+
+		public String getQueuedName() {
+			return this.queuedName;
+		}
+
+		public void setQueuedName(String queuedName) {
+			this.queuedName = queuedName;
+		}
+
+		public String getMessageSpansName() {
+			return this.messageSpansName;
+		}
+
+		public void setMessageSpansName(String messageSpansName) {
+			this.messageSpansName = messageSpansName;
+		}
+
+		public String getMessageBytesName() {
+			return this.messageBytesName;
+		}
+
+		public void setMessageBytesName(String messageBytesName) {
+			this.messageBytesName = messageBytesName;
+		}
+
+		public String getEncodeTimeName() {
+			return this.encodeTimeName;
+		}
+
+		public void setEncodeTimeName(String encodeTimeName) {
+			this.encodeTimeName = encodeTimeName;
+		}
+
+		public String getSendTimeName() {
+			return this.sendTimeName;
+		}
+
+		public void setSendTimeName(String sendTimeName) {
+			this.sendTimeName = sendTimeName;
+		}
+
+		public String getSendFailuresName() {
+			return this.sendFailuresName;
+		}
+
+		public void setSendFailuresName(String sendFailuresName) {
+			this.sendFailuresName = sendFailuresName;
+		}
+	}
+
+	/**
+	 * Rate, errors and latency percentiles per span name, calculated from all closed spans
+	 */
+	public static class Latency {
+
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of span names of each kind (server, client, local) for which
+		 * metrics are calculated. Spans with other names are counted together per kind
+		 */
+		private int maxSpanNames = 100;
+
+		/**
+		 * Interval in seconds from which latency percentiles are calculated
+		 */
+		private int interval = 60;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaxSpanNames() {
+			return this.maxSpanNames;
+		}
+
+		public void setMaxSpanNames(int maxSpanNames) {
+			this.maxSpanNames = maxSpanNames;
+		}
+
+		public int getInterval() {
+			return this.interval;
+		}
+
+		public void setInterval(int interval) {
+			this.interval = interval;
+		}
 	}
 }
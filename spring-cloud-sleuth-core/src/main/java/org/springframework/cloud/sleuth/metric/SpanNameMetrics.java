@@ -0,0 +1,191 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.Log;
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Rate, errors and latency of closed spans per span name and kind. Counts are
+ * cumulative, latency percentiles are taken from the last complete interval.
+ * The number of tracked span names is capped per kind, so that e.g. a high number of
+ * local span names doesn't prevent tracking of server spans. Spans with names over the
+ * cap are recorded under the {@link #OTHER_NAME} name of their kind.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class SpanNameMetrics {
+
+	/**
+	 * Name under which spans over the cardinality cap are recorded
+	 */
+	public static final String OTHER_NAME = "other";
+
+	public enum Kind {
+		SERVER, CLIENT, LOCAL;
+
+		final String lowerCase = name().toLowerCase();
+
+		static Kind of(Span span) {
+			for (Log log : span.logs()) {
+				if (Span.SERVER_RECV.equals(log.getEvent())) {
+					return SERVER;
+				}
+				if (Span.CLIENT_SEND.equals(log.getEvent())) {
+					return CLIENT;
+				}
+			}
+			return LOCAL;
+		}
+	}
+
+	private final Map<Kind, ConcurrentMap<String, Recorder>> recorders = new ConcurrentHashMap<>();
+	private final Map<Kind, Recorder> others = new ConcurrentHashMap<>();
+	private final Map<Kind, AtomicInteger> spanNames = new ConcurrentHashMap<>();
+	private final int maxSpanNames;
+	private final long intervalNanos;
+
+	/**
+	 * @param maxSpanNames maximum number of tracked span names of each kind
+	 * @param interval length of the interval of latency percentiles
+	 * @param unit unit of the interval
+	 */
+	public SpanNameMetrics(int maxSpanNames, long interval, TimeUnit unit) {
+		this.maxSpanNames = maxSpanNames;
+		this.intervalNanos = unit.toNanos(interval);
+		for (Kind kind : Kind.values()) {
+			this.recorders.put(kind, new ConcurrentHashMap<String, Recorder>());
+			this.others.put(kind, new Recorder(kind, OTHER_NAME, this.intervalNanos));
+			this.spanNames.put(kind, new AtomicInteger());
+		}
+	}
+
+	public void record(Span span) {
+		record(span, System.nanoTime());
+	}
+
+	void record(Span span, long nanoTime) {
+		Kind kind = Kind.of(span);
+		String name = span.getName();
+		Recorder recorder = name != null ? this.recorders.get(kind).get(name) : null;
+		if (recorder == null) {
+			recorder = register(kind, name);
+		}
+		recorder.record(span.getAccumulatedMicros(),
+				span.tags().containsKey(Span.SPAN_ERROR_TAG_NAME), nanoTime);
+	}
+
+	/**
+	 * @return metrics of all span names that were recorded so far
+	 */
+	public List<Snapshot> snapshot() {
+		return snapshot(System.nanoTime());
+	}
+
+	List<Snapshot> snapshot(long now) {
+		List<Snapshot> snapshots = new ArrayList<>();
+		for (Kind kind : Kind.values()) {
+			for (Recorder recorder : this.recorders.get(kind).values()) {
+				snapshots.add(recorder.snapshot(now));
+			}
+			Recorder other = this.others.get(kind);
+			if (other.count.get() > 0) {
+				snapshots.add(other.snapshot(now));
+			}
+		}
+		return snapshots;
+	}
+
+	private Recorder register(Kind kind, String name) {
+		AtomicInteger spanNames = this.spanNames.get(kind);
+		if (name == null || spanNames.get() >= this.maxSpanNames) {
+			return this.others.get(kind);
+		}
+		ConcurrentMap<String, Recorder> recorders = this.recorders.get(kind);
+		Recorder recorder = new Recorder(kind, name, this.intervalNanos);
+		Recorder existing = recorders.putIfAbsent(name, recorder);
+		if (existing != null) {
+			return existing;
+		}
+		spanNames.incrementAndGet();
+		return recorder;
+	}
+
+	/**
+	 * Metrics of a single span name. Latencies are in microseconds.
+	 */
+	public static final class Snapshot {
+		public final Kind kind;
+		public final String name;
+		public final long count;
+		public final long errors;
+		public final long intervalCount;
+		public final long p50;
+		public final long p95;
+		public final long p99;
+		public final long max;
+
+		Snapshot(Kind kind, String name, long count, long errors, LatencyHistogram interval) {
+			this.kind = kind;
+			this.name = name;
+			this.count = count;
+			this.errors = errors;
+			this.intervalCount = interval.getTotalCount();
+			this.p50 = interval.getValueAtPercentile(50);
+			this.p95 = interval.getValueAtPercentile(95);
+			this.p99 = interval.getValueAtPercentile(99);
+			this.max = interval.getMaxValue();
+		}
+	}
+
+	private static final class Recorder {
+		final Kind kind;
+		final String name;
+		final AtomicLong count = new AtomicLong();
+		final AtomicLong errors = new AtomicLong();
+		final IntervalLatency latency;
+
+		Recorder(Kind kind, String name, long intervalNanos) {
+			this.kind = kind;
+			this.name = name;
+			this.latency = new IntervalLatency(intervalNanos);
+		}
+
+		void record(long micros, boolean error, long now) {
+			this.count.incrementAndGet();
+			if (error) {
+				this.errors.incrementAndGet();
+			}
+			this.latency.record(micros, now);
+		}
+
+		Snapshot snapshot(long now) {
+			return new Snapshot(this.kind, this.name, this.count.get(), this.errors.get(),
+					this.latency.previous(now));
+		}
+	}
+}
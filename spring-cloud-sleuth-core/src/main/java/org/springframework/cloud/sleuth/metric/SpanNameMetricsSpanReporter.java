@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
+
+/**
+ * {@link SpanReporter} that records every closed span in {@link SpanNameMetrics}
+ * before delegating to the actual reporter. Spans that are not sampled for export
+ * are recorded too, so the metrics don't depend on the sampling rate.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class SpanNameMetricsSpanReporter implements SpanReporter {
+
+	private final SpanReporter delegate;
+	private final SpanNameMetrics spanNameMetrics;
+
+	public SpanNameMetricsSpanReporter(SpanReporter delegate, SpanNameMetrics spanNameMetrics) {
+		this.delegate = delegate;
+		this.spanNameMetrics = spanNameMetrics;
+	}
+
+	@Override
+	public void report(Span span) {
+		this.spanNameMetrics.record(span);
+		this.delegate.report(span);
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * {@link PublicMetrics} exposing {@link SpanNameMetrics}. For each span name and kind
+ * the following metrics are published (latencies in milliseconds):
+ *
+ * <ul>
+ *     <li>{@code span.<kind>.<name>.count} - number of closed spans</li>
+ *     <li>{@code span.<kind>.<name>.errors} - number of closed spans with an error</li>
+ *     <li>{@code span.<kind>.<name>.interval.count} - number of spans closed in the last interval</li>
+ *     <li>{@code span.<kind>.<name>.latency.p50}, {@code p95}, {@code p99}, {@code max} -
+ *     latencies of spans closed in the last interval</li>
+ * </ul>
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class SpanNamePublicMetrics implements PublicMetrics {
+
+	private static final String PREFIX = "span.";
+
+	private final SpanNameMetrics spanNameMetrics;
+
+	public SpanNamePublicMetrics(SpanNameMetrics spanNameMetrics) {
+		this.spanNameMetrics = spanNameMetrics;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		for (SpanNameMetrics.Snapshot snapshot : this.spanNameMetrics.snapshot()) {
+			String prefix = PREFIX + snapshot.kind.lowerCase + "." + sanitize(snapshot.name) + ".";
+			metrics.add(new Metric<>(prefix + "count", snapshot.count));
+			metrics.add(new Metric<>(prefix + "errors", snapshot.errors));
+			metrics.add(new Metric<>(prefix + "interval.count", snapshot.intervalCount));
+			metrics.add(new Metric<>(prefix + "latency.p50", millis(snapshot.p50)));
+			metrics.add(new Metric<>(prefix + "latency.p95", millis(snapshot.p95)));
+			metrics.add(new Metric<>(prefix + "latency.p99", millis(snapshot.p99)));
+			metrics.add(new Metric<>(prefix + "latency.max", millis(snapshot.max)));
+		}
+		return metrics;
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000d;
+	}
+
+	/** Dots would create additional levels of the metric name */
+	static String sanitize(String name) {
+		StringBuilder builder = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			builder.append(c == '.' || Character.isWhitespace(c) ? '_' : c);
+		}
+		return builder.toString();
+	}
+}
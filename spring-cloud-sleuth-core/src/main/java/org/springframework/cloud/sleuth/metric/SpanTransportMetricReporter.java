@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+/**
+ * Optional contract that a {@link SpanMetricReporter} can additionally implement to
+ * measure the transport through which spans are sent or received. Quantities are passed
+ * in batches so that the implementation can record them at once. Components reporting spans check
+ * whether the {@link SpanMetricReporter} implements this interface, so that existing
+ * implementations of {@link SpanMetricReporter} don't have to change.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public interface SpanTransportMetricReporter {
+
+	/**
+	 * Called when the circuit to the transport, through which spans are sent, opens
+	 * or closes. While the circuit is open spans are dropped.
+	 *
+	 * @param open {@code true} if the circuit got opened, {@code false} if it got closed
+	 */
+	void senderCircuitStateChanged(boolean open);
+
+	/**
+	 * Called with the current number of spans waiting to be sent.
+	 *
+	 * @param quantity the number of queued spans.
+	 */
+	void updateQueuedSpans(long quantity);
+
+	/**
+	 * Called when a message of spans is sent or received.
+	 *
+	 * @param quantity the number of spans in the message.
+	 */
+	void recordMessageSpans(long quantity);
+
+	/**
+	 * Called with the size of an encoded message of spans.
+	 *
+	 * @param bytes the size of the message in bytes.
+	 */
+	void recordMessageBytes(long bytes);
+
+	/**
+	 * Called with the time it took to encode or decode a message of spans.
+	 *
+	 * @param nanos the duration in nanoseconds.
+	 */
+	void recordEncodeTime(long nanos);
+
+	/**
+	 * Called with the time it took to send or store a message of spans.
+	 *
+	 * @param nanos the duration in nanoseconds.
+	 */
+	void recordSendTime(long nanos);
+
+	/**
+	 * Called when a message of spans couldn't be sent or stored.
+	 *
+	 * @param cause the reason of the failure.
+	 */
+	void incrementSendFailures(Throwable cause);
+}
@@ -17,17 +17,26 @@
 package org.springframework.cloud.sleuth.metric;
 
 import java.lang.invoke.MethodHandles;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
 import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.buffer.BufferCounterService;
+import org.springframework.boot.actuate.metrics.buffer.CounterBuffers;
 import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.SpanReporterDecorator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ConditionContext;
 import org.springframework.context.annotation.Conditional;
@@ -56,12 +65,19 @@ public class TraceMetricsAutoConfiguration {
 	@ConditionalOnClass(CounterService.class)
 	@ConditionalOnMissingBean(SpanMetricReporter.class)
 	protected static class CounterServiceSpanReporterConfig {
+
+		@Autowired(required = false) GaugeService gaugeService;
+		@Autowired(required = false) CounterBuffers counterBuffers;
+
 		@Bean
 		@ConditionalOnBean(CounterService.class)
 		public SpanMetricReporter spanReporterCounterService(CounterService counterService,
 				SleuthMetricProperties sleuthMetricProperties) {
-			return new CounterServiceBasedSpanMetricReporter(sleuthMetricProperties.getSpan().getAcceptedName(),
-					sleuthMetricProperties.getSpan().getDroppedName(), counterService);
+			// the buffers can be incremented directly only if they back the counter service
+			CounterBuffers counterBuffers = counterService instanceof BufferCounterService ?
+					this.counterBuffers : null;
+			return new CounterServiceBasedSpanMetricReporter(sleuthMetricProperties.getSpan(),
+					counterService, this.gaugeService, counterBuffers);
 		}
 
 		@Bean
@@ -71,6 +87,38 @@ public class TraceMetricsAutoConfiguration {
 		}
 	}
 
+	@Configuration
+	@ConditionalOnProperty(value = "spring.sleuth.metric.latency.enabled")
+	protected static class SpanNameMetricsConfig {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public SpanNameMetrics spanNameMetrics(SleuthMetricProperties sleuthMetricProperties) {
+			SleuthMetricProperties.Latency latency = sleuthMetricProperties.getLatency();
+			return new SpanNameMetrics(latency.getMaxSpanNames(), latency.getInterval(), TimeUnit.SECONDS);
+		}
+
+		@Bean
+		public SpanReporterDecorator spanNameMetricsSpanReporterDecorator(final SpanNameMetrics spanNameMetrics) {
+			return new SpanReporterDecorator() {
+				@Override
+				public SpanReporter decorate(SpanReporter spanReporter) {
+					return new SpanNameMetricsSpanReporter(spanReporter, spanNameMetrics);
+				}
+			};
+		}
+
+		@Configuration
+		@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+		protected static class SpanNamePublicMetricsConfig {
+
+			@Bean
+			public PublicMetrics spanNamePublicMetrics(SpanNameMetrics spanNameMetrics) {
+				return new SpanNamePublicMetrics(spanNameMetrics);
+			}
+		}
+	}
+
 	@Bean
 	@ConditionalOnMissingClass("org.springframework.boot.actuate.metrics.CounterService")
 	@ConditionalOnMissingBean(SpanMetricReporter.class)
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.recent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Fixed size, lock-free ring buffer of recently finished spans. Adding a span
+ * overwrites the oldest one, so the buffer never holds more than its capacity.
+ * Writers only increment a counter and set a slot, the buffer is scanned only
+ * when spans are read. There's deliberately no index by trace id, since keeping it
+ * up to date on every added and evicted span would cost the writers more than a scan
+ * of the fixed size buffer costs the rare readers.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class RecentSpans {
+
+	private final AtomicReferenceArray<Span> spans;
+	private final int mask;
+	private final AtomicLong writeIndex = new AtomicLong();
+
+	/**
+	 * @param capacity maximum number of kept spans. Rounded up to the next power of two
+	 */
+	public RecentSpans(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 30));
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.spans = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+	}
+
+	public void add(Span span) {
+		int slot = (int) (this.writeIndex.getAndIncrement() & this.mask);
+		this.spans.lazySet(slot, span);
+	}
+
+	public int capacity() {
+		return this.spans.length();
+	}
+
+	/**
+	 * @return the finished spans matching the filter, grouped by trace id. The most
+	 * recently added traces and spans come first.
+	 */
+	public Map<String, List<Span>> traces(Filter filter) {
+		Map<String, List<Span>> traces = new LinkedHashMap<>();
+		long newest = this.writeIndex.get() - 1;
+		long oldest = Math.max(0, newest - this.mask);
+		// walks the slots from the newest to the oldest, so that no sorting is needed
+		for (long i = newest; i >= oldest; i--) {
+			Span span = this.spans.get((int) (i & this.mask));
+			if (span == null || !filter.matches(span)) {
+				continue;
+			}
+			String traceId = span.traceIdString();
+			List<Span> trace = traces.get(traceId);
+			if (trace == null) {
+				if (traces.size() == filter.limit) {
+					continue;
+				}
+				trace = new ArrayList<>();
+				traces.put(traceId, trace);
+			}
+			trace.add(span);
+		}
+		return traces;
+	}
+
+	/**
+	 * Criteria of the spans to return. Unset criteria match all spans.
+	 */
+	public static class Filter {
+
+		Long minDurationMicros;
+		Boolean error;
+		String name;
+		String traceId;
+		int limit = Integer.MAX_VALUE;
+
+		public Filter minDurationMicros(Long minDurationMicros) {
+			this.minDurationMicros = minDurationMicros;
+			return this;
+		}
+
+		public Filter error(Boolean error) {
+			this.error = error;
+			return this;
+		}
+
+		public Filter name(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public Filter traceId(String traceId) {
+			this.traceId = traceId;
+			return this;
+		}
+
+		/**
+		 * @param limit maximum number of returned traces
+		 */
+		public Filter limit(Integer limit) {
+			if (limit != null) {
+				this.limit = limit;
+			}
+			return this;
+		}
+
+		boolean matches(Span span) {
+			if (this.minDurationMicros != null && span.getAccumulatedMicros() < this.minDurationMicros) {
+				return false;
+			}
+			if (this.error != null
+					&& this.error != span.tags().containsKey(Span.SPAN_ERROR_TAG_NAME)) {
+				return false;
+			}
+			if (this.name != null && !this.name.equalsIgnoreCase(span.getName())) {
+				return false;
+			}
+			return this.traceId == null || this.traceId.equals(span.traceIdString());
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.recent;
+
+import org.springframework.boot.actuate.endpoint.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.SpanReporterDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link org.springframework.boot.autoconfigure.EnableAutoConfiguration Auto-configuration}
+ * that keeps recently finished spans in memory and exposes them via an endpoint.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ *
+ * @see RecentSpans
+ * @see RecentTracesEndpoint
+ */
+@Configuration
+@ConditionalOnProperty(value = "spring.sleuth.recent.enabled")
+@EnableConfigurationProperties(RecentSpansProperties.class)
+public class RecentSpansAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public RecentSpans recentSpans(RecentSpansProperties properties) {
+		return new RecentSpans(properties.getCapacity());
+	}
+
+	@Bean
+	public SpanReporterDecorator recentSpansSpanReporterDecorator(final RecentSpans recentSpans) {
+		return new SpanReporterDecorator() {
+			@Override
+			public SpanReporter decorate(SpanReporter spanReporter) {
+				return new RecentSpansSpanReporter(spanReporter, recentSpans);
+			}
+		};
+	}
+
+	@Configuration
+	@ConditionalOnClass(Endpoint.class)
+	protected static class RecentTracesEndpointConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public RecentTracesEndpoint recentTracesEndpoint(RecentSpans recentSpans) {
+			return new RecentTracesEndpoint(recentSpans);
+		}
+	}
+
+	@Configuration
+	@ConditionalOnClass(name = { "org.springframework.boot.actuate.endpoint.Endpoint",
+			"org.springframework.web.servlet.DispatcherServlet" })
+	@ConditionalOnWebApplication
+	protected static class RecentTracesMvcEndpointConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public RecentTracesMvcEndpoint recentTracesMvcEndpoint(RecentTracesEndpoint recentTracesEndpoint) {
+			return new RecentTracesMvcEndpoint(recentTracesEndpoint);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.recent;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Endpoint exposing the recently finished traces kept in {@link RecentSpans}
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class RecentTracesEndpoint extends AbstractEndpoint<Map<String, List<Span>>> {
+
+	private final RecentSpans recentSpans;
+
+	public RecentTracesEndpoint(RecentSpans recentSpans) {
+		super("recenttraces");
+		this.recentSpans = recentSpans;
+	}
+
+	@Override
+	public Map<String, List<Span>> invoke() {
+		return invoke(new RecentSpans.Filter());
+	}
+
+	public Map<String, List<Span>> invoke(RecentSpans.Filter filter) {
+		return this.recentSpans.traces(filter);
+	}
+}
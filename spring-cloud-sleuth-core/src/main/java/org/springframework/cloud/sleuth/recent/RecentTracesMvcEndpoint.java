@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.recent;
+
+import org.springframework.boot.actuate.endpoint.mvc.AbstractEndpointMvcAdapter;
+import org.springframework.boot.actuate.endpoint.mvc.ActuatorMediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * MVC adapter of the {@link RecentTracesEndpoint} allowing to filter the traces.
+ * Example: {@code /recenttraces?minDuration=100000&error=true&name=http:/foo&limit=10}
+ * where the minimal duration is expressed in microseconds.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class RecentTracesMvcEndpoint extends AbstractEndpointMvcAdapter<RecentTracesEndpoint> {
+
+	public RecentTracesMvcEndpoint(RecentTracesEndpoint delegate) {
+		super(delegate);
+	}
+
+	@GetMapping(produces = { ActuatorMediaTypes.APPLICATION_ACTUATOR_V1_JSON_VALUE,
+			MediaType.APPLICATION_JSON_VALUE })
+	@ResponseBody
+	public Object invoke(@RequestParam(required = false) Long minDuration,
+			@RequestParam(required = false) Boolean error,
+			@RequestParam(required = false) String name,
+			@RequestParam(required = false) String traceId,
+			@RequestParam(required = false) Integer limit) {
+		if (!getDelegate().isEnabled()) {
+			return getDisabledResponse();
+		}
+		return getDelegate().invoke(new RecentSpans.Filter().minDurationMicros(minDuration)
+				.error(error).name(name).traceId(traceId).limit(limit));
+	}
+}
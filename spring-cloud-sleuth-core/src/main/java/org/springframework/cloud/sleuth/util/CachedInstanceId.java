@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.util;
+
+import java.nio.charset.Charset;
+
+import org.springframework.cloud.commons.util.IdUtils;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolves the default instance id (via {@link IdUtils#getDefaultInstanceId(org.springframework.core.env.PropertyResolver)})
+ * once instead of per reported span. The value is resolved again when the environment
+ * changes (if Spring Cloud Context is on the classpath and this object is registered as a bean).
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class CachedInstanceId implements SmartApplicationListener {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String ENVIRONMENT_CHANGE_EVENT =
+			"org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+	private static final Class<?> ENVIRONMENT_CHANGE_EVENT_CLASS = environmentChangeEventClass();
+
+	private final Environment environment;
+	private volatile Value value;
+
+	public CachedInstanceId(Environment environment) {
+		this.environment = environment;
+	}
+
+	/**
+	 * @return the instance id or {@code null} if there's none
+	 */
+	public String get() {
+		return value().instanceId;
+	}
+
+	/**
+	 * @return the instance id encoded as UTF-8 or {@code null} if there's none. The
+	 * returned array is shared and must not be modified
+	 */
+	public byte[] getUtf8Bytes() {
+		return value().utf8Bytes;
+	}
+
+	/**
+	 * Resolves the instance id again on next access
+	 */
+	public void refresh() {
+		this.value = null;
+	}
+
+	private Value value() {
+		Value value = this.value;
+		if (value == null) {
+			value = new Value(IdUtils.getDefaultInstanceId(this.environment));
+			this.value = value;
+		}
+		return value;
+	}
+
+	@Override
+	public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+		return ENVIRONMENT_CHANGE_EVENT_CLASS != null &&
+				ENVIRONMENT_CHANGE_EVENT_CLASS.isAssignableFrom(eventType);
+	}
+
+	@Override
+	public boolean supportsSourceType(Class<?> sourceType) {
+		return true;
+	}
+
+	@Override
+	public void onApplicationEvent(ApplicationEvent event) {
+		refresh();
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.LOWEST_PRECEDENCE;
+	}
+
+	private static Class<?> environmentChangeEventClass() {
+		ClassLoader classLoader = CachedInstanceId.class.getClassLoader();
+		if (!ClassUtils.isPresent(ENVIRONMENT_CHANGE_EVENT, classLoader)) {
+			return null;
+		}
+		return ClassUtils.resolveClassName(ENVIRONMENT_CHANGE_EVENT, classLoader);
+	}
+
+	private static final class Value {
+		final String instanceId;
+		final byte[] utf8Bytes;
+
+		Value(String instanceId) {
+			boolean hasText = StringUtils.hasText(instanceId);
+			this.instanceId = hasText ? instanceId : null;
+			this.utf8Bytes = hasText ? instanceId.getBytes(UTF_8) : null;
+		}
+	}
+}
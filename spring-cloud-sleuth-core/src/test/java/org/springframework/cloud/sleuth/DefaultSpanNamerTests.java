@@ -45,6 +45,19 @@ public class DefaultSpanNamerTests {
 		then(this.defaultSpanNamer.name(new ClassWithoutToString(), "default")).isEqualTo("default");
 	}
 
+	@Test
+	public void should_name_instances_of_the_same_class_consistently() throws Exception {
+		then(this.defaultSpanNamer.name(new ClassWithAnnotation(), "default")).isEqualTo("somevalue");
+		then(new DefaultSpanNamer().name(new ClassWithAnnotation(), "other")).isEqualTo("somevalue");
+		then(this.defaultSpanNamer.name(new ClassWithoutToString(), "default")).isEqualTo("default");
+		then(new DefaultSpanNamer().name(new ClassWithoutToString(), "other")).isEqualTo("other");
+	}
+
+	@Test
+	public void should_return_default_value_if_overridden_tostring_returns_the_default_one() throws Exception {
+		then(this.defaultSpanNamer.name(new ClassWithSuperToString(), "default")).isEqualTo("default");
+	}
+
 	@Test
 	public void should_return_value_of_span_name_from_annotation_on_method() throws Exception {
 		Method method = ReflectionUtils.findMethod(ClassWithAnnotatedMethod.class, "method");
@@ -76,6 +89,13 @@ public class DefaultSpanNamerTests {
 
 	static class ClassWithoutToString {}
 
+	static class ClassWithSuperToString {
+		@Override
+		public String toString() {
+			return super.toString();
+		}
+	}
+
 	static class ClassWithAnnotatedMethod {
 		@SpanName("foo")
 		void method() {}
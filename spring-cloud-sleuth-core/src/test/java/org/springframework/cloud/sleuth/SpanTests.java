@@ -216,6 +216,15 @@ public class SpanTests {
 				.isEqualTo(span.getAccumulatedMicros());
 	}
 
+	@Test public void shouldRetainDurationMicrosSetOnBuilder() {
+		Span span = Span.builder().traceId(1L).name("http:parent").begin(1000L).end(1001L)
+				.durationMicros(1234L).build();
+
+		assertThat(span.getAccumulatedMicros()).isEqualTo(1234L);
+		assertThat(Span.builder().from(span).build().getAccumulatedMicros())
+				.isEqualTo(1000L);
+	}
+
 	// Duration of 0 is confusing to plot and can be misinterpreted as null
 	@Test public void getAccumulatedMicros_roundsUpToOneWhenRunning() throws IOException {
 		AtomicLong nanoTime = new AtomicLong();
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.annotation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SleuthAdvisorConfigTests {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	SleuthAdvisorConfig advisor = new SleuthAdvisorConfig();
+
+	@Before
+	public void setup() {
+		this.advisor.init();
+	}
+
+	@Test
+	public void should_match_statically_only_annotated_methods() throws Exception {
+		Pointcut pointcut = this.advisor.getPointcut();
+
+		then(pointcut.getMethodMatcher().isRuntime()).isFalse();
+		then(pointcut.getClassFilter().matches(Annotated.class)).isTrue();
+		then(pointcut.getClassFilter().matches(NotAnnotated.class)).isFalse();
+		then(matches(pointcut, Annotated.class.getMethod("newSpan"))).isTrue();
+		then(matches(pointcut, Annotated.class.getMethod("continueSpan"))).isTrue();
+		then(matches(pointcut, Annotated.class.getMethod("notAnnotated"))).isFalse();
+	}
+
+	@Test
+	public void should_match_methods_annotated_on_the_interface() throws Exception {
+		Pointcut pointcut = this.advisor.getPointcut();
+
+		then(pointcut.getClassFilter().matches(AnnotatedInterfaceImpl.class)).isTrue();
+		then(matches(pointcut, AnnotatedInterface.class.getMethod("newSpan"),
+				AnnotatedInterfaceImpl.class)).isTrue();
+		then(matches(pointcut, AnnotatedInterfaceImpl.class.getMethod("notAnnotated"),
+				AnnotatedInterfaceImpl.class)).isFalse();
+	}
+
+	@Test
+	public void should_not_advise_a_class_without_annotated_methods() {
+		then(AopUtils.canApply(this.advisor, NotAnnotated.class)).isFalse();
+		then(AopUtils.canApply(this.advisor, Annotated.class)).isTrue();
+	}
+
+	@Test
+	public void should_consult_the_index_instead_of_scanning_when_enabled() throws Exception {
+		SleuthAdvisorConfig advisor = advisorWithIndex(new MockEnvironment()
+				.withProperty("spring.sleuth.annotation.use-index", "true"));
+
+		Pointcut pointcut = advisor.getPointcut();
+
+		then(pointcut.getClassFilter().matches(AnnotatedInterfaceImpl.class)).isTrue();
+		then(matches(pointcut, AnnotatedInterface.class.getMethod("newSpan"),
+				AnnotatedInterfaceImpl.class)).isTrue();
+		then(matches(pointcut, AnnotatedInterfaceImpl.class.getMethod("notAnnotated"),
+				AnnotatedInterfaceImpl.class)).isFalse();
+		// not indexed
+		then(pointcut.getClassFilter().matches(Annotated.class)).isFalse();
+	}
+
+	@Test
+	public void should_scan_the_classes_when_the_index_is_disabled() throws Exception {
+		SleuthAdvisorConfig advisor = advisorWithIndex(new MockEnvironment()
+				.withProperty("spring.sleuth.annotation.use-index", "false"));
+
+		then(advisor.getPointcut().getClassFilter().matches(Annotated.class)).isTrue();
+	}
+
+	@Test
+	public void should_scan_the_classes_when_the_index_is_not_enabled() throws Exception {
+		SleuthAdvisorConfig advisor = advisorWithIndex(new MockEnvironment());
+
+		then(advisor.getPointcut().getClassFilter().matches(Annotated.class)).isTrue();
+	}
+
+	private SleuthAdvisorConfig advisorWithIndex(MockEnvironment environment) throws Exception {
+		File index = new File(this.folder.getRoot(), SleuthAnnotationIndex.INDEX_LOCATION);
+		then(index.getParentFile().mkdirs()).isTrue();
+		Properties properties = new Properties();
+		properties.setProperty(AnnotatedInterface.class.getName(), "newSpan");
+		try (OutputStream out = new FileOutputStream(index)) {
+			properties.store(out, null);
+		}
+		SleuthAdvisorConfig advisor = new SleuthAdvisorConfig();
+		advisor.setEnvironment(environment);
+		advisor.setBeanClassLoader(new URLClassLoader(
+				new URL[] { this.folder.getRoot().toURI().toURL() }, null));
+		advisor.init();
+		return advisor;
+	}
+
+	private boolean matches(Pointcut pointcut, Method method) {
+		return matches(pointcut, method, method.getDeclaringClass());
+	}
+
+	private boolean matches(Pointcut pointcut, Method method, Class<?> targetClass) {
+		return pointcut.getMethodMatcher().matches(method, targetClass);
+	}
+
+	static class Annotated {
+		@NewSpan
+		public void newSpan() {
+		}
+
+		@ContinueSpan
+		public void continueSpan() {
+		}
+
+		public void notAnnotated() {
+		}
+	}
+
+	static class NotAnnotated {
+		public void notAnnotated() {
+		}
+	}
+
+	interface AnnotatedInterface {
+		@NewSpan
+		void newSpan();
+	}
+
+	static class AnnotatedInterfaceImpl implements AnnotatedInterface {
+		@Override
+		public void newSpan() {
+		}
+
+		public void notAnnotated() {
+		}
+	}
+}
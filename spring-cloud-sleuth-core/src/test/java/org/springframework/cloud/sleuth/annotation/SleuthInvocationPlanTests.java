@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.annotation;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.BeanFactory;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SleuthInvocationPlanTests {
+
+	BeanFactory beanFactory = Mockito.mock(BeanFactory.class);
+	SpanTagAnnotationHandler spanTagAnnotationHandler =
+			new SpanTagAnnotationHandler(this.beanFactory);
+
+	@Test
+	public void should_merge_tagged_parameters_of_the_class_and_the_interface()
+			throws Exception {
+		Method method = Traced.class.getMethod("newSpan", String.class, String.class);
+
+		SleuthInvocationPlan plan = SleuthInvocationPlan.of(method, TracedBean.class,
+				this.spanTagAnnotationHandler);
+
+		then(plan.isAnnotated()).isTrue();
+		then(plan.spanName).isEqualTo("custom-name");
+		then(plan.hasLog()).isFalse();
+		then(plan.taggedParameters).extracting(p -> p.parameterIndex).containsExactly(1, 0);
+		then(plan.taggedParameters).extracting(p -> p.tagName)
+				.containsExactly("class", "interface");
+	}
+
+	@Test
+	public void should_precompute_the_log_events_of_a_continued_span() throws Exception {
+		Method method = Traced.class.getMethod("continueSpan");
+
+		SleuthInvocationPlan plan = SleuthInvocationPlan.of(method, TracedBean.class,
+				this.spanTagAnnotationHandler);
+
+		then(plan.newSpan).isNull();
+		then(plan.spanName).isNull();
+		then(plan.beforeEvent).isEqualTo("foo.before");
+		then(plan.afterEvent).isEqualTo("foo.after");
+		then(plan.afterFailureEvent).isEqualTo("foo.afterFailure");
+	}
+
+	@Test
+	public void should_not_be_annotated_for_a_method_without_annotations() throws Exception {
+		Method method = Traced.class.getMethod("notTraced");
+
+		SleuthInvocationPlan plan = SleuthInvocationPlan.of(method, TracedBean.class,
+				this.spanTagAnnotationHandler);
+
+		then(plan.isAnnotated()).isFalse();
+		then(plan.taggedParameters).isEmpty();
+	}
+
+	@Test
+	public void should_resolve_the_tag_value_resolvers_when_the_plan_is_built()
+			throws Exception {
+		TagValueResolver resolver = parameter -> "resolved";
+		Mockito.when(this.beanFactory.getBean(TagValueResolver.class)).thenReturn(resolver);
+		Method method = Traced.class.getMethod("resolved", String.class, String.class);
+
+		SleuthInvocationPlan plan = SleuthInvocationPlan.of(method, TracedBean.class,
+				this.spanTagAnnotationHandler);
+
+		then(plan.taggedParameters[0].resolver).isSameAs(resolver);
+		then(plan.taggedParameters[1].expression).isEqualTo("length()");
+		then(this.spanTagAnnotationHandler.resolveTagValue(plan.taggedParameters[0], "foo"))
+				.isEqualTo("resolved");
+		Mockito.verify(this.beanFactory).getBean(TagValueResolver.class);
+	}
+
+	interface Traced {
+		@NewSpan("customName")
+		void newSpan(@SpanTag("interface") String first, String second);
+
+		@ContinueSpan(log = "foo")
+		void continueSpan();
+
+		void notTraced();
+
+		@NewSpan
+		void resolved(@SpanTag(value = "resolver", resolver = TagValueResolver.class) String first,
+				@SpanTag(value = "expression", expression = "length()") String second);
+	}
+
+	static class TracedBean implements Traced {
+		@Override
+		public void newSpan(String first, @SpanTag("class") String second) {
+		}
+
+		@Override
+		public void continueSpan() {
+		}
+
+		@Override
+		public void notTraced() {
+		}
+
+		@Override
+		public void resolved(String first, String second) {
+		}
+	}
+}
@@ -55,7 +55,8 @@ public class SpanTagAnnotationHandlerTests {
 		Method method = AnnotationMockClass.class.getMethod("getAnnotationForTagValueResolver", String.class);
 		Annotation annotation = method.getParameterAnnotations()[0][0];
 		if (annotation instanceof SpanTag) {
-			String resolvedValue = handler.resolveTagValue((SpanTag) annotation, "test");
+			String resolvedValue = handler.resolveTagValue(
+					handler.taggedParameter(0, (SpanTag) annotation), "test");
 			assertThat(resolvedValue).isEqualTo("Value from myCustomTagValueResolver");
 		} else {
 			fail("Annotation was not SleuthSpanTag");
@@ -67,7 +68,8 @@ public class SpanTagAnnotationHandlerTests {
 		Method method = AnnotationMockClass.class.getMethod("getAnnotationForTagValueExpression", String.class);
 		Annotation annotation = method.getParameterAnnotations()[0][0];
 		if (annotation instanceof SpanTag) {
-			String resolvedValue = handler.resolveTagValue((SpanTag) annotation, "test");
+			String resolvedValue = handler.resolveTagValue(
+					handler.taggedParameter(0, (SpanTag) annotation), "test");
 			
 			assertThat(resolvedValue).isEqualTo("4 characters");
 		} else {
@@ -80,7 +82,8 @@ public class SpanTagAnnotationHandlerTests {
 		Method method = AnnotationMockClass.class.getMethod("getAnnotationForArgumentToString", Long.class);
 		Annotation annotation = method.getParameterAnnotations()[0][0];
 		if (annotation instanceof SpanTag) {
-			String resolvedValue = handler.resolveTagValue((SpanTag) annotation, 15);
+			String resolvedValue = handler.resolveTagValue(
+					handler.taggedParameter(0, (SpanTag) annotation), 15);
 			assertThat(resolvedValue).isEqualTo("15");
 		} else {
 			fail("Annotation was not SleuthSpanTag");
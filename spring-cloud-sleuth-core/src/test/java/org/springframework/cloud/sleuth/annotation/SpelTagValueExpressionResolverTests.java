@@ -41,6 +41,18 @@ public class SpelTagValueExpressionResolverTests {
 
 		then(resolved).isEqualTo("BAR");
 	}
+
+	@Test
+	public void should_resolve_the_same_expression_when_it_gets_compiled() throws Exception {
+		SpelTagValueExpressionResolver resolver = new SpelTagValueExpressionResolver();
+
+		for (int i = 0; i < 500; i++) {
+			then(resolver.resolve("length() + ' characters'", "foo" + i))
+					.isEqualTo((i < 10 ? 4 : i < 100 ? 5 : 6) + " characters");
+		}
+		then(resolver.resolve("length() + ' characters'", new StringBuilder("ab")))
+				.isEqualTo("2 characters");
+	}
 }
 
 class Foo {
@@ -15,15 +15,22 @@ package org.springframework.cloud.sleuth.autoconfig;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Test;
 import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
 import org.springframework.boot.test.util.EnvironmentTestUtils;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporterDecorator;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.log.SleuthLogAutoConfiguration;
 import org.springframework.cloud.sleuth.sampler.NeverSampler;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 
 public class TraceAutoConfigurationTests {
 
@@ -75,4 +82,39 @@ public class TraceAutoConfigurationTests {
 			}
 		}
 	}
+
+	@Test
+	public void appliesSpanReporterDecoratorsInTheirOrder() {
+		context.register(PropertyPlaceholderAutoConfiguration.class,
+				SleuthLogAutoConfiguration.class, DecoratorsConfig.class,
+				TraceAutoConfiguration.class);
+		context.refresh();
+		context.getBean(Tracer.class);
+
+		assertThat(context.getBean(DecoratorsConfig.class).applied)
+				.containsExactly("first", "second");
+	}
+
+	@Configuration
+	static class DecoratorsConfig {
+		final List<String> applied = new ArrayList<>();
+
+		@Bean
+		@Order(2)
+		SpanReporterDecorator secondDecorator() {
+			return spanReporter -> {
+				this.applied.add("second");
+				return spanReporter;
+			};
+		}
+
+		@Bean
+		@Order(1)
+		SpanReporterDecorator firstDecorator() {
+			return spanReporter -> {
+				this.applied.add("first");
+				return spanReporter;
+			};
+		}
+	}
 }
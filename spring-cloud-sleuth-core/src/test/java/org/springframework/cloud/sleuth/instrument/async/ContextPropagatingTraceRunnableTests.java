@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.metric.AsyncTaskMetrics;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+import org.springframework.cloud.sleuth.trace.TestSpanContextHolder;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ContextPropagatingTraceRunnableTests {
+
+	ExecutorService executor = Executors.newSingleThreadExecutor();
+	Tracer tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+			new DefaultSpanNamer(), new NoOpSpanLogger(), new NoOpSpanReporter(),
+			new TraceKeys());
+	AsyncTaskMetrics metrics = new AsyncTaskMetrics(1, TimeUnit.HOURS);
+
+	@After
+	public void cleanup() {
+		TestSpanContextHolder.removeCurrentSpan();
+		this.executor.shutdown();
+	}
+
+	@Test
+	public void should_continue_the_parent_span_without_creating_a_new_one() throws Exception {
+		final AtomicReference<Span> spanInTask = new AtomicReference<>();
+		Span parent = this.tracer.createSpan("parent");
+
+		this.executor.submit(new ContextPropagatingTraceRunnable(this.tracer,
+				currentSpanTo(spanInTask))).get();
+		this.tracer.close(parent);
+
+		then(spanInTask.get().getSpanId()).isEqualTo(parent.getSpanId());
+		then(spanInTask.get().getTraceId()).isEqualTo(parent.getTraceId());
+		then(spanAfterTheTask()).isNull();
+	}
+
+	@Test
+	public void should_not_create_a_span_when_there_was_no_parent() throws Exception {
+		final AtomicReference<Span> spanInTask = new AtomicReference<>();
+
+		this.executor.submit(new ContextPropagatingTraceRunnable(this.tracer,
+				currentSpanTo(spanInTask))).get();
+
+		then(spanInTask.get()).isNull();
+	}
+
+	@Test
+	public void should_keep_the_callers_span_when_running_on_the_callers_thread() throws Exception {
+		final AtomicReference<Span> spanInTask = new AtomicReference<>();
+		Span parent = this.tracer.createSpan("parent");
+
+		new ContextPropagatingTraceRunnable(this.tracer, currentSpanTo(spanInTask)).run();
+
+		then(spanInTask.get()).isEqualTo(parent);
+		then(this.tracer.getCurrentSpan()).isEqualTo(parent);
+		this.tracer.close(parent);
+	}
+
+	@Test
+	public void should_restore_the_span_that_was_current_before_the_task() throws Exception {
+		final AtomicReference<Span> spanInTask = new AtomicReference<>();
+		Span parent = this.tracer.createSpan("parent");
+		Runnable task = new ContextPropagatingTraceRunnable(this.tracer,
+				currentSpanTo(spanInTask));
+		this.tracer.close(parent);
+		Span other = this.tracer.createSpan("other");
+
+		task.run();
+
+		then(spanInTask.get()).isEqualTo(parent);
+		then(this.tracer.getCurrentSpan()).isEqualTo(other);
+		this.tracer.close(other);
+	}
+
+	@Test
+	public void should_record_tasks_and_errors() throws Exception {
+		AsyncTaskMetrics.Recorder recorder = this.metrics.recorder("pool");
+
+		new ContextPropagatingTraceRunnable(this.tracer, new Runnable() {
+			@Override public void run() {
+			}
+		}, recorder).run();
+		try {
+			new ContextPropagatingTraceRunnable(this.tracer, new Runnable() {
+				@Override public void run() {
+					throw new IllegalStateException("boom");
+				}
+			}, recorder).run();
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+
+		AsyncTaskMetrics.Snapshot snapshot = this.metrics.snapshot().get(0);
+		then(snapshot.executorName).isEqualTo("pool");
+		then(snapshot.count).isEqualTo(2);
+		then(snapshot.errors).isEqualTo(1);
+	}
+
+	private Runnable currentSpanTo(final AtomicReference<Span> span) {
+		return new Runnable() {
+			@Override public void run() {
+				span.set(TestSpanContextHolder.getCurrentSpan());
+			}
+		};
+	}
+
+	private Span spanAfterTheTask() throws Exception {
+		final AtomicReference<Span> span = new AtomicReference<>();
+		this.executor.submit(currentSpanTo(span)).get();
+		return span.get();
+	}
+}
@@ -1,7 +1,10 @@
 package org.springframework.cloud.sleuth.instrument.async;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.Test;
@@ -10,10 +13,17 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.aop.framework.AopConfigException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.SpanNamer;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.ClassUtils;
 
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 
 /**
@@ -23,6 +33,7 @@ import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 public class ExecutorBeanPostProcessorTests {
 
 	@Mock BeanFactory beanFactory;
+	@Mock Tracer tracer;
 
 	@Test
 	public void should_create_a_cglib_proxy_by_default() throws Exception {
@@ -39,6 +50,45 @@ public class ExecutorBeanPostProcessorTests {
 		}
 	}
 
+	@Test
+	public void should_create_the_traced_executor_once_per_bean() throws Exception {
+		given(this.beanFactory.getBean(Tracer.class)).willReturn(this.tracer);
+		given(this.beanFactory.getBean(TraceKeys.class)).willReturn(new TraceKeys());
+		given(this.beanFactory.getBean(SpanNamer.class)).willReturn(new DefaultSpanNamer());
+		given(this.beanFactory.getBean(SleuthAsyncProperties.class))
+				.willReturn(new SleuthAsyncProperties());
+		RecordingExecutor recordingExecutor = new RecordingExecutor();
+		Executor executor = (Executor) new ExecutorBeanPostProcessor(this.beanFactory)
+				.postProcessAfterInitialization(recordingExecutor, "foo");
+
+		executor.execute(() -> { });
+		executor.execute(() -> { });
+
+		then(recordingExecutor.commands).hasSize(2);
+		then(recordingExecutor.commands.get(0)).isInstanceOf(SpanContinuingTraceRunnable.class);
+		then(recordingExecutor.commands.get(1)).isInstanceOf(SpanContinuingTraceRunnable.class);
+		verify(this.beanFactory, times(1)).getBean(Tracer.class);
+	}
+
+	class RecordingExecutor implements Executor {
+		final List<Runnable> commands = new ArrayList<>();
+
+		@Override public void execute(Runnable command) {
+			this.commands.add(command);
+		}
+	}
+
+	@Test
+	public void should_not_proxy_a_traceable_fork_join_pool() throws Exception {
+		TraceableForkJoinPool pool = new TraceableForkJoinPool(this.tracer, new ForkJoinPool(1));
+
+		Object o = new ExecutorBeanPostProcessor(this.beanFactory)
+				.postProcessAfterInitialization(pool, "foo");
+
+		then(o).isSameAs(pool);
+		pool.shutdown();
+	}
+
 	@Test
 	public void should_create_jdk_proxy_when_cglib_fails_to_be_done() throws Exception {
 		ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
@@ -55,7 +105,7 @@ public class ExecutorBeanPostProcessorTests {
 		ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
 		ExecutorBeanPostProcessor bpp = new ExecutorBeanPostProcessor(this.beanFactory) {
 			@Override Object createProxy(Object bean, boolean cglibProxy,
-					Executor executor) {
+					Executor executor, String beanName) {
 				throw new AopConfigException("foo");
 			}
 		};
@@ -82,7 +132,7 @@ public class ExecutorBeanPostProcessorTests {
 		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
 		ExecutorBeanPostProcessor bpp = new ExecutorBeanPostProcessor(this.beanFactory) {
 			@Override Object createThreadPoolTaskExecutorProxy(Object bean, boolean cglibProxy,
-					ThreadPoolTaskExecutor executor) {
+					ThreadPoolTaskExecutor executor, String beanName) {
 				throw new AopConfigException("foo");
 			}
 		};
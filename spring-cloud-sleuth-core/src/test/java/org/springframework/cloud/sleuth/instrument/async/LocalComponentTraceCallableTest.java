@@ -17,6 +17,9 @@
 package org.springframework.cloud.sleuth.instrument.async;
 
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.springframework.cloud.sleuth.DefaultSpanNamer;
@@ -56,4 +59,34 @@ public class LocalComponentTraceCallableTest {
 		then(this.closedSpan).isALocalComponentSpan();
 	}
 
+	@Test
+	public void should_tag_the_span_with_the_time_the_callable_waited_for_a_thread() throws Exception {
+		TraceKeys traceKeys = new TraceKeys();
+		SpanContinuingTraceCallable<String> callable = new SpanContinuingTraceCallable<>(this.tracer, traceKeys, new DefaultSpanNamer(),
+				() -> "hello");
+		Thread.sleep(10);
+
+		callable.call();
+
+		String queueWait = this.closedSpan.tags().get(traceKeys.getAsync().getQueueWaitKey());
+		then(Long.valueOf(queueWait)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(10));
+	}
+
+	@Test
+	public void should_not_tag_the_span_of_a_scheduled_callable_with_the_delay_as_the_wait() throws Exception {
+		TraceKeys traceKeys = new TraceKeys();
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		try {
+			new TraceableScheduledExecutorService(executor, this.tracer, traceKeys,
+					new DefaultSpanNamer()).schedule(() -> "hello", 50, TimeUnit.MILLISECONDS)
+					.get();
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		then(this.closedSpan).isALocalComponentSpan();
+		then(this.closedSpan.tags()).doesNotContainKey(traceKeys.getAsync().getQueueWaitKey());
+	}
+
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import org.mockito.BDDMockito;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.cloud.sleuth.DefaultSpanNamer;
 import org.springframework.cloud.sleuth.NoOpSpanReporter;
 import org.springframework.cloud.sleuth.Span;
@@ -32,6 +33,7 @@ import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.assertions.SleuthAssertions;
 import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.metric.AsyncTaskMetrics;
 import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
 import org.springframework.cloud.sleuth.trace.DefaultTracer;
 import org.springframework.cloud.sleuth.trace.TestSpanContextHolder;
@@ -77,6 +79,57 @@ public class TraceableExecutorServiceTests {
 		then(this.spanVerifyingRunnable.spanIds.stream().distinct().collect(toList())).hasSize(TOTAL_THREADS);
 	}
 
+	@Test
+	public void should_only_propagate_the_context_in_context_only_mode() throws Exception {
+		SleuthAsyncProperties properties = new SleuthAsyncProperties();
+		properties.setContextOnly(true);
+		properties.getMetrics().setEnabled(true);
+		AsyncTaskMetrics metrics = new AsyncTaskMetrics(1, TimeUnit.HOURS);
+		BeanFactory beanFactory = Mockito.mock(BeanFactory.class);
+		BDDMockito.given(beanFactory.getBean(Tracer.class)).willReturn(this.tracer);
+		BDDMockito.given(beanFactory.getBean(SleuthAsyncProperties.class)).willReturn(properties);
+		BDDMockito.given(beanFactory.getBean(AsyncTaskMetrics.class)).willReturn(metrics);
+		this.traceManagerableExecutorService = new TraceableExecutorService(beanFactory,
+				this.executorService, "pool");
+
+		Span span = this.tracer.createSpan("http:PARENT");
+		CompletableFuture.allOf(runnablesExecutedViaTraceManagerableExecutorService()).get();
+		this.tracer.close(span);
+		// the tasks are recorded after the futures complete
+		this.executorService.shutdown();
+		this.executorService.awaitTermination(5, TimeUnit.SECONDS);
+
+		then(this.spanVerifyingRunnable.spanIds.stream().distinct().collect(toList()))
+				.containsOnly(span.getSpanId());
+		then(metrics.snapshot()).hasSize(1);
+		then(metrics.snapshot().get(0).executorName).isEqualTo("pool");
+		then(metrics.snapshot().get(0).count).isEqualTo(TOTAL_THREADS);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void should_pass_tasks_through_in_context_only_mode_when_there_is_no_current_span() throws Exception {
+		SleuthAsyncProperties properties = new SleuthAsyncProperties();
+		properties.setContextOnly(true);
+		BeanFactory beanFactory = Mockito.mock(BeanFactory.class);
+		BDDMockito.given(beanFactory.getBean(Tracer.class)).willReturn(this.tracer);
+		BDDMockito.given(beanFactory.getBean(SleuthAsyncProperties.class)).willReturn(properties);
+		ExecutorService executorService = Mockito.mock(ExecutorService.class);
+		TraceableExecutorService traceExecutorService = new TraceableExecutorService(
+				beanFactory, executorService, "pool");
+		Runnable runnable = () -> { };
+		Callable<String> callable = () -> "foo";
+		List<Callable<String>> callables = Collections.singletonList(callable);
+
+		traceExecutorService.execute(runnable);
+		traceExecutorService.submit(callable);
+		traceExecutorService.invokeAll(callables);
+
+		BDDMockito.then(executorService).should().execute(BDDMockito.same(runnable));
+		BDDMockito.then(executorService).should().submit(BDDMockito.same(callable));
+		BDDMockito.then(executorService).should().invokeAll(BDDMockito.same(callables));
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void should_wrap_methods_in_trace_representation_only_for_non_tracing_callables() throws Exception {
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+import org.springframework.cloud.sleuth.trace.TestSpanContextHolder;
+import org.springframework.cloud.sleuth.util.ArrayListSpanAccumulator;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class TraceableForkJoinPoolTests {
+
+	ArrayListSpanAccumulator spanReporter = new ArrayListSpanAccumulator();
+	Tracer tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+			new DefaultSpanNamer(), new NoOpSpanLogger(), this.spanReporter,
+			new TraceKeys());
+	ForkJoinPool delegate = new ForkJoinPool(1);
+	TraceableForkJoinPool pool = new TraceableForkJoinPool(this.tracer, this.delegate);
+
+	@After
+	public void cleanup() {
+		TestSpanContextHolder.removeCurrentSpan();
+		this.delegate.shutdown();
+	}
+
+	@Test
+	public void should_continue_the_current_span_in_a_submitted_callable() throws Exception {
+		Span parent = this.tracer.createSpan("parent");
+
+		Span spanInTask = this.pool.submit(currentSpan()).get();
+		this.tracer.close(parent);
+
+		then(spanInTask.getSpanId()).isEqualTo(parent.getSpanId());
+		then(this.spanReporter.getSpans()).hasSize(1);
+		then(spanAfterTheTask()).isNull();
+	}
+
+	@Test
+	public void should_continue_the_current_span_in_an_invoked_fork_join_task() throws Exception {
+		Span parent = this.tracer.createSpan("parent");
+
+		Span spanInTask = this.pool.invoke(new RecursiveTask<Span>() {
+			@Override protected Span compute() {
+				return TestSpanContextHolder.getCurrentSpan();
+			}
+		});
+		then(this.tracer.getCurrentSpan()).isEqualTo(parent);
+		this.tracer.close(parent);
+
+		then(spanInTask.getSpanId()).isEqualTo(parent.getSpanId());
+		then(this.spanReporter.getSpans()).hasSize(1);
+		then(spanAfterTheTask()).isNull();
+	}
+
+	@Test
+	public void should_return_the_submitted_fork_join_task() throws Exception {
+		Span parent = this.tracer.createSpan("parent");
+		RecursiveTask<Span> task = new RecursiveTask<Span>() {
+			@Override protected Span compute() {
+				return TestSpanContextHolder.getCurrentSpan();
+			}
+		};
+
+		then(this.pool.submit(task)).isSameAs(task);
+		then(task.get().getSpanId()).isEqualTo(parent.getSpanId());
+		this.tracer.close(parent);
+	}
+
+	@Test
+	public void should_continue_the_current_span_in_invoked_callables() throws Exception {
+		Span parent = this.tracer.createSpan("parent");
+
+		Span spanInTask = this.pool.invokeAll(Collections.singletonList(currentSpan()))
+				.get(0).get();
+		this.tracer.close(parent);
+
+		then(spanInTask.getSpanId()).isEqualTo(parent.getSpanId());
+	}
+
+	@Test
+	public void should_continue_the_current_span_in_timed_invoked_callables() throws Exception {
+		Span parent = this.tracer.createSpan("parent");
+
+		Span spanInInvokeAll = this.pool.invokeAll(Collections.singletonList(currentSpan()),
+				5, TimeUnit.SECONDS).get(0).get();
+		Span spanInInvokeAny = this.pool.invokeAny(Collections.singletonList(currentSpan()),
+				5, TimeUnit.SECONDS);
+		this.tracer.close(parent);
+
+		then(spanInInvokeAll.getSpanId()).isEqualTo(parent.getSpanId());
+		then(spanInInvokeAny.getSpanId()).isEqualTo(parent.getSpanId());
+	}
+
+	@Test
+	public void should_not_run_a_submitted_fork_join_task_cancelled_while_queued() throws Exception {
+		Span parent = this.tracer.createSpan("parent");
+		CountDownLatch release = new CountDownLatch(1);
+		this.pool.execute(() -> {
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		AtomicBoolean ran = new AtomicBoolean();
+		RecursiveTask<Span> task = new RecursiveTask<Span>() {
+			@Override protected Span compute() {
+				ran.set(true);
+				return TestSpanContextHolder.getCurrentSpan();
+			}
+		};
+
+		this.pool.submit(task).cancel(true);
+		release.countDown();
+		this.tracer.close(parent);
+
+		then(this.pool.awaitQuiescence(5, TimeUnit.SECONDS)).isTrue();
+		then(task.isCancelled()).isTrue();
+		then(ran.get()).isFalse();
+	}
+
+	@Test
+	public void should_delegate_all_public_methods_of_the_pool() throws Exception {
+		for (Method method : ForkJoinPool.class.getMethods()) {
+			if (Modifier.isStatic(method.getModifiers())
+					|| method.getDeclaringClass() == Object.class
+							&& !method.getName().equals("toString")) {
+				continue;
+			}
+			then(TraceableForkJoinPool.class.getMethod(method.getName(),
+					method.getParameterTypes()).getDeclaringClass())
+					.as(method.toString()).isEqualTo(TraceableForkJoinPool.class);
+		}
+	}
+
+	@Test
+	public void should_continue_the_current_span_in_completable_future_stages() throws Exception {
+		Span parent = this.tracer.createSpan("parent");
+
+		Span spanInStage = CompletableFuture.supplyAsync(() -> "foo", this.pool)
+				.thenApplyAsync(foo -> TestSpanContextHolder.getCurrentSpan(), this.pool)
+				.get();
+		this.tracer.close(parent);
+
+		then(spanInStage.getSpanId()).isEqualTo(parent.getSpanId());
+	}
+
+	@Test
+	public void should_run_the_task_without_a_span_when_there_is_no_current_span() throws Exception {
+		then(this.pool.submit(currentSpan()).get()).isNull();
+		then(this.spanReporter.getSpans()).isEmpty();
+	}
+
+	@Test
+	public void should_decorate_the_common_pool() throws Exception {
+		TraceableForkJoinPool commonPool = TraceableForkJoinPool.commonPool(this.tracer);
+
+		then(commonPool.getParallelism()).isEqualTo(ForkJoinPool.commonPool().getParallelism());
+	}
+
+	private Callable<Span> currentSpan() {
+		return TestSpanContextHolder::getCurrentSpan;
+	}
+
+	private Span spanAfterTheTask() throws Exception {
+		return this.delegate.submit(currentSpan()).get();
+	}
+}
@@ -25,6 +25,8 @@ import org.junit.runner.RunWith;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.BeanFactory;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceKeys;
@@ -96,6 +98,26 @@ public class TraceableScheduledExecutorServiceTest {
 				anyLong(), anyLong(), any(TimeUnit.class));
 	}
 
+	@Test
+	public void should_schedule_a_context_propagating_runnable_in_context_only_mode()
+			throws Exception {
+		SleuthAsyncProperties properties = new SleuthAsyncProperties();
+		properties.setContextOnly(true);
+		BeanFactory beanFactory = Mockito.mock(BeanFactory.class);
+		BDDMockito.given(beanFactory.getBean(Tracer.class)).willReturn(this.tracer);
+		BDDMockito.given(beanFactory.getBean(SleuthAsyncProperties.class)).willReturn(properties);
+		BDDMockito.given(this.tracer.isTracing()).willReturn(true);
+		TraceableScheduledExecutorService executorService =
+				new TraceableScheduledExecutorService(beanFactory, this.scheduledExecutorService);
+
+		executorService.scheduleAtFixedRate(aRunnable(), 1L, 1L, TimeUnit.DAYS);
+
+		then(this.scheduledExecutorService).should().scheduleAtFixedRate(
+				BDDMockito.<Runnable>argThat(
+						instanceOf(ContextPropagatingTraceRunnable.class)),
+				anyLong(), anyLong(), any(TimeUnit.class));
+	}
+
 	Runnable aRunnable() {
 		return () -> {
 		};
@@ -142,6 +142,23 @@ public class SleuthHystrixConcurrencyStrategyTest {
 				.hasATagWithKey(asyncKey);
 	}
 
+	@Test
+	public void should_add_the_queue_wait_time_to_the_span()
+			throws Exception {
+		SleuthHystrixConcurrencyStrategy strategy = new SleuthHystrixConcurrencyStrategy(
+				this.tracer, this.traceKeys);
+		Callable<String> callable = strategy.wrapCallable(() -> "hello");
+		Thread.sleep(10);
+
+		callable.call();
+
+		String queueWaitKey = this.traceKeys.getAsync().getPrefix()
+				+ this.traceKeys.getAsync().getQueueWaitKey();
+		then(this.spanReporter.getSpans()).hasSize(1);
+		then(Long.valueOf(this.spanReporter.getSpans().get(0).tags().get(queueWaitKey)))
+				.isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(10));
+	}
+
 	@Test
 	public void should_not_override_trace_keys_when_span_is_continued()
 			throws Exception {
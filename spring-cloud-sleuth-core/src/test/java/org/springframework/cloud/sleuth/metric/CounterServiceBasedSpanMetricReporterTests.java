@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.buffer.BufferCounterService;
+import org.springframework.boot.actuate.metrics.buffer.CounterBuffers;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class CounterServiceBasedSpanMetricReporterTests {
+
+	SleuthMetricProperties.Span names = new SleuthMetricProperties.Span();
+	CounterService counterService = mock(CounterService.class);
+	GaugeService gaugeService = mock(GaugeService.class);
+
+	@Test
+	public void should_increment_counter_buffers_once_per_batch() {
+		final CounterBuffers counterBuffers = new CounterBuffers();
+		CounterServiceBasedSpanMetricReporter reporter = new CounterServiceBasedSpanMetricReporter(
+				this.names, new BufferCounterService(counterBuffers), null, counterBuffers);
+
+		reporter.incrementAcceptedSpans(500);
+		reporter.incrementAcceptedSpans(1);
+		reporter.incrementDroppedSpans(2);
+
+		then(counterBuffers.find("counter.span.accepted").getValue()).isEqualTo(501);
+		then(counterBuffers.find("counter.span.dropped").getValue()).isEqualTo(2);
+	}
+
+	@Test
+	public void should_increment_counter_per_span_without_counter_buffers() {
+		CounterServiceBasedSpanMetricReporter reporter = new CounterServiceBasedSpanMetricReporter(
+				"accepted", "dropped", this.counterService);
+
+		reporter.incrementAcceptedSpans(3);
+
+		verify(this.counterService, times(3)).increment("accepted");
+	}
+
+	@Test
+	public void should_submit_gauges_and_timers() {
+		CounterServiceBasedSpanMetricReporter reporter = new CounterServiceBasedSpanMetricReporter(
+				this.names, this.counterService, this.gaugeService, null);
+
+		reporter.updateQueuedSpans(10);
+		reporter.recordMessageSpans(5);
+		reporter.recordMessageBytes(1024);
+		reporter.recordEncodeTime(TimeUnit.MICROSECONDS.toNanos(1500));
+		reporter.recordSendTime(TimeUnit.MILLISECONDS.toNanos(20));
+
+		verify(this.gaugeService).submit("gauge.span.queued", 10);
+		verify(this.gaugeService).submit("gauge.span.message.spans", 5);
+		verify(this.gaugeService).submit("gauge.span.message.bytes", 1024);
+		verify(this.gaugeService).submit("timer.span.message.encode", 1.5);
+		verify(this.gaugeService).submit("timer.span.message.send", 20);
+	}
+
+	@Test
+	public void should_publish_the_sender_circuit_state_as_a_gauge() {
+		CounterServiceBasedSpanMetricReporter reporter = new CounterServiceBasedSpanMetricReporter(
+				this.names, this.counterService, this.gaugeService, null);
+
+		reporter.senderCircuitStateChanged(true);
+		reporter.senderCircuitStateChanged(false);
+
+		verify(this.gaugeService).submit("gauge.span.sender.circuit.open", 1);
+		verify(this.gaugeService).submit("gauge.span.sender.circuit.open", 0);
+		verifyZeroInteractions(this.counterService);
+	}
+
+	@Test
+	public void should_count_send_failures_by_cause() {
+		CounterServiceBasedSpanMetricReporter reporter = new CounterServiceBasedSpanMetricReporter(
+				this.names, this.counterService, this.gaugeService, null);
+
+		reporter.incrementSendFailures(new IllegalStateException());
+
+		verify(this.counterService).increment("counter.span.message.failures.IllegalStateException");
+	}
+
+	@Test
+	public void should_count_only_accepted_and_dropped_spans_when_created_with_their_names_only() {
+		CounterServiceBasedSpanMetricReporter reporter = new CounterServiceBasedSpanMetricReporter(
+				"accepted", "dropped", this.counterService);
+
+		reporter.incrementSendFailures(new IllegalStateException());
+		reporter.senderCircuitStateChanged(true);
+
+		verifyZeroInteractions(this.counterService);
+	}
+}
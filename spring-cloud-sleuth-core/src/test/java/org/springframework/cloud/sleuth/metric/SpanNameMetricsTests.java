@@ -0,0 +1,160 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpanNameMetricsTests {
+
+	@Test
+	public void should_count_spans_and_errors_per_name_and_kind() {
+		SpanNameMetrics metrics = new SpanNameMetrics(10, 1, TimeUnit.HOURS);
+
+		metrics.record(span("http:/foo", 10, Span.SERVER_RECV));
+		metrics.record(span("http:/foo", 10, Span.CLIENT_SEND));
+		Span error = span("http:/foo", 10, Span.SERVER_RECV);
+		error.tag(Span.SPAN_ERROR_TAG_NAME, "boom");
+		metrics.record(error);
+
+		List<SpanNameMetrics.Snapshot> snapshots = metrics.snapshot();
+		then(snapshots).hasSize(2);
+		SpanNameMetrics.Snapshot server = snapshot(snapshots, SpanNameMetrics.Kind.SERVER);
+		then(server.name).isEqualTo("http:/foo");
+		then(server.count).isEqualTo(2);
+		then(server.errors).isEqualTo(1);
+		then(snapshot(snapshots, SpanNameMetrics.Kind.CLIENT).count).isEqualTo(1);
+	}
+
+	@Test
+	public void should_record_names_over_the_cap_as_other() {
+		SpanNameMetrics metrics = new SpanNameMetrics(1, 1, TimeUnit.HOURS);
+
+		metrics.record(span("first", 10));
+		metrics.record(span("second", 10));
+		metrics.record(span("third", 10));
+
+		List<SpanNameMetrics.Snapshot> snapshots = metrics.snapshot();
+		then(snapshots).extracting("name").containsExactly("first", SpanNameMetrics.OTHER_NAME);
+		then(snapshots.get(1).count).isEqualTo(2);
+	}
+
+	@Test
+	public void should_cap_the_span_names_per_kind() {
+		SpanNameMetrics metrics = new SpanNameMetrics(1, 1, TimeUnit.HOURS);
+
+		metrics.record(span("local", 10));
+		metrics.record(span("other local", 10));
+		metrics.record(span("http:/foo", 10, Span.SERVER_RECV));
+
+		List<SpanNameMetrics.Snapshot> snapshots = metrics.snapshot();
+		then(snapshots).extracting("name")
+				.containsExactlyInAnyOrder("local", SpanNameMetrics.OTHER_NAME, "http:/foo");
+		then(snapshot(snapshots, SpanNameMetrics.Kind.SERVER).name).isEqualTo("http:/foo");
+	}
+
+	@Test
+	public void should_calculate_latency_percentiles_of_the_last_interval() {
+		long now = System.nanoTime();
+		SpanNameMetrics metrics = new SpanNameMetrics(10, 1, TimeUnit.SECONDS);
+		for (int i = 1; i <= 100; i++) {
+			metrics.record(span("foo", i), now);
+		}
+		then(metrics.snapshot(now).get(0).intervalCount).isZero();
+
+		SpanNameMetrics.Snapshot snapshot = metrics.snapshot(now + TimeUnit.MILLISECONDS.toNanos(1500)).get(0);
+
+		then(snapshot.intervalCount).isEqualTo(100);
+		then(snapshot.p50).isBetween(50_000L, 51_600L);
+		then(snapshot.p99).isBetween(99_000L, 100_000L);
+		then(snapshot.max).isEqualTo(100_000L);
+	}
+
+	@Test
+	public void should_keep_relative_error_of_histogram_values_low() {
+		for (long value : new long[] { 0, 1, 31, 32, 33, 1000, 123_456, 98_765_432L }) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			histogram.record(value);
+
+			long recorded = histogram.getValueAtPercentile(100);
+
+			then(recorded).isEqualTo(value);
+			then(LatencyHistogram.lowestEquivalentValue(LatencyHistogram.index(value)))
+					.isBetween((long) (value * 0.968), value);
+		}
+	}
+
+	@Test
+	public void should_publish_metrics_of_closed_spans_when_enabled() {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Config.class)
+				.web(false).properties("spring.sleuth.metric.latency.enabled=true").run()) {
+			Tracer tracer = context.getBean(Tracer.class);
+			tracer.close(tracer.createSpan("foo"));
+
+			then(context.getBean(SpanNameMetrics.class).snapshot()).hasSize(1);
+			then(context.getBean(SpanReporter.class)).isNotInstanceOf(SpanNameMetricsSpanReporter.class);
+			boolean published = false;
+			for (PublicMetrics publicMetrics : context.getBeansOfType(PublicMetrics.class).values()) {
+				for (Metric<?> metric : publicMetrics.metrics()) {
+					published |= metric.getName().equals("span.local.foo.count");
+				}
+			}
+			then(published).isTrue();
+		}
+	}
+
+	private SpanNameMetrics.Snapshot snapshot(List<SpanNameMetrics.Snapshot> snapshots,
+			SpanNameMetrics.Kind kind) {
+		for (SpanNameMetrics.Snapshot snapshot : snapshots) {
+			if (snapshot.kind == kind) {
+				return snapshot;
+			}
+		}
+		throw new AssertionError("No snapshot of kind " + kind);
+	}
+
+	private Span span(String name, long durationMillis, String... events) {
+		Span span = Span.builder().traceId(1L).spanId(2L).name(name)
+				.begin(1000).end(1000 + durationMillis).build();
+		for (String event : events) {
+			span.logEvent(event);
+		}
+		span.stop();
+		return span;
+	}
+
+	@Configuration
+	@EnableAutoConfiguration
+	static class Config {
+	}
+}
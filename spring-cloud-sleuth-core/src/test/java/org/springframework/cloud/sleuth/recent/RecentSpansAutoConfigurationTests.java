@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.recent;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class RecentSpansAutoConfigurationTests {
+
+	@Test
+	public void should_not_keep_spans_by_default() {
+		try (ConfigurableApplicationContext context = context()) {
+			then(context.getBeansOfType(RecentSpans.class)).isEmpty();
+			then(context.getBean(SpanReporter.class))
+					.isNotInstanceOf(RecentSpansSpanReporter.class);
+		}
+	}
+
+	@Test
+	public void should_expose_recently_finished_spans_via_endpoint() {
+		try (ConfigurableApplicationContext context = context("spring.sleuth.recent.enabled=true")) {
+			Tracer tracer = context.getBean(Tracer.class);
+
+			Span span = tracer.createSpan("foo");
+			tracer.close(span);
+
+			then(context.getBean(SpanReporter.class)).isNotInstanceOf(RecentSpansSpanReporter.class);
+			then(context.getBean(RecentTracesEndpoint.class).invoke())
+					.containsKey(span.traceIdString());
+		}
+	}
+
+	private ConfigurableApplicationContext context(String... properties) {
+		return new SpringApplicationBuilder(Config.class).web(false)
+				.properties(properties).run();
+	}
+
+	@Configuration
+	@EnableAutoConfiguration
+	static class Config {
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.recent;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class RecentSpansTests {
+
+	@Test
+	public void should_round_capacity_up_to_power_of_two() {
+		then(new RecentSpans(1000).capacity()).isEqualTo(1024);
+		then(new RecentSpans(1024).capacity()).isEqualTo(1024);
+	}
+
+	@Test
+	public void should_keep_only_the_most_recent_spans() {
+		RecentSpans recentSpans = new RecentSpans(2);
+
+		recentSpans.add(span(1L, "first", 0, 10));
+		recentSpans.add(span(2L, "second", 10, 20));
+		recentSpans.add(span(3L, "third", 20, 30));
+
+		then(recentSpans.traces(new RecentSpans.Filter()).keySet())
+				.containsExactly(Span.idToHex(3L), Span.idToHex(2L));
+	}
+
+	@Test
+	public void should_group_spans_by_trace_id() {
+		RecentSpans recentSpans = new RecentSpans(8);
+		Span parent = span(1L, "parent", 0, 30);
+		Span child = span(1L, "child", 10, 20);
+
+		recentSpans.add(child);
+		recentSpans.add(span(2L, "other", 0, 10));
+		recentSpans.add(parent);
+
+		Map<String, List<Span>> traces = recentSpans.traces(new RecentSpans.Filter().limit(1));
+		then(traces).hasSize(1);
+		then(traces.get(Span.idToHex(1L))).containsExactly(parent, child);
+	}
+
+	@Test
+	public void should_filter_spans() {
+		RecentSpans recentSpans = new RecentSpans(8);
+		Span fast = span(1L, "fast", 0, 1);
+		Span slow = span(2L, "slow", 0, 100);
+		Span error = span(3L, "error", 0, 1);
+		error.tag(Span.SPAN_ERROR_TAG_NAME, "boom");
+		recentSpans.add(fast);
+		recentSpans.add(slow);
+		recentSpans.add(error);
+
+		then(recentSpans.traces(new RecentSpans.Filter().minDurationMicros(50_000L)).keySet())
+				.containsExactly(Span.idToHex(2L));
+		then(recentSpans.traces(new RecentSpans.Filter().error(true)).keySet())
+				.containsExactly(Span.idToHex(3L));
+		then(recentSpans.traces(new RecentSpans.Filter().error(false)).keySet())
+				.containsOnly(Span.idToHex(1L), Span.idToHex(2L));
+		then(recentSpans.traces(new RecentSpans.Filter().name("FAST")).keySet())
+				.containsExactly(Span.idToHex(1L));
+		then(recentSpans.traces(new RecentSpans.Filter().traceId(Span.idToHex(2L))).keySet())
+				.containsExactly(Span.idToHex(2L));
+	}
+
+	private Span span(long traceId, String name, long begin, long end) {
+		Span span = Span.builder().traceId(traceId).spanId(traceId + begin).name(name)
+				.begin(1000 + begin).end(1000 + end).build();
+		span.stop();
+		return span;
+	}
+}
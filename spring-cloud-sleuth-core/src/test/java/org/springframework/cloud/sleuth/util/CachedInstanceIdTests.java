@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.util;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.springframework.cloud.sleuth.assertions.SleuthAssertions.then;
+
+public class CachedInstanceIdTests {
+
+	MockEnvironment environment = new MockEnvironment();
+	CachedInstanceId instanceId = new CachedInstanceId(this.environment);
+
+	@Test
+	public void should_resolve_the_instance_id_only_once() throws Exception {
+		this.environment.setProperty("vcap.application.instance_id", "foo");
+		then(this.instanceId.get()).isEqualTo("foo");
+
+		this.environment.setProperty("vcap.application.instance_id", "bar");
+
+		then(this.instanceId.get()).isEqualTo("foo");
+		then(this.instanceId.getUtf8Bytes()).isEqualTo("foo".getBytes("UTF-8"));
+	}
+
+	@Test
+	public void should_resolve_the_instance_id_again_when_environment_changes() throws Exception {
+		this.environment.setProperty("vcap.application.instance_id", "foo");
+		then(this.instanceId.get()).isEqualTo("foo");
+		this.environment.setProperty("vcap.application.instance_id", "bar");
+		EnvironmentChangeEvent event = new EnvironmentChangeEvent(Collections.singleton(
+				"vcap.application.instance_id"));
+
+		then(this.instanceId.supportsEventType(EnvironmentChangeEvent.class)).isTrue();
+		then(this.instanceId.supportsEventType(ContextRefreshedEvent.class)).isFalse();
+		this.instanceId.onApplicationEvent(event);
+
+		then(this.instanceId.get()).isEqualTo("bar");
+	}
+}
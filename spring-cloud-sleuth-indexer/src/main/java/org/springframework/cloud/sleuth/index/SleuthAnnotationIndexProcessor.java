@@ -0,0 +1,214 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes the classes and interfaces that declare methods
+ * annotated with {@code @NewSpan} or {@code @ContinueSpan}, together with the names
+ * of those methods, to {@value #INDEX_LOCATION}. When the index is present at
+ * runtime Sleuth consults it instead of scanning the methods of every bean class.
+ * <p>
+ * The index is a properties file with the binary class name as a key and a comma
+ * separated list of method names as a value. Entries of an existing index are kept
+ * for the classes that weren't compiled in this run, so that incremental builds
+ * don't drop them. The index is written on every compilation, even if it's empty, so
+ * that no stale entries are left behind, and its content only depends on the
+ * indexed classes so that the builds are reproducible.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+@SupportedAnnotationTypes("*")
+public class SleuthAnnotationIndexProcessor extends AbstractProcessor {
+
+	/**
+	 * Location of the generated index
+	 */
+	public static final String INDEX_LOCATION = "META-INF/spring-cloud-sleuth.index";
+
+	static final String NEW_SPAN = "org.springframework.cloud.sleuth.annotation.NewSpan";
+	static final String CONTINUE_SPAN = "org.springframework.cloud.sleuth.annotation.ContinueSpan";
+
+	private final Map<String, Set<String>> index = new TreeMap<>();
+	private final Set<String> compiledTypes = new LinkedHashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getRootElements()) {
+			collectCompiledTypes(element);
+		}
+		for (TypeElement annotation : annotations) {
+			if (!isSleuthAnnotation(annotation)) {
+				continue;
+			}
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.METHOD) {
+					addMethod((TypeElement) element.getEnclosingElement(), element);
+				}
+			}
+		}
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		return false;
+	}
+
+	private boolean isSleuthAnnotation(TypeElement annotation) {
+		String name = annotation.getQualifiedName().toString();
+		return NEW_SPAN.equals(name) || CONTINUE_SPAN.equals(name);
+	}
+
+	private void collectCompiledTypes(Element element) {
+		if (element instanceof TypeElement) {
+			this.compiledTypes.add(binaryName((TypeElement) element));
+			for (Element enclosed : element.getEnclosedElements()) {
+				collectCompiledTypes(enclosed);
+			}
+		}
+	}
+
+	private void addMethod(TypeElement type, Element method) {
+		String className = binaryName(type);
+		Set<String> methods = this.index.get(className);
+		if (methods == null) {
+			methods = new TreeSet<>();
+			this.index.put(className, methods);
+		}
+		methods.add(method.getSimpleName().toString());
+	}
+
+	private String binaryName(TypeElement type) {
+		return this.processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	private void writeIndex() {
+		Map<String, String> entries = readPreviousIndex();
+		for (Map.Entry<String, Set<String>> entry : this.index.entrySet()) {
+			entries.put(entry.getKey(), join(entry.getValue()));
+		}
+		try {
+			FileObject file = this.processingEnv.getFiler()
+					.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(),
+					StandardCharsets.ISO_8859_1)) {
+				write(entries, writer);
+			}
+		}
+		catch (IOException e) {
+			this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Unable to write the Sleuth annotation index: " + e);
+		}
+	}
+
+	/**
+	 * Entries of the index of a previous, incremental compilation whose classes still
+	 * exist and weren't compiled this time.
+	 */
+	private Map<String, String> readPreviousIndex() {
+		Map<String, String> retained = new TreeMap<>();
+		Properties previous = new Properties();
+		try {
+			FileObject file = this.processingEnv.getFiler()
+					.getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+			try (InputStream in = file.openInputStream()) {
+				previous.load(in);
+			}
+		}
+		catch (IOException e) {
+			// no previous index
+			return retained;
+		}
+		for (String className : previous.stringPropertyNames()) {
+			if (!this.compiledTypes.contains(className) && this.processingEnv
+					.getElementUtils().getTypeElement(className.replace('$', '.')) != null) {
+				retained.put(className, previous.getProperty(className));
+			}
+		}
+		return retained;
+	}
+
+	/**
+	 * Writes the entries sorted by the class name in the properties format, but
+	 * without the timestamp comment of {@link Properties#store}.
+	 */
+	private static void write(Map<String, String> entries, Writer writer)
+			throws IOException {
+		for (Map.Entry<String, String> entry : entries.entrySet()) {
+			writer.write(escape(entry.getKey()));
+			writer.write('=');
+			writer.write(escape(entry.getValue()));
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Class and method names are Java identifiers, so apart from the characters outside
+	 * of printable ASCII there is nothing to escape.
+	 */
+	private static String escape(String value) {
+		StringBuilder escaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x20 || c > 0x7e) {
+				escaped.append(String.format("\\u%04X", (int) c));
+			}
+			else {
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	private static String join(Set<String> methods) {
+		StringBuilder joined = new StringBuilder();
+		for (String method : methods) {
+			if (joined.length() > 0) {
+				joined.append(',');
+			}
+			joined.append(method);
+		}
+		return joined.toString();
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.index;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.sleuth.annotation.NewSpan;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SleuthAnnotationIndexProcessorTests {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void should_index_classes_and_interfaces_with_annotated_methods() throws Exception {
+		Properties index = compile(
+				source("foo.Service", "package foo;\n"
+						+ "import org.springframework.cloud.sleuth.annotation.*;\n"
+						+ "public class Service {\n"
+						+ "  @NewSpan public void first() {}\n"
+						+ "  @ContinueSpan(log = \"foo\") public void second() {}\n"
+						+ "  public void notAnnotated() {}\n"
+						+ "  public static class Nested { @NewSpan void nested() {} }\n"
+						+ "}"),
+				source("foo.Api", "package foo;\n"
+						+ "public interface Api {\n"
+						+ "  @org.springframework.cloud.sleuth.annotation.NewSpan void call();\n"
+						+ "}"),
+				source("foo.NotTraced", "package foo;\n"
+						+ "public class NotTraced { public void foo() {} }"));
+
+		then(index).hasSize(3);
+		then(index.getProperty("foo.Service")).isEqualTo("first,second");
+		then(index.getProperty("foo.Service$Nested")).isEqualTo("nested");
+		then(index.getProperty("foo.Api")).isEqualTo("call");
+	}
+
+	@Test
+	public void should_write_an_empty_index_when_nothing_is_annotated() throws Exception {
+		Properties index = compile(source("foo.NotTraced", "package foo;\n"
+				+ "public class NotTraced { public void foo() {} }"));
+
+		then(index).isEmpty();
+	}
+
+	@Test
+	public void should_drop_the_entries_of_classes_that_are_no_longer_annotated() throws Exception {
+		compile(source("foo.Service", "package foo;\n"
+				+ "public class Service {\n"
+				+ "  @org.springframework.cloud.sleuth.annotation.NewSpan public void first() {}\n"
+				+ "}"));
+
+		Properties index = compile(source("foo.Service", "package foo;\n"
+				+ "public class Service { public void first() {} }"));
+
+		then(index).isEmpty();
+	}
+
+	@Test
+	public void should_write_the_same_index_for_the_same_classes() throws Exception {
+		JavaFileObject service = source("foo.Service", "package foo;\n"
+				+ "public class Service {\n"
+				+ "  @org.springframework.cloud.sleuth.annotation.NewSpan public void b() {}\n"
+				+ "  @org.springframework.cloud.sleuth.annotation.NewSpan public void a() {}\n"
+				+ "}");
+		JavaFileObject api = source("foo.Api", "package foo;\n"
+				+ "public interface Api {\n"
+				+ "  @org.springframework.cloud.sleuth.annotation.NewSpan void call();\n"
+				+ "}");
+
+		compile(service, api);
+		byte[] first = indexContent();
+		compile(api, service);
+
+		then(indexContent()).isEqualTo(first);
+		then(new String(first, StandardCharsets.ISO_8859_1))
+				.isEqualTo("foo.Api=call\nfoo.Service=a,b\n");
+	}
+
+	@Test
+	public void should_keep_entries_of_classes_that_were_not_recompiled() throws Exception {
+		compile(source("foo.Service", "package foo;\n"
+				+ "public class Service {\n"
+				+ "  @org.springframework.cloud.sleuth.annotation.NewSpan public void first() {}\n"
+				+ "}"));
+
+		Properties index = compile(source("foo.Other", "package foo;\n"
+				+ "public class Other {\n"
+				+ "  @org.springframework.cloud.sleuth.annotation.NewSpan public void other() {}\n"
+				+ "}"));
+
+		then(index).hasSize(2);
+		then(index.getProperty("foo.Service")).isEqualTo("first");
+		then(index.getProperty("foo.Other")).isEqualTo("other");
+	}
+
+	private Properties compile(JavaFileObject... sources) throws IOException {
+		File output = outputDirectory();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		List<String> options = new ArrayList<>(Arrays.asList("-d", output.getPath(),
+				"-classpath", classpath(output)));
+		JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null,
+				options, null, Arrays.asList(sources));
+		task.setProcessors(Collections.singletonList(new SleuthAnnotationIndexProcessor()));
+		then(task.call()).isTrue();
+		fileManager.close();
+		File index = new File(output, SleuthAnnotationIndexProcessor.INDEX_LOCATION);
+		if (!index.exists()) {
+			return null;
+		}
+		Properties properties = new Properties();
+		try (InputStream in = new FileInputStream(index)) {
+			properties.load(in);
+		}
+		return properties;
+	}
+
+	private byte[] indexContent() throws IOException {
+		return Files.readAllBytes(new File(outputDirectory(),
+				SleuthAnnotationIndexProcessor.INDEX_LOCATION).toPath());
+	}
+
+		private File outputDirectory() throws IOException {
+		File output = new File(this.folder.getRoot(), "classes");
+		if (!output.exists() && !output.mkdirs()) {
+			throw new IOException("Unable to create " + output);
+		}
+		return output;
+	}
+
+	private String classpath(File output) {
+		return new File(NewSpan.class.getProtectionDomain().getCodeSource().getLocation()
+				.getPath()).getPath() + File.pathSeparator + output.getPath();
+	}
+
+	private JavaFileObject source(String className, final String code) {
+		return new SimpleJavaFileObject(URI.create("string:///"
+				+ className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return code;
+			}
+		};
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptorAdapter;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Compresses encoded spans messages bigger than the threshold and marks them with the
+ * {@link SpansCompressor#CONTENT_ENCODING} header. Has to run after the payload got
+ * converted to {@code byte[]}. Messages that wouldn't get smaller are sent as they are.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+class CompressingChannelInterceptor extends ChannelInterceptorAdapter {
+
+	private final SpansCompressor compressor;
+	private final int threshold;
+
+	CompressingChannelInterceptor(SpansCompressor compressor, int threshold) {
+		this.compressor = compressor;
+		this.threshold = threshold;
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		if (!(message.getPayload() instanceof byte[])
+				|| message.getHeaders().containsKey(SpansCompressor.CONTENT_ENCODING)) {
+			return message;
+		}
+		byte[] payload = (byte[]) message.getPayload();
+		if (payload.length < this.threshold) {
+			return message;
+		}
+		byte[] compressed = this.compressor.compress(payload);
+		if (compressed == null) {
+			return message;
+		}
+		return MessageBuilder.withPayload(compressed)
+				.copyHeaders(message.getHeaders())
+				.setHeader(SpansCompressor.CONTENT_ENCODING,
+						this.compressor.getEncoding().value())
+				.build();
+	}
+}
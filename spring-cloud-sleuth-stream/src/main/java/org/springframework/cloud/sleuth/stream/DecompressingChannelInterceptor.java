@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.integration.config.GlobalChannelInterceptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptorAdapter;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Decompresses spans messages received on {@link SleuthSink#INPUT} that have the
+ * {@link SpansCompressor#CONTENT_ENCODING} header, before they get converted to
+ * {@link Spans}. Other messages are passed as they are.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+@GlobalChannelInterceptor(patterns = SleuthSink.INPUT, order = Ordered.HIGHEST_PRECEDENCE)
+public class DecompressingChannelInterceptor extends ChannelInterceptorAdapter {
+
+	private final Map<SpansCompressor.Encoding, SpansCompressor> compressors =
+			new EnumMap<>(SpansCompressor.Encoding.class);
+
+	public DecompressingChannelInterceptor() {
+		this(SpansCompressor.DEFAULT_MAX_INFLATED_SIZE);
+	}
+
+	/**
+	 * @param maxInflatedSize max size in bytes of a decompressed payload, bigger
+	 * payloads are rejected
+	 */
+	@Autowired
+	public DecompressingChannelInterceptor(
+			@Value("${spring.sleuth.stream.compression.max-inflated-size:"
+					+ SpansCompressor.DEFAULT_MAX_INFLATED_SIZE + "}") int maxInflatedSize) {
+		for (SpansCompressor.Encoding encoding : SpansCompressor.Encoding.values()) {
+			this.compressors.put(encoding, new SpansCompressor(encoding,
+					Deflater.BEST_SPEED, SpansCompressor.DEFAULT_POOL_SIZE, maxInflatedSize));
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the content encoding is not supported or the
+	 * payload can't be decompressed or is too big once decompressed
+	 */
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		Object contentEncoding = message.getHeaders().get(SpansCompressor.CONTENT_ENCODING);
+		if (contentEncoding == null || !(message.getPayload() instanceof byte[])) {
+			return message;
+		}
+		SpansCompressor.Encoding encoding = SpansCompressor.Encoding
+				.fromValue(contentEncoding.toString());
+		if (encoding == null) {
+			throw new IllegalArgumentException(
+					"Unsupported content encoding [" + contentEncoding + "]");
+		}
+		byte[] payload = this.compressors.get(encoding)
+				.decompress((byte[]) message.getPayload());
+		return MessageBuilder.withPayload(payload)
+				.copyHeaders(message.getHeaders())
+				.removeHeader(SpansCompressor.CONTENT_ENCODING)
+				.build();
+	}
+}
@@ -16,10 +16,6 @@
 
 package org.springframework.cloud.sleuth.stream;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-import java.nio.ByteBuffer;
-
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
@@ -35,6 +31,7 @@ public class Host {
 	private String serviceName;
 	private String address;
 	private Integer port;
+	private Integer packedIpv4; // Nullable
 
 	@SuppressWarnings("unused")
 	private Host() {
@@ -46,16 +43,21 @@ public class Host {
 		this.port = port;
 	}
 
+	public Host(String serviceName, String address, Integer port, Integer packedIpv4) {
+		this(serviceName, address, port);
+		this.packedIpv4 = packedIpv4;
+	}
+
+	/**
+	 * Returns the pre-packed IPv4 address if the sender provided one. Otherwise
+	 * resolves the address via the {@link HostAddressCache#shared() shared cache}.
+	 */
 	@JsonIgnore
 	public int getIpv4() {
-		InetAddress inetAddress = null;
-		try {
-			inetAddress = InetAddress.getByName(this.address);
-		}
-		catch (final UnknownHostException e) {
-			throw new IllegalArgumentException(e);
+		if (this.packedIpv4 != null) {
+			return this.packedIpv4;
 		}
-		return ByteBuffer.wrap(inetAddress.getAddress()).getInt();
+		return HostAddressCache.shared().ipv4(this.address);
 	}
 
 	public String getServiceName() {
@@ -70,6 +72,14 @@ public class Host {
 		return this.port;
 	}
 
+	/**
+	 * The address packed into an int by the sender, so that the receiver doesn't
+	 * have to resolve it. Might be {@code null} for senders that don't provide it.
+	 */
+	public Integer getPackedIpv4() {
+		return this.packedIpv4;
+	}
+
 	public void setServiceName(String serviceName) {
 		this.serviceName = serviceName;
 	}
@@ -81,4 +91,8 @@ public class Host {
 	public void setPort(Integer port) {
 		this.port = port;
 	}
+
+	public void setPackedIpv4(Integer packedIpv4) {
+		this.packedIpv4 = packedIpv4;
+	}
 }
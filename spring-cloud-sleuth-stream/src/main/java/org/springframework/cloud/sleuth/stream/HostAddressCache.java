@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the packed IPv4 representation of host addresses for a given time to live,
+ * so that converting a batch of spans doesn't result in a name lookup per batch. When
+ * the cache is full the least recently used address is evicted.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class HostAddressCache {
+
+	/**
+	 * Default time to live of a resolved address
+	 */
+	public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	static final int MAX_ENTRIES = 1024;
+
+	private static final HostAddressCache SHARED = new HostAddressCache();
+
+	private final Map<String, Entry> cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		@Override protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private final long ttlNanos;
+
+	public HostAddressCache() {
+		this(DEFAULT_TTL_MILLIS);
+	}
+
+	public HostAddressCache(long ttlMillis) {
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+	}
+
+	/**
+	 * Returns the packed IPv4 representation of the given address. Resolves the
+	 * address only if there is no cached entry or the cached one has expired.
+	 *
+	 * @throws IllegalArgumentException if the address can't be resolved
+	 */
+	public int ipv4(String address) {
+		long now = System.nanoTime();
+		Entry entry;
+		synchronized (this.cache) {
+			entry = this.cache.get(address);
+		}
+		if (entry != null && now - entry.resolvedAt < this.ttlNanos) {
+			return entry.ipv4;
+		}
+		// resolved outside of the lock, so that a slow lookup doesn't block the others
+		int ipv4 = packIpv4(resolve(address));
+		synchronized (this.cache) {
+			this.cache.put(address, new Entry(ipv4, now));
+		}
+		return ipv4;
+	}
+
+	/**
+	 * @return cache with the default time to live shared by the components that don't
+	 * have a cache of their own
+	 */
+	public static HostAddressCache shared() {
+		return SHARED;
+	}
+
+	int size() {
+		synchronized (this.cache) {
+			return this.cache.size();
+		}
+	}
+
+	boolean isCached(String address) {
+		synchronized (this.cache) {
+			return this.cache.containsKey(address);
+		}
+	}
+
+	/**
+	 * Packs the leading four bytes of the given address into an int
+	 */
+	public static int packIpv4(InetAddress address) {
+		return ByteBuffer.wrap(address.getAddress()).getInt();
+	}
+
+	static InetAddress resolve(String address) {
+		try {
+			return InetAddress.getByName(address);
+		}
+		catch (UnknownHostException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	private static final class Entry {
+		final int ipv4;
+		final long resolvedAt;
+
+		Entry(int ipv4, long resolvedAt) {
+			this.ipv4 = ipv4;
+			this.resolvedAt = resolvedAt;
+		}
+	}
+}
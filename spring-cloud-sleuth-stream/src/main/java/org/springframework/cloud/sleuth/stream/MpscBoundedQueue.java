@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free, multi-producer single-consumer queue backed by a ring buffer.
+ * Producers claim a slot with a single CAS and never block - when the queue is full
+ * {@link #offer(Object)} returns {@code false}. Only one thread at a time may call
+ * {@link #poll()} or {@link #peek()}.
+ *
+ * The capacity is rounded up to the next power of 2. The {@link #iterator()} is
+ * weakly consistent.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class MpscBoundedQueue<E> extends AbstractQueue<E> {
+
+	private final AtomicReferenceArray<E> buffer;
+	private final int mask;
+	private final AtomicLong producerIndex = new AtomicLong();
+	// written only by the consumer
+	private final AtomicLong consumerIndex = new AtomicLong();
+
+	MpscBoundedQueue(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive but was [" + capacity + "]");
+		}
+		int size = capacity > 1 ? Integer.highestOneBit(capacity - 1) << 1 : 1;
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+	}
+
+	@Override
+	public boolean offer(E e) {
+		if (e == null) {
+			throw new NullPointerException();
+		}
+		long capacity = this.mask + 1;
+		while (true) {
+			long producer = this.producerIndex.get();
+			if (producer - this.consumerIndex.get() >= capacity) {
+				return false;
+			}
+			if (this.producerIndex.compareAndSet(producer, producer + 1)) {
+				// the slot might still be visible as empty to the consumer for a moment,
+				// poll() spins until it gets published
+				this.buffer.lazySet((int) producer & this.mask, e);
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public E poll() {
+		long consumer = this.consumerIndex.get();
+		int index = (int) consumer & this.mask;
+		E e = this.buffer.get(index);
+		if (e == null) {
+			if (consumer == this.producerIndex.get()) {
+				return null;
+			}
+			do {
+				e = this.buffer.get(index);
+			}
+			while (e == null);
+		}
+		this.buffer.lazySet(index, null);
+		this.consumerIndex.lazySet(consumer + 1);
+		return e;
+	}
+
+	@Override
+	public E peek() {
+		long consumer = this.consumerIndex.get();
+		int index = (int) consumer & this.mask;
+		E e = this.buffer.get(index);
+		if (e == null) {
+			if (consumer == this.producerIndex.get()) {
+				return null;
+			}
+			do {
+				e = this.buffer.get(index);
+			}
+			while (e == null);
+		}
+		return e;
+	}
+
+	@Override
+	public int size() {
+		long after = this.consumerIndex.get();
+		while (true) {
+			long before = after;
+			long producer = this.producerIndex.get();
+			after = this.consumerIndex.get();
+			if (before == after) {
+				return (int) (producer - after);
+			}
+		}
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.consumerIndex.get() == this.producerIndex.get();
+	}
+
+	int capacity() {
+		return this.mask + 1;
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements that were in the queue
+	 * when the iterator got created. It never throws
+	 * {@link java.util.ConcurrentModificationException} - elements polled in the
+	 * meantime are skipped and elements offered after its creation are not returned.
+	 * The iterator doesn't support {@link Iterator#remove()}.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Itr();
+	}
+
+	private final class Itr implements Iterator<E> {
+
+		private final long end = MpscBoundedQueue.this.producerIndex.get();
+		private long position = MpscBoundedQueue.this.consumerIndex.get();
+		private E next = advance();
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		@Override
+		public E next() {
+			E e = this.next;
+			if (e == null) {
+				throw new NoSuchElementException();
+			}
+			this.next = advance();
+			return e;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Removal is not supported, poll the queue instead");
+		}
+
+		private E advance() {
+			while (this.position < this.end) {
+				long current = this.position++;
+				E e = MpscBoundedQueue.this.buffer.get((int) current & MpscBoundedQueue.this.mask);
+				long consumer = MpscBoundedQueue.this.consumerIndex.get();
+				if (consumer > current) {
+					// the element got polled, the slot might already hold a newer one
+					this.position = Math.max(this.position, consumer);
+					continue;
+				}
+				if (e != null) {
+					return e;
+				}
+				// claimed but not yet published - skip it
+			}
+			return null;
+		}
+	}
+}
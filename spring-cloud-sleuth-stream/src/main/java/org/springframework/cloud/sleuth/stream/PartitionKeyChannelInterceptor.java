@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.List;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptorAdapter;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Sets the {@link TraceIdPartitioner#PARTITION_KEY_HEADER} header of partitioned
+ * {@link Spans} messages. All spans of such a message belong to the same partition, so
+ * it's resolved from the first one. Has to run before the payload gets converted.
+ * Does nothing if there's a single partition.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+class PartitionKeyChannelInterceptor extends ChannelInterceptorAdapter {
+
+	private final int partitionCount;
+
+	PartitionKeyChannelInterceptor(int partitionCount) {
+		this.partitionCount = partitionCount;
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		if (this.partitionCount <= 1 || !(message.getPayload() instanceof Spans)) {
+			return message;
+		}
+		List<Span> spans = ((Spans) message.getPayload()).getSpans();
+		if (spans == null || spans.isEmpty()) {
+			return message;
+		}
+		return MessageBuilder.fromMessage(message)
+				.setHeader(TraceIdPartitioner.PARTITION_KEY_HEADER,
+						TraceIdPartitioner.partition(spans.get(0), this.partitionCount))
+				.build();
+	}
+}
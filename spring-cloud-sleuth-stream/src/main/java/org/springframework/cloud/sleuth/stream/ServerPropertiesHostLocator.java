@@ -17,6 +17,8 @@
 package org.springframework.cloud.sleuth.stream;
 
 import java.lang.invoke.MethodHandles;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,7 +36,8 @@ import org.springframework.util.StringUtils;
  *
  * <ul>
  *     <li><b>service name</b> - either from {@link Span#getProcessId()} or current application name</li>
- *     <li><b>address</b> - from {@link ServerProperties}</li>
+ *     <li><b>address</b> - from {@link ServerProperties}, cached for
+ *     {@link ZipkinProperties.Locator#getAddressCacheTtl()}</li>
  *     <li><b>port</b> - from lazily assigned port or {@link ServerProperties}</li>
  * </ul>
  *
@@ -52,6 +55,7 @@ public class ServerPropertiesHostLocator implements HostLocator {
 	private final InetUtils inetUtils;
 	private final ZipkinProperties zipkinProperties;
 	private Integer port; // Lazy assigned
+	private volatile CachedAddress address; // Lazy assigned
 
 	public ServerPropertiesHostLocator(ServerProperties serverProperties, String appName,
 			ZipkinProperties zipkinProperties, InetUtils inetUtils) {
@@ -69,9 +73,9 @@ public class ServerPropertiesHostLocator implements HostLocator {
 	@Override
 	public Host locate(Span span) {
 		String serviceName = getServiceName(span);
-		String address = getAddress();
+		CachedAddress address = getAddress();
 		Integer port = getPort();
-		return new Host(serviceName, address, port);
+		return new Host(serviceName, address.address, port, address.packedIpv4);
 	}
 
 	@EventListener(EmbeddedServletContainerInitializedEvent.class)
@@ -93,15 +97,24 @@ public class ServerPropertiesHostLocator implements HostLocator {
 		return port;
 	}
 
-	private String getAddress() {
-		String address;
+	private CachedAddress getAddress() {
+		long now = System.nanoTime();
+		CachedAddress cached = this.address;
+		if (cached != null && now - cached.resolvedAt < TimeUnit.MILLISECONDS
+				.toNanos(this.zipkinProperties.getLocator().getAddressCacheTtl())) {
+			return cached;
+		}
+		InetAddress address;
 		if (this.serverProperties != null && this.serverProperties.getAddress() != null) {
-			address = this.serverProperties.getAddress().getHostAddress();
+			address = this.serverProperties.getAddress();
 		}
 		else {
-			address = this.inetUtils.findFirstNonLoopbackAddress().getHostAddress();
+			address = this.inetUtils.findFirstNonLoopbackAddress();
 		}
-		return address;
+		cached = new CachedAddress(address.getHostAddress(),
+				HostAddressCache.packIpv4(address), now);
+		this.address = cached;
+		return cached;
 	}
 
 	private String getServiceName(Span span) {
@@ -120,4 +133,16 @@ public class ServerPropertiesHostLocator implements HostLocator {
 		return serviceName;
 	}
 
+	private static final class CachedAddress {
+		final String address;
+		final int packedIpv4;
+		final long resolvedAt;
+
+		CachedAddress(String address, int packedIpv4, long resolvedAt) {
+			this.address = address;
+			this.packedIpv4 = packedIpv4;
+			this.resolvedAt = resolvedAt;
+		}
+	}
+
 }
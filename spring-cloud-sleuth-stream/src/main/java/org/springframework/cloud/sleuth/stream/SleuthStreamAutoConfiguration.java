@@ -37,6 +37,7 @@ import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
 import org.springframework.cloud.sleuth.metric.TraceMetricsAutoConfiguration;
 import org.springframework.cloud.sleuth.sampler.PercentageBasedSampler;
 import org.springframework.cloud.sleuth.sampler.SamplerProperties;
+import org.springframework.cloud.sleuth.util.CachedInstanceId;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.config.ChannelBindingAutoConfiguration;
 import org.springframework.cloud.stream.config.ChannelsEndpointAutoConfiguration;
@@ -82,12 +83,53 @@ public class SleuthStreamAutoConfiguration {
 		return new TracerIgnoringChannelInterceptor(spanMetricReporter);
 	}
 
+	/**
+	 * Runs before the payload gets converted, after {@link #zipkinChannelInterceptor}
+	 */
+	@Bean
+	@GlobalChannelInterceptor(patterns = SleuthSource.OUTPUT, order = Ordered.HIGHEST_PRECEDENCE + 1)
+	public ChannelInterceptor sleuthPartitionKeyChannelInterceptor(SleuthStreamProperties sleuth) {
+		return new PartitionKeyChannelInterceptor(sleuth.getPartitionCount());
+	}
+
+	/**
+	 * Runs after the payload got converted to {@code byte[]}
+	 */
+	@Bean
+	@ConditionalOnProperty("spring.sleuth.stream.compression.enabled")
+	@GlobalChannelInterceptor(patterns = SleuthSource.OUTPUT, order = Ordered.LOWEST_PRECEDENCE)
+	public ChannelInterceptor sleuthCompressingChannelInterceptor(SleuthStreamProperties sleuth) {
+		SleuthStreamProperties.Compression compression = sleuth.getCompression();
+		return new CompressingChannelInterceptor(new SpansCompressor(
+				compression.getEncoding(), compression.getLevel(),
+				SpansCompressor.DEFAULT_POOL_SIZE), compression.getThreshold());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public CachedInstanceId sleuthInstanceId(Environment environment) {
+		return new CachedInstanceId(environment);
+	}
+
 	@Bean
 	@ConditionalOnMissingBean
 	public StreamSpanReporter sleuthStreamSpanReporter(HostLocator endpointLocator,
-			SpanMetricReporter spanMetricReporter, Environment environment) {
-		return new StreamSpanReporter(endpointLocator, spanMetricReporter, environment,
-				this.spanAdjusters);
+			SpanMetricReporter spanMetricReporter, CachedInstanceId instanceId,
+			SleuthStreamProperties sleuth, SleuthSource source) {
+		StreamSpanReporter reporter = new StreamSpanReporter(endpointLocator,
+				spanMetricReporter, this.spanAdjusters, instanceId);
+		reporter.setOutput(source.output());
+		reporter.setQueueSize(sleuth.getQueueSize());
+		reporter.setBatchLimits(sleuth.getBatch().getMaxSpans(),
+				sleuth.getBatch().getMaxBytes(), sleuth.getBatch().getMaxAge());
+		reporter.setPartitionCount(sleuth.getPartitionCount());
+		return reporter;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public SpansMessageConverter sleuthSpansMessageConverter() {
+		return new SpansMessageConverter();
 	}
 
 	@Bean(name = StreamSpanReporter.POLLER)
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.sleuth.stream;
 
+import java.util.zip.Deflater;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -30,6 +32,22 @@ public class SleuthStreamProperties {
 	private String group = SleuthSink.INPUT;
 	private Poller poller = new Poller();
 
+	/**
+	 * Max number of spans waiting to be polled. When the queue is full new spans
+	 * are dropped. Rounded up to the next power of 2. Default: 1000
+	 */
+	private int queueSize = StreamSpanReporter.DEFAULT_QUEUE_SIZE;
+	private Batch batch = new Batch();
+
+	/**
+	 * Number of partitions each batch of spans is split into by a hash of the trace
+	 * id. Each partition is sent as a separate message with a partition key header,
+	 * which the binder uses to route all spans of a trace to the same partition.
+	 * Default: 1 (no partitioning)
+	 */
+	private int partitionCount = 1;
+	private Compression compression = new Compression();
+
 	public boolean isEnabled() {
 		return this.enabled;
 	}
@@ -46,10 +64,34 @@ public class SleuthStreamProperties {
 		this.group = group;
 	}
 
+	public int getQueueSize() {
+		return this.queueSize;
+	}
+
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public int getPartitionCount() {
+		return this.partitionCount;
+	}
+
+	public void setPartitionCount(int partitionCount) {
+		this.partitionCount = partitionCount;
+	}
+
 	public Poller getPoller() {
 		return this.poller;
 	}
 
+	public Batch getBatch() {
+		return this.batch;
+	}
+
+	public Compression getCompression() {
+		return this.compression;
+	}
+
 	public static class Poller {
 		/**
 		 * Fixed delay (ms). Default: 1000
@@ -77,4 +119,133 @@ public class SleuthStreamProperties {
 			this.maxMessagesPerPoll = maxMessagesPerPoll;
 		}
 	}
+
+	/**
+	 * Limits of a single spans message. A batch is sent when any of the limits is
+	 * reached. Each poll sends at most one batch, and a poll is repeated up to
+	 * {@link Poller#getMaxMessagesPerPoll()} times, so a large backlog is split into
+	 * several messages. The spans of an incomplete batch are sent when the
+	 * application context is closed.
+	 */
+	public static class Batch {
+		/**
+		 * Max number of spans in a message. Default: 1000
+		 */
+		private int maxSpans = StreamSpanReporter.DEFAULT_BATCH_MAX_SPANS;
+
+		/**
+		 * Max estimated size of a message in bytes. The size is estimated from the
+		 * length of the span names, tags and log events, not from the encoded
+		 * payload, so the actual message can be bigger and this is not a hard limit
+		 * for the broker. A single bigger span is sent in a message of its own.
+		 * Default: 512KB
+		 */
+		private long maxBytes = StreamSpanReporter.DEFAULT_BATCH_MAX_BYTES;
+
+		/**
+		 * Max time (ms) an incomplete batch waits for more spans, counting from the
+		 * end of its oldest span. The poller fixed delay should be lower so that
+		 * the age is checked often enough. Default: 0 (send available spans on each
+		 * poll)
+		 */
+		private long maxAge = 0L;
+
+		public int getMaxSpans() {
+			return this.maxSpans;
+		}
+
+		public void setMaxSpans(int maxSpans) {
+			this.maxSpans = maxSpans;
+		}
+
+		public long getMaxBytes() {
+			return this.maxBytes;
+		}
+
+		public void setMaxBytes(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		public long getMaxAge() {
+			return this.maxAge;
+		}
+
+		public void setMaxAge(long maxAge) {
+			this.maxAge = maxAge;
+		}
+	}
+
+	/**
+	 * Compression of encoded spans messages. Compressed messages carry the
+	 * {@code contentEncoding} header and are decompressed by the Zipkin Stream
+	 * collector.
+	 */
+	public static class Compression {
+		/**
+		 * Whether spans messages should be compressed. Default: false
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Compression format. Default: gzip
+		 */
+		private SpansCompressor.Encoding encoding = SpansCompressor.Encoding.GZIP;
+
+		/**
+		 * Deflate compression level, from 1 (fastest) to 9 (smallest). Default: 1
+		 */
+		private int level = Deflater.BEST_SPEED;
+
+		/**
+		 * Min size in bytes of an encoded message to get compressed. Default: 1024
+		 */
+		private int threshold = 1024;
+
+		/**
+		 * Max size in bytes of a decompressed message, read by the Zipkin Stream
+		 * collector. A gzip message declaring a bigger size, or a deflate message
+		 * inflating to more bytes, is rejected. Default: 10MB
+		 */
+		private int maxInflatedSize = SpansCompressor.DEFAULT_MAX_INFLATED_SIZE;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public SpansCompressor.Encoding getEncoding() {
+			return this.encoding;
+		}
+
+		public void setEncoding(SpansCompressor.Encoding encoding) {
+			this.encoding = encoding;
+		}
+
+		public int getLevel() {
+			return this.level;
+		}
+
+		public void setLevel(int level) {
+			this.level = level;
+		}
+
+		public int getThreshold() {
+			return this.threshold;
+		}
+
+		public void setThreshold(int threshold) {
+			this.threshold = threshold;
+		}
+
+		public int getMaxInflatedSize() {
+			return this.maxInflatedSize;
+		}
+
+		public void setMaxInflatedSize(int maxInflatedSize) {
+			this.maxInflatedSize = maxInflatedSize;
+		}
+	}
 }
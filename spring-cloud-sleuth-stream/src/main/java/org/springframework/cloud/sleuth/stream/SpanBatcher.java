@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import org.springframework.cloud.sleuth.Log;
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Takes spans from a queue and groups them into batches. A batch is complete when it
+ * reaches the max number of spans or the max estimated encoded size, or when its
+ * oldest span has been finished for longer than the max age - whichever comes first.
+ * An incomplete batch is kept until one of the limits is reached.
+ *
+ * Not thread safe - meant to be used by the single consumer of the queue.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class SpanBatcher {
+
+	// field names, ids, timestamps and flags of a JSON encoded span
+	static final int SPAN_OVERHEAD = 256;
+	static final int TAG_OVERHEAD = 6;
+	static final int LOG_OVERHEAD = 32;
+
+	private final int maxSpans;
+	private final long maxBytes;
+	private final long maxAgeMillis;
+
+	private List<Span> batch;
+	private long batchBytes;
+
+	/**
+	 * @param maxSpans max number of spans in a batch, non-positive for no limit
+	 * @param maxBytes max estimated encoded size of a batch, non-positive for no
+	 * limit. The size is approximated by {@link #estimatedSize(Span)}, so the
+	 * encoded message might be bigger. A single span bigger than this value is sent
+	 * in a batch of its own
+	 * @param maxAgeMillis for how long an incomplete batch waits for more spans,
+	 * counting from the end of its oldest span. With a non-positive value any
+	 * available spans are sent immediately
+	 */
+	SpanBatcher(int maxSpans, long maxBytes, long maxAgeMillis) {
+		this.maxSpans = maxSpans > 0 ? maxSpans : Integer.MAX_VALUE;
+		this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+		this.maxAgeMillis = maxAgeMillis;
+	}
+
+	/**
+	 * Moves spans from the queue to the current batch.
+	 *
+	 * @return the complete batch or {@code null} if there's none yet
+	 */
+	List<Span> nextBatch(Queue<Span> queue, long nowMillis) {
+		if (fill(queue)) {
+			return takeBatch();
+		}
+		if (this.batch == null) {
+			return null;
+		}
+		if (this.maxAgeMillis <= 0 || nowMillis - oldestEnd() >= this.maxAgeMillis) {
+			return takeBatch();
+		}
+		return null;
+	}
+
+	/**
+	 * Moves spans from the queue to the current batch and returns it regardless of
+	 * its age. The size limits still apply, so the caller should repeat the call
+	 * until {@code null} is returned.
+	 *
+	 * @return the batch or {@code null} if there are no spans left
+	 */
+	List<Span> flush(Queue<Span> queue) {
+		fill(queue);
+		return takeBatch();
+	}
+
+	/**
+	 * @return number of spans in the incomplete batch
+	 */
+	int pendingSpans() {
+		return this.batch == null ? 0 : this.batch.size();
+	}
+
+	/**
+	 * @return {@code true} if the batch is complete
+	 */
+	private boolean fill(Queue<Span> queue) {
+		Span span;
+		while ((span = queue.peek()) != null) {
+			if (this.batch != null && this.batch.size() >= this.maxSpans) {
+				return true;
+			}
+			int size = estimatedSize(span);
+			if (this.batch != null && this.batchBytes + size > this.maxBytes) {
+				return true;
+			}
+			queue.poll();
+			if (this.batch == null) {
+				this.batch = new ArrayList<>(Math.min(this.maxSpans, queue.size() + 1));
+			}
+			this.batch.add(span);
+			this.batchBytes += size;
+		}
+		return this.batch != null && (this.batch.size() >= this.maxSpans
+				|| this.batchBytes >= this.maxBytes);
+	}
+
+	private long oldestEnd() {
+		long oldest = Long.MAX_VALUE;
+		for (Span span : this.batch) {
+			oldest = Math.min(oldest, span.getEnd());
+		}
+		return oldest;
+	}
+
+	private List<Span> takeBatch() {
+		List<Span> batch = this.batch;
+		this.batch = null;
+		this.batchBytes = 0;
+		return batch;
+	}
+
+	/**
+	 * Approximates the size of the span encoded as JSON, assuming one byte per character
+	 */
+	static int estimatedSize(Span span) {
+		int size = SPAN_OVERHEAD + length(span.getName()) + length(span.getProcessId());
+		for (Map.Entry<String, String> tag : span.tags().entrySet()) {
+			size += TAG_OVERHEAD + length(tag.getKey()) + length(tag.getValue());
+		}
+		for (Log log : span.logs()) {
+			size += LOG_OVERHEAD + length(log.getEvent());
+		}
+		return size;
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cloud.sleuth.Log;
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Compact binary encoding of {@link Spans}. Compared to JSON, field names are not
+ * repeated per span, all strings (span names, process ids, tag keys and values, log
+ * events and host data) are written once per message in a string table and referred
+ * to by index, and numbers are written as varints:
+ *
+ * <ul>
+ *     <li>trace id is written only if it differs from the one of the previous span</li>
+ *     <li>span begin is a delta from the begin of the previous span</li>
+ *     <li>span end is a delta from the span begin, log timestamps are deltas from
+ *     the span begin</li>
+ * </ul>
+ *
+ * Span and parent ids are random so they're written as fixed 8 bytes. The saved span
+ * and baggage are not encoded since they're not used when reporting spans.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public final class SpansCodec {
+
+	static final byte VERSION = 1;
+
+	static final int REMOTE = 1;
+	static final int EXPORTABLE = 1 << 1;
+	static final int TRACE_ID_HIGH = 1 << 2;
+	static final int SAME_TRACE = 1 << 3;
+	static final int DURATION = 1 << 4;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private SpansCodec() {
+	}
+
+	public static byte[] encode(Spans spans) {
+		StringTable strings = new StringTable();
+		Host host = spans.getHost();
+		if (host != null) {
+			strings.add(host.getServiceName());
+			strings.add(host.getAddress());
+		}
+		List<Span> spanList = spans.getSpans();
+		// tags and logs are copied on access, take a single snapshot per span
+		List<Map<String, String>> tagsPerSpan = new ArrayList<>(spanList.size());
+		List<List<Log>> logsPerSpan = new ArrayList<>(spanList.size());
+		for (Span span : spanList) {
+			Map<String, String> tags = span.tags();
+			List<Log> logs = span.logs();
+			strings.addAll(span, tags, logs);
+			tagsPerSpan.add(tags);
+			logsPerSpan.add(logs);
+		}
+		Writer writer = new Writer(strings.bytes + 64 * spanList.size() + 32);
+		writer.writeByte(VERSION);
+		strings.writeTo(writer);
+		writeHost(writer, strings, host);
+		writer.writeVarint(spanList.size());
+		Span previous = null;
+		for (int i = 0; i < spanList.size(); i++) {
+			Span span = spanList.get(i);
+			writeSpan(writer, strings, span, tagsPerSpan.get(i), logsPerSpan.get(i), previous);
+			previous = span;
+		}
+		return writer.toByteArray();
+	}
+
+	private static void writeSpan(Writer writer, StringTable strings, Span span,
+			Map<String, String> tags, List<Log> logs, Span previous) {
+		boolean sameTrace = previous != null && span.getTraceId() == previous.getTraceId()
+				&& span.getTraceIdHigh() == previous.getTraceIdHigh();
+		int flags = (span.isRemote() ? REMOTE : 0)
+				| (span.isExportable() ? EXPORTABLE : 0)
+				| (span.getTraceIdHigh() != 0 ? TRACE_ID_HIGH : 0)
+				| (sameTrace ? SAME_TRACE : 0)
+				| (span.getEnd() > 0 ? DURATION : 0);
+		writer.writeByte(flags);
+		if (!sameTrace) {
+			if (span.getTraceIdHigh() != 0) {
+				writer.writeLong(span.getTraceIdHigh());
+			}
+			writer.writeLong(span.getTraceId());
+		}
+		writer.writeLong(span.getSpanId());
+		List<Long> parents = span.getParents();
+		writer.writeVarint(parents.size());
+		for (int i = 0; i < parents.size(); i++) {
+			writer.writeLong(parents.get(i));
+		}
+		writer.writeZigZag(span.getBegin() - (previous != null ? previous.getBegin() : 0));
+		if (span.getEnd() > 0) {
+			writer.writeZigZag(span.getEnd() - span.getBegin());
+			writer.writeZigZag(span.getAccumulatedMicros());
+		}
+		writer.writeVarint(strings.reference(span.getName()));
+		writer.writeVarint(strings.reference(span.getProcessId()));
+		writer.writeVarint(tags.size());
+		for (Map.Entry<String, String> tag : tags.entrySet()) {
+			writer.writeVarint(strings.reference(tag.getKey()));
+			writer.writeVarint(strings.reference(tag.getValue()));
+		}
+		writer.writeVarint(logs.size());
+		for (int i = 0; i < logs.size(); i++) {
+			Log log = logs.get(i);
+			writer.writeZigZag(log.getTimestamp() - span.getBegin());
+			writer.writeVarint(strings.reference(log.getEvent()));
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the bytes aren't spans encoded by this codec
+	 */
+	public static Spans decode(byte[] bytes) {
+		Reader reader = new Reader(bytes);
+		try {
+			byte version = reader.readByte();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported version [" + version + "]");
+			}
+			String[] strings = new String[reader.readCount(1)];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = reader.readUtf8(reader.readVarint());
+			}
+			Host host = readHost(reader, strings);
+			int count = reader.readCount(1);
+			List<Span> spans = new ArrayList<>(count);
+			Span previous = null;
+			for (int i = 0; i < count; i++) {
+				previous = readSpan(reader, strings, previous);
+				spans.add(previous);
+			}
+			return new Spans(host, spans);
+		}
+		catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Truncated spans message", e);
+		}
+	}
+
+	private static Span readSpan(Reader reader, String[] strings, Span previous) {
+		int flags = reader.readByte();
+		Span.SpanBuilder builder = Span.builder();
+		if ((flags & SAME_TRACE) != 0 && previous != null) {
+			builder.traceIdHigh(previous.getTraceIdHigh()).traceId(previous.getTraceId());
+		}
+		else {
+			builder.traceIdHigh((flags & TRACE_ID_HIGH) != 0 ? reader.readLong() : 0)
+					.traceId(reader.readLong());
+		}
+		builder.spanId(reader.readLong())
+				.remote((flags & REMOTE) != 0)
+				.exportable((flags & EXPORTABLE) != 0);
+		int parents = reader.readCount(8);
+		for (int i = 0; i < parents; i++) {
+			builder.parent(reader.readLong());
+		}
+		long begin = (previous != null ? previous.getBegin() : 0) + reader.readZigZag();
+		builder.begin(begin);
+		if ((flags & DURATION) != 0) {
+			builder.end(begin + reader.readZigZag());
+			builder.durationMicros(reader.readZigZag());
+		}
+		builder.name(string(strings, reader.readVarint()));
+		builder.processId(string(strings, reader.readVarint()));
+		int tags = reader.readCount(2);
+		for (int i = 0; i < tags; i++) {
+			builder.tag(string(strings, reader.readVarint()),
+					string(strings, reader.readVarint()));
+		}
+		int logs = reader.readCount(2);
+		for (int i = 0; i < logs; i++) {
+			builder.log(new Log(begin + reader.readZigZag(),
+					string(strings, reader.readVarint())));
+		}
+		return builder.build();
+	}
+
+	private static void writeHost(Writer writer, StringTable strings, Host host) {
+		if (host == null) {
+			writer.writeByte(0);
+			return;
+		}
+		writer.writeByte(1);
+		writer.writeVarint(strings.reference(host.getServiceName()));
+		writer.writeVarint(strings.reference(host.getAddress()));
+		int nulls = (host.getPort() == null ? 1 : 0)
+				| (host.getPackedIpv4() == null ? 2 : 0);
+		writer.writeByte(nulls);
+		if (host.getPort() != null) {
+			writer.writeZigZag(host.getPort());
+		}
+		if (host.getPackedIpv4() != null) {
+			writer.writeInt(host.getPackedIpv4());
+		}
+	}
+
+	private static Host readHost(Reader reader, String[] strings) {
+		if (reader.readByte() == 0) {
+			return null;
+		}
+		String serviceName = string(strings, reader.readVarint());
+		String address = string(strings, reader.readVarint());
+		int nulls = reader.readByte();
+		Integer port = (nulls & 1) != 0 ? null : (int) reader.readZigZag();
+		Integer packedIpv4 = (nulls & 2) != 0 ? null : reader.readInt();
+		return new Host(serviceName, address, port, packedIpv4);
+	}
+
+	private static String string(String[] strings, int reference) {
+		return reference == 0 ? null : strings[reference - 1];
+	}
+
+	/**
+	 * Distinct strings of a message. A reference is the index + 1, 0 stands for
+	 * {@code null}
+	 */
+	static final class StringTable {
+		final Map<String, Integer> indexes = new HashMap<>();
+		final List<byte[]> encoded = new ArrayList<>();
+		int bytes;
+
+		void addAll(Span span, Map<String, String> tags, List<Log> logs) {
+			add(span.getName());
+			add(span.getProcessId());
+			for (Map.Entry<String, String> tag : tags.entrySet()) {
+				add(tag.getKey());
+				add(tag.getValue());
+			}
+			for (int i = 0; i < logs.size(); i++) {
+				add(logs.get(i).getEvent());
+			}
+		}
+
+		void add(String value) {
+			if (value != null && !this.indexes.containsKey(value)) {
+				byte[] utf8 = value.getBytes(UTF_8);
+				this.indexes.put(value, this.indexes.size());
+				this.encoded.add(utf8);
+				this.bytes += utf8.length + 5;
+			}
+		}
+
+		int reference(String value) {
+			return value == null ? 0 : this.indexes.get(value) + 1;
+		}
+
+		void writeTo(Writer writer) {
+			writer.writeVarint(this.encoded.size());
+			for (byte[] utf8 : this.encoded) {
+				writer.writeVarint(utf8.length);
+				writer.writeBytes(utf8);
+			}
+		}
+	}
+
+	static final class Writer {
+		private byte[] buffer;
+		private int position;
+
+		Writer(int initialCapacity) {
+			this.buffer = new byte[initialCapacity];
+		}
+
+		void writeByte(int value) {
+			ensureCapacity(1);
+			this.buffer[this.position++] = (byte) value;
+		}
+
+		void writeBytes(byte[] bytes) {
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+			this.position += bytes.length;
+		}
+
+		void writeInt(int value) {
+			ensureCapacity(4);
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				this.buffer[this.position++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeLong(long value) {
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				this.buffer[this.position++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeVarint(int value) {
+			writeVarlong(value & 0xFFFFFFFFL);
+		}
+
+		void writeZigZag(long value) {
+			writeVarlong((value << 1) ^ (value >> 63));
+		}
+
+		private void writeVarlong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.buffer[this.position++] = (byte) value;
+		}
+
+		private void ensureCapacity(int bytes) {
+			if (this.position + bytes > this.buffer.length) {
+				byte[] bigger = new byte[Math.max(this.buffer.length * 2, this.position + bytes)];
+				System.arraycopy(this.buffer, 0, bigger, 0, this.position);
+				this.buffer = bigger;
+			}
+		}
+
+		byte[] toByteArray() {
+			if (this.position == this.buffer.length) {
+				return this.buffer;
+			}
+			byte[] result = new byte[this.position];
+			System.arraycopy(this.buffer, 0, result, 0, this.position);
+			return result;
+		}
+	}
+
+	static final class Reader {
+		private final byte[] buffer;
+		private int position;
+
+		Reader(byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		byte readByte() {
+			return this.buffer[this.position++];
+		}
+
+		int readInt() {
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				value = (value << 8) | (this.buffer[this.position++] & 0xFF);
+			}
+			return value;
+		}
+
+		long readLong() {
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (this.buffer[this.position++] & 0xFF);
+			}
+			return value;
+		}
+
+		int readVarint() {
+			long value = readVarlong();
+			if (value > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Malformed varint [" + value + "]");
+			}
+			return (int) value;
+		}
+
+		/**
+		 * Reads the number of entries that follow, each taking at least the given
+		 * number of bytes, so that a corrupted message can't make the decoder
+		 * allocate more than the message could possibly hold
+		 */
+		int readCount(int minBytesPerEntry) {
+			int count = readVarint();
+			if (count > (this.buffer.length - this.position) / minBytesPerEntry) {
+				throw new IllegalArgumentException("Count [" + count
+						+ "] exceeds the remaining bytes of the spans message");
+			}
+			return count;
+		}
+
+		long readZigZag() {
+			long value = readVarlong();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readVarlong() {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = this.buffer[this.position++];
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("Malformed varint");
+		}
+
+		String readUtf8(int length) {
+			if (length > this.buffer.length - this.position) {
+				throw new IllegalArgumentException("Truncated spans message");
+			}
+			String value = new String(this.buffer, this.position, length, UTF_8);
+			this.position += length;
+			return value;
+		}
+	}
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses encoded {@link Spans} payloads with gzip or deflate.
+ * {@link Deflater}s, {@link Inflater}s and their buffers are pooled, since creating
+ * them allocates native memory. A compressed payload is only returned if it's smaller
+ * than the original one. A payload that would decompress to more than the max inflated
+ * size is rejected.
+ *
+ * Thread safe.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class SpansCompressor {
+
+	/**
+	 * Name of the message header carrying the {@link Encoding#value()} of a compressed
+	 * payload
+	 */
+	public static final String CONTENT_ENCODING = "contentEncoding";
+
+	public static final int DEFAULT_POOL_SIZE = 4;
+
+	/**
+	 * Default max size of a decompressed payload
+	 */
+	public static final int DEFAULT_MAX_INFLATED_SIZE = 10 * 1024 * 1024;
+
+	// bigger buffers are dropped instead of being kept by the pooled (de)compressors
+	static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0,
+			0, 0, 0, 0, 0, (byte) 0xff };
+	private static final int GZIP_TRAILER_LENGTH = 8;
+	// deflate can't compress better than that, so a bigger gzip size is corrupted
+	private static final int MAX_DEFLATE_RATIO = 1032;
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	public enum Encoding {
+		/**
+		 * RFC 1952 gzip format
+		 */
+		GZIP("gzip"),
+
+		/**
+		 * RFC 1950 zlib format, as used by the HTTP deflate content encoding
+		 */
+		DEFLATE("deflate");
+
+		private final String value;
+
+		Encoding(String value) {
+			this.value = value;
+		}
+
+		/**
+		 * @return value of the {@link #CONTENT_ENCODING} header
+		 */
+		public String value() {
+			return this.value;
+		}
+
+		/**
+		 * @return encoding having the given header value or {@code null} if there's none
+		 */
+		public static Encoding fromValue(String value) {
+			for (Encoding encoding : values()) {
+				if (encoding.value.equalsIgnoreCase(value)) {
+					return encoding;
+				}
+			}
+			return null;
+		}
+	}
+
+	private final Encoding encoding;
+	private final int level;
+	private final int maxInflatedSize;
+	private final BlockingQueue<Compressor> compressors;
+	private final BlockingQueue<Decompressor> decompressors;
+
+	public SpansCompressor(Encoding encoding) {
+		this(encoding, Deflater.BEST_SPEED, DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * @param level {@link Deflater} compression level, from
+	 * {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+	 * @param poolSize max number of idle compressors and decompressors kept for reuse
+	 */
+	public SpansCompressor(Encoding encoding, int level, int poolSize) {
+		this(encoding, level, poolSize, DEFAULT_MAX_INFLATED_SIZE);
+	}
+
+	/**
+	 * @param level {@link Deflater} compression level, from
+	 * {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+	 * @param poolSize max number of idle compressors and decompressors kept for reuse
+	 * @param maxInflatedSize max size in bytes of a decompressed payload
+	 */
+	public SpansCompressor(Encoding encoding, int level, int poolSize, int maxInflatedSize) {
+		if (encoding == null) {
+			throw new IllegalArgumentException("Encoding must not be null");
+		}
+		if (level != Deflater.DEFAULT_COMPRESSION
+				&& (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+			throw new IllegalArgumentException("Invalid compression level " + level);
+		}
+		if (maxInflatedSize <= 0) {
+			throw new IllegalArgumentException("Max inflated size must be positive but was ["
+					+ maxInflatedSize + "]");
+		}
+		this.encoding = encoding;
+		this.level = level;
+		this.maxInflatedSize = maxInflatedSize;
+		this.compressors = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+		this.decompressors = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+	}
+
+	public Encoding getEncoding() {
+		return this.encoding;
+	}
+
+	/**
+	 * @return the compressed payload or {@code null} if compressing doesn't make it
+	 * smaller
+	 */
+	public byte[] compress(byte[] payload) {
+		Compressor compressor = this.compressors.poll();
+		if (compressor == null) {
+			compressor = new Compressor(this.encoding, this.level);
+		}
+		try {
+			return compressor.compress(payload);
+		}
+		finally {
+			compressor.reset();
+			if (!this.compressors.offer(compressor)) {
+				compressor.end();
+			}
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the payload is malformed or truncated or if
+	 * it decompresses to more than the max inflated size
+	 */
+	public byte[] decompress(byte[] payload) {
+		Decompressor decompressor = this.decompressors.poll();
+		if (decompressor == null) {
+			decompressor = new Decompressor(this.encoding, this.maxInflatedSize);
+		}
+		try {
+			return decompressor.decompress(payload);
+		}
+		finally {
+			decompressor.reset();
+			if (!this.decompressors.offer(decompressor)) {
+				decompressor.end();
+			}
+		}
+	}
+
+	private static final class Compressor {
+		final boolean gzip;
+		final Deflater deflater;
+		final CRC32 crc = new CRC32();
+		byte[] buffer = new byte[0];
+
+		Compressor(Encoding encoding, int level) {
+			this.gzip = encoding == Encoding.GZIP;
+			this.deflater = new Deflater(level, this.gzip);
+		}
+
+		byte[] compress(byte[] payload) {
+			// the output must be smaller than the payload, so the buffer never has to
+			// be bigger than the payload either
+			if (this.buffer.length < payload.length) {
+				this.buffer = new byte[payload.length];
+			}
+			byte[] buffer = this.buffer;
+			int pos = 0;
+			int limit = payload.length;
+			if (this.gzip) {
+				if (payload.length <= GZIP_HEADER.length + GZIP_TRAILER_LENGTH) {
+					return null;
+				}
+				System.arraycopy(GZIP_HEADER, 0, buffer, 0, GZIP_HEADER.length);
+				pos = GZIP_HEADER.length;
+				limit -= GZIP_TRAILER_LENGTH;
+				this.crc.update(payload, 0, payload.length);
+			}
+			this.deflater.setInput(payload);
+			this.deflater.finish();
+			while (!this.deflater.finished()) {
+				if (pos >= limit) {
+					return null;
+				}
+				pos += this.deflater.deflate(buffer, pos, limit - pos);
+			}
+			if (pos >= limit) {
+				return null;
+			}
+			if (this.gzip) {
+				writeIntLe(buffer, pos, (int) this.crc.getValue());
+				writeIntLe(buffer, pos + 4, payload.length);
+				pos += GZIP_TRAILER_LENGTH;
+			}
+			return Arrays.copyOf(buffer, pos);
+		}
+
+		void reset() {
+			this.deflater.reset();
+			this.crc.reset();
+			if (this.buffer.length > MAX_POOLED_BUFFER_SIZE) {
+				this.buffer = new byte[0];
+			}
+		}
+
+		void end() {
+			this.deflater.end();
+		}
+	}
+
+	private static final class Decompressor {
+		final Encoding encoding;
+		final int maxInflatedSize;
+		final Inflater inflater;
+		final CRC32 crc = new CRC32();
+		// checks whether there's anything left to inflate once the limit is reached
+		final byte[] probe = new byte[1];
+		byte[] buffer = new byte[0];
+
+		Decompressor(Encoding encoding, int maxInflatedSize) {
+			this.encoding = encoding;
+			this.maxInflatedSize = maxInflatedSize;
+			this.inflater = new Inflater(encoding == Encoding.GZIP);
+		}
+
+		byte[] decompress(byte[] payload) {
+			int offset = 0;
+			int end = payload.length;
+			int limit = this.maxInflatedSize;
+			int capacity;
+			if (this.encoding == Encoding.GZIP) {
+				offset = gzipHeaderLength(payload);
+				end -= GZIP_TRAILER_LENGTH;
+				if (end < offset) {
+					throw truncated();
+				}
+				// ISIZE is the size modulo 2^32, so a negative value is too big anyway
+				int expectedSize = readIntLe(payload, end + 4);
+				if (expectedSize < 0 || expectedSize > this.maxInflatedSize) {
+					throw tooBig();
+				}
+				if (expectedSize / MAX_DEFLATE_RATIO > payload.length) {
+					throw new IllegalArgumentException("Corrupted gzip payload");
+				}
+				limit = expectedSize;
+				capacity = expectedSize;
+			}
+			else {
+				capacity = (int) Math.min(limit, payload.length * 4L);
+			}
+			if (this.buffer.length < capacity) {
+				this.buffer = new byte[capacity];
+			}
+			this.inflater.setInput(payload, offset, end - offset);
+			int pos = 0;
+			try {
+				while (!this.inflater.finished()) {
+					if (pos == limit) {
+						if (this.inflater.inflate(this.probe) > 0) {
+							throw this.encoding == Encoding.GZIP
+									? new IllegalArgumentException("Corrupted gzip payload")
+									: tooBig();
+						}
+						if (!this.inflater.finished()) {
+							throw truncated();
+						}
+						break;
+					}
+					if (pos == this.buffer.length) {
+						this.buffer = Arrays.copyOf(this.buffer,
+								(int) Math.min(limit, Math.max(64, this.buffer.length * 2L)));
+					}
+					int inflated = this.inflater.inflate(this.buffer, pos,
+							Math.min(this.buffer.length, limit) - pos);
+					if (inflated == 0 && (this.inflater.needsInput()
+							|| this.inflater.needsDictionary())) {
+						throw truncated();
+					}
+					pos += inflated;
+				}
+			}
+			catch (DataFormatException e) {
+				throw new IllegalArgumentException(
+						"Malformed " + this.encoding.value() + " payload", e);
+			}
+			if (this.encoding == Encoding.GZIP) {
+				this.crc.update(this.buffer, 0, pos);
+				if ((int) this.crc.getValue() != readIntLe(payload, end)
+						|| pos != limit) {
+					throw new IllegalArgumentException("Corrupted gzip payload");
+				}
+			}
+			return Arrays.copyOf(this.buffer, pos);
+		}
+
+		private int gzipHeaderLength(byte[] payload) {
+			if (payload.length < GZIP_HEADER.length) {
+				throw truncated();
+			}
+			if (payload[0] != GZIP_HEADER[0] || payload[1] != GZIP_HEADER[1]
+					|| payload[2] != Deflater.DEFLATED) {
+				throw new IllegalArgumentException("Not a gzip payload");
+			}
+			int flags = payload[3] & 0xff;
+			int pos = GZIP_HEADER.length;
+			if ((flags & FEXTRA) != 0) {
+				checkAvailable(payload, pos, 2);
+				pos += 2 + ((payload[pos] & 0xff) | (payload[pos + 1] & 0xff) << 8);
+			}
+			if ((flags & FNAME) != 0) {
+				pos = skipZeroTerminated(payload, pos);
+			}
+			if ((flags & FCOMMENT) != 0) {
+				pos = skipZeroTerminated(payload, pos);
+			}
+			if ((flags & FHCRC) != 0) {
+				pos += 2;
+			}
+			checkAvailable(payload, pos, 0);
+			return pos;
+		}
+
+		private int skipZeroTerminated(byte[] payload, int pos) {
+			while (pos < payload.length && payload[pos] != 0) {
+				pos++;
+			}
+			checkAvailable(payload, pos, 1);
+			return pos + 1;
+		}
+
+		private void checkAvailable(byte[] payload, int pos, int length) {
+			if (pos + length > payload.length) {
+				throw truncated();
+			}
+		}
+
+		private IllegalArgumentException tooBig() {
+			return new IllegalArgumentException("Decompressed " + this.encoding.value()
+					+ " payload exceeds the max size of [" + this.maxInflatedSize + "] bytes");
+		}
+
+		private IllegalArgumentException truncated() {
+			return new IllegalArgumentException(
+					"Truncated " + this.encoding.value() + " payload");
+		}
+
+		void reset() {
+			this.inflater.reset();
+			this.crc.reset();
+			if (this.buffer.length > MAX_POOLED_BUFFER_SIZE) {
+				this.buffer = new byte[0];
+			}
+		}
+
+		void end() {
+			this.inflater.end();
+		}
+	}
+
+	private static void writeIntLe(byte[] buffer, int pos, int value) {
+		buffer[pos] = (byte) value;
+		buffer[pos + 1] = (byte) (value >>> 8);
+		buffer[pos + 2] = (byte) (value >>> 16);
+		buffer[pos + 3] = (byte) (value >>> 24);
+	}
+
+	private static int readIntLe(byte[] buffer, int pos) {
+		return (buffer[pos] & 0xff) | (buffer[pos + 1] & 0xff) << 8
+				| (buffer[pos + 2] & 0xff) << 16 | (buffer[pos + 3] & 0xff) << 24;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+/**
+ * Converts {@link Spans} to and from the compact binary format of {@link SpansCodec}.
+ * To send spans in this format set {@code spring.sleuth.stream.content-type} to
+ * {@value #CONTENT_TYPE}. Receivers having this converter registered as a bean decode
+ * such messages basing on their content type header.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class SpansMessageConverter extends AbstractMessageConverter {
+
+	public static final String CONTENT_TYPE = "application/x-sleuth-spans";
+	public static final MimeType MIME_TYPE = MimeType.valueOf(CONTENT_TYPE);
+
+	public SpansMessageConverter() {
+		super(MIME_TYPE);
+	}
+
+	/**
+	 * Outbound messages are converted before the content type header is set, so
+	 * {@link Spans} payloads are accepted without the header. Other payloads need the
+	 * header so that e.g. JSON messages are left to other converters.
+	 */
+	@Override
+	protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+		if (!supports(targetClass)) {
+			return false;
+		}
+		MimeType mimeType = getMimeType(message.getHeaders());
+		if (mimeType == null) {
+			return message.getPayload() instanceof Spans;
+		}
+		return MIME_TYPE.includes(mimeType);
+	}
+
+	/**
+	 * Spring Cloud Stream converts outbound payloads to {@code byte[]} and inbound
+	 * payloads to the listener argument type, both via
+	 * {@link #fromMessage(Message, Class)}
+	 */
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Spans.class.equals(clazz) || byte[].class.equals(clazz);
+	}
+
+	@Override
+	protected Object convertFromInternal(Message<?> message, Class<?> targetClass,
+			Object conversionHint) {
+		Object payload = message.getPayload();
+		if (Spans.class.equals(targetClass)) {
+			if (payload instanceof Spans) {
+				return payload;
+			}
+			if (payload instanceof byte[]) {
+				return SpansCodec.decode((byte[]) payload);
+			}
+		}
+		else if (payload instanceof Spans) {
+			return SpansCodec.encode((Spans) payload);
+		}
+		return null;
+	}
+
+	@Override
+	protected Object convertToInternal(Object payload, MessageHeaders headers,
+			Object conversionHint) {
+		return payload instanceof Spans ? SpansCodec.encode((Spans) payload) : null;
+	}
+}
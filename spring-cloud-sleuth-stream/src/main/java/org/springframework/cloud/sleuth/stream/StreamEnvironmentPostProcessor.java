@@ -48,7 +48,8 @@ public class StreamEnvironmentPostProcessor implements EnvironmentPostProcessor
 	private static final String PROPERTY_SOURCE_NAME = "defaultProperties";
 	static final String[] HEADERS = new String[] { TraceMessageHeaders.SPAN_ID_NAME,
 			TraceMessageHeaders.TRACE_ID_NAME, TraceMessageHeaders.PARENT_ID_NAME, TraceMessageHeaders.PROCESS_ID_NAME,
-			TraceMessageHeaders.SAMPLED_NAME, TraceMessageHeaders.SPAN_NAME_NAME };
+			TraceMessageHeaders.SAMPLED_NAME, TraceMessageHeaders.SPAN_NAME_NAME,
+			SpansCompressor.CONTENT_ENCODING };
 
 	@Override
 	public void postProcessEnvironment(ConfigurableEnvironment environment,
@@ -78,9 +79,22 @@ public class StreamEnvironmentPostProcessor implements EnvironmentPostProcessor
 				environment.getProperty("spring.sleuth.stream.group", SleuthSink.INPUT));
 		map.put("spring.cloud.stream.bindings." + SleuthSource.OUTPUT + ".content-type",
 				environment.getProperty("spring.sleuth.stream.content-type", "application/json"));
+		int partitionCount = partitionCount(environment);
+		if (partitionCount > 1) {
+			String producer = "spring.cloud.stream.bindings." + SleuthSource.OUTPUT + ".producer.";
+			map.put(producer + "partition-key-expression",
+					"headers['" + TraceIdPartitioner.PARTITION_KEY_HEADER + "']");
+			map.put(producer + "partition-count", partitionCount);
+		}
 		addOrReplace(environment.getPropertySources(), map);
 	}
 
+	private int partitionCount(ConfigurableEnvironment environment) {
+		String partitionCount = environment.getProperty("spring.sleuth.stream.partition-count",
+				environment.getProperty("spring.sleuth.stream.partitionCount"));
+		return partitionCount != null ? Integer.parseInt(partitionCount.trim()) : 1;
+	}
+
 	private int findStartIndex(ConfigurableEnvironment environment, String binder) {
 		String prefix = "spring.cloud.stream." + binder + ".binder.HEADERS";
 		int i = 0;
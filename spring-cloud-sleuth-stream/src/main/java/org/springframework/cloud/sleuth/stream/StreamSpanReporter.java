@@ -17,33 +17,41 @@
 package org.springframework.cloud.sleuth.stream;
 
 import org.apache.commons.logging.LogFactory;
-import org.springframework.cloud.commons.util.IdUtils;
 import org.springframework.cloud.sleuth.Log;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.SpanAdjuster;
 import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
 import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanTransportMetricReporter;
+import org.springframework.cloud.sleuth.util.CachedInstanceId;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.core.env.Environment;
 import org.springframework.integration.annotation.InboundChannelAdapter;
 import org.springframework.integration.annotation.MessageEndpoint;
 import org.springframework.integration.annotation.Poller;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageChannel;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * A message source for spans. Also handles RPC flavoured annotations.
  *
+ * When stopped, which happens before the poller and the output binding get stopped,
+ * the spans that are still pending are sent directly to the
+ * {@link #setOutput(MessageChannel) output channel}.
+ *
  * @author Dave Syer
  * @since 1.0.0
  */
 @MessageEndpoint
-public class StreamSpanReporter implements SpanReporter {
+public class StreamSpanReporter implements SpanReporter, SmartLifecycle {
 
 	private static final org.apache.commons.logging.Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
 
@@ -58,61 +66,246 @@ public class StreamSpanReporter implements SpanReporter {
 	 */
 	public static final String POLLER = "streamSpanReporterPoller";
 
-	private BlockingQueue<Span> queue = new LinkedBlockingQueue<>(1000);
+	/**
+	 * Default number of spans that can wait for the poller
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+	/**
+	 * Default max number of spans sent in a single message
+	 */
+	public static final int DEFAULT_BATCH_MAX_SPANS = 1000;
+
+	/**
+	 * Default max estimated size of a single message
+	 */
+	public static final long DEFAULT_BATCH_MAX_BYTES = 512 * 1024;
+
+	/**
+	 * Name of the spans created when sending spans to the output channel. They are
+	 * not reported to avoid an endless loop of tracing the tracing.
+	 */
+	static final String SELF_SPAN_NAME = "message/" + SleuthSource.OUTPUT;
+
+	private Queue<Span> queue = new MpscBoundedQueue<>(DEFAULT_QUEUE_SIZE);
+	private SpanBatcher batcher = new SpanBatcher(DEFAULT_BATCH_MAX_SPANS,
+			DEFAULT_BATCH_MAX_BYTES, 0);
+	private int partitionCount = 1;
+	private final Queue<Spans> partitions = new ArrayDeque<>();
+	private int partitionedSpans;
 	private final HostLocator endpointLocator;
 	private final SpanMetricReporter spanMetricReporter;
-	private final Environment environment;
+	private final SpanTransportMetricReporter transportMetricReporter;
+	private final CachedInstanceId instanceId; // Nullable
 	private final List<SpanAdjuster> spanAdjusters;
+	private MessageChannel output; // Nullable
+	private volatile boolean running;
 
 	public StreamSpanReporter(HostLocator endpointLocator,
 			SpanMetricReporter spanMetricReporter, Environment environment, List<SpanAdjuster> spanAdjusters) {
+		this(endpointLocator, spanMetricReporter,
+				spanAdjusters, environment != null ? new CachedInstanceId(environment) : null);
+	}
+
+	public StreamSpanReporter(HostLocator endpointLocator,
+			SpanMetricReporter spanMetricReporter, List<SpanAdjuster> spanAdjusters, CachedInstanceId instanceId) {
 		this.endpointLocator = endpointLocator;
 		this.spanMetricReporter = spanMetricReporter;
-		this.environment = environment;
+		this.transportMetricReporter = spanMetricReporter instanceof SpanTransportMetricReporter ?
+				(SpanTransportMetricReporter) spanMetricReporter : new NoOpSpanMetricReporter();
+		this.instanceId = instanceId;
 		this.spanAdjusters = spanAdjusters;
 	}
 
-	public void setQueue(BlockingQueue<Span> queue) {
+	/**
+	 * Sets the queue in which spans wait for the poller. Spans are added via
+	 * {@link Queue#offer(Object)}, so for a bounded queue a rejected span is
+	 * counted as dropped.
+	 */
+	public void setQueue(Queue<Span> queue) {
 		this.queue = queue;
 	}
 
+	/**
+	 * @deprecated - use {@link #setQueue(Queue)}
+	 */
+	@Deprecated
+	public void setQueue(BlockingQueue<Span> queue) {
+		setQueue((Queue<Span>) queue);
+	}
+
+	/**
+	 * Replaces the queue with a lock-free bounded one of the given size
+	 */
+	public void setQueueSize(int queueSize) {
+		this.queue = new MpscBoundedQueue<>(queueSize);
+	}
+
+	/**
+	 * Sets the limits of a single {@link Spans} message. A batch is sent when it
+	 * reaches {@code maxSpans} spans or {@code maxBytes} estimated encoded bytes, or
+	 * when its oldest span has been finished for {@code maxAgeMillis}. Each poll
+	 * returns at most one batch, so a large backlog is sent as several messages.
+	 *
+	 * @param maxSpans max number of spans per message, non-positive for no limit
+	 * @param maxBytes max estimated size of a message, non-positive for no limit
+	 * @param maxAgeMillis how long an incomplete batch waits for more spans,
+	 * non-positive to send any available spans on each poll
+	 */
+	public synchronized void setBatchLimits(int maxSpans, long maxBytes, long maxAgeMillis) {
+		this.batcher = new SpanBatcher(maxSpans, maxBytes, maxAgeMillis);
+	}
+
+	/**
+	 * Splits each batch by a hash of the trace id into the given number of partitions,
+	 * so that spans of a trace are sent in the same message. Each poll returns a
+	 * single partition, the remaining ones are returned by the subsequent polls
+	 * before a new batch is taken.
+	 *
+	 * @param partitionCount number of partitions, 1 or less for no partitioning
+	 * @see TraceIdPartitioner
+	 */
+	public synchronized void setPartitionCount(int partitionCount) {
+		this.partitionCount = Math.max(1, partitionCount);
+	}
+
+	/**
+	 * Sets the channel to which the pending spans are sent when the reporter gets
+	 * stopped. Without it the spans that didn't make it into a polled message are
+	 * lost on shutdown.
+	 */
+	public void setOutput(MessageChannel output) {
+		this.output = output;
+	}
+
 	@InboundChannelAdapter(value = SleuthSource.OUTPUT, poller = @Poller(POLLER))
-	public Spans poll() {
-		List<Span> result = new LinkedList<>();
-		this.queue.drainTo(result);
-		for (Iterator<Span> iterator = result.iterator(); iterator.hasNext();) {
-			Span span = iterator.next();
-			if (span.getName() != null && span.getName().equals("message/" + SleuthSource.OUTPUT)) {
-				iterator.remove();
+	public synchronized Spans poll() {
+		return nextSpans(false);
+	}
+
+	/**
+	 * Returns the pending spans regardless of the max age of a batch. Should be
+	 * called until {@code null} is returned.
+	 */
+	synchronized Spans flush() {
+		return nextSpans(true);
+	}
+
+	private Spans nextSpans(boolean flush) {
+		Queue<Span> queue = this.queue;
+		Spans spans = nextPartition();
+		if (spans == null) {
+			List<Span> result = flush ? this.batcher.flush(queue)
+					: this.batcher.nextBatch(queue, System.currentTimeMillis());
+			if (result == null) {
+				return null;
+			}
+			Host host = this.endpointLocator.locate(result.get(0));
+			if (this.partitionCount > 1) {
+				this.partitions.addAll(TraceIdPartitioner.split(host, result,
+						this.partitionCount));
+				this.partitionedSpans = result.size();
+				spans = nextPartition();
+			}
+			else {
+				spans = new Spans(host, result);
 			}
 		}
-		if (result.isEmpty()) {
-			return null;
-		}
+		int size = spans.getSpans().size();
 		if (log.isDebugEnabled()) {
-			log.debug("Processed [" + result.size() + "] spans");
+			log.debug("Processed [" + size + "] spans");
+		}
+		this.spanMetricReporter.incrementAcceptedSpans(size);
+		this.transportMetricReporter.recordMessageSpans(size);
+		this.transportMetricReporter.updateQueuedSpans(queue.size()
+				+ this.batcher.pendingSpans() + this.partitionedSpans);
+		return spans;
+	}
+
+	@Override
+	public void start() {
+		this.running = true;
+	}
+
+	@Override
+	public void stop() {
+		this.running = false;
+		MessageChannel output = this.output;
+		if (output == null) {
+			return;
+		}
+		Spans spans;
+		while ((spans = flush()) != null) {
+			try {
+				output.send(MessageBuilder.withPayload(spans).build());
+			}
+			catch (Exception e) {
+				this.spanMetricReporter.incrementDroppedSpans(spans.getSpans().size());
+				if (log.isDebugEnabled()) {
+					log.debug("Pending spans will not be sent to Zipkin due to [" + e + "]");
+				}
+			}
+		}
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	/**
+	 * Stops first, so that the output binding is still there to send the pending spans
+	 */
+	@Override
+	public int getPhase() {
+		return Integer.MAX_VALUE;
+	}
+
+	private Spans nextPartition() {
+		Spans spans = this.partitions.poll();
+		if (spans != null) {
+			this.partitionedSpans -= spans.getSpans().size();
 		}
-		this.spanMetricReporter.incrementAcceptedSpans(result.size());
-		return new Spans(this.endpointLocator.locate(result.get(0)), result);
+		return spans;
 	}
 
 	@Override
 	public void report(Span span) {
 		Span spanToReport = span;
 		if (spanToReport.isExportable()) {
+			if (SELF_SPAN_NAME.equals(spanToReport.getName())) {
+				return;
+			}
 			try {
-				if (this.environment != null) {
+				if (this.instanceId != null) {
 					processLogs(spanToReport);
 				}
 				for (SpanAdjuster adjuster : this.spanAdjusters) {
 					spanToReport = adjuster.adjust(spanToReport);
 				}
-				this.queue.add(spanToReport);
 			} catch (Exception e) {
 				this.spanMetricReporter.incrementDroppedSpans(1);
 				if (log.isDebugEnabled()) {
 					log.debug("The span " + spanToReport + " will not be sent to Zipkin due to [" + e + "]");
 				}
+				return;
+			}
+			if (!this.queue.offer(spanToReport)) {
+				this.spanMetricReporter.incrementDroppedSpans(1);
+				if (log.isDebugEnabled()) {
+					log.debug("The span " + spanToReport + " will not be sent to Zipkin due to a full queue");
+				}
 			}
 		} else {
 			if (log.isDebugEnabled()) {
@@ -124,7 +317,8 @@ public class StreamSpanReporter implements SpanReporter {
 	private void processLogs(Span span) {
 		for (Log spanLog : span.logs()) {
 			if (RPC_EVENTS.contains(spanLog.getEvent())) {
-				span.tag(Span.INSTANCEID, IdUtils.getDefaultInstanceId(this.environment));
+				span.tag(Span.INSTANCEID, this.instanceId.get());
+				return;
 			}
 		}
 	}
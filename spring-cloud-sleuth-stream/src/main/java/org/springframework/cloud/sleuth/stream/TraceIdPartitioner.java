@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Splits spans into partitions by a hash of their trace id, so that all spans of a
+ * trace end up in the same partition. Partitioned {@link Spans} messages carry the
+ * partition number in the {@value #PARTITION_KEY_HEADER} header, which the binder uses
+ * as the partition key.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public final class TraceIdPartitioner {
+
+	/**
+	 * Name of the message header carrying the partition of a {@link Spans} message
+	 */
+	public static final String PARTITION_KEY_HEADER = "sleuthPartitionKey";
+
+	private TraceIdPartitioner() {
+	}
+
+	/**
+	 * @return partition of the span's trace, from 0 to {@code partitionCount - 1}
+	 */
+	public static int partition(Span span, int partitionCount) {
+		long traceId = span.getTraceIdHigh() ^ span.getTraceId();
+		int hash = (int) (traceId ^ (traceId >>> 32));
+		// trace ids might be sequential or have weak low bits, spread them (murmur3 fmix)
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		hash ^= hash >>> 16;
+		return (hash & Integer.MAX_VALUE) % partitionCount;
+	}
+
+	/**
+	 * Groups the spans by partition, keeping their order.
+	 *
+	 * @return one message per non empty partition
+	 */
+	static List<Spans> split(Host host, List<Span> spans, int partitionCount) {
+		List<List<Span>> partitions = new ArrayList<>(partitionCount);
+		for (int i = 0; i < partitionCount; i++) {
+			partitions.add(null);
+		}
+		for (Span span : spans) {
+			int partition = partition(span, partitionCount);
+			List<Span> partitionSpans = partitions.get(partition);
+			if (partitionSpans == null) {
+				partitionSpans = new ArrayList<>();
+				partitions.set(partition, partitionSpans);
+			}
+			partitionSpans.add(span);
+		}
+		List<Spans> result = new ArrayList<>();
+		for (List<Span> partitionSpans : partitions) {
+			if (partitionSpans != null) {
+				result.add(new Spans(host, partitionSpans));
+			}
+		}
+		return result;
+	}
+}
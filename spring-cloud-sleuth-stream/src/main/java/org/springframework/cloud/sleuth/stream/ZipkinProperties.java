@@ -64,6 +64,9 @@ public class ZipkinProperties {
 
 		private Discovery discovery;
 
+		/** Time (ms) for which the resolved local address is cached before it's looked up again */
+		private long addressCacheTtl = HostAddressCache.DEFAULT_TTL_MILLIS;
+
 		public Discovery getDiscovery() {
 			return this.discovery;
 		}
@@ -72,6 +75,14 @@ public class ZipkinProperties {
 			this.discovery = discovery;
 		}
 
+		public long getAddressCacheTtl() {
+			return this.addressCacheTtl;
+		}
+
+		public void setAddressCacheTtl(long addressCacheTtl) {
+			this.addressCacheTtl = addressCacheTtl;
+		}
+
 		public static class Discovery {
 
 			/** Enabling of locating the host name via service discovery */
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class HostAddressCacheTests {
+
+	HostAddressCache cache = new HostAddressCache();
+
+	@Test
+	public void should_pack_the_resolved_address() {
+		then(this.cache.ipv4("1.2.3.4")).isEqualTo(1 << 24 | 2 << 16 | 3 << 8 | 4);
+	}
+
+	@Test
+	public void should_evict_only_the_least_recently_used_address_when_full() {
+		for (int i = 0; i < HostAddressCache.MAX_ENTRIES; i++) {
+			this.cache.ipv4(address(i));
+		}
+		// touching the first address makes the second one the eldest
+		this.cache.ipv4(address(0));
+
+		this.cache.ipv4(address(HostAddressCache.MAX_ENTRIES));
+
+		then(this.cache.size()).isEqualTo(HostAddressCache.MAX_ENTRIES);
+		then(this.cache.isCached(address(0))).isTrue();
+		then(this.cache.isCached(address(1))).isFalse();
+		then(this.cache.isCached(address(HostAddressCache.MAX_ENTRIES))).isTrue();
+	}
+
+	@Test
+	public void should_resolve_host_address_via_the_shared_cache() {
+		Host host = new Host("foo", "10.0.0.1", 8080);
+
+		then(host.getIpv4()).isEqualTo(10 << 24 | 1);
+		then(HostAddressCache.shared().isCached("10.0.0.1")).isTrue();
+	}
+
+	private static String address(int i) {
+		return "10.1." + (i >> 8) + "." + (i & 0xff);
+	}
+}
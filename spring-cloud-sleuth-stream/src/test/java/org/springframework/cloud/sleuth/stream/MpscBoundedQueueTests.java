@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class MpscBoundedQueueTests {
+
+	@Test
+	public void should_round_capacity_up_to_power_of_two() {
+		then(new MpscBoundedQueue<String>(1).capacity()).isEqualTo(1);
+		then(new MpscBoundedQueue<String>(1000).capacity()).isEqualTo(1024);
+		then(new MpscBoundedQueue<String>(1024).capacity()).isEqualTo(1024);
+	}
+
+	@Test
+	public void should_reject_elements_when_full_and_accept_them_after_polling() {
+		MpscBoundedQueue<String> queue = new MpscBoundedQueue<>(2);
+
+		then(queue.offer("a")).isTrue();
+		then(queue.offer("b")).isTrue();
+		then(queue.offer("c")).isFalse();
+		then(queue.size()).isEqualTo(2);
+		then(queue.poll()).isEqualTo("a");
+		then(queue.offer("c")).isTrue();
+
+		then(queue.peek()).isEqualTo("b");
+		then(queue.poll()).isEqualTo("b");
+		then(queue.poll()).isEqualTo("c");
+		then(queue.isEmpty()).isTrue();
+		then(queue.poll()).isNull();
+		then(queue.peek()).isNull();
+	}
+
+	@Test
+	public void should_iterate_over_elements_present_when_iterator_was_created() {
+		MpscBoundedQueue<String> queue = new MpscBoundedQueue<>(4);
+		queue.offer("a");
+		queue.offer("b");
+		queue.offer("c");
+		queue.poll();
+
+		Iterator<String> iterator = queue.iterator();
+		queue.offer("d");
+
+		then(iterator.next()).isEqualTo("b");
+		then(iterator.next()).isEqualTo("c");
+		then(iterator.hasNext()).isFalse();
+		queue.poll();
+		then(queue.contains("b")).isFalse();
+		then(queue).containsExactly("c", "d");
+		then(queue.toString()).isEqualTo("[c, d]");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void should_not_support_removal_through_iterator() {
+		MpscBoundedQueue<String> queue = new MpscBoundedQueue<>(2);
+		queue.offer("a");
+		Iterator<String> iterator = queue.iterator();
+		iterator.next();
+
+		iterator.remove();
+	}
+
+	@Test
+	public void should_not_lose_elements_offered_by_many_producers() throws Exception {
+		final MpscBoundedQueue<Integer> queue = new MpscBoundedQueue<>(64);
+		int producers = 4;
+		final int perProducer = 10_000;
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		final CountDownLatch start = new CountDownLatch(1);
+		for (int p = 0; p < producers; p++) {
+			final int offset = p * perProducer;
+			executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < perProducer; i++) {
+					while (!queue.offer(offset + i)) {
+						Thread.yield();
+					}
+				}
+				return null;
+			});
+		}
+
+		start.countDown();
+		Set<Integer> polled = new HashSet<>();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (polled.size() < producers * perProducer && System.nanoTime() < deadline) {
+			Integer element = queue.poll();
+			if (element != null) {
+				polled.add(element);
+			}
+		}
+		executor.shutdownNow();
+
+		then(polled).hasSize(producers * perProducer);
+		then(queue.isEmpty()).isTrue();
+	}
+}
@@ -98,10 +98,37 @@ public class ServerPropertiesHostLocatorTests {
 		assertThat(locator.locate(this.span).getPort()).isEqualTo((short) 8080);
 	}
 
+	@Test
+	public void addressIsResolvedOnceWithinCacheTtl() throws UnknownHostException {
+		InetUtils inetUtils = localAddress(ADR1234);
+		ServerPropertiesHostLocator locator = new ServerPropertiesHostLocator(
+				new ServerProperties(), "unknown", new ZipkinProperties(), inetUtils);
+
+		locator.locate(this.span);
+		Host host = locator.locate(this.span);
+
+		Mockito.verify(inetUtils, Mockito.times(1)).findFirstNonLoopbackAddress();
+		assertThat(host.getPackedIpv4()).isEqualTo(1 << 24 | 2 << 16 | 3 << 8 | 4);
+	}
+
+	@Test
+	public void addressIsResolvedAgainWhenCacheTtlIsZero() throws UnknownHostException {
+		InetUtils inetUtils = localAddress(ADR1234);
+		ZipkinProperties zipkinProperties = new ZipkinProperties();
+		zipkinProperties.getLocator().setAddressCacheTtl(0);
+		ServerPropertiesHostLocator locator = new ServerPropertiesHostLocator(
+				new ServerProperties(), "unknown", zipkinProperties, inetUtils);
+
+		locator.locate(this.span);
+		locator.locate(this.span);
+
+		Mockito.verify(inetUtils, Mockito.times(2)).findFirstNonLoopbackAddress();
+	}
+
 	private InetUtils localAddress(byte[] address) throws UnknownHostException {
 		InetUtils mocked = Mockito.spy(new InetUtils(new InetUtilsProperties()));
-		Mockito.when(mocked.findFirstNonLoopbackAddress())
-				.thenReturn(InetAddress.getByAddress(address));
+		Mockito.doReturn(InetAddress.getByAddress(address))
+				.when(mocked).findFirstNonLoopbackAddress();
 		return mocked;
 	}
 }
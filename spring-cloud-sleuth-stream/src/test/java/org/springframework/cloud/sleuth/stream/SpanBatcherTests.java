@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.LinkedList;
+import java.util.Queue;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpanBatcherTests {
+
+	Queue<Span> queue = new LinkedList<>();
+
+	@Test
+	public void should_split_backlog_into_batches_of_max_spans() {
+		SpanBatcher batcher = new SpanBatcher(2, 0, 0);
+		addSpans(5, 1000L);
+
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(2);
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(2);
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(1);
+		then(batcher.nextBatch(this.queue, 1000L)).isNull();
+	}
+
+	@Test
+	public void should_split_backlog_into_batches_of_max_bytes() {
+		Span span = span(1000L);
+		int size = SpanBatcher.estimatedSize(span);
+		SpanBatcher batcher = new SpanBatcher(0, 2 * size + 1, 0);
+		addSpans(3, 1000L);
+
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(2);
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(1);
+	}
+
+	@Test
+	public void should_send_a_span_bigger_than_max_bytes_on_its_own() {
+		SpanBatcher batcher = new SpanBatcher(0, 1, 0);
+		addSpans(2, 1000L);
+
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(1);
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(1);
+		then(batcher.nextBatch(this.queue, 1000L)).isNull();
+	}
+
+	@Test
+	public void should_hold_incomplete_batch_until_oldest_span_reaches_max_age() {
+		SpanBatcher batcher = new SpanBatcher(10, 0, 100);
+		addSpans(1, 1000L);
+
+		then(batcher.nextBatch(this.queue, 1050L)).isNull();
+		then(batcher.pendingSpans()).isEqualTo(1);
+		addSpans(1, 1060L);
+		then(batcher.nextBatch(this.queue, 1099L)).isNull();
+		then(batcher.nextBatch(this.queue, 1100L)).hasSize(2);
+		then(batcher.pendingSpans()).isZero();
+	}
+
+	@Test
+	public void should_flush_incomplete_batch_regardless_of_max_age() {
+		SpanBatcher batcher = new SpanBatcher(2, 0, 100);
+		addSpans(1, 1000L);
+		then(batcher.nextBatch(this.queue, 1000L)).isNull();
+		addSpans(2, 1000L);
+
+		then(batcher.flush(this.queue)).hasSize(2);
+		then(batcher.flush(this.queue)).hasSize(1);
+		then(batcher.flush(this.queue)).isNull();
+	}
+
+	@Test
+	public void should_send_full_batch_before_max_age() {
+		SpanBatcher batcher = new SpanBatcher(2, 0, 100);
+		addSpans(2, 1000L);
+
+		then(batcher.nextBatch(this.queue, 1000L)).hasSize(2);
+	}
+
+	@Test
+	public void should_estimate_size_of_tags_and_logs() {
+		Span span = span(1000L);
+		int size = SpanBatcher.estimatedSize(span);
+
+		span.tag("http.url", "http://foo");
+		span.logEvent(Span.SERVER_RECV);
+
+		then(SpanBatcher.estimatedSize(span)).isEqualTo(size
+				+ SpanBatcher.TAG_OVERHEAD + "http.url".length() + "http://foo".length()
+				+ SpanBatcher.LOG_OVERHEAD + Span.SERVER_RECV.length());
+	}
+
+	void addSpans(int count, long end) {
+		for (int i = 0; i < count; i++) {
+			this.queue.add(span(end));
+		}
+	}
+
+	Span span(long end) {
+		return Span.builder().name("foo").traceId(1L).spanId(2L).begin(end - 10)
+				.end(end).build();
+	}
+}
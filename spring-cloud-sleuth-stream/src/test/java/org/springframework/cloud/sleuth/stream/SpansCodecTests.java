@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Log;
+import org.springframework.cloud.sleuth.Span;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpansCodecTests {
+
+	Host host = new Host("myservice", "1.2.3.4", 8080, 1 << 24 | 2 << 16 | 3 << 8 | 4);
+
+	@Test
+	public void should_decode_encoded_spans() {
+		Span parent = Span.builder().traceIdHigh(7L).traceId(-1L).spanId(-1L)
+				.name("http:/parent").begin(1_500_000_000_000L).end(1_500_000_000_012L)
+				.durationMicros(12_345L).processId("process").remote(true).exportable(false)
+				.tag("http.url", "http://localhost:8080/parent?héllo")
+				.log(new Log(1_500_000_000_000L, Span.SERVER_RECV))
+				.log(new Log(1_500_000_000_012L, Span.SERVER_SEND)).build();
+		Span child = Span.builder().traceIdHigh(7L).traceId(-1L).spanId(2L).parent(-1L)
+				.name("http:/child").begin(1_499_999_999_999L).end(1_500_000_000_001L)
+				.tag("http.url", "http://localhost:8080/child").build();
+		Span running = Span.builder().traceId(3L).spanId(3L).parent(1L).parent(2L)
+				.name("running").begin(1_500_000_000_100L).build();
+		Spans spans = new Spans(this.host, Arrays.asList(parent, child, running));
+
+		Spans decoded = SpansCodec.decode(SpansCodec.encode(spans));
+
+		then(decoded.getHost().getServiceName()).isEqualTo("myservice");
+		then(decoded.getHost().getAddress()).isEqualTo("1.2.3.4");
+		then(decoded.getHost().getPort()).isEqualTo(8080);
+		then(decoded.getHost().getPackedIpv4()).isEqualTo(this.host.getPackedIpv4());
+		then(decoded.getSpans()).hasSize(3);
+		for (int i = 0; i < 3; i++) {
+			thenSpansAreEqual(decoded.getSpans().get(i), spans.getSpans().get(i));
+		}
+	}
+
+	@Test
+	public void should_decode_host_without_port_and_packed_address() {
+		Spans spans = new Spans(new Host("myservice", "localhost", null),
+				Collections.singletonList(span("foo")));
+
+		Host host = SpansCodec.decode(SpansCodec.encode(spans)).getHost();
+
+		then(host.getServiceName()).isEqualTo("myservice");
+		then(host.getPort()).isNull();
+		then(host.getPackedIpv4()).isNull();
+	}
+
+	@Test
+	public void should_be_much_smaller_than_json() throws Exception {
+		List<Span> batch = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			Span span = span("http:/foo");
+			span.tag("http.method", "GET");
+			span.tag("http.status_code", "200");
+			span.logEvent(Span.SERVER_RECV);
+			span.logEvent(Span.SERVER_SEND);
+			batch.add(span);
+		}
+		Spans spans = new Spans(this.host, batch);
+
+		int binary = SpansCodec.encode(spans).length;
+		int json = new ObjectMapper().writeValueAsBytes(spans).length;
+
+		then(binary).isLessThan(json / 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void should_reject_unknown_version() {
+		SpansCodec.decode(new byte[] { 2, 0, 0, 0 });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void should_reject_truncated_message() {
+		byte[] encoded = SpansCodec.encode(new Spans(this.host,
+				Collections.singletonList(span("foo"))));
+
+		SpansCodec.decode(Arrays.copyOf(encoded, encoded.length - 3));
+	}
+
+	@Test
+	public void should_reject_string_count_bigger_than_message() {
+		thenThrownBy(() -> SpansCodec.decode(new byte[] { SpansCodec.VERSION,
+				(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 }))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("exceeds the remaining bytes");
+	}
+
+	@Test
+	public void should_reject_parents_count_bigger_than_message() {
+		byte[] message = new byte[4 + 1 + 16 + 5];
+		message[0] = SpansCodec.VERSION;
+		// no strings, no host, a single span
+		message[3] = 1;
+		// no flags, zero trace and span ids, then the parents count
+		message[4 + 1 + 16] = (byte) 0xFF;
+		message[4 + 1 + 16 + 1] = (byte) 0xFF;
+		message[4 + 1 + 16 + 2] = (byte) 0xFF;
+		message[4 + 1 + 16 + 3] = (byte) 0xFF;
+		message[4 + 1 + 16 + 4] = 0x07;
+
+		thenThrownBy(() -> SpansCodec.decode(message))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("exceeds the remaining bytes");
+	}
+
+	Span span(String name) {
+		Span span = Span.builder().name(name).traceId(1L).spanId(2L).processId("process")
+				.build();
+		span.stop();
+		return span;
+	}
+
+	void thenSpansAreEqual(Span actual, Span expected) {
+		then(actual).isEqualTo(expected);
+		then(actual.getTraceIdHigh()).isEqualTo(expected.getTraceIdHigh());
+		then(actual.getParents()).isEqualTo(expected.getParents());
+		then(actual.getName()).isEqualTo(expected.getName());
+		then(actual.getProcessId()).isEqualTo(expected.getProcessId());
+		then(actual.isRemote()).isEqualTo(expected.isRemote());
+		then(actual.isExportable()).isEqualTo(expected.isExportable());
+		then(actual.getBegin()).isEqualTo(expected.getBegin());
+		then(actual.getEnd()).isEqualTo(expected.getEnd());
+		if (expected.getEnd() > 0) {
+			then(actual.getAccumulatedMicros()).isEqualTo(expected.getAccumulatedMicros());
+		}
+		then(actual.tags()).isEqualTo(expected.tags());
+		then(actual.logs()).containsExactlyElementsOf(expected.logs());
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.cloud.commons.util.UtilAutoConfiguration;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.autoconfig.TraceAutoConfiguration;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.log.SpanLogger;
+import org.springframework.cloud.sleuth.metric.TraceMetricsAutoConfiguration;
+import org.springframework.cloud.stream.config.ChannelBindingAutoConfiguration;
+import org.springframework.cloud.stream.test.binder.MessageCollector;
+import org.springframework.cloud.stream.test.binder.MessageCollectorAutoConfiguration;
+import org.springframework.cloud.stream.test.binder.TestSupportBinderAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+@SpringBootTest(classes = SpansCompressionIntegrationTests.TestConfiguration.class,
+		webEnvironment = WebEnvironment.NONE,
+		properties = { "spring.sleuth.stream.content-type=" + SpansMessageConverter.CONTENT_TYPE,
+				"spring.sleuth.stream.compression.enabled=true",
+				"spring.sleuth.stream.compression.encoding=deflate",
+				"spring.sleuth.stream.compression.threshold=100" })
+@RunWith(SpringJUnit4ClassRunner.class)
+public class SpansCompressionIntegrationTests {
+
+	@Autowired SleuthSource source;
+	@Autowired MessageCollector messageCollector;
+
+	@Test
+	public void should_compress_messages_above_threshold() {
+		this.source.output().send(MessageBuilder.withPayload(spans(20)).build());
+
+		Message<?> message = this.messageCollector.forChannel(this.source.output()).poll();
+		then(message.getHeaders().get(SpansCompressor.CONTENT_ENCODING)).isEqualTo("deflate");
+		Message<?> decompressed = new DecompressingChannelInterceptor()
+				.preSend(message, this.source.output());
+		then(decompressed.getHeaders()).doesNotContainKey(SpansCompressor.CONTENT_ENCODING);
+		then(SpansCodec.decode((byte[]) decompressed.getPayload()).getSpans()).hasSize(20);
+	}
+
+	@Test
+	public void should_not_compress_messages_below_threshold() {
+		this.source.output().send(MessageBuilder.withPayload(spans(1)).build());
+
+		Message<?> message = this.messageCollector.forChannel(this.source.output()).poll();
+		then(message.getHeaders()).doesNotContainKey(SpansCompressor.CONTENT_ENCODING);
+		then(SpansCodec.decode((byte[]) message.getPayload()).getSpans()).hasSize(1);
+	}
+
+	private Spans spans(int count) {
+		return new Spans(new Host("myservice", "1.2.3.4", 8080), Collections.nCopies(count,
+				Span.builder().name("foo").traceId(1L).spanId(2L).begin(1L).end(2L)
+						.tag("http.url", "http://localhost:8080/foo").build()));
+	}
+
+	@Configuration
+	@Import({ SleuthStreamAutoConfiguration.class, TraceMetricsAutoConfiguration.class,
+			TestSupportBinderAutoConfiguration.class, MessageCollectorAutoConfiguration.class,
+			ChannelBindingAutoConfiguration.class,
+			TraceAutoConfiguration.class, PropertyPlaceholderAutoConfiguration.class,
+			UtilAutoConfiguration.class })
+	protected static class TestConfiguration {
+
+		@Bean
+		SpanLogger spanLogger() {
+			return new NoOpSpanLogger();
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpansCompressorTests {
+
+	byte[] payload = payload();
+
+	@Test
+	public void should_decompress_compressed_payload() {
+		for (SpansCompressor.Encoding encoding : SpansCompressor.Encoding.values()) {
+			SpansCompressor compressor = new SpansCompressor(encoding);
+
+			for (int i = 0; i < 3; i++) {
+				byte[] compressed = compressor.compress(this.payload);
+
+				then(compressed.length).isLessThan(this.payload.length / 4);
+				then(compressor.decompress(compressed)).isEqualTo(this.payload);
+			}
+		}
+	}
+
+	@Test
+	public void should_be_compatible_with_jdk_gzip_streams() throws IOException {
+		SpansCompressor compressor = new SpansCompressor(SpansCompressor.Encoding.GZIP);
+		ByteArrayOutputStream jdkCompressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(jdkCompressed)) {
+			out.write(this.payload);
+		}
+
+		then(compressor.decompress(jdkCompressed.toByteArray())).isEqualTo(this.payload);
+		then(StreamUtils.copyToByteArray(new GZIPInputStream(
+				new ByteArrayInputStream(compressor.compress(this.payload)))))
+				.isEqualTo(this.payload);
+	}
+
+	@Test
+	public void should_not_compress_when_payload_would_not_get_smaller() {
+		SpansCompressor compressor = new SpansCompressor(SpansCompressor.Encoding.DEFLATE);
+
+		then(compressor.compress(new byte[] { 1, 2, 3 })).isNull();
+		then(compressor.compress(new byte[0])).isNull();
+		then(new SpansCompressor(SpansCompressor.Encoding.GZIP).compress(new byte[10]))
+				.isNull();
+	}
+
+	@Test
+	public void should_throw_exception_on_truncated_payload() {
+		for (SpansCompressor.Encoding encoding : SpansCompressor.Encoding.values()) {
+			SpansCompressor compressor = new SpansCompressor(encoding);
+			byte[] compressed = compressor.compress(this.payload);
+
+			try {
+				compressor.decompress(Arrays.copyOf(compressed, compressed.length / 2));
+				fail("should throw exception");
+			}
+			catch (IllegalArgumentException e) {
+				then(e).hasMessageContaining(encoding.value());
+			}
+			then(compressor.decompress(compressed)).isEqualTo(this.payload);
+		}
+	}
+
+	@Test
+	public void should_reject_payload_inflating_beyond_max_size() {
+		for (SpansCompressor.Encoding encoding : SpansCompressor.Encoding.values()) {
+			byte[] compressed = new SpansCompressor(encoding).compress(this.payload);
+			SpansCompressor compressor = new SpansCompressor(encoding, 1,
+					SpansCompressor.DEFAULT_POOL_SIZE, this.payload.length - 1);
+
+			try {
+				compressor.decompress(compressed);
+				fail("should throw exception");
+			}
+			catch (IllegalArgumentException e) {
+				then(e).hasMessageContaining("exceeds the max size");
+			}
+			then(new SpansCompressor(encoding, 1, SpansCompressor.DEFAULT_POOL_SIZE,
+					this.payload.length).decompress(compressed)).isEqualTo(this.payload);
+		}
+	}
+
+	@Test
+	public void should_stop_inflating_gzip_payload_at_its_declared_size() {
+		SpansCompressor compressor = new SpansCompressor(SpansCompressor.Encoding.GZIP);
+		byte[] compressed = compressor.compress(this.payload);
+		// ISIZE, the last 4 bytes in little endian order
+		compressed[compressed.length - 4] = 10;
+		compressed[compressed.length - 3] = 0;
+		compressed[compressed.length - 2] = 0;
+		compressed[compressed.length - 1] = 0;
+
+		try {
+			compressor.decompress(compressed);
+			fail("should throw exception");
+		}
+		catch (IllegalArgumentException e) {
+			then(e).hasMessageContaining("Corrupted gzip payload");
+		}
+	}
+
+	@Test
+	public void should_resolve_encoding_from_header_value() {
+		then(SpansCompressor.Encoding.fromValue("GZIP"))
+				.isEqualTo(SpansCompressor.Encoding.GZIP);
+		then(SpansCompressor.Encoding.fromValue("deflate"))
+				.isEqualTo(SpansCompressor.Encoding.DEFLATE);
+		then(SpansCompressor.Encoding.fromValue("br")).isNull();
+	}
+
+	private static byte[] payload() {
+		StringBuilder json = new StringBuilder("{\"spans\":[");
+		for (int i = 0; i < 100; i++) {
+			json.append("{\"name\":\"http:/foo\",\"traceId\":").append(i)
+					.append(",\"tags\":{\"http.url\":\"http://localhost:8080/foo\"}},");
+		}
+		return json.append("]}").toString().getBytes();
+	}
+}
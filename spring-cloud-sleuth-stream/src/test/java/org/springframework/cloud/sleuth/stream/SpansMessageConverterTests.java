@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpansMessageConverterTests {
+
+	SpansMessageConverter converter = new SpansMessageConverter();
+	Spans spans = new Spans(new Host("myservice", "1.2.3.4", 8080),
+			Collections.singletonList(Span.builder().name("foo").traceId(1L).spanId(2L)
+					.begin(1L).end(2L).build()));
+
+	@Test
+	public void should_encode_outbound_spans_and_decode_inbound_bytes() {
+		Message<Spans> outbound = MessageBuilder.withPayload(this.spans)
+				.setHeader(MessageHeaders.CONTENT_TYPE, SpansMessageConverter.CONTENT_TYPE)
+				.build();
+
+		Object bytes = this.converter.fromMessage(outbound, byte[].class);
+		Message<?> inbound = MessageBuilder.withPayload(bytes)
+				.setHeader(MessageHeaders.CONTENT_TYPE, SpansMessageConverter.CONTENT_TYPE)
+				.build();
+		Object decoded = this.converter.fromMessage(inbound, Spans.class);
+
+		then(bytes).isInstanceOf(byte[].class);
+		then(decoded).isInstanceOf(Spans.class);
+		then(((Spans) decoded).getSpans()).extracting(Span::getName).containsExactly("foo");
+	}
+
+	@Test
+	public void should_not_convert_messages_of_other_content_type() {
+		Message<byte[]> json = MessageBuilder.withPayload("{}".getBytes())
+				.setHeader(MessageHeaders.CONTENT_TYPE, "application/json").build();
+		Message<byte[]> noContentType = MessageBuilder.withPayload("{}".getBytes()).build();
+
+		then(this.converter.fromMessage(json, Spans.class)).isNull();
+		then(this.converter.fromMessage(noContentType, Spans.class)).isNull();
+	}
+}
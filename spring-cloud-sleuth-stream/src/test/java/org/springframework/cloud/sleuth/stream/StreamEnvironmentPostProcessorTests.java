@@ -76,6 +76,30 @@ public class StreamEnvironmentPostProcessorTests {
 						.hasSize(StreamEnvironmentPostProcessor.HEADERS.length);
 	}
 
+	@Test
+	public void should_configure_partition_key_of_output_when_partitioning() {
+		EnvironmentTestUtils.addEnvironment(this.environment,
+				"spring.sleuth.stream.partition-count=4");
+
+		postProcess();
+
+		assertThat(this.environment.getProperty(
+				"spring.cloud.stream.bindings.sleuth.producer.partition-key-expression"))
+				.isEqualTo("headers['" + TraceIdPartitioner.PARTITION_KEY_HEADER + "']");
+		assertThat(this.environment.getProperty(
+				"spring.cloud.stream.bindings.sleuth.producer.partition-count"))
+				.isEqualTo("4");
+	}
+
+	@Test
+	public void should_not_configure_partitioning_by_default() {
+		postProcess();
+
+		assertThat(this.environment.getProperty(
+				"spring.cloud.stream.bindings.sleuth.producer.partition-key-expression"))
+				.isNull();
+	}
+
 	private void postProcess() {
 		this.processor.postProcessEnvironment(this.environment,
 				new SpringApplication(StreamEnvironmentPostProcessorTests.class));
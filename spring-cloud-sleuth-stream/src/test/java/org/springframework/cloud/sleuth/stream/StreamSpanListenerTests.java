@@ -16,7 +16,6 @@
 
 package org.springframework.cloud.sleuth.stream;
 
-import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import javax.annotation.PostConstruct;
@@ -173,9 +172,12 @@ public class StreamSpanListenerTests {
 		private BlockingQueue<Span> copyOfSpans = new LinkedBlockingQueue<>();
 
 		private BlockingQueue<Span> spans = new LinkedBlockingQueue<Span>() {
-			@Override public int drainTo(Collection<? super Span> c) {
-				ZipkinTestConfiguration.this.copyOfSpans.addAll(this);
-				return super.drainTo(c);
+			@Override public Span poll() {
+				Span span = super.poll();
+				if (span != null) {
+					ZipkinTestConfiguration.this.copyOfSpans.add(span);
+				}
+				return span;
 			}
 		};
 
@@ -21,11 +21,14 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.SpanAdjuster;
-import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
 import org.springframework.mock.env.MockEnvironment;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -39,7 +42,7 @@ import static org.mockito.BDDMockito.then;
 public class StreamSpanReporterTests {
 
 	HostLocator endpointLocator = Mockito.mock(HostLocator.class);
-	SpanMetricReporter spanMetricReporter = Mockito.mock(SpanMetricReporter.class);
+	NoOpSpanMetricReporter spanMetricReporter = Mockito.mock(NoOpSpanMetricReporter.class);
 	MockEnvironment mockEnvironment = new MockEnvironment();
 	StreamSpanReporter reporter;
 
@@ -116,4 +119,74 @@ public class StreamSpanReporterTests {
 				.isNotEmpty();
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void should_drop_spans_without_exceptions_when_bounded_queue_is_full() throws Exception {
+		this.reporter.setQueueSize(2);
+
+		for (int i = 0; i < 3; i++) {
+			this.reporter.report(Span.builder().name("bar").exportable(true).build());
+		}
+
+		then(this.spanMetricReporter).should().incrementDroppedSpans(1);
+		assertThat(this.reporter.poll().getSpans()).hasSize(2);
+		assertThat(this.reporter.poll()).isNull();
+	}
+
+	@Test
+	public void should_not_report_spans_of_sending_spans() throws Exception {
+		this.reporter.report(Span.builder().name(StreamSpanReporter.SELF_SPAN_NAME)
+				.exportable(true).build());
+		this.reporter.report(Span.builder().name("bar").exportable(true).build());
+
+		Spans spans = this.reporter.poll();
+
+		assertThat(spans.getSpans()).extracting(Span::getName).containsExactly("bar");
+	}
+
+
+	@Test
+	public void should_send_a_message_per_partition_of_a_batch() throws Exception {
+		this.reporter.setPartitionCount(4);
+		for (long i = 0; i < 40; i++) {
+			this.reporter.report(Span.builder().name("foo").traceId(i % 8).spanId(i)
+					.exportable(true).build());
+		}
+
+		List<Spans> messages = new ArrayList<>();
+		for (Spans spans = this.reporter.poll(); spans != null; spans = this.reporter.poll()) {
+			messages.add(spans);
+		}
+
+		assertThat(messages).hasSize(4);
+		int total = 0;
+		for (Spans spans : messages) {
+			int partition = TraceIdPartitioner.partition(spans.getSpans().get(0), 4);
+			assertThat(spans.getSpans()).allMatch(
+					span -> TraceIdPartitioner.partition(span, 4) == partition);
+			total += spans.getSpans().size();
+		}
+		assertThat(total).isEqualTo(40);
+		then(this.spanMetricReporter).should(Mockito.times(4)).recordMessageSpans(Mockito.anyInt());
+	}
+
+	@Test
+	public void should_send_pending_spans_to_the_output_when_stopped() throws Exception {
+		QueueChannel output = new QueueChannel();
+		this.reporter.setOutput(output);
+		this.reporter.setBatchLimits(2, 0, 60_000);
+		for (long i = 0; i < 3; i++) {
+			this.reporter.report(Span.builder().name("foo").traceId(i).spanId(i)
+					.begin(System.currentTimeMillis()).end(System.currentTimeMillis())
+					.exportable(true).build());
+		}
+		assertThat(this.reporter.poll()).isNotNull();
+		assertThat(this.reporter.poll()).isNull();
+
+		this.reporter.stop();
+
+		Message<?> message = output.receive(0);
+		assertThat(message).isNotNull();
+		assertThat(((Spans) message.getPayload()).getSpans()).hasSize(1);
+		assertThat(output.receive(0)).isNull();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class TraceIdPartitionerTests {
+
+	Host host = new Host("myservice", "1.2.3.4", 8080);
+
+	@Test
+	public void should_put_spans_of_a_trace_in_the_same_partition() {
+		Span span = Span.builder().traceIdHigh(5L).traceId(7L).spanId(1L).build();
+		Span child = Span.builder().traceIdHigh(5L).traceId(7L).spanId(2L).parent(1L).build();
+
+		then(TraceIdPartitioner.partition(child, 8))
+				.isEqualTo(TraceIdPartitioner.partition(span, 8));
+	}
+
+	@Test
+	public void should_spread_sequential_trace_ids_over_all_partitions() {
+		int[] counts = new int[4];
+		for (long traceId = 0; traceId < 10_000; traceId++) {
+			int partition = TraceIdPartitioner.partition(
+					Span.builder().traceId(traceId << 16).build(), counts.length);
+			counts[partition]++;
+		}
+
+		for (int count : counts) {
+			then(count).isBetween(2_000, 3_000);
+		}
+	}
+
+	@Test
+	public void should_split_spans_by_partition_keeping_their_order() {
+		List<Span> spans = new ArrayList<>();
+		for (long i = 0; i < 100; i++) {
+			spans.add(Span.builder().traceId(i % 10).spanId(i).build());
+		}
+
+		List<Spans> partitions = TraceIdPartitioner.split(this.host, spans, 3);
+
+		then(partitions).hasSize(3);
+		List<Span> all = new ArrayList<>();
+		for (Spans partition : partitions) {
+			then(partition.getHost()).isSameAs(this.host);
+			int expected = TraceIdPartitioner.partition(partition.getSpans().get(0), 3);
+			for (Span span : partition.getSpans()) {
+				then(TraceIdPartitioner.partition(span, 3)).isEqualTo(expected);
+				then(all).doesNotContain(span);
+			}
+			then(partition.getSpans()).isSortedAccordingTo(
+					(a, b) -> Long.compare(a.getSpanId(), b.getSpanId()));
+			all.addAll(partition.getSpans());
+		}
+		then(all).hasSameSizeAs(spans);
+	}
+
+	@Test
+	public void should_set_partition_key_header_on_spans_messages() {
+		Span span = Span.builder().traceId(7L).spanId(1L).build();
+		Message<Spans> message = MessageBuilder
+				.withPayload(new Spans(this.host, Arrays.asList(span))).build();
+
+		Message<?> partitioned = new PartitionKeyChannelInterceptor(4).preSend(message, null);
+		Message<?> notPartitioned = new PartitionKeyChannelInterceptor(1).preSend(message, null);
+
+		then(partitioned.getHeaders().get(TraceIdPartitioner.PARTITION_KEY_HEADER))
+				.isEqualTo(TraceIdPartitioner.partition(span, 4));
+		then(notPartitioned).isSameAs(message);
+	}
+}
@@ -20,6 +20,10 @@ import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.stream.Host;
 import org.springframework.cloud.sleuth.stream.SleuthSink;
 import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.stream.SpansCodec;
+import org.springframework.cloud.sleuth.stream.SpansMessageConverter;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.util.StringUtils;
 import zipkin.BinaryAnnotation;
 import zipkin.Constants;
@@ -46,10 +50,11 @@ final class ConvertToZipkinSpanList {
 
 	static List<zipkin.Span> convert(Spans input) {
 		Host host = input.getHost();
+		Endpoint ep = endpoint(host);
 		List<zipkin.Span> result = new ArrayList<>(input.getSpans().size());
 		for (Span span : input.getSpans()) {
 			if (!span.getName().equals("message:" + SleuthSink.INPUT)) {
-				result.add(convert(span, host));
+				result.add(convert(span, ep));
 			}
 			else {
 				log.warn("Message tracing cycle detected for: " + input);
@@ -58,6 +63,35 @@ final class ConvertToZipkinSpanList {
 		return result;
 	}
 
+	/**
+	 * Converts an encoded message. JSON is decoded straight into Zipkin spans via
+	 * {@link SpansJsonDecoder}, the {@link SpansMessageConverter#CONTENT_TYPE binary
+	 * format} via {@link SpansCodec}.
+	 *
+	 * @param contentType content type of the message, JSON if {@code null}
+	 * @throws IllegalArgumentException if the payload can't be decoded or the content
+	 * type is not supported
+	 * @see #supports(MimeType)
+	 */
+	static List<zipkin.Span> convert(byte[] payload, MimeType contentType) {
+		if (contentType == null || MimeTypeUtils.APPLICATION_JSON.includes(contentType)) {
+			return SpansJsonDecoder.decode(payload);
+		}
+		if (SpansMessageConverter.MIME_TYPE.includes(contentType)) {
+			return convert(SpansCodec.decode(payload));
+		}
+		throw new IllegalArgumentException("Unsupported content type [" + contentType + "]");
+	}
+
+	/**
+	 * @return whether an encoded message of the given content type can be converted
+	 * via {@link #convert(byte[], MimeType)}
+	 */
+	static boolean supports(MimeType contentType) {
+		return contentType == null || MimeTypeUtils.APPLICATION_JSON.includes(contentType)
+				|| SpansMessageConverter.MIME_TYPE.includes(contentType);
+	}
+
 	/**
 	 * Converts a given Sleuth span to a Zipkin Span.
 	 * <ul>
@@ -73,14 +107,13 @@ final class ConvertToZipkinSpanList {
 	 */
 	// VisibleForTesting
 	static zipkin.Span convert(Span span, Host host) {
+		return convert(span, endpoint(host));
+	}
+
+	private static zipkin.Span convert(Span span, Endpoint ep) {
 		//TODO: Consider adding support for the debug flag (related to #496)
 		Builder zipkinSpan = zipkin.Span.builder();
 
-		Endpoint ep = Endpoint.builder()
-				.serviceName(host.getServiceName())
-				.ipv4(host.getIpv4())
-				.port(host.getPort() != null ? host.getPort() : 0).build();
-
 		// A zipkin span without any annotations cannot be queried, add special "lc" to
 		// avoid that.
 		if (notClientOrServer(span)) {
@@ -120,6 +153,17 @@ final class ConvertToZipkinSpanList {
 		return zipkinSpan.build();
 	}
 
+	/**
+	 * The endpoint is the same for all spans in the batch. The address is taken from
+	 * the pre-packed value if present, otherwise it's resolved via a cache
+	 */
+	static Endpoint endpoint(Host host) {
+		return Endpoint.builder()
+				.serviceName(host.getServiceName())
+				.ipv4(host.getIpv4())
+				.port(host.getPort() != null ? host.getPort() : 0).build();
+	}
+
 	private static void ensureLocalComponent(Span span, Builder zipkinSpan, Endpoint ep) {
 		if (span.tags().containsKey(Constants.LOCAL_COMPONENT)) {
 			return;
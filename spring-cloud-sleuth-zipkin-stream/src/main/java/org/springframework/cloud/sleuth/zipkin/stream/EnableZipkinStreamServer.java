@@ -19,7 +19,10 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.stream.DecompressingChannelInterceptor;
 import org.springframework.cloud.sleuth.stream.SleuthSink;
+import org.springframework.cloud.sleuth.stream.SpansMessageConverter;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.context.annotation.Import;
 
@@ -39,7 +42,9 @@ import zipkin.server.EnableZipkinServer;
 @Documented
 @EnableBinding(SleuthSink.class)
 @EnableZipkinServer
-@Import(ZipkinMessageListener.class)
+@EnableConfigurationProperties(ZipkinStreamIngestionProperties.class)
+@Import({ ZipkinMessageListener.class, SpansMessageConverter.class,
+		DecompressingChannelInterceptor.class, ZipkinStreamRateLimitConfiguration.class })
 public @interface EnableZipkinStreamServer {
 
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import zipkin.Annotation;
+import zipkin.BinaryAnnotation;
+import zipkin.Endpoint;
+
+/**
+ * Limits the number of stored spans per service with a token bucket per service. The
+ * decision is taken once per trace id, for all services: when the first span of a
+ * trace arrives, the trace is admitted if the service of that span has a token left.
+ * All other spans of an admitted trace are stored, whatever their service, and take a
+ * token from the bucket of their service even if that puts it in debt (of at most the
+ * burst, so that the bucket recovers in a bounded time). The spans of a rejected trace
+ * are throttled even if the buckets got refilled. That way the stored traces stay
+ * complete.
+ *
+ * The decisions of the most recent traces are remembered in stripes selected by the
+ * trace id, each guarded by a lock of its own, so that the workers converting
+ * messages rarely wait for each other. Each stripe evicts its least recently used
+ * decision once it holds its share of {@code maxTraces}.
+ *
+ * The service of a span is the one of the endpoint of its annotations. The number of
+ * services with a limit of their own is capped, spans of other services are limited
+ * together under the {@link #OTHER_SERVICE} name.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class ServiceRateLimiter {
+
+	/**
+	 * Name under which services over the cap or spans without an endpoint are limited
+	 */
+	public static final String OTHER_SERVICE = "other";
+
+	private static final int DECISION_STRIPES = 64;
+
+	private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+	private final Decisions[] decisions;
+	private final AtomicInteger services = new AtomicInteger();
+	private final ZipkinStreamRateLimitProperties properties;
+	private final Map<String, ZipkinStreamRateLimitProperties.Limit> overrides;
+	private final Bucket other;
+
+	public ServiceRateLimiter(ZipkinStreamRateLimitProperties properties) {
+		this.properties = properties;
+		this.decisions = new Decisions[DECISION_STRIPES];
+		int maxTracesPerStripe = Math.max(1,
+				(properties.getMaxTraces() + DECISION_STRIPES - 1) / DECISION_STRIPES);
+		for (int i = 0; i < DECISION_STRIPES; i++) {
+			this.decisions[i] = new Decisions(maxTracesPerStripe);
+		}
+		this.overrides = new LinkedHashMap<>();
+		for (Map.Entry<String, ZipkinStreamRateLimitProperties.Limit> entry : properties
+				.getServices().entrySet()) {
+			this.overrides.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+		}
+		this.other = newBucket(OTHER_SERVICE, System.nanoTime());
+	}
+
+	/**
+	 * @return the spans that are within the limits of their services
+	 */
+	public List<zipkin.Span> limit(List<zipkin.Span> spans) {
+		return limit(spans, System.nanoTime());
+	}
+
+	List<zipkin.Span> limit(List<zipkin.Span> spans, long nanoTime) {
+		List<zipkin.Span> accepted = new ArrayList<>(spans.size());
+		Bucket bucket = null;
+		for (zipkin.Span span : spans) {
+			String serviceName = serviceName(span);
+			// spans of a message usually come from the same service
+			if (bucket == null || !bucket.serviceName.equals(serviceName)) {
+				bucket = bucket(serviceName, nanoTime);
+			}
+			if (bucket.record(admitted(span.traceId, bucket, nanoTime), nanoTime)) {
+				accepted.add(span);
+			}
+		}
+		return accepted;
+	}
+
+	/**
+	 * @return the accepted and throttled spans of all services seen so far
+	 */
+	public List<Snapshot> snapshot() {
+		List<Snapshot> snapshots = new ArrayList<>();
+		for (Bucket bucket : this.buckets.values()) {
+			snapshots.add(bucket.snapshot());
+		}
+		if (this.other.accepted.get() > 0 || this.other.throttled.get() > 0) {
+			snapshots.add(this.other.snapshot());
+		}
+		return snapshots;
+	}
+
+	private boolean admitted(long traceId, Bucket bucket, long nanoTime) {
+		Decisions decisions = this.decisions[stripe(traceId)];
+		synchronized (decisions) {
+			Boolean admitted = decisions.get(traceId);
+			if (admitted == null) {
+				admitted = bucket.hasToken(nanoTime);
+				decisions.put(traceId, admitted);
+			}
+			return admitted;
+		}
+	}
+
+	private static int stripe(long traceId) {
+		int hash = (int) (traceId ^ (traceId >>> 32));
+		return (hash ^ (hash >>> 16)) & (DECISION_STRIPES - 1);
+	}
+
+	private Bucket bucket(String serviceName, long nanoTime) {
+		if (serviceName == null) {
+			return this.other;
+		}
+		Bucket bucket = this.buckets.get(serviceName);
+		if (bucket != null) {
+			return bucket;
+		}
+		if (this.services.get() >= this.properties.getMaxServices()) {
+			return this.other;
+		}
+		bucket = newBucket(serviceName, nanoTime);
+		Bucket existing = this.buckets.putIfAbsent(serviceName, bucket);
+		if (existing != null) {
+			return existing;
+		}
+		this.services.incrementAndGet();
+		return bucket;
+	}
+
+	private Bucket newBucket(String serviceName, long nanoTime) {
+		long spansPerSecond = this.properties.getSpansPerSecond();
+		long burst = this.properties.getBurst();
+		ZipkinStreamRateLimitProperties.Limit limit = this.overrides.get(serviceName);
+		if (limit != null) {
+			spansPerSecond = limit.getSpansPerSecond() != null ? limit.getSpansPerSecond()
+					: spansPerSecond;
+			burst = limit.getBurst() != null ? limit.getBurst() : burst;
+		}
+		return new Bucket(serviceName, spansPerSecond, Math.max(1, burst), nanoTime);
+	}
+
+	/**
+	 * The endpoint of the annotations, skipping address annotations as they point to
+	 * the remote side
+	 */
+	static String serviceName(zipkin.Span span) {
+		for (Annotation annotation : span.annotations) {
+			if (annotation.endpoint != null) {
+				return serviceName(annotation.endpoint);
+			}
+		}
+		for (BinaryAnnotation annotation : span.binaryAnnotations) {
+			if (annotation.endpoint != null
+					&& annotation.type != BinaryAnnotation.Type.BOOL) {
+				return serviceName(annotation.endpoint);
+			}
+		}
+		return null;
+	}
+
+	private static String serviceName(Endpoint endpoint) {
+		return endpoint.serviceName.isEmpty() ? null : endpoint.serviceName;
+	}
+
+	/**
+	 * Accepted and throttled spans of a single service
+	 */
+	public static final class Snapshot {
+		public final String serviceName;
+		public final long accepted;
+		public final long throttled;
+
+		Snapshot(String serviceName, long accepted, long throttled) {
+			this.serviceName = serviceName;
+			this.accepted = accepted;
+			this.throttled = throttled;
+		}
+	}
+
+	/**
+	 * Decisions of a stripe of the trace ids, least recently used first
+	 */
+	private static final class Decisions extends LinkedHashMap<Long, Boolean> {
+		private final int maxTraces;
+
+		Decisions(int maxTraces) {
+			super(16, 0.75f, true);
+			this.maxTraces = maxTraces;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+			return size() > this.maxTraces;
+		}
+	}
+
+	private static final class Bucket {
+		final String serviceName;
+		final double tokensPerNano;
+		final long burst;
+		final AtomicLong accepted = new AtomicLong();
+		final AtomicLong throttled = new AtomicLong();
+		private double tokens; // guarded by this
+		private long refilledAt; // guarded by this
+
+		Bucket(String serviceName, long spansPerSecond, long burst, long nanoTime) {
+			this.serviceName = serviceName;
+			this.tokensPerNano = spansPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+			this.burst = burst;
+			this.tokens = burst;
+			this.refilledAt = nanoTime;
+		}
+
+		synchronized boolean hasToken(long nanoTime) {
+			refill(nanoTime);
+			return this.tokens >= 1;
+		}
+
+		/**
+		 * Takes a token for a span of an admitted trace
+		 *
+		 * @return whether the trace of the span was admitted
+		 */
+		boolean record(boolean admitted, long nanoTime) {
+			if (admitted) {
+				synchronized (this) {
+					refill(nanoTime);
+					this.tokens = Math.max(-this.burst, this.tokens - 1);
+				}
+			}
+			(admitted ? this.accepted : this.throttled).incrementAndGet();
+			return admitted;
+		}
+
+		private void refill(long nanoTime) {
+			long elapsed = nanoTime - this.refilledAt;
+			if (elapsed > 0) {
+				this.tokens = Math.min(this.burst, this.tokens + elapsed * this.tokensPerNano);
+				this.refilledAt = nanoTime;
+			}
+		}
+
+		Snapshot snapshot() {
+			return new Snapshot(this.serviceName, this.accepted.get(), this.throttled.get());
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * {@link PublicMetrics} exposing {@link ServiceRateLimiter}. For each service the
+ * following metrics are published:
+ *
+ * <ul>
+ *     <li>{@code zipkin.stream.rate-limit.<service>.accepted} - number of spans within
+ *     the limit</li>
+ *     <li>{@code zipkin.stream.rate-limit.<service>.throttled} - number of spans that
+ *     weren't stored</li>
+ * </ul>
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class ServiceRateLimiterPublicMetrics implements PublicMetrics {
+
+	private static final String PREFIX = "zipkin.stream.rate-limit.";
+
+	private final ServiceRateLimiter rateLimiter;
+
+	public ServiceRateLimiterPublicMetrics(ServiceRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		List<Metric<?>> metrics = new ArrayList<>();
+		for (ServiceRateLimiter.Snapshot snapshot : this.rateLimiter.snapshot()) {
+			String prefix = PREFIX + sanitize(snapshot.serviceName) + ".";
+			metrics.add(new Metric<>(prefix + "accepted", snapshot.accepted));
+			metrics.add(new Metric<>(prefix + "throttled", snapshot.throttled));
+		}
+		return metrics;
+	}
+
+	/** Dots would create additional levels of the metric name */
+	private static String sanitize(String name) {
+		StringBuilder builder = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			builder.append(c == '.' || Character.isWhitespace(c) ? '_' : c);
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanTransportMetricReporter;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.util.MimeType;
+
+import zipkin.collector.CollectorMetrics;
+import zipkin.collector.CollectorSampler;
+import zipkin.storage.Callback;
+import zipkin.storage.StorageComponent;
+
+/**
+ * Converts received messages on a worker pool and stores their spans in batches, as
+ * soon as {@code maxBatchSpans} got converted or {@code maxBatchDelay} after the first
+ * one of a batch got converted. Both the messages waiting for conversion and the batches
+ * being stored are bounded. When the storage can't keep up the workers block, the
+ * queue fills up and finally {@link #accept(Spans)} blocks the receiving thread, so
+ * that the binder stops consuming.
+ *
+ * If a {@link ServiceRateLimiter} is given, the spans over the limits of their
+ * services are discarded right after conversion and counted as dropped.
+ *
+ * Reports the stored spans as accepted, which gives the throughput, and the spans
+ * received but not stored yet as queued, which gives the lag of the collector. The
+ * spans sampled out by the {@link CollectorSampler} are only counted as dropped by the
+ * {@link CollectorMetrics}.
+ *
+ * The delivery is at most once: a message is acknowledged to the binder as soon as it
+ * got handed over to the workers, so the spans waiting for conversion or storage are
+ * lost if the collector dies. {@link #close()} waits for them on a regular shutdown,
+ * after which received messages are counted as dropped.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+class SpanIngestionPipeline {
+
+	private static final org.apache.commons.logging.Log log = org.apache.commons.logging.LogFactory
+			.getLog(SpanIngestionPipeline.class);
+
+	private final StorageComponent storage;
+	private final CollectorSampler sampler;
+	private final CollectorMetrics metrics;
+	private final SpanMetricReporter spanMetricReporter;
+	private final SpanTransportMetricReporter transportMetricReporter;
+	private final ServiceRateLimiter rateLimiter; // Nullable
+	private final int maxBatchSpans;
+	private final long maxBatchDelayNanos;
+	private final int maxInFlightBatches;
+	private final ScheduledThreadPoolExecutor executor;
+	private final Semaphore queuedMessages;
+	private final Semaphore inFlightBatches;
+	private final AtomicLong queuedSpans = new AtomicLong();
+
+	private final Object lock = new Object();
+	private List<zipkin.Span> batch = new ArrayList<>(); // guarded by lock
+	private long batchStartNanos; // guarded by lock
+
+	SpanIngestionPipeline(StorageComponent storage, CollectorSampler sampler,
+			CollectorMetrics metrics, SpanMetricReporter spanMetricReporter,
+			ServiceRateLimiter rateLimiter, ZipkinStreamIngestionProperties properties) {
+		this.storage = storage;
+		this.sampler = sampler;
+		this.metrics = metrics;
+		this.spanMetricReporter = spanMetricReporter;
+		this.transportMetricReporter = spanMetricReporter instanceof SpanTransportMetricReporter ?
+				(SpanTransportMetricReporter) spanMetricReporter : new NoOpSpanMetricReporter();
+		this.rateLimiter = rateLimiter;
+		this.maxBatchSpans = Math.max(1, properties.getMaxBatchSpans());
+		this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxBatchDelay());
+		this.queuedMessages = new Semaphore(Math.max(1, properties.getQueueSize()));
+		this.maxInFlightBatches = Math.max(1, properties.getMaxInFlightBatches());
+		this.inFlightBatches = new Semaphore(this.maxInFlightBatches);
+		this.executor = new ScheduledThreadPoolExecutor(Math.max(1, properties.getThreads()),
+				new IngestionThreadFactory());
+		this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		if (properties.getMaxBatchDelay() > 0) {
+			this.executor.scheduleWithFixedDelay(new Runnable() {
+				@Override public void run() {
+					flush(false);
+				}
+			}, properties.getMaxBatchDelay(), properties.getMaxBatchDelay(),
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Hands the message over to the workers. Blocks while the queue of messages
+	 * waiting for conversion is full. Once closed, the spans are counted as dropped.
+	 */
+	void accept(final Spans input) {
+		final int size = input.getSpans().size();
+		this.transportMetricReporter.recordMessageSpans(size);
+		try {
+			this.queuedMessages.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.spanMetricReporter.incrementDroppedSpans(size);
+			return;
+		}
+		updateQueuedSpans(size);
+		try {
+			this.executor.execute(new Runnable() {
+				@Override public void run() {
+					try {
+						convert(input, size);
+					}
+					finally {
+						SpanIngestionPipeline.this.queuedMessages.release();
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			this.queuedMessages.release();
+			updateQueuedSpans(-size);
+			rejected(size);
+		}
+	}
+
+	/**
+	 * Hands the encoded message over to the workers, which decode it via
+	 * {@link ConvertToZipkinSpanList#convert(byte[], MimeType)}. The spans of the
+	 * message are counted once decoded. Blocks while the queue of messages waiting for
+	 * conversion is full. Once closed, the message is counted as dropped without being
+	 * decoded.
+	 */
+	void accept(final byte[] payload, final MimeType contentType) {
+		try {
+			this.queuedMessages.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.metrics.incrementMessagesDropped();
+			return;
+		}
+		try {
+			this.executor.execute(new Runnable() {
+				@Override public void run() {
+					try {
+						decode(payload, contentType);
+					}
+					finally {
+						SpanIngestionPipeline.this.queuedMessages.release();
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			this.queuedMessages.release();
+			this.metrics.incrementMessagesDropped();
+			if (log.isDebugEnabled()) {
+				log.debug("A message of " + payload.length
+						+ " bytes will not be stored since the ingestion is closed");
+			}
+		}
+	}
+
+	/**
+	 * Stops the workers, stores what has been converted so far and waits until the
+	 * storage completes all in-flight batches
+	 */
+	void close() {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		this.executor.shutdown();
+		try {
+			if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+				log.warn("Timed out waiting for the spans to be converted");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush(true);
+		try {
+			if (this.inFlightBatches.tryAcquire(this.maxInFlightBatches,
+					Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+				this.inFlightBatches.release(this.maxInFlightBatches);
+			}
+			else {
+				log.warn("Timed out waiting for the spans to be stored");
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void rejected(int size) {
+		this.spanMetricReporter.incrementDroppedSpans(size);
+		if (log.isDebugEnabled()) {
+			log.debug(size + " spans will not be stored since the ingestion is closed");
+		}
+	}
+
+	private void convert(Spans input, int size) {
+		long start = System.nanoTime();
+		List<zipkin.Span> converted;
+		try {
+			converted = ConvertToZipkinSpanList.convert(input);
+		}
+		catch (RuntimeException e) {
+			updateQueuedSpans(-size);
+			this.spanMetricReporter.incrementDroppedSpans(size);
+			this.transportMetricReporter.incrementSendFailures(e);
+			return;
+		}
+		long convertedAt = System.nanoTime();
+		this.transportMetricReporter.recordEncodeTime(convertedAt - start);
+		if (converted.size() != size) {
+			updateQueuedSpans(converted.size() - size);
+		}
+		add(converted, convertedAt);
+	}
+
+	private void decode(byte[] payload, MimeType contentType) {
+		long start = System.nanoTime();
+		List<zipkin.Span> converted;
+		try {
+			converted = ConvertToZipkinSpanList.convert(payload, contentType);
+		}
+		catch (RuntimeException e) {
+			this.metrics.incrementMessagesDropped();
+			this.transportMetricReporter.incrementSendFailures(e);
+			return;
+		}
+		long convertedAt = System.nanoTime();
+		this.transportMetricReporter.recordEncodeTime(convertedAt - start);
+		this.transportMetricReporter.recordMessageSpans(converted.size());
+		updateQueuedSpans(converted.size());
+		add(converted, convertedAt);
+	}
+
+	private void add(List<zipkin.Span> converted, long convertedAt) {
+		if (this.rateLimiter != null) {
+			int size = converted.size();
+			converted = this.rateLimiter.limit(converted);
+			if (converted.size() != size) {
+				updateQueuedSpans(converted.size() - size);
+				this.spanMetricReporter.incrementDroppedSpans(size - converted.size());
+			}
+		}
+		List<zipkin.Span> complete = null;
+		synchronized (this.lock) {
+			if (this.batch.isEmpty()) {
+				this.batchStartNanos = convertedAt;
+			}
+			this.batch.addAll(converted);
+			if (this.batch.size() >= this.maxBatchSpans || this.maxBatchDelayNanos <= 0) {
+				complete = takeBatch();
+			}
+		}
+		if (complete != null) {
+			store(complete);
+		}
+	}
+
+	private void flush(boolean force) {
+		List<zipkin.Span> complete = null;
+		synchronized (this.lock) {
+			if (!this.batch.isEmpty() && (force
+					|| System.nanoTime() - this.batchStartNanos >= this.maxBatchDelayNanos)) {
+				complete = takeBatch();
+			}
+		}
+		if (complete != null) {
+			store(complete);
+		}
+	}
+
+	private List<zipkin.Span> takeBatch() {
+		List<zipkin.Span> complete = this.batch;
+		this.batch = new ArrayList<>(Math.min(complete.size(), this.maxBatchSpans));
+		return complete;
+	}
+
+	/**
+	 * Samples and stores the spans like {@link zipkin.collector.Collector} does, but
+	 * completes when the storage is done, so that the in-flight batches can be counted
+	 */
+	private void store(List<zipkin.Span> spans) {
+		this.metrics.incrementSpans(spans.size());
+		List<zipkin.Span> sampled = sample(spans);
+		if (sampled.size() < spans.size()) {
+			// sampled out spans are dropped by the collector, but not reported as dropped
+			// or accepted spans
+			this.metrics.incrementSpansDropped(spans.size() - sampled.size());
+			updateQueuedSpans(sampled.size() - spans.size());
+		}
+		if (sampled.isEmpty()) {
+			return;
+		}
+		final int size = sampled.size();
+		try {
+			this.inFlightBatches.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			updateQueuedSpans(-size);
+			this.metrics.incrementSpansDropped(size);
+			this.spanMetricReporter.incrementDroppedSpans(size);
+			return;
+		}
+		final long start = System.nanoTime();
+		final AtomicBoolean completed = new AtomicBoolean();
+		Callback<Void> callback = new Callback<Void>() {
+			@Override public void onSuccess(Void value) {
+				if (completed.compareAndSet(false, true)) {
+					stored(size);
+					SpanIngestionPipeline.this.spanMetricReporter.incrementAcceptedSpans(size);
+					SpanIngestionPipeline.this.transportMetricReporter
+							.recordSendTime(System.nanoTime() - start);
+				}
+			}
+
+			@Override public void onError(Throwable t) {
+				if (completed.compareAndSet(false, true)) {
+					stored(size);
+					SpanIngestionPipeline.this.metrics.incrementSpansDropped(size);
+					SpanIngestionPipeline.this.spanMetricReporter.incrementDroppedSpans(size);
+					SpanIngestionPipeline.this.transportMetricReporter.incrementSendFailures(t);
+					if (log.isDebugEnabled()) {
+						log.debug("Cannot store " + size + " spans", t);
+					}
+				}
+			}
+		};
+		try {
+			this.storage.asyncSpanConsumer().accept(sampled, callback);
+		}
+		catch (RuntimeException e) {
+			callback.onError(e);
+		}
+	}
+
+	private List<zipkin.Span> sample(List<zipkin.Span> spans) {
+		List<zipkin.Span> sampled = new ArrayList<>(spans.size());
+		for (zipkin.Span span : spans) {
+			if (this.sampler.isSampled(span)) {
+				sampled.add(span);
+			}
+		}
+		return sampled;
+	}
+
+	private void stored(int size) {
+		this.inFlightBatches.release();
+		updateQueuedSpans(-size);
+	}
+
+	private void updateQueuedSpans(long delta) {
+		this.transportMetricReporter.updateQueuedSpans(this.queuedSpans.addAndGet(delta));
+	}
+
+	private static final class IngestionThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable,
+					"zipkin-stream-ingestion-" + this.count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
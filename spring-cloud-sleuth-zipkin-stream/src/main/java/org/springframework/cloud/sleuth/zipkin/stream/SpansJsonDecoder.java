@@ -0,0 +1,371 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.SleuthSink;
+import org.springframework.cloud.sleuth.stream.Spans;
+
+import zipkin.Annotation;
+import zipkin.BinaryAnnotation;
+import zipkin.Constants;
+import zipkin.Endpoint;
+
+/**
+ * Decodes the JSON representation of {@link Spans} straight into Zipkin spans, without
+ * binding the intermediate Sleuth {@link Span Spans}. The result is the same as the
+ * one of {@link ConvertToZipkinSpanList#convert(Spans)} applied to the bound message.
+ * Fields missing in the JSON are left out of the Zipkin span instead of being
+ * defaulted (a missing name becomes the empty one Zipkin requires), unknown
+ * fields are skipped.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class SpansJsonDecoder {
+
+	private static final org.apache.commons.logging.Log log = org.apache.commons.logging.LogFactory
+			.getLog(SpansJsonDecoder.class);
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final String CYCLE_SPAN_NAME = "message:" + SleuthSink.INPUT;
+
+	private SpansJsonDecoder() {
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the bytes aren't JSON encoded spans
+	 */
+	static List<zipkin.Span> decode(byte[] json) {
+		try {
+			JsonParser parser = JSON_FACTORY.createParser(json);
+			try {
+				return readSpans(parser);
+			}
+			finally {
+				parser.close();
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("Malformed spans message", e);
+		}
+	}
+
+	private static List<zipkin.Span> readSpans(JsonParser parser) throws IOException {
+		expect(parser.nextToken(), JsonToken.START_OBJECT);
+		Endpoint endpoint = null;
+		List<zipkin.Span> result = new ArrayList<>();
+		// only used if the spans come before the host
+		List<SpanFields> pending = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if ("host".equals(field) && value == JsonToken.START_OBJECT) {
+				endpoint = ConvertToZipkinSpanList.endpoint(readHost(parser));
+			}
+			else if ("spans".equals(field) && value == JsonToken.START_ARRAY) {
+				SpanFields fields = new SpanFields();
+				while (parser.nextToken() == JsonToken.START_OBJECT) {
+					readSpan(parser, fields);
+					if (CYCLE_SPAN_NAME.equals(fields.name)) {
+						log.warn("Message tracing cycle detected for span with trace id ["
+								+ Span.idToHex(fields.traceId) + "]");
+					}
+					else if (endpoint != null) {
+						result.add(fields.toZipkin(endpoint));
+					}
+					else {
+						if (pending == null) {
+							pending = new ArrayList<>();
+						}
+						pending.add(fields);
+						fields = new SpanFields();
+					}
+				}
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		if (pending != null) {
+			if (endpoint == null) {
+				throw new IllegalArgumentException("Spans message without a host");
+			}
+			for (SpanFields fields : pending) {
+				result.add(fields.toZipkin(endpoint));
+			}
+		}
+		return result;
+	}
+
+	private static Host readHost(JsonParser parser) throws IOException {
+		String serviceName = null;
+		String address = null;
+		Integer port = null;
+		Integer packedIpv4 = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if (value == JsonToken.VALUE_NULL) {
+				continue;
+			}
+			if ("serviceName".equals(field)) {
+				serviceName = parser.getValueAsString();
+			}
+			else if ("address".equals(field)) {
+				address = parser.getValueAsString();
+			}
+			else if ("port".equals(field)) {
+				port = parser.getIntValue();
+			}
+			else if ("packedIpv4".equals(field)) {
+				packedIpv4 = parser.getIntValue();
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		return new Host(serviceName, address, port, packedIpv4);
+	}
+
+	private static void readSpan(JsonParser parser, SpanFields fields) throws IOException {
+		fields.reset();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			JsonToken value = parser.nextToken();
+			if (value == JsonToken.VALUE_NULL) {
+				fields.setNull(field);
+				continue;
+			}
+			switch (field) {
+			case "begin":
+				fields.begin = parser.getLongValue();
+				break;
+			case "name":
+				fields.name = parser.getValueAsString();
+				break;
+			case "traceIdHigh":
+				fields.traceIdHigh = parser.getLongValue();
+				break;
+			case "traceId":
+				fields.traceId = parser.getLongValue();
+				break;
+			case "parents":
+				readParents(parser, fields);
+				break;
+			case "spanId":
+				fields.spanId = parser.getLongValue();
+				break;
+			case "remote":
+				fields.remote = parser.getBooleanValue();
+				break;
+			case "tags":
+				readTags(parser, fields);
+				break;
+			case "processId":
+				fields.processId = parser.getValueAsString();
+				break;
+			case "logs":
+				readLogs(parser, fields);
+				break;
+			case "durationMicros":
+				fields.durationMicros = parser.getLongValue();
+				break;
+			default: // end, exportable and anything not needed for conversion
+				parser.skipChildren();
+			}
+		}
+	}
+
+	private static void readParents(JsonParser parser, SpanFields fields)
+			throws IOException {
+		expect(parser.getCurrentToken(), JsonToken.START_ARRAY);
+		fields.hasParent = false;
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (!fields.hasParent) {
+				fields.parent = parser.getLongValue();
+				fields.hasParent = true;
+			}
+		}
+	}
+
+	private static void readTags(JsonParser parser, SpanFields fields) throws IOException {
+		expect(parser.getCurrentToken(), JsonToken.START_OBJECT);
+		fields.tags.clear();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			if (parser.nextToken() != JsonToken.VALUE_NULL) {
+				fields.tags.put(key, parser.getValueAsString());
+			}
+		}
+	}
+
+	private static void readLogs(JsonParser parser, SpanFields fields) throws IOException {
+		expect(parser.getCurrentToken(), JsonToken.START_ARRAY);
+		fields.logTimestamps.clear();
+		fields.logEvents.clear();
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			Long timestamp = null;
+			String event = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				if ("timestamp".equals(field) && value != JsonToken.VALUE_NULL) {
+					timestamp = parser.getLongValue();
+				}
+				else if ("event".equals(field)) {
+					event = parser.getValueAsString();
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+			if (timestamp == null || event == null) {
+				throw new IllegalArgumentException("Log requires a timestamp and an event");
+			}
+			fields.logTimestamps.add(timestamp);
+			fields.logEvents.add(event);
+		}
+	}
+
+	private static void expect(JsonToken actual, JsonToken expected) {
+		if (actual != expected) {
+			throw new IllegalArgumentException(
+					"Expected [" + expected + "] but got [" + actual + "]");
+		}
+	}
+
+	/**
+	 * The parts of a Sleuth span that are needed for the conversion
+	 */
+	static final class SpanFields {
+		Long begin; // Nullable
+		String name; // Nullable
+		long traceIdHigh;
+		long traceId;
+		boolean hasParent;
+		long parent;
+		long spanId;
+		boolean remote;
+		String processId; // Nullable
+		Long durationMicros; // Nullable
+		final Map<String, String> tags = new LinkedHashMap<>();
+		final List<Long> logTimestamps = new ArrayList<>();
+		final List<String> logEvents = new ArrayList<>();
+
+		void reset() {
+			this.begin = null;
+			this.name = null;
+			this.traceIdHigh = 0;
+			this.traceId = 0;
+			this.hasParent = false;
+			this.parent = 0;
+			this.spanId = 0;
+			this.remote = false;
+			this.processId = null;
+			this.durationMicros = null;
+			this.tags.clear();
+			this.logTimestamps.clear();
+			this.logEvents.clear();
+		}
+
+		void setNull(String field) {
+			switch (field) {
+			case "begin":
+				this.begin = null;
+				break;
+			case "name":
+				this.name = null;
+				break;
+			case "processId":
+				this.processId = null;
+				break;
+			case "durationMicros":
+				this.durationMicros = null;
+				break;
+			default:
+			}
+		}
+
+		/**
+		 * Mirrors {@link ConvertToZipkinSpanList#convert(Spans)}. A span without a
+		 * duration is still running, so only its timestamp is reported.
+		 */
+		zipkin.Span toZipkin(Endpoint endpoint) {
+			zipkin.Span.Builder zipkinSpan = zipkin.Span.builder();
+			if (!this.logEvents.contains(Constants.CLIENT_RECV)
+					&& !this.logEvents.contains(Constants.SERVER_RECV)
+					&& !this.tags.containsKey(Constants.LOCAL_COMPONENT)) {
+				String processId = this.processId != null ? this.processId.toLowerCase()
+						: ZipkinMessageListener.UNKNOWN_PROCESS_ID;
+				zipkinSpan.addBinaryAnnotation(BinaryAnnotation.create(
+						Constants.LOCAL_COMPONENT, processId, endpoint));
+			}
+			for (int i = 0; i < this.logEvents.size(); i++) {
+				zipkinSpan.addAnnotation(Annotation.create(this.logTimestamps.get(i) * 1000,
+						this.logEvents.get(i), endpoint));
+			}
+			for (Map.Entry<String, String> tag : this.tags.entrySet()) {
+				zipkinSpan.addBinaryAnnotation(
+						BinaryAnnotation.create(tag.getKey(), tag.getValue(), endpoint));
+			}
+			if (this.logEvents.contains(Constants.CLIENT_SEND)
+					&& !this.tags.containsKey(Constants.SERVER_ADDR)
+					&& this.tags.containsKey(Span.SPAN_PEER_SERVICE_TAG_NAME)) {
+				zipkinSpan.addBinaryAnnotation(BinaryAnnotation.address(
+						Constants.SERVER_ADDR, Endpoint.builder().serviceName(
+								this.tags.get(Span.SPAN_PEER_SERVICE_TAG_NAME)).build()));
+			}
+			if (!this.remote && this.begin != null) {
+				zipkinSpan.timestamp(this.begin * 1000);
+				if (this.durationMicros != null) {
+					zipkinSpan.duration(durationMicros());
+				}
+			}
+			zipkinSpan.traceIdHigh(this.traceIdHigh);
+			zipkinSpan.traceId(this.traceId);
+			if (this.hasParent) {
+				zipkinSpan.parentId(this.parent);
+			}
+			zipkinSpan.id(this.spanId);
+			// zipkin requires a name, the empty one stands for an unknown name
+			zipkinSpan.name(this.name != null ? this.name : "");
+			return zipkinSpan.build();
+		}
+
+		private long durationMicros() {
+			int clientSend = this.logEvents.indexOf(Constants.CLIENT_SEND);
+			int clientReceived = this.logEvents.indexOf(Constants.CLIENT_RECV);
+			if (clientSend >= 0 && clientReceived >= 0) {
+				return (this.logTimestamps.get(clientReceived)
+						- this.logTimestamps.get(clientSend)) * 1000;
+			}
+			return this.durationMicros;
+		}
+	}
+}
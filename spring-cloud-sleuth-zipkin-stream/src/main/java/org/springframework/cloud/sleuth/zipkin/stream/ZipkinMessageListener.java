@@ -5,10 +5,14 @@ import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
 import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
 import org.springframework.cloud.sleuth.Log;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanTransportMetricReporter;
 import org.springframework.cloud.sleuth.stream.SleuthSink;
 import org.springframework.cloud.sleuth.stream.Spans;
 import org.springframework.cloud.sleuth.zipkin.stream.ZipkinMessageListener.NotSleuthStreamClient;
 import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.cloud.stream.converter.CompositeMessageConverterFactory;
 import org.springframework.context.annotation.ConditionContext;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Lazy;
@@ -17,6 +21,9 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.integration.annotation.MessageEndpoint;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.MimeType;
 import zipkin.Annotation;
 import zipkin.BinaryAnnotation;
 import zipkin.BinaryAnnotation.Type;
@@ -28,14 +35,23 @@ import zipkin.collector.CollectorSampler;
 import zipkin.storage.Callback;
 import zipkin.storage.StorageComponent;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 /**
  * A message listener that is turned on if Sleuth Stream is disabled.
- * Asynchronously stores the received spans using {@link Collector}.
+ * Asynchronously stores the received spans using {@link Collector}. If
+ * {@link ZipkinStreamIngestionProperties#isEnabled() enabled}, the spans are converted
+ * on a worker pool and stored in larger batches. JSON messages are decoded with a
+ * streaming parser instead of the Jackson data binding. If a
+ * {@link ServiceRateLimiter} is registered, the spans over the limits of their services
+ * aren't stored and are counted as dropped.
  *
  * @author Dave Syer
  * @since 1.0.0
@@ -49,23 +65,147 @@ public class ZipkinMessageListener {
 	private static final org.apache.commons.logging.Log log = org.apache.commons.logging.LogFactory
 			.getLog(ZipkinMessageListener.class);
 	static final String UNKNOWN_PROCESS_ID = "unknown";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
 	final Collector collector;
+	private final StorageComponent storage;
+	private final CollectorSampler sampler;
+	private final CollectorMetrics metrics;
+	@Autowired(required = false)
+	SpanMetricReporter spanMetricReporter = new NoOpSpanMetricReporter();
+	@Autowired(required = false)
+	ZipkinStreamIngestionProperties ingestion;
+	@Autowired(required = false)
+	ServiceRateLimiter rateLimiter;
+	@Autowired(required = false)
+	CompositeMessageConverterFactory messageConverterFactory;
+	private SpanIngestionPipeline pipeline; // Nullable
 
 	/** lazy so transient storage errors don't crash bootstrap */
 	@Lazy
 	@Autowired
 	ZipkinMessageListener(StorageComponent storage, CollectorSampler sampler,
 			CollectorMetrics metrics) {
+		this.storage = storage;
+		this.sampler = sampler;
+		this.metrics = metrics.forTransport("stream");
 		this.collector = Collector.builder(getClass())
 				.storage(storage)
 				.sampler(sampler)
-				.metrics(metrics.forTransport("stream")).build();
+				.metrics(this.metrics).build();
+	}
+
+	@PostConstruct
+	void startPipeline() {
+		if (this.ingestion != null && this.ingestion.isEnabled()) {
+			this.pipeline = new SpanIngestionPipeline(this.storage, this.sampler,
+					this.metrics, this.spanMetricReporter, this.rateLimiter, this.ingestion);
+		}
+	}
+
+	@PreDestroy
+	void stopPipeline() {
+		if (this.pipeline != null) {
+			this.pipeline.close();
+		}
 	}
 
+	/**
+	 * JSON and binary encoded messages are decoded here, other ones are converted to
+	 * {@link Spans} by the registered message converters
+	 */
 	@StreamListener(SleuthSink.INPUT)
+	public void receive(Message<?> message) {
+		Object payload = message.getPayload();
+		MimeType contentType = contentType(message);
+		if (payload instanceof Spans) {
+			sink((Spans) payload);
+		}
+		else if (payload instanceof byte[] && ConvertToZipkinSpanList.supports(contentType)) {
+			sink((byte[]) payload, contentType);
+		}
+		else if (payload instanceof String && ConvertToZipkinSpanList.supports(contentType)) {
+			sink(((String) payload).getBytes(UTF_8), contentType);
+		}
+		else {
+			sink(convert(message, contentType));
+		}
+	}
+
+	/**
+	 * Converts and stores an encoded message
+	 *
+	 * @param contentType content type of the message, JSON if {@code null}
+	 */
+	public void sink(byte[] payload, MimeType contentType) {
+		if (this.pipeline != null) {
+			this.pipeline.accept(payload, contentType);
+			return;
+		}
+		long start = System.nanoTime();
+		List<zipkin.Span> converted = ConvertToZipkinSpanList.convert(payload, contentType);
+		transportMetricReporter().recordMessageSpans(converted.size());
+		accept(converted, start);
+	}
+
 	public void sink(Spans input) {
+		if (this.pipeline != null) {
+			this.pipeline.accept(input);
+			return;
+		}
+		long start = System.nanoTime();
 		List<zipkin.Span> converted = ConvertToZipkinSpanList.convert(input);
-		this.collector.accept(converted, Callback.NOOP);
+		transportMetricReporter().recordMessageSpans(input.getSpans().size());
+		accept(converted, start);
+	}
+
+	private void accept(List<zipkin.Span> converted, long start) {
+		if (this.rateLimiter != null) {
+			int size = converted.size();
+			converted = this.rateLimiter.limit(converted);
+			if (converted.size() != size) {
+				this.spanMetricReporter.incrementDroppedSpans(size - converted.size());
+			}
+		}
+		final long convertedAt = System.nanoTime();
+		final SpanTransportMetricReporter spanMetricReporter = transportMetricReporter();
+		spanMetricReporter.recordEncodeTime(convertedAt - start);
+		this.collector.accept(converted, new Callback<Void>() {
+			@Override public void onSuccess(Void value) {
+				spanMetricReporter.recordSendTime(System.nanoTime() - convertedAt);
+			}
+
+			@Override public void onError(Throwable t) {
+				spanMetricReporter.incrementSendFailures(t);
+			}
+		});
+	}
+
+	private Spans convert(Message<?> message, MimeType contentType) {
+		Object spans = this.messageConverterFactory != null ? this.messageConverterFactory
+				.getMessageConverterForAllRegistered().fromMessage(message, Spans.class)
+				: null;
+		if (!(spans instanceof Spans)) {
+			throw new IllegalArgumentException("Cannot convert a message with payload type ["
+					+ message.getPayload().getClass().getName() + "] and content type ["
+					+ contentType + "] to spans");
+		}
+		return (Spans) spans;
+	}
+
+	private SpanTransportMetricReporter transportMetricReporter() {
+		return this.spanMetricReporter instanceof SpanTransportMetricReporter ?
+				(SpanTransportMetricReporter) this.spanMetricReporter : new NoOpSpanMetricReporter();
+	}
+
+	private static MimeType contentType(Message<?> message) {
+		Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+		if (contentType instanceof MimeType) {
+			return (MimeType) contentType;
+		}
+		if (contentType instanceof String && !((String) contentType).isEmpty()) {
+			return MimeType.valueOf((String) contentType);
+		}
+		return null;
 	}
 
 	/**
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the pipeline in which {@link ZipkinMessageListener} converts and stores
+ * the received spans. When disabled each message is converted and stored on the
+ * thread that received it.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+@ConfigurationProperties("spring.sleuth.zipkin.stream.ingestion")
+public class ZipkinStreamIngestionProperties {
+
+	/**
+	 * Whether messages should be converted on a worker pool and their spans stored in
+	 * larger batches. Messages are acknowledged once handed over to the workers, so
+	 * the spans not stored yet are lost if the collector crashes. Default: false
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Number of threads converting messages and storing batches. Default: number of
+	 * processors
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Max number of received messages waiting for conversion. When reached, the
+	 * receiving thread blocks. Default: 100
+	 */
+	private int queueSize = 100;
+
+	/**
+	 * Number of converted spans that get stored at once. Messages aren't split, so a
+	 * batch can be bigger by the size of a message. Default: 1000
+	 */
+	private int maxBatchSpans = 1000;
+
+	/**
+	 * Max time (ms) converted spans wait for more spans before they get stored.
+	 * Default: 100
+	 */
+	private long maxBatchDelay = 100L;
+
+	/**
+	 * Max number of batches being stored at the same time. When reached, the workers
+	 * block, so that the queue fills up and the receiving thread blocks too.
+	 * Default: 4
+	 */
+	private int maxInFlightBatches = 4;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getThreads() {
+		return this.threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getQueueSize() {
+		return this.queueSize;
+	}
+
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public int getMaxBatchSpans() {
+		return this.maxBatchSpans;
+	}
+
+	public void setMaxBatchSpans(int maxBatchSpans) {
+		this.maxBatchSpans = maxBatchSpans;
+	}
+
+	public long getMaxBatchDelay() {
+		return this.maxBatchDelay;
+	}
+
+	public void setMaxBatchDelay(long maxBatchDelay) {
+		this.maxBatchDelay = maxBatchDelay;
+	}
+
+	public int getMaxInFlightBatches() {
+		return this.maxInFlightBatches;
+	}
+
+	public void setMaxInFlightBatches(int maxInFlightBatches) {
+		this.maxInFlightBatches = maxInFlightBatches;
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Registers the {@link ServiceRateLimiter} used by {@link ZipkinMessageListener} if
+ * {@code spring.sleuth.zipkin.stream.rate-limit.enabled} is set.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+@Configuration
+@EnableConfigurationProperties(ZipkinStreamRateLimitProperties.class)
+@ConditionalOnProperty("spring.sleuth.zipkin.stream.rate-limit.enabled")
+@Import(ZipkinStreamRateLimitConfiguration.RateLimitMetricsConfiguration.class)
+public class ZipkinStreamRateLimitConfiguration {
+
+	@Bean
+	public ServiceRateLimiter serviceRateLimiter(ZipkinStreamRateLimitProperties properties) {
+		return new ServiceRateLimiter(properties);
+	}
+
+	/**
+	 * Imported rather than annotated with {@code @Configuration} so that component
+	 * scanning can't register it without its enclosing configuration.
+	 */
+	@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.PublicMetrics")
+	protected static class RateLimitMetricsConfiguration {
+
+		@Bean
+		public ServiceRateLimiterPublicMetrics serviceRateLimiterPublicMetrics(
+				ServiceRateLimiter serviceRateLimiter) {
+			return new ServiceRateLimiterPublicMetrics(serviceRateLimiter);
+		}
+	}
+}
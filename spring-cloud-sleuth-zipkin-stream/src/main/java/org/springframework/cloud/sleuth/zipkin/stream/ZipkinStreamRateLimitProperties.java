@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the per service rate limits that {@link ZipkinMessageListener} applies
+ * before storing the received spans. Services are identified by the (lower case)
+ * service name of the endpoint of their spans.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+@ConfigurationProperties("spring.sleuth.zipkin.stream.rate-limit")
+public class ZipkinStreamRateLimitProperties {
+
+	/**
+	 * Whether the spans stored per service should be limited. Default: false
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Default number of spans per second stored per service. Default: 1000
+	 */
+	private long spansPerSecond = 1000L;
+
+	/**
+	 * Default number of spans a service can send at once after being idle.
+	 * Default: 1000
+	 */
+	private long burst = 1000L;
+
+	/**
+	 * Approximate number of trace ids for which the decision whether the trace is
+	 * stored is remembered, so that traces stay complete. Default: 100000
+	 */
+	private int maxTraces = 100000;
+
+	/**
+	 * Max number of services that get a limit of their own. Spans of other services
+	 * share a single limit. Default: 1000
+	 */
+	private int maxServices = 1000;
+
+	/**
+	 * Limits of particular services, by service name, overriding the defaults
+	 */
+	private Map<String, Limit> services = new LinkedHashMap<>();
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getSpansPerSecond() {
+		return this.spansPerSecond;
+	}
+
+	public void setSpansPerSecond(long spansPerSecond) {
+		this.spansPerSecond = spansPerSecond;
+	}
+
+	public long getBurst() {
+		return this.burst;
+	}
+
+	public void setBurst(long burst) {
+		this.burst = burst;
+	}
+
+	public int getMaxTraces() {
+		return this.maxTraces;
+	}
+
+	public void setMaxTraces(int maxTraces) {
+		this.maxTraces = maxTraces;
+	}
+
+	public int getMaxServices() {
+		return this.maxServices;
+	}
+
+	public void setMaxServices(int maxServices) {
+		this.maxServices = maxServices;
+	}
+
+	public Map<String, Limit> getServices() {
+		return this.services;
+	}
+
+	public void setServices(Map<String, Limit> services) {
+		this.services = services;
+	}
+
+	public static class Limit {
+
+		/**
+		 * Number of spans per second stored for the service. Default: the default
+		 * spans per second
+		 */
+		private Long spansPerSecond; // Nullable
+
+		/**
+		 * Number of spans the service can send at once after being idle. Default: the
+		 * default burst
+		 */
+		private Long burst; // Nullable
+
+		public Long getSpansPerSecond() {
+			return this.spansPerSecond;
+		}
+
+		public void setSpansPerSecond(Long spansPerSecond) {
+			this.spansPerSecond = spansPerSecond;
+		}
+
+		public Long getBurst() {
+			return this.burst;
+		}
+
+		public void setBurst(Long burst) {
+			this.burst = burst;
+		}
+	}
+}
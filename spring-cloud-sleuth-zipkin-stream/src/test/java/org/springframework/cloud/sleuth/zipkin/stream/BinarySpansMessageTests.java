@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.SleuthSink;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.stream.SpansCodec;
+import org.springframework.cloud.sleuth.stream.SpansCompressor;
+import org.springframework.cloud.sleuth.stream.SpansMessageConverter;
+import org.springframework.cloud.sleuth.zipkin.stream.ZipkinServerApplicationTests.ZipkinStreamServerApplication;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import zipkin.storage.StorageComponent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = ZipkinStreamServerApplication.class, properties = {
+		"spring.datasource.initialize=true" }, webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DirtiesContext
+public class BinarySpansMessageTests {
+
+	@Autowired
+	StorageComponent storage;
+	@Autowired
+	SleuthSink sink;
+
+	@Test
+	public void acceptsBinaryEncodedSpans() {
+		Span span = Span.builder().name("http:/foo").traceId(1L).spanId(1L).begin(1L)
+				.end(2L).processId("process").build();
+		byte[] payload = SpansCodec.encode(new Spans(new Host("binary-service", "1.2.3.4",
+				8080), Collections.singletonList(span)));
+
+		this.sink.input().send(MessageBuilder.withPayload(payload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, SpansMessageConverter.CONTENT_TYPE)
+				.build());
+
+		assertThat(this.storage.spanStore().getServiceNames()).contains("binary-service");
+	}
+
+	@Test
+	public void decodesJsonEncodedSpansWithoutBindingThem() throws Exception {
+		Span span = Span.builder().name("http:/foo").traceId(3L).spanId(3L).begin(1L)
+				.end(2L).processId("process").build();
+		byte[] payload = new ObjectMapper().writeValueAsBytes(new Spans(
+				new Host("json-service", "1.2.3.4", 8080), Collections.singletonList(span)));
+
+		this.sink.input().send(MessageBuilder.withPayload(payload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, "application/json")
+				.build());
+
+		assertThat(this.storage.spanStore().getServiceNames()).contains("json-service");
+	}
+
+	@Test
+	public void convertsSpansOfOtherContentTypesWithMessageConverters() throws Exception {
+		Span span = Span.builder().name("http:/foo").traceId(4L).spanId(4L).begin(1L)
+				.end(2L).processId("process").build();
+		byte[] payload = new ObjectMapper().writeValueAsBytes(new Spans(
+				new Host("java-object-service", "1.2.3.4", 8080),
+				Collections.singletonList(span)));
+
+		this.sink.input().send(MessageBuilder.withPayload(payload)
+				.setHeader(MessageHeaders.CONTENT_TYPE,
+						"application/x-java-object;type=" + Spans.class.getName())
+				.build());
+
+		assertThat(this.storage.spanStore().getServiceNames()).contains("java-object-service");
+	}
+
+	@Test
+	public void acceptsCompressedSpans() {
+		Span span = Span.builder().name("http:/foo").traceId(2L).spanId(2L).begin(1L)
+				.end(2L).processId("process").build();
+		byte[] payload = SpansCodec.encode(new Spans(new Host("compressed-service",
+				"1.2.3.4", 8080), Collections.nCopies(10, span)));
+		SpansCompressor compressor = new SpansCompressor(SpansCompressor.Encoding.GZIP);
+
+		this.sink.input().send(MessageBuilder.withPayload(compressor.compress(payload))
+				.setHeader(MessageHeaders.CONTENT_TYPE, SpansMessageConverter.CONTENT_TYPE)
+				.setHeader(SpansCompressor.CONTENT_ENCODING, "gzip")
+				.build());
+
+		assertThat(this.storage.spanStore().getServiceNames()).contains("compressed-service");
+	}
+}
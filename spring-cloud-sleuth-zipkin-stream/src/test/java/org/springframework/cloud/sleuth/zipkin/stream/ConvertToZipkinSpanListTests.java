@@ -20,6 +20,7 @@ import org.junit.Test;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.stream.Host;
 import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.stream.SpansCodec;
 import zipkin.Constants;
 import zipkin.Endpoint;
 
@@ -53,6 +54,16 @@ public class ConvertToZipkinSpanListTests {
 		assertThat(result).isNotNull();
 	}
 
+	@Test
+	public void usesPackedIpv4WhenPresent() {
+		Host host = new Host("myservice", "not.resolvable.invalid", 8080, 1 << 24 | 2 << 16 | 3 << 8 | 4);
+
+		zipkin.Span result = ConvertToZipkinSpanList.convert(span("foo"), host);
+
+		assertThat(result.binaryAnnotations.get(0).endpoint.ipv4)
+				.isEqualTo(1 << 24 | 2 << 16 | 3 << 8 | 4);
+	}
+
 	@Test
 	public void retainsValidSpans() {
 		Spans spans = new Spans(this.host,
@@ -217,6 +228,21 @@ public class ConvertToZipkinSpanListTests {
 		assertThat(result.traceId).isEqualTo(span.getTraceId());
 	}
 
+	@Test
+	public void convertsBinaryEncodedSpansLikeTheOriginalOnes() {
+		Span server = span("foo", true);
+		server.logEvent(Constants.SERVER_RECV);
+		server.tag("http.url", "http://localhost/foo");
+		server.logEvent(Constants.SERVER_SEND);
+		Span local = span("bar");
+		Spans spans = new Spans(this.host, Arrays.asList(server, local));
+
+		Spans decoded = SpansCodec.decode(SpansCodec.encode(spans));
+
+		assertThat(ConvertToZipkinSpanList.convert(decoded))
+				.isEqualTo(ConvertToZipkinSpanList.convert(spans));
+	}
+
 	Span span(String name) {
 		return span(name, false);
 	}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.SleuthSink;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.zipkin.stream.ZipkinServerApplicationTests.ZipkinStreamServerApplication;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import zipkin.storage.StorageComponent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = ZipkinStreamServerApplication.class, properties = {
+		"spring.datasource.initialize=true",
+		"spring.sleuth.zipkin.stream.ingestion.enabled=true",
+		"spring.sleuth.zipkin.stream.ingestion.max-batch-delay=10" },
+		webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DirtiesContext
+public class ParallelIngestionTests {
+
+	@Autowired
+	StorageComponent storage;
+	@Autowired
+	SleuthSink sink;
+
+	@Test
+	public void storesSpansConvertedOnWorkerPool() {
+		Span span = Span.builder().name("http:/foo").traceId(3L).spanId(3L).begin(1L)
+				.end(2L).processId("process").build();
+
+		this.sink.input().send(MessageBuilder.withPayload(new Spans(
+				new Host("parallel-service", "1.2.3.4", 8080),
+				Collections.singletonList(span))).build());
+
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+				assertThat(this.storage.spanStore().getServiceNames())
+						.contains("parallel-service"));
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.SleuthSink;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.zipkin.stream.ZipkinServerApplicationTests.ZipkinStreamServerApplication;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import zipkin.storage.QueryRequest;
+import zipkin.storage.StorageComponent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = ZipkinStreamServerApplication.class, properties = {
+		"spring.datasource.initialize=true",
+		"spring.sleuth.zipkin.stream.rate-limit.enabled=true",
+		"spring.sleuth.zipkin.stream.rate-limit.spans-per-second=1",
+		"spring.sleuth.zipkin.stream.rate-limit.services.limited-service.burst=1" },
+		webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DirtiesContext
+public class RateLimitedIngestionTests {
+
+	@Autowired
+	StorageComponent storage;
+	@Autowired
+	SleuthSink sink;
+	@Autowired
+	ServiceRateLimiterPublicMetrics metrics;
+	@MockBean
+	SpanMetricReporter spanMetricReporter;
+
+	@Test
+	public void storesOnlyTheTracesWithinTheLimitOfTheService() {
+		Span first = Span.builder().name("http:/foo").traceId(10L).spanId(10L).begin(1L)
+				.end(2L).processId("process").build();
+		Span second = Span.builder().name("http:/foo").traceId(11L).spanId(11L).begin(1L)
+				.end(2L).processId("process").build();
+
+		this.sink.input().send(MessageBuilder.withPayload(new Spans(
+				new Host("limited-service", "1.2.3.4", 8080), Arrays.asList(first, second)))
+				.build());
+
+		assertThat(this.storage.spanStore().getTraces(QueryRequest.builder()
+				.serviceName("limited-service").build())).hasSize(1);
+		assertThat(this.metrics.metrics()).extracting(m -> m.getName()).contains(
+				"zipkin.stream.rate-limit.limited-service.throttled");
+		Mockito.verify(this.spanMetricReporter).incrementDroppedSpans(1);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import zipkin.BinaryAnnotation;
+import zipkin.Constants;
+import zipkin.Endpoint;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class ServiceRateLimiterTests {
+
+	static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	ZipkinStreamRateLimitProperties properties = new ZipkinStreamRateLimitProperties();
+
+	@Test
+	public void should_keep_traces_of_a_service_complete() {
+		this.properties.setSpansPerSecond(1);
+		this.properties.setBurst(2);
+		ServiceRateLimiter limiter = new ServiceRateLimiter(this.properties);
+
+		List<zipkin.Span> accepted = limiter.limit(Arrays.asList(span("a", 1, 1),
+				span("a", 2, 2), span("a", 3, 3), span("a", 1, 4)), 0);
+		then(accepted).extracting(s -> s.id).containsExactly(1L, 2L, 4L);
+
+		// the bucket got refilled but trace 3 has already been rejected
+		accepted = limiter.limit(Arrays.asList(span("a", 3, 5), span("a", 4, 6)),
+				10 * SECOND);
+		then(accepted).extracting(s -> s.id).containsExactly(6L);
+	}
+
+	@Test
+	public void should_limit_services_separately_with_overrides() {
+		this.properties.setSpansPerSecond(1);
+		this.properties.setBurst(1);
+		ZipkinStreamRateLimitProperties.Limit limit = new ZipkinStreamRateLimitProperties.Limit();
+		limit.setBurst(3L);
+		this.properties.getServices().put("B", limit);
+		ServiceRateLimiter limiter = new ServiceRateLimiter(this.properties);
+
+		List<zipkin.Span> accepted = limiter.limit(Arrays.asList(span("a", 1, 1),
+				span("a", 2, 2), span("b", 3, 3), span("b", 4, 4), span("b", 5, 5),
+				span("b", 6, 6)), 0);
+
+		then(accepted).extracting(s -> s.id).containsExactly(1L, 3L, 4L, 5L);
+	}
+
+	@Test
+	public void should_not_cut_admitted_traces_when_the_bucket_is_in_debt() {
+		this.properties.setSpansPerSecond(1);
+		this.properties.setBurst(2);
+		ServiceRateLimiter limiter = new ServiceRateLimiter(this.properties);
+
+		List<zipkin.Span> accepted = limiter.limit(Arrays.asList(span("a", 1, 1),
+				span("a", 1, 2), span("a", 1, 3), span("a", 1, 4), span("a", 1, 5),
+				span("a", 2, 6)), 0);
+
+		then(accepted).extracting(s -> s.id).containsExactly(1L, 2L, 3L, 4L, 5L);
+	}
+
+	@Test
+	public void should_decide_once_per_trace_for_all_services() {
+		this.properties.setSpansPerSecond(1);
+		this.properties.setBurst(1);
+		ServiceRateLimiter limiter = new ServiceRateLimiter(this.properties);
+
+		List<zipkin.Span> accepted = limiter.limit(Arrays.asList(span("b", 2, 1),
+				span("a", 1, 2), span("b", 1, 3), span("a", 2, 4), span("a", 3, 5)), 0);
+		then(accepted).extracting(s -> s.id).containsExactly(1L, 2L, 3L, 4L);
+
+		// b got refilled but trace 3 has already been rejected by a
+		accepted = limiter.limit(Arrays.asList(span("b", 3, 6)), 10 * SECOND);
+		then(accepted).isEmpty();
+	}
+
+	@Test
+	public void should_limit_services_over_the_cap_together() {
+		this.properties.setBurst(1);
+		this.properties.setMaxServices(1);
+		ServiceRateLimiter limiter = new ServiceRateLimiter(this.properties);
+
+		List<zipkin.Span> accepted = limiter.limit(Arrays.asList(span("a", 1, 1),
+				span("b", 2, 2), span("c", 3, 3)), 0);
+
+		then(accepted).extracting(s -> s.id).containsExactly(1L, 2L);
+		then(limiter.snapshot()).extracting(s -> s.serviceName)
+				.containsExactly("a", ServiceRateLimiter.OTHER_SERVICE);
+	}
+
+	@Test
+	public void should_publish_accepted_and_throttled_spans_per_service() {
+		this.properties.setBurst(1);
+		ServiceRateLimiter limiter = new ServiceRateLimiter(this.properties);
+		limiter.limit(Arrays.asList(span("my.service", 1, 1), span("my.service", 2, 2)), 0);
+
+		List<Metric<?>> metrics = (List<Metric<?>>) new ServiceRateLimiterPublicMetrics(
+				limiter).metrics();
+
+		then(metrics).extracting(Metric::getName).containsExactly(
+				"zipkin.stream.rate-limit.my_service.accepted",
+				"zipkin.stream.rate-limit.my_service.throttled");
+		then(metrics).extracting(m -> m.getValue().longValue()).containsExactly(1L, 1L);
+	}
+
+	private static zipkin.Span span(String serviceName, long traceId, long id) {
+		Endpoint endpoint = Endpoint.builder().serviceName(serviceName).ipv4(127 << 24 | 1)
+				.build();
+		return zipkin.Span.builder().traceId(traceId).id(id).name("foo")
+				.addBinaryAnnotation(BinaryAnnotation.create(Constants.LOCAL_COMPONENT,
+						"process", endpoint))
+				.addBinaryAnnotation(BinaryAnnotation.address(Constants.SERVER_ADDR,
+						Endpoint.builder().serviceName("remote").build()))
+				.build();
+	}
+}
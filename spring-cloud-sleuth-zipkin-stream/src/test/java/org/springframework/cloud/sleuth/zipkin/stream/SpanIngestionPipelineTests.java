@@ -0,0 +1,236 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.Spans;
+
+import zipkin.collector.CollectorMetrics;
+import zipkin.collector.CollectorSampler;
+import zipkin.storage.AsyncSpanConsumer;
+import zipkin.storage.Callback;
+import zipkin.storage.StorageComponent;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpanIngestionPipelineTests {
+
+	Host host = new Host("myservice", "1.2.3.4", 8080);
+	NoOpSpanMetricReporter spanMetricReporter = Mockito.mock(NoOpSpanMetricReporter.class);
+	CollectorMetrics metrics = Mockito.mock(CollectorMetrics.class);
+	CollectorSampler sampler = CollectorSampler.ALWAYS_SAMPLE;
+	ZipkinStreamIngestionProperties properties = new ZipkinStreamIngestionProperties();
+	List<List<zipkin.Span>> storedBatches = new CopyOnWriteArrayList<>();
+	List<Callback<Void>> pendingCallbacks = new CopyOnWriteArrayList<>();
+	boolean completeCallbacks = true;
+	SpanIngestionPipeline pipeline;
+
+	@After
+	public void close() {
+		if (this.pipeline != null) {
+			this.pendingCallbacks.forEach(callback -> callback.onSuccess(null));
+			this.completeCallbacks = true;
+			this.pipeline.close();
+		}
+	}
+
+	@Test
+	public void should_store_spans_of_many_messages_in_batches_of_max_size() {
+		this.properties.setThreads(2);
+		this.properties.setMaxBatchSpans(10);
+		this.properties.setMaxBatchDelay(60_000L);
+		this.pipeline = pipeline();
+
+		for (int i = 0; i < 10; i++) {
+			this.pipeline.accept(spans(i, 3));
+		}
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> this.storedBatches.size() == 2);
+		for (List<zipkin.Span> batch : this.storedBatches) {
+			then(batch).hasSize(12);
+		}
+		this.pipeline.close();
+		then(this.storedBatches).hasSize(3);
+		then(this.storedBatches.get(2)).hasSize(6);
+		Mockito.verify(this.spanMetricReporter, Mockito.atLeastOnce()).updateQueuedSpans(0);
+	}
+
+	@Test
+	public void should_store_incomplete_batch_after_max_delay() {
+		this.properties.setMaxBatchSpans(1000);
+		this.properties.setMaxBatchDelay(10L);
+		this.pipeline = pipeline();
+
+		this.pipeline.accept(spans(1, 2));
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> this.storedBatches.size() == 1);
+		then(this.storedBatches.get(0)).hasSize(2);
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+				Mockito.verify(this.spanMetricReporter).incrementAcceptedSpans(2));
+	}
+
+	@Test
+	public void should_block_receiving_thread_when_storage_does_not_keep_up() throws Exception {
+		this.completeCallbacks = false;
+		this.properties.setThreads(1);
+		this.properties.setQueueSize(1);
+		this.properties.setMaxBatchSpans(1);
+		this.properties.setMaxInFlightBatches(1);
+		this.pipeline = pipeline();
+		CountDownLatch accepted = new CountDownLatch(1);
+		Thread receiver = new Thread(() -> {
+			// 1st is being stored, 2nd blocks the worker, 3rd is queued
+			for (int i = 0; i < 4; i++) {
+				this.pipeline.accept(spans(i, 1));
+			}
+			accepted.countDown();
+		});
+
+		receiver.start();
+
+		then(accepted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		then(this.storedBatches).hasSize(1);
+		this.completeCallbacks = true;
+		new ArrayList<>(this.pendingCallbacks).forEach(callback -> callback.onSuccess(null));
+		then(accepted.await(5, TimeUnit.SECONDS)).isTrue();
+		await().atMost(5, TimeUnit.SECONDS).until(() -> this.storedBatches.size() == 4);
+	}
+
+	@Test
+	public void should_wait_for_in_flight_batches_when_closed() throws Exception {
+		this.completeCallbacks = false;
+		this.properties.setMaxBatchSpans(1);
+		this.pipeline = pipeline();
+		this.pipeline.accept(spans(1, 1));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> this.storedBatches.size() == 1);
+		CountDownLatch closed = new CountDownLatch(1);
+		Thread closer = new Thread(() -> {
+			this.pipeline.close();
+			closed.countDown();
+		});
+
+		closer.start();
+
+		then(closed.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		new ArrayList<>(this.pendingCallbacks).forEach(callback -> callback.onSuccess(null));
+		this.pendingCallbacks.clear();
+		then(closed.await(5, TimeUnit.SECONDS)).isTrue();
+		Mockito.verify(this.spanMetricReporter).incrementAcceptedSpans(1);
+	}
+
+	@Test
+	public void should_count_spans_received_after_close_as_dropped() throws Exception {
+		this.pipeline = pipeline();
+		this.pipeline.close();
+
+		this.pipeline.accept(spans(1, 3));
+		this.pipeline.accept(new ObjectMapper().writeValueAsBytes(spans(2, 2)), null);
+
+		then(this.storedBatches).isEmpty();
+		Mockito.verify(this.spanMetricReporter).incrementDroppedSpans(3);
+		Mockito.verify(this.metrics).incrementMessagesDropped();
+		Mockito.verify(this.spanMetricReporter, Mockito.never()).incrementDroppedSpans(2);
+	}
+
+	@Test
+	public void should_count_only_sampled_spans_as_accepted() throws Exception {
+		this.sampler = sampleOnlyTrace(1L);
+		this.properties.setMaxBatchSpans(5);
+		this.pipeline = pipeline();
+
+		this.pipeline.accept(spans(1, 2));
+		this.pipeline.accept(spans(2, 3));
+
+		await().atMost(5, TimeUnit.SECONDS).until(() -> this.storedBatches.size() == 1);
+		then(this.storedBatches.get(0)).hasSize(2);
+		Mockito.verify(this.spanMetricReporter).incrementAcceptedSpans(2);
+		Mockito.verify(this.spanMetricReporter, Mockito.never())
+				.incrementDroppedSpans(Mockito.anyLong());
+		Mockito.verify(this.metrics).incrementSpansDropped(3);
+	}
+
+	@Test
+	public void should_count_only_sampled_spans_as_dropped_when_storage_fails() throws Exception {
+		this.sampler = sampleOnlyTrace(1L);
+		this.properties.setMaxBatchSpans(5);
+		this.completeCallbacks = false;
+		this.pipeline = pipeline();
+
+		this.pipeline.accept(spans(1, 2));
+		this.pipeline.accept(spans(2, 3));
+		await().atMost(5, TimeUnit.SECONDS).until(() -> this.pendingCallbacks.size() == 1);
+		this.pendingCallbacks.remove(0).onError(new IllegalStateException("boom"));
+
+		Mockito.verify(this.spanMetricReporter).incrementDroppedSpans(2);
+		Mockito.verify(this.spanMetricReporter, Mockito.never())
+				.incrementAcceptedSpans(Mockito.anyLong());
+	}
+
+	private SpanIngestionPipeline pipeline() {
+		AsyncSpanConsumer consumer = (spans, callback) -> {
+			this.storedBatches.add(spans);
+			if (this.completeCallbacks) {
+				callback.onSuccess(null);
+			}
+			else {
+				this.pendingCallbacks.add(callback);
+			}
+		};
+		StorageComponent storage = Mockito.mock(StorageComponent.class);
+		Mockito.when(storage.asyncSpanConsumer()).thenReturn(consumer);
+		return new SpanIngestionPipeline(storage, this.sampler, this.metrics,
+				this.spanMetricReporter, null, this.properties);
+	}
+
+	private CollectorSampler sampleOnlyTrace(final long traceId) {
+		return new CollectorSampler() {
+			@Override protected long boundary() {
+				return 0;
+			}
+
+			@Override public boolean isSampled(zipkin.Span span) {
+				return span.traceId == traceId;
+			}
+		};
+	}
+
+	private Spans spans(long traceId, int count) {
+		List<Span> spans = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			spans.add(Span.builder().name("foo").traceId(traceId).spanId(i + 1)
+					.begin(1L).end(2L).processId("process").build());
+		}
+		return new Spans(this.host, Collections.unmodifiableList(spans));
+	}
+}
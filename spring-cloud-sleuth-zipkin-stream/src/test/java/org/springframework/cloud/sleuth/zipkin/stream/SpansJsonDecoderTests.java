@@ -0,0 +1,151 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.SleuthSink;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.stream.SpansMessageConverter;
+import org.springframework.util.MimeType;
+import zipkin.Constants;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SpansJsonDecoderTests {
+
+	ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	Host host = new Host("myservice", "1.2.3.4", 8080);
+
+	@Test
+	public void should_decode_the_same_spans_as_the_converter() throws Exception {
+		List<Span> spans = new ArrayList<>();
+		spans.add(Span.builder().name("local").traceId(1L).spanId(1L).begin(10L).end(20L)
+				.processId("Process").build());
+		spans.add(Span.builder().name("remote").traceIdHigh(7L).traceId(-1L).spanId(2L)
+				.parent(1L).parent(3L).begin(10L).end(12L).remote(true)
+				.tag("http.url", "/foo").tag("lc", "component").build());
+		Span client = Span.builder().name("client").traceId(1L).spanId(4L).parent(1L)
+				.begin(11L).end(19L).tag(Span.SPAN_PEER_SERVICE_TAG_NAME, "bar")
+				.tag("a", "b").tag("c", "d").build();
+		client.logEvent(12L, Constants.CLIENT_SEND);
+		client.logEvent(14L, "custom");
+		client.logEvent(18L, Constants.CLIENT_RECV);
+		spans.add(client);
+		Span server = Span.builder().name("server").traceId(1L).spanId(5L).begin(13L)
+				.end(15L).exportable(false).processId("server").build();
+		server.logEvent(13L, Constants.SERVER_RECV);
+		server.logEvent(15L, Constants.SERVER_SEND);
+		spans.add(server);
+		Span clientWithAddress = Span.builder().name("client").traceId(2L).spanId(6L)
+				.begin(11L).end(19L).tag(Span.SPAN_PEER_SERVICE_TAG_NAME, "bar")
+				.tag(Constants.SERVER_ADDR, "baz").build();
+		clientWithAddress.logEvent(12L, Constants.CLIENT_SEND);
+		spans.add(clientWithAddress);
+		spans.add(Span.builder().name("running").traceId(3L).spanId(7L).begin(10L).build());
+		spans.add(Span.builder().name("message:" + SleuthSink.INPUT).traceId(3L)
+				.spanId(8L).begin(10L).end(11L).build());
+		Spans input = new Spans(new Host("myservice", "1.2.3.4", 8080, 5), spans);
+
+		thenDecodedSpansAreConverted(this.objectMapper.writeValueAsBytes(input));
+	}
+
+	@Test
+	public void should_decode_the_same_spans_as_the_converter_skipping_unknown_fields() throws Exception {
+		String json = "{\"spans\":[{\"name\":\"a\",\"traceId\":1,\"spanId\":2,\"begin\":5,"
+				+ "\"foo\":{\"bar\":[1]},\"durationMicros\":300,\"parents\":[],"
+				+ "\"logs\":[{\"event\":\"cs\",\"timestamp\":6}]},"
+				+ "{\"name\":\"b\",\"traceId\":1,\"spanId\":3,\"begin\":5,\"savedSpan\":{\"traceId\":1},"
+				+ "\"remote\":true,\"processId\":null,\"tags\":{\"peer.service\":\"baz\"}}],"
+				+ "\"host\":{\"serviceName\":\"myservice\",\"address\":\"1.2.3.4\",\"port\":8080}}";
+
+		thenDecodedSpansAreConverted(json.getBytes(Charset.forName("UTF-8")));
+	}
+
+	@Test
+	public void should_not_make_up_values_of_missing_fields() throws Exception {
+		String json = "{\"host\":{\"serviceName\":\"myservice\",\"address\":\"1.2.3.4\"},"
+				+ "\"spans\":[{\"traceId\":1,\"spanId\":2,\"begin\":5,\"end\":9},"
+				+ "{\"traceId\":1,\"spanId\":3,\"durationMicros\":300},"
+				+ "{\"traceId\":1,\"spanId\":4,\"begin\":5,\"durationMicros\":1234}]}";
+
+		List<zipkin.Span> decoded = SpansJsonDecoder
+				.decode(json.getBytes(Charset.forName("UTF-8")));
+
+		then(decoded).hasSize(3);
+		then(decoded.get(0).name).isEmpty();
+		then(decoded.get(0).timestamp).isEqualTo(5000L);
+		then(decoded.get(0).duration).isNull();
+		then(decoded.get(1).timestamp).isNull();
+		then(decoded.get(1).duration).isNull();
+		then(decoded.get(2).duration).isEqualTo(1234L);
+	}
+
+	@Test
+	public void should_decode_a_message_without_spans() throws Exception {
+		byte[] json = this.objectMapper.writeValueAsBytes(
+				new Spans(this.host, new ArrayList<Span>()));
+
+		then(SpansJsonDecoder.decode(json)).isEmpty();
+	}
+
+	@Test
+	public void should_throw_exception_on_malformed_json() {
+		assertThatThrownBy(() -> SpansJsonDecoder.decode("[1, 2]".getBytes()))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> SpansJsonDecoder.decode("{\"spans\":[{".getBytes()))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> SpansJsonDecoder.decode("{\"spans\":[{}]}".getBytes()))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("host");
+	}
+
+	@Test
+	public void should_convert_only_json_and_binary_content_types() {
+		then(ConvertToZipkinSpanList.supports(null)).isTrue();
+		then(ConvertToZipkinSpanList.supports(
+				MimeType.valueOf("application/json;charset=UTF-8"))).isTrue();
+		then(ConvertToZipkinSpanList.supports(SpansMessageConverter.MIME_TYPE)).isTrue();
+		then(ConvertToZipkinSpanList.supports(
+				MimeType.valueOf("application/x-java-serialized-object"))).isFalse();
+		assertThatThrownBy(() -> ConvertToZipkinSpanList.convert("{}".getBytes(),
+				MimeType.valueOf("text/plain")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("text/plain");
+	}
+
+	private void thenDecodedSpansAreConverted(byte[] json) throws Exception {
+		List<zipkin.Span> expected = ConvertToZipkinSpanList
+				.convert(this.objectMapper.readValue(json, Spans.class));
+
+		List<zipkin.Span> decoded = SpansJsonDecoder.decode(json);
+
+		then(decoded).isNotEmpty().isEqualTo(expected);
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.IOException;
+import java.util.List;
+
+import zipkin.reporter.Callback;
+import zipkin.reporter.Encoding;
+import zipkin.reporter.Sender;
+
+/**
+ * {@link Sender} that fails fast while the {@link SenderCircuitBreaker} is open, so
+ * that the flush thread isn't blocked on an unavailable Zipkin. The spans that fail
+ * fast are counted as dropped by the reporter.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class CircuitBreakingSender implements Sender {
+
+	static final IllegalStateException CIRCUIT_OPEN =
+			new IllegalStateException("Circuit to the Zipkin sender is open");
+
+	static {
+		CIRCUIT_OPEN.setStackTrace(new StackTraceElement[0]);
+	}
+
+	final Sender delegate;
+	final SenderCircuitBreaker circuitBreaker;
+
+	CircuitBreakingSender(Sender delegate, SenderCircuitBreaker circuitBreaker) {
+		this.delegate = delegate;
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	@Override public Encoding encoding() {
+		return this.delegate.encoding();
+	}
+
+	@Override public int messageMaxBytes() {
+		return this.delegate.messageMaxBytes();
+	}
+
+	@Override public int messageSizeInBytes(List<byte[]> spans) {
+		return this.delegate.messageSizeInBytes(spans);
+	}
+
+	@Override public void sendSpans(List<byte[]> encodedSpans, final Callback callback) {
+		if (this.circuitBreaker.getState() != SenderCircuitBreaker.State.CLOSED) {
+			if (!this.circuitBreaker.tryHalfOpen()) {
+				callback.onError(CIRCUIT_OPEN);
+				return;
+			}
+			CheckResult result = this.delegate.check();
+			if (!result.ok) {
+				this.circuitBreaker.onFailure(result.exception);
+				callback.onError(result.exception);
+				return;
+			}
+			this.circuitBreaker.onSuccess();
+		}
+		this.delegate.sendSpans(encodedSpans, new Callback() {
+			@Override public void onComplete() {
+				CircuitBreakingSender.this.circuitBreaker.onSuccess();
+				callback.onComplete();
+			}
+
+			@Override public void onError(Throwable t) {
+				CircuitBreakingSender.this.circuitBreaker.onFailure(t);
+				callback.onError(t);
+			}
+		});
+	}
+
+	@Override public CheckResult check() {
+		CheckResult result = this.delegate.check();
+		if (result.ok) {
+			this.circuitBreaker.onSuccess();
+		}
+		return result;
+	}
+
+	@Override public void close() throws IOException {
+		this.delegate.close();
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import zipkin.reporter.BytesMessageEncoder;
+import zipkin.reporter.Callback;
+import zipkin.reporter.Encoding;
+import zipkin.reporter.Sender;
+
+/**
+ * {@link Sender} that appends messages of spans to local files. Each file is
+ * preallocated to its maximum size and memory mapped. A file is rolled when the next
+ * message doesn't fit in it or when it's older than the roll interval. The latter is
+ * checked by a timer, so that a file is closed on time even if no more spans are
+ * written. The next file is created with the next message.
+ *
+ * A file is written under a name ending with {@value #IN_PROGRESS_SUFFIX}. When it's
+ * rolled it's truncated to the written size and renamed to its final name, so that
+ * importers only pick up complete files.
+ *
+ * JSON messages are lists of spans separated by a new line, so that each line can be
+ * posted to the Zipkin {@code POST /api/v1/spans} endpoint. Thrift messages are
+ * concatenated lists of spans, like the ones read by Zipkin's Kafka collector.
+ *
+ * Messages are written by the thread flushing the reporter. The mapped buffer is
+ * forced to disk once per message, so a whole batch of spans is committed at once.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+final class FileSender implements Sender {
+
+	private static final Log log = LogFactory.getLog(FileSender.class);
+
+	static final String FILE_PREFIX = "spans-";
+	static final String IN_PROGRESS_SUFFIX = ".tmp";
+	private static final byte NEW_LINE = '\n';
+	private static final int MAX_MESSAGE_BYTES = 5 * 1024 * 1024;
+
+	final File directory;
+	final Encoding encoding;
+	final long maxFileSize;
+	final long rollIntervalNanos;
+	private final BytesMessageEncoder messageEncoder;
+	// Nullable
+	private final ScheduledExecutorService roller;
+
+	// guarded by this
+	private int sequence;
+	private File file;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long openedAt;
+	private ScheduledFuture<?> scheduledRoll;
+
+	/** close is typically called from a different thread */
+	transient boolean closeCalled;
+
+	FileSender(File directory, Encoding encoding, long maxFileSize, long rollInterval, TimeUnit unit) {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalArgumentException("Can't create the directory [" + directory + "]");
+		}
+		if (maxFileSize < 2 || maxFileSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Max file size must be between 2 and " + Integer.MAX_VALUE);
+		}
+		this.directory = directory;
+		this.encoding = encoding;
+		this.maxFileSize = maxFileSize;
+		this.rollIntervalNanos = unit.toNanos(rollInterval);
+		this.messageEncoder = BytesMessageEncoder.forEncoding(encoding);
+		this.roller = rollInterval > 0 ? Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "sleuth-zipkin-file-roller");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}) : null;
+	}
+
+	@Override public Encoding encoding() {
+		return this.encoding;
+	}
+
+	@Override public int messageMaxBytes() {
+		// leaves space for the new line separator
+		return (int) Math.min(MAX_MESSAGE_BYTES, this.maxFileSize - 1);
+	}
+
+	@Override public int messageSizeInBytes(List<byte[]> spans) {
+		return this.encoding.listSizeInBytes(spans);
+	}
+
+	@Override public void sendSpans(List<byte[]> encodedSpans, Callback callback) {
+		if (this.closeCalled) throw new IllegalStateException("close");
+		try {
+			write(this.messageEncoder.encode(encodedSpans));
+			callback.onComplete();
+		} catch (Throwable e) {
+			callback.onError(e);
+			if (e instanceof Error) throw (Error) e;
+		}
+	}
+
+	/** Checks whether spans can be written to the directory */
+	@Override public CheckResult check() {
+		if (this.directory.isDirectory() && this.directory.canWrite()) {
+			return CheckResult.OK;
+		}
+		return CheckResult.failed(new IOException("Can't write to the directory [" + this.directory + "]"));
+	}
+
+	@Override public synchronized void close() {
+		if (this.closeCalled) return;
+		this.closeCalled = true;
+		if (this.roller != null) {
+			this.roller.shutdownNow();
+		}
+		File file = this.file;
+		try {
+			closeCurrentFile();
+		} catch (IOException e) {
+			log.warn("Failed to close the file [" + file + "] with spans", e);
+		}
+	}
+
+	synchronized void write(byte[] message) throws IOException {
+		int length = message.length + (this.encoding == Encoding.JSON ? 1 : 0);
+		if (this.buffer != null && (this.buffer.remaining() < length
+				|| System.nanoTime() - this.openedAt >= this.rollIntervalNanos)) {
+			closeCurrentFile();
+		}
+		if (this.buffer == null) {
+			openNextFile();
+		}
+		this.buffer.put(message);
+		if (this.encoding == Encoding.JSON) {
+			this.buffer.put(NEW_LINE);
+		}
+		this.buffer.force();
+	}
+
+	/**
+	 * @return the in progress file that spans are currently written to or {@code null}
+	 * if there's none
+	 */
+	synchronized File currentFile() {
+		return this.file;
+	}
+
+	/** Closes the current file if it's older than the roll interval */
+	synchronized void rollIfExpired() {
+		if (this.buffer == null || System.nanoTime() - this.openedAt < this.rollIntervalNanos) {
+			return;
+		}
+		File file = this.file;
+		try {
+			closeCurrentFile();
+		} catch (IOException e) {
+			log.warn("Failed to close the file [" + file + "] with spans", e);
+		}
+	}
+
+	private void openNextFile() throws IOException {
+		File file = new File(this.directory, nextFileName() + IN_PROGRESS_SUFFIX);
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.maxFileSize);
+			this.channel = channel;
+			this.file = file;
+			this.openedAt = System.nanoTime();
+		} catch (IOException e) {
+			randomAccessFile.close();
+			throw e;
+		}
+		if (this.roller != null) {
+			this.scheduledRoll = this.roller.schedule(new Runnable() {
+				@Override public void run() {
+					rollIfExpired();
+				}
+			}, this.rollIntervalNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void closeCurrentFile() throws IOException {
+		if (this.buffer == null) {
+			return;
+		}
+		if (this.scheduledRoll != null) {
+			this.scheduledRoll.cancel(false);
+			this.scheduledRoll = null;
+		}
+		File file = this.file;
+		try {
+			this.buffer.force();
+			// drops the unused, preallocated part of the file
+			this.channel.truncate(this.buffer.position());
+		} finally {
+			this.channel.close();
+			this.channel = null;
+			this.buffer = null;
+			this.file = null;
+		}
+		String path = file.getPath();
+		File completed = new File(path.substring(0, path.length() - IN_PROGRESS_SUFFIX.length()));
+		Files.move(file.toPath(), completed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private String nextFileName() {
+		String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+		String extension = this.encoding == Encoding.JSON ? ".json" : ".thrift";
+		return FILE_PREFIX + timestamp + "-" + this.sequence++ + extension;
+	}
+}
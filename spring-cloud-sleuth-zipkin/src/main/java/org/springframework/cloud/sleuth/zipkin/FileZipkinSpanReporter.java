@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+
+import zipkin.Span;
+import zipkin.reporter.AsyncReporter;
+import zipkin.reporter.Encoding;
+
+/**
+ * Writes spans to size and time rolled files in a local directory instead of sending
+ * them to Zipkin. Useful for batch jobs or environments without access to a collector -
+ * the files can be imported to Zipkin later on. Spans are encoded on the reporting
+ * thread and written to disk in batches by a background thread.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ *
+ * @see FileSender
+ */
+public final class FileZipkinSpanReporter implements ZipkinSpanReporter, Flushable, Closeable {
+	private final FileSender sender;
+	private final AsyncReporter<Span> delegate;
+
+	/**
+	 * @param directory directory to which the files with spans are written
+	 * @param encoding span encoding
+	 * @param maxFileSize in bytes. Each file is preallocated to this size and rolled when
+	 * the next message doesn't fit in it
+	 * @param rollInterval in seconds. Older files are closed and the next spans are written
+	 * to a new file
+	 * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed} externally.
+	 * @param spanMetricReporter service to count number of accepted / dropped spans
+	 */
+	public FileZipkinSpanReporter(File directory, Encoding encoding, long maxFileSize,
+			int rollInterval, int flushInterval, SpanMetricReporter spanMetricReporter) {
+		this.sender = new FileSender(directory, encoding, maxFileSize, rollInterval, TimeUnit.SECONDS);
+		this.delegate = AsyncReporter.builder(this.sender)
+				.queuedMaxSpans(1000)
+				.messageTimeout(flushInterval, TimeUnit.SECONDS)
+				.metrics(new ReporterMetricsAdapter(spanMetricReporter))
+				.build();
+	}
+
+	/**
+	 * Queues the span for writing, or drops it if the queue is full.
+	 *
+	 * @param span Span, should not be <code>null</code>.
+	 */
+	@Override
+	public void report(Span span) {
+		this.delegate.report(span);
+	}
+
+	/**
+	 * Calling this will write any pending spans to the current file on the current thread.
+	 */
+	@Override
+	public void flush() {
+		this.delegate.flush();
+	}
+
+	/**
+	 * Blocks until in-flight spans are written and closes the current file.
+	 */
+	@Override
+	public void close() {
+		this.delegate.close();
+		this.sender.close();
+	}
+}
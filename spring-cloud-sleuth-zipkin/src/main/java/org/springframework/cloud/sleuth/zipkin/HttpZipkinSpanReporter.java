@@ -10,6 +10,7 @@ import org.springframework.web.client.RestTemplate;
 import zipkin.Span;
 import zipkin.reporter.AsyncReporter;
 import zipkin.reporter.Encoding;
+import zipkin.reporter.Sender;
 
 /**
  * Submits spans using Zipkin's {@code POST /spans} endpoint.
@@ -20,6 +21,9 @@ import zipkin.reporter.Encoding;
 public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushable, Closeable {
 	private final RestTemplateSender sender;
 	private final AsyncReporter<Span> delegate;
+	private final SpanMetricReporter spanMetricReporter;
+	// Nullable
+	private final SenderCircuitBreaker circuitBreaker;
 
 	/**
 	 * @param restTemplate {@link RestTemplate} used for sending requests to Zipkin
@@ -41,8 +45,26 @@ public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushab
 	 */
 	public HttpZipkinSpanReporter(RestTemplate restTemplate, String baseUrl, int flushInterval,
 								SpanMetricReporter spanMetricReporter, Encoding encoding) {
-		this.sender = new RestTemplateSender(restTemplate, baseUrl, encoding);
-		this.delegate = AsyncReporter.builder(this.sender)
+		this(restTemplate, baseUrl, flushInterval, spanMetricReporter, encoding, null);
+	}
+
+	/**
+	 * @param restTemplate {@link RestTemplate} used for sending requests to Zipkin
+	 * @param baseUrl       URL of the zipkin query server instance. Like: http://localhost:9411/
+	 * @param flushInterval in seconds. 0 implies spans are {@link #flush() flushed} externally.
+	 * @param spanMetricReporter service to count number of accepted / dropped spans
+	 * @param encoding span encoding.
+	 * @param circuitBreaker circuit breaker of the sender, {@code null} disables it
+	 */
+	public HttpZipkinSpanReporter(RestTemplate restTemplate, String baseUrl, int flushInterval,
+			SpanMetricReporter spanMetricReporter, Encoding encoding,
+			SenderCircuitBreaker circuitBreaker) {
+		this.sender = new RestTemplateSender(restTemplate, baseUrl, encoding, spanMetricReporter);
+		this.spanMetricReporter = spanMetricReporter;
+		this.circuitBreaker = circuitBreaker;
+		Sender sender = circuitBreaker != null ?
+				new CircuitBreakingSender(this.sender, circuitBreaker) : this.sender;
+		this.delegate = AsyncReporter.builder(sender)
 				.queuedMaxSpans(1000) // historical constraint. Note: AsyncReporter supports memory bounds
 				.messageTimeout(flushInterval, TimeUnit.SECONDS)
 				.metrics(new ReporterMetricsAdapter(spanMetricReporter))
@@ -50,12 +72,19 @@ public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushab
 	}
 
 	/**
-	 * Queues the span for collection, or drops it if the queue is full.
+	 * Queues the span for collection, or drops it if the queue is full or
+	 * the circuit to the sender is open.
 	 *
 	 * @param span Span, should not be <code>null</code>.
 	 */
 	@Override
 	public void report(Span span) {
+		if (this.circuitBreaker != null && !this.circuitBreaker.allowsSpans()) {
+			// don't pay for encoding a span that would be dropped anyway
+			this.spanMetricReporter.incrementAcceptedSpans(1);
+			this.spanMetricReporter.incrementDroppedSpans(1);
+			return;
+		}
 		this.delegate.report(span);
 	}
 
@@ -1,14 +1,19 @@
 package org.springframework.cloud.sleuth.zipkin;
 
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
 import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanTransportMetricReporter;
 
 import zipkin.reporter.ReporterMetrics;
 
 final class ReporterMetricsAdapter implements ReporterMetrics {
 	private final SpanMetricReporter spanMetricReporter;
+	private final SpanTransportMetricReporter transportMetricReporter;
 
 	public ReporterMetricsAdapter(SpanMetricReporter spanMetricReporter) {
 		this.spanMetricReporter = spanMetricReporter;
+		this.transportMetricReporter = spanMetricReporter instanceof SpanTransportMetricReporter ?
+				(SpanTransportMetricReporter) spanMetricReporter : new NoOpSpanMetricReporter();
 	}
 
 	@Override
@@ -17,6 +22,11 @@ final class ReporterMetricsAdapter implements ReporterMetrics {
 
 	@Override
 	public void incrementMessagesDropped(Throwable throwable) {
+		// the circuit breaker failing fast isn't a failure of the transport
+		if (throwable == CircuitBreakingSender.CIRCUIT_OPEN) {
+			return;
+		}
+		this.transportMetricReporter.incrementSendFailures(throwable);
 	}
 
 	@Override
@@ -30,6 +40,7 @@ final class ReporterMetricsAdapter implements ReporterMetrics {
 
 	@Override
 	public void incrementMessageBytes(int i) {
+		this.transportMetricReporter.recordMessageBytes(i);
 	}
 
 	@Override
@@ -39,6 +50,7 @@ final class ReporterMetricsAdapter implements ReporterMetrics {
 
 	@Override
 	public void updateQueuedSpans(int i) {
+		this.transportMetricReporter.updateQueuedSpans(i);
 	}
 
 	@Override
@@ -3,6 +3,9 @@ package org.springframework.cloud.sleuth.zipkin;
 import java.net.URI;
 import java.util.List;
 
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanTransportMetricReporter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
@@ -20,12 +23,16 @@ final class RestTemplateSender implements Sender {
 
 	final Encoding encoding;
 	final MediaType mediaType;
+	final SpanTransportMetricReporter transportMetricReporter;
 
-	RestTemplateSender(RestTemplate restTemplate, String baseUrl, Encoding encoding) {
+	RestTemplateSender(RestTemplate restTemplate, String baseUrl, Encoding encoding,
+			SpanMetricReporter spanMetricReporter) {
 		this.restTemplate = restTemplate;
 		this.url = baseUrl + (baseUrl.endsWith("/") ? "" : "/") + "api/v1/spans";
 		this.encoding = encoding;
 		this.mediaType = mediaType(encoding);
+		this.transportMetricReporter = spanMetricReporter instanceof SpanTransportMetricReporter ?
+				(SpanTransportMetricReporter) spanMetricReporter : new NoOpSpanMetricReporter();
 	}
 
 	@Override public Encoding encoding() {
@@ -47,8 +54,13 @@ final class RestTemplateSender implements Sender {
 	@Override public void sendSpans(List<byte[]> encodedSpans, Callback callback) {
 		if (this.closeCalled) throw new IllegalStateException("close");
 		try {
+			long start = System.nanoTime();
 			byte[] message = BytesMessageEncoder.forEncoding(this.encoding).encode(encodedSpans);
+			long encoded = System.nanoTime();
+			this.transportMetricReporter.recordEncodeTime(encoded - start);
+			this.transportMetricReporter.recordMessageSpans(encodedSpans.size());
 			post(message);
+			this.transportMetricReporter.recordSendTime(System.nanoTime() - encoded);
 			callback.onComplete();
 		} catch (Throwable e) {
 			callback.onError(e);
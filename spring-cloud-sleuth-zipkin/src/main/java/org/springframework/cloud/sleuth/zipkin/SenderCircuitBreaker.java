@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanTransportMetricReporter;
+
+/**
+ * Circuit breaker guarding the transport used to send spans to Zipkin. After
+ * {@code failureThreshold} consecutive failed sends the circuit opens and spans are
+ * dropped without being encoded or sent. Once the retry interval passes a single
+ * probe is made via {@link zipkin.reporter.Sender#check()} (half open state). If it
+ * succeeds the circuit closes, otherwise it stays open for another retry interval.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class SenderCircuitBreaker {
+
+	private static final Log log = LogFactory.getLog(SenderCircuitBreaker.class);
+
+	public enum State {
+		/** Spans are sent */
+		CLOSED,
+		/** Spans are dropped until the retry interval passes */
+		OPEN,
+		/** A probe is being sent to check whether the transport is back */
+		HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long retryIntervalNanos;
+	private final SpanTransportMetricReporter transportMetricReporter;
+	private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private volatile long openedAt;
+	// Nullable
+	private volatile Throwable lastFailure;
+
+	public SenderCircuitBreaker(int failureThreshold, long retryInterval, TimeUnit unit) {
+		this(failureThreshold, retryInterval, unit, new NoOpSpanMetricReporter());
+	}
+
+	/**
+	 * @param failureThreshold number of consecutive failures after which the circuit opens
+	 * @param retryInterval time after which an open circuit is probed
+	 * @param unit unit of the retry interval
+	 * @param spanMetricReporter notified whenever the circuit opens or closes, if it's
+	 * a {@link SpanTransportMetricReporter}
+	 */
+	public SenderCircuitBreaker(int failureThreshold, long retryInterval, TimeUnit unit,
+			SpanMetricReporter spanMetricReporter) {
+		if (failureThreshold < 1) {
+			throw new IllegalArgumentException("Failure threshold must be positive");
+		}
+		this.failureThreshold = failureThreshold;
+		this.retryIntervalNanos = unit.toNanos(retryInterval);
+		this.transportMetricReporter = spanMetricReporter instanceof SpanTransportMetricReporter ?
+				(SpanTransportMetricReporter) spanMetricReporter : new NoOpSpanMetricReporter();
+	}
+
+	/**
+	 * @return {@code true} if spans should be encoded and queued for sending. That's the
+	 * case when the circuit is closed or when it's open for long enough to be probed.
+	 */
+	public boolean allowsSpans() {
+		State state = this.state.get();
+		if (state == State.CLOSED) {
+			return true;
+		}
+		return state == State.OPEN && retryIntervalPassed();
+	}
+
+	/**
+	 * Moves an open circuit, whose retry interval has passed, to the half open state.
+	 *
+	 * @return {@code true} if the caller should probe the transport
+	 */
+	boolean tryHalfOpen() {
+		return retryIntervalPassed() && this.state.compareAndSet(State.OPEN, State.HALF_OPEN);
+	}
+
+	/**
+	 * Called after spans were successfully sent or the transport was successfully probed
+	 */
+	public void onSuccess() {
+		this.consecutiveFailures.set(0);
+		State previous = this.state.getAndSet(State.CLOSED);
+		if (previous != State.CLOSED) {
+			if (log.isInfoEnabled()) {
+				log.info("Zipkin sender is available again, closing the circuit");
+			}
+			this.transportMetricReporter.senderCircuitStateChanged(false);
+		}
+	}
+
+	/**
+	 * Called when sending spans or probing the transport failed
+	 */
+	public void onFailure(Throwable throwable) {
+		this.lastFailure = throwable;
+		int failures = this.consecutiveFailures.incrementAndGet();
+		if (this.state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+			this.openedAt = System.nanoTime();
+			if (log.isDebugEnabled()) {
+				log.debug("Zipkin sender is still unavailable, keeping the circuit open", throwable);
+			}
+			return;
+		}
+		if (failures >= this.failureThreshold) {
+			this.openedAt = System.nanoTime();
+			if (this.state.compareAndSet(State.CLOSED, State.OPEN)) {
+				log.warn("Zipkin sender failed [" + failures + "] consecutive times, opening the "
+						+ "circuit. Spans will be dropped until the sender is available again", throwable);
+				this.transportMetricReporter.senderCircuitStateChanged(true);
+			}
+		}
+	}
+
+	public State getState() {
+		return this.state.get();
+	}
+
+	public int getConsecutiveFailures() {
+		return this.consecutiveFailures.get();
+	}
+
+	/**
+	 * @return the last failure of the sender or {@code null} if there was none
+	 */
+	public Throwable getLastFailure() {
+		return this.lastFailure;
+	}
+
+	private boolean retryIntervalPassed() {
+		return System.nanoTime() - this.openedAt >= this.retryIntervalNanos;
+	}
+}
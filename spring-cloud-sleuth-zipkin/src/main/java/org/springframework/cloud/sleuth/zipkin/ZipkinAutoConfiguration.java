@@ -16,15 +16,19 @@
 
 package org.springframework.cloud.sleuth.zipkin;
 
+import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -42,6 +46,7 @@ import org.springframework.cloud.sleuth.autoconfig.TraceAutoConfiguration;
 import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
 import org.springframework.cloud.sleuth.sampler.PercentageBasedSampler;
 import org.springframework.cloud.sleuth.sampler.SamplerProperties;
+import org.springframework.cloud.sleuth.util.CachedInstanceId;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
@@ -78,12 +83,54 @@ public class ZipkinAutoConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean
+	@ConditionalOnProperty(value = "spring.zipkin.file.enabled", havingValue = "false", matchIfMissing = true)
 	public ZipkinSpanReporter reporter(SpanMetricReporter spanMetricReporter, ZipkinProperties zipkin,
-			ZipkinRestTemplateCustomizer zipkinRestTemplateCustomizer) {
+			ZipkinRestTemplateCustomizer zipkinRestTemplateCustomizer,
+			ObjectProvider<SenderCircuitBreaker> senderCircuitBreaker) {
 		RestTemplate restTemplate = zipkinRestTemplate(zipkin);
 		zipkinRestTemplateCustomizer.customize(restTemplate);
 		return new HttpZipkinSpanReporter(restTemplate, zipkin.getBaseUrl(), zipkin.getFlushInterval(),
-				spanMetricReporter, zipkin.getEncoding());
+				spanMetricReporter, zipkin.getEncoding(), senderCircuitBreaker.getIfAvailable());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(value = "spring.zipkin.file.enabled")
+	public ZipkinSpanReporter fileReporter(SpanMetricReporter spanMetricReporter, ZipkinProperties zipkin) {
+		ZipkinProperties.FileSenderProperties file = zipkin.getFile();
+		return new FileZipkinSpanReporter(new File(file.getDirectory()), zipkin.getEncoding(),
+				file.getMaxFileSize(), file.getRollInterval(), zipkin.getFlushInterval(),
+				spanMetricReporter);
+	}
+
+	@Configuration
+	@ConditionalOnProperty(value = "spring.zipkin.file.enabled", havingValue = "false", matchIfMissing = true)
+	protected static class HttpSenderConfiguration {
+
+		@Configuration
+		@ConditionalOnProperty(value = "spring.zipkin.circuit-breaker.enabled")
+		protected static class SenderCircuitBreakerConfiguration {
+
+			@Bean
+			@ConditionalOnMissingBean
+			public SenderCircuitBreaker zipkinSenderCircuitBreaker(ZipkinProperties zipkin,
+					SpanMetricReporter spanMetricReporter) {
+				ZipkinProperties.CircuitBreaker circuitBreaker = zipkin.getCircuitBreaker();
+				return new SenderCircuitBreaker(circuitBreaker.getFailureThreshold(),
+						circuitBreaker.getRetryInterval(), TimeUnit.SECONDS, spanMetricReporter);
+			}
+
+			@Configuration
+			@ConditionalOnClass(HealthIndicator.class)
+			protected static class SenderHealthIndicatorConfiguration {
+
+				@Bean
+				@ConditionalOnMissingBean(name = "zipkinSenderHealthIndicator")
+				public HealthIndicator zipkinSenderHealthIndicator(SenderCircuitBreaker zipkinSenderCircuitBreaker) {
+					return new ZipkinSenderHealthIndicator(zipkinSenderCircuitBreaker);
+				}
+			}
+		}
 	}
 
 	private RestTemplate zipkinRestTemplate(ZipkinProperties zipkinProperties) {
@@ -142,10 +189,16 @@ public class ZipkinAutoConfiguration {
 		return new PercentageBasedSampler(config);
 	}
 
+	@Bean
+	@ConditionalOnMissingBean
+	public CachedInstanceId sleuthInstanceId(Environment environment) {
+		return new CachedInstanceId(environment);
+	}
+
 	@Bean
 	public SpanReporter zipkinSpanListener(ZipkinSpanReporter reporter, EndpointLocator endpointLocator,
-			Environment environment) {
-		return new ZipkinSpanListener(reporter, endpointLocator, environment, this.spanAdjusters);
+			CachedInstanceId instanceId) {
+		return new ZipkinSpanListener(reporter, endpointLocator, this.spanAdjusters, instanceId);
 	}
 
 	@Configuration
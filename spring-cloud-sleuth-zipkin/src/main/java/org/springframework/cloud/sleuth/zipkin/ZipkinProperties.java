@@ -54,6 +54,10 @@ public class ZipkinProperties {
 
 	private Locator locator = new Locator();
 
+	private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+	private FileSenderProperties file = new FileSenderProperties();
+
 	public Locator getLocator() {
 		return this.locator;
 	}
@@ -110,6 +114,22 @@ public class ZipkinProperties {
 		this.encoding = encoding;
 	}
 
+	public CircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	public FileSenderProperties getFile() {
+		return this.file;
+	}
+
+	public void setFile(FileSenderProperties file) {
+		this.file = file;
+	}
+
 	/** When enabled, spans are gzipped before sent to the zipkin server */
 	public static class Compression {
 
@@ -170,4 +190,88 @@ public class ZipkinProperties {
 			}
 		}
 	}
+
+	/** Configuration of the circuit breaker that stops sending spans to an unavailable Zipkin */
+	public static class CircuitBreaker {
+
+		/** When enabled, spans are dropped without being encoded or sent after consecutive send failures */
+		private boolean enabled = false;
+
+		/** Number of consecutive failed sends after which the circuit opens */
+		private int failureThreshold = 3;
+
+		/** Interval in seconds after which an open circuit is probed */
+		private int retryInterval = 10;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getFailureThreshold() {
+			return this.failureThreshold;
+		}
+
+		public void setFailureThreshold(int failureThreshold) {
+			this.failureThreshold = failureThreshold;
+		}
+
+		public int getRetryInterval() {
+			return this.retryInterval;
+		}
+
+		public void setRetryInterval(int retryInterval) {
+			this.retryInterval = retryInterval;
+		}
+	}
+
+	/** When enabled, spans are written to local files instead of being sent to Zipkin via HTTP */
+	public static class FileSenderProperties {
+
+		private boolean enabled = false;
+
+		/** Directory to which the files with spans are written */
+		private String directory = "spans";
+
+		/** Maximum size of a file with spans in bytes. Each file is preallocated to that size */
+		private long maxFileSize = 64 * 1024 * 1024;
+
+		/** Interval in seconds after which the file with spans is closed and a new one is started */
+		private int rollInterval = 3600;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public long getMaxFileSize() {
+			return this.maxFileSize;
+		}
+
+		public void setMaxFileSize(long maxFileSize) {
+			this.maxFileSize = maxFileSize;
+		}
+
+		public int getRollInterval() {
+			return this.rollInterval;
+		}
+
+		public void setRollInterval(int rollInterval) {
+			this.rollInterval = rollInterval;
+		}
+	}
 }
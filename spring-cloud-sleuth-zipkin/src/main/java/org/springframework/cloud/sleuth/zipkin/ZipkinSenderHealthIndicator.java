@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * {@link org.springframework.boot.actuate.health.HealthIndicator} exposing the state of
+ * the {@link SenderCircuitBreaker}. The sender is reported {@link Status#DOWN} as long as
+ * the circuit isn't closed, i.e. while spans are being dropped.
+ *
+ * @author Marcin Grzejszczak
+ * @since 1.3.0
+ */
+public class ZipkinSenderHealthIndicator extends AbstractHealthIndicator {
+
+	private final SenderCircuitBreaker circuitBreaker;
+
+	public ZipkinSenderHealthIndicator(SenderCircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	@Override
+	protected void doHealthCheck(Health.Builder builder) throws Exception {
+		SenderCircuitBreaker.State state = this.circuitBreaker.getState();
+		if (state == SenderCircuitBreaker.State.CLOSED) {
+			builder.up();
+		}
+		else {
+			builder.down();
+		}
+		builder.withDetail("circuit", state)
+				.withDetail("consecutiveFailures", this.circuitBreaker.getConsecutiveFailures());
+		Throwable lastFailure = this.circuitBreaker.getLastFailure();
+		if (lastFailure != null && state != SenderCircuitBreaker.State.CLOSED) {
+			builder.withDetail("lastFailure", lastFailure.getClass().getName() + ": " + lastFailure.getMessage());
+		}
+	}
+}
@@ -21,11 +21,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
-import org.springframework.cloud.commons.util.IdUtils;
 import org.springframework.cloud.sleuth.Log;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.SpanAdjuster;
 import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.util.CachedInstanceId;
 import org.springframework.core.env.Environment;
 import org.springframework.util.StringUtils;
 import zipkin.Annotation;
@@ -53,7 +53,7 @@ public class ZipkinSpanListener implements SpanReporter {
 	private static final byte[] UNKNOWN_BYTES = "unknown".getBytes(UTF_8);
 
 	private final ZipkinSpanReporter reporter;
-	private final Environment environment;
+	private final CachedInstanceId instanceId; // Nullable
 	private final List<SpanAdjuster> spanAdjusters;
 	/**
 	 * Endpoint is the visible IP address of this service, the port it is listening on and
@@ -64,9 +64,15 @@ public class ZipkinSpanListener implements SpanReporter {
 
 	public ZipkinSpanListener(ZipkinSpanReporter reporter, EndpointLocator endpointLocator,
 			Environment environment, List<SpanAdjuster> spanAdjusters) {
+		this(reporter, endpointLocator,
+				spanAdjusters, environment != null ? new CachedInstanceId(environment) : null);
+	}
+
+	public ZipkinSpanListener(ZipkinSpanReporter reporter, EndpointLocator endpointLocator,
+			List<SpanAdjuster> spanAdjusters, CachedInstanceId instanceId) {
 		this.reporter = reporter;
 		this.endpointLocator = endpointLocator;
-		this.environment = environment;
+		this.instanceId = instanceId;
 		this.spanAdjusters = spanAdjusters;
 	}
 
@@ -166,16 +172,16 @@ public class ZipkinSpanListener implements SpanReporter {
 		if (hasClientSend) {
 			ensureServerAddr(span, zipkinSpan);
 		}
-		if (instanceIdToTag && this.environment != null) {
+		if (instanceIdToTag && this.instanceId != null) {
 			setInstanceIdIfPresent(zipkinSpan, endpoint, Span.INSTANCEID);
 		}
 	}
 
 	private void setInstanceIdIfPresent(zipkin.Span.Builder zipkinSpan,
 			Endpoint endpoint, String key) {
-		String property = IdUtils.getDefaultInstanceId(this.environment);
-		if (StringUtils.hasText(property)) {
-			addZipkinBinaryAnnotation(key, property, endpoint, zipkinSpan);
+		byte[] instanceId = this.instanceId.getUtf8Bytes();
+		if (instanceId != null) {
+			addZipkinBinaryAnnotation(key, instanceId, endpoint, zipkinSpan);
 		}
 	}
 
@@ -205,10 +211,15 @@ public class ZipkinSpanListener implements SpanReporter {
 
 	private void addZipkinBinaryAnnotation(String key, String value, Endpoint ep,
 			zipkin.Span.Builder zipkinSpan) {
+		addZipkinBinaryAnnotation(key, value.getBytes(UTF_8), ep, zipkinSpan);
+	}
+
+	private void addZipkinBinaryAnnotation(String key, byte[] value, Endpoint ep,
+			zipkin.Span.Builder zipkinSpan) {
 		BinaryAnnotation binaryAnn = BinaryAnnotation.builder()
 				.type(BinaryAnnotation.Type.STRING)
 				.key(key)
-				.value(value.getBytes(UTF_8))
+				.value(value)
 				.endpoint(ep).build();
 		zipkinSpan.addBinaryAnnotation(binaryAnn);
 	}
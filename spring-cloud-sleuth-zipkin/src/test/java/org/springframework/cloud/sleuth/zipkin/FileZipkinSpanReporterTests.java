@@ -0,0 +1,196 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.sleuth.metric.CounterServiceBasedSpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+
+import zipkin.Codec;
+import zipkin.Span;
+import zipkin.reporter.Encoding;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class FileZipkinSpanReporterTests {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+	InMemorySpanCounter inMemorySpanCounter = new InMemorySpanCounter();
+	SpanMetricReporter spanMetricReporter = new CounterServiceBasedSpanMetricReporter("accepted", "dropped",
+			this.inMemorySpanCounter);
+	FileZipkinSpanReporter reporter;
+
+	@After
+	public void close() {
+		if (this.reporter != null) {
+			this.reporter.close();
+		}
+	}
+
+	@Test
+	public void should_not_write_spans_before_flush() throws Exception {
+		this.reporter = reporter(Encoding.JSON, 1024 * 1024);
+
+		this.reporter.report(span(1L, "foo"));
+
+		then(this.folder.getRoot().listFiles()).isEmpty();
+		then(this.inMemorySpanCounter.getAcceptedSpans()).isEqualTo(1);
+	}
+
+	@Test
+	public void should_write_a_json_list_of_spans_per_line() throws Exception {
+		this.reporter = reporter(Encoding.JSON, 1024 * 1024);
+
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.report(span(2L, "bar"));
+		this.reporter.flush();
+		this.reporter.report(span(3L, "baz"));
+		this.reporter.flush();
+		this.reporter.close();
+
+		File[] files = this.folder.getRoot().listFiles();
+		then(files).hasSize(1);
+		then(files[0].getName()).startsWith("spans-").endsWith(".json");
+		List<String> lines = Files.readAllLines(files[0].toPath());
+		then(lines).hasSize(2);
+		then(Codec.JSON.readSpans(lines.get(0).getBytes("UTF-8")))
+				.containsExactly(span(1L, "foo"), span(2L, "bar"));
+		then(Codec.JSON.readSpans(lines.get(1).getBytes("UTF-8")))
+				.containsExactly(span(3L, "baz"));
+	}
+
+	@Test
+	public void should_write_thrift_encoded_spans() throws Exception {
+		this.reporter = reporter(Encoding.THRIFT, 1024 * 1024);
+
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.report(span(2L, "bar"));
+		this.reporter.flush();
+		this.reporter.close();
+
+		File[] files = this.folder.getRoot().listFiles();
+		then(files).hasSize(1);
+		then(files[0].getName()).endsWith(".thrift");
+		then(Codec.THRIFT.readSpans(Files.readAllBytes(files[0].toPath())))
+				.containsExactly(span(1L, "foo"), span(2L, "bar"));
+	}
+
+	@Test
+	public void should_roll_the_file_when_next_message_does_not_fit() throws Exception {
+		int messageSize = Codec.JSON.writeSpans(asList(span(1L, "foo"))).length + 1;
+		this.reporter = reporter(Encoding.JSON, messageSize + 1);
+
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.flush();
+		this.reporter.report(span(2L, "bar"));
+		this.reporter.flush();
+		this.reporter.close();
+
+		File[] files = this.folder.getRoot().listFiles();
+		Arrays.sort(files);
+		then(files).hasSize(2);
+		List<Span> spans = new ArrayList<>();
+		for (File file : files) {
+			then(file.length()).isEqualTo(messageSize);
+			spans.addAll(Codec.JSON.readSpans(Files.readAllBytes(file.toPath())));
+		}
+		then(spans).containsExactly(span(1L, "foo"), span(2L, "bar"));
+	}
+
+	@Test
+	public void should_roll_the_file_when_roll_interval_passed() throws Exception {
+		this.reporter = new FileZipkinSpanReporter(this.folder.getRoot(), Encoding.JSON,
+				1024 * 1024, 0, 0, this.spanMetricReporter);
+
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.flush();
+		this.reporter.report(span(2L, "bar"));
+		this.reporter.flush();
+
+		then(this.folder.getRoot().listFiles()).hasSize(2);
+	}
+
+	@Test
+	public void should_write_to_a_preallocated_in_progress_file_and_rename_it_when_rolled() throws Exception {
+		FileSender sender = new FileSender(this.folder.getRoot(), Encoding.JSON, 1024,
+				3600, TimeUnit.SECONDS);
+		try {
+			sender.write("[]".getBytes("UTF-8"));
+			File inProgress = sender.currentFile();
+
+			then(inProgress.getName()).startsWith("spans-").endsWith(".json.tmp");
+			then(inProgress.length()).isEqualTo(1024);
+		}
+		finally {
+			sender.close();
+		}
+
+		File[] files = this.folder.getRoot().listFiles();
+		then(files).hasSize(1);
+		then(files[0].getName()).endsWith(".json");
+		then(files[0].length()).isEqualTo(3);
+	}
+
+	@Test
+	public void should_close_the_file_when_roll_interval_passed_without_new_spans() throws Exception {
+		final FileSender sender = new FileSender(this.folder.getRoot(), Encoding.JSON, 1024,
+				100, TimeUnit.MILLISECONDS);
+		try {
+			sender.write("[]".getBytes("UTF-8"));
+			File first = sender.currentFile();
+			then(first).isNotNull();
+
+			await().atMost(5, TimeUnit.SECONDS).until(() -> sender.currentFile() == null);
+			File completed = new File(first.getPath().replace(FileSender.IN_PROGRESS_SUFFIX, ""));
+			then(first).doesNotExist();
+			then(completed.length()).isEqualTo(3);
+
+			sender.write("[]".getBytes("UTF-8"));
+
+			then(sender.currentFile()).isNotEqualTo(first);
+			then(this.folder.getRoot().listFiles()).hasSize(2);
+		}
+		finally {
+			sender.close();
+		}
+	}
+
+	FileZipkinSpanReporter reporter(Encoding encoding, long maxFileSize) {
+		return new FileZipkinSpanReporter(this.folder.getRoot(), encoding, maxFileSize,
+				3600, 0, // so that tests can drive flushing explicitly
+				this.spanMetricReporter);
+	}
+
+	static Span span(long traceId, String spanName) {
+		return Span.builder().traceId(traceId).id(traceId).name(spanName).build();
+	}
+}
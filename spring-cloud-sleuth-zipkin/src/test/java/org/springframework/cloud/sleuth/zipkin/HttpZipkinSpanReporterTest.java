@@ -23,6 +23,7 @@ import zipkin.junit.ZipkinRule;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Arrays.asList;
@@ -128,6 +129,41 @@ public class HttpZipkinSpanReporterTest {
 		assertThat(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(2);
 	}
 
+	@Test
+	public void dropsSpansWithoutSendingThemWhenCircuitIsOpen() throws Exception {
+		SenderCircuitBreaker circuitBreaker = new SenderCircuitBreaker(1, 1, TimeUnit.HOURS);
+		this.reporter = new HttpZipkinSpanReporter(this.restTemplate, this.zipkin.httpUrl(),
+				0, this.spanMetricReporter, Encoding.JSON, circuitBreaker);
+		this.zipkin.enqueueFailure(HttpFailure.sendErrorResponse(500, "Ouch"));
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.flush();
+
+		this.reporter.report(span(2L, "bar"));
+		this.reporter.flush();
+
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.OPEN);
+		then(this.zipkin.httpRequestCount()).isEqualTo(1);
+		then(this.inMemorySpanCounter.getAcceptedSpans()).isEqualTo(2);
+		then(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(2);
+	}
+
+	@Test
+	public void probesSenderAndClosesCircuitWhenZipkinIsBack() throws Exception {
+		SenderCircuitBreaker circuitBreaker = new SenderCircuitBreaker(1, 0, TimeUnit.SECONDS);
+		this.reporter = new HttpZipkinSpanReporter(this.restTemplate, this.zipkin.httpUrl(),
+				0, this.spanMetricReporter, Encoding.JSON, circuitBreaker);
+		this.zipkin.enqueueFailure(HttpFailure.sendErrorResponse(500, "Ouch"));
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.flush();
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.OPEN);
+
+		this.reporter.report(span(2L, "bar"));
+		this.reporter.flush();
+
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.CLOSED);
+		then(this.zipkin.getTraces()).containsExactly(asList(span(2L, "bar")));
+	}
+
 	@Test
 	public void should_change_the_service_name_in_zipkin_to_the_manually_provided_one() {
 		AtomicReference<Span> receivedSpan = new AtomicReference<>();
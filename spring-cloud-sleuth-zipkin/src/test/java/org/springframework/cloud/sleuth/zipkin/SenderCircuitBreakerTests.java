@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * @author Marcin Grzejszczak
+ */
+public class SenderCircuitBreakerTests {
+
+	NoOpSpanMetricReporter spanMetricReporter = mock(NoOpSpanMetricReporter.class);
+
+	@Test
+	public void should_open_circuit_after_consecutive_failures() {
+		SenderCircuitBreaker circuitBreaker = new SenderCircuitBreaker(2, 1, TimeUnit.HOURS,
+				this.spanMetricReporter);
+
+		circuitBreaker.onFailure(new RuntimeException("first"));
+		then(circuitBreaker.allowsSpans()).isTrue();
+		circuitBreaker.onFailure(new RuntimeException("second"));
+
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.OPEN);
+		then(circuitBreaker.allowsSpans()).isFalse();
+		then(circuitBreaker.tryHalfOpen()).isFalse();
+		then(circuitBreaker.getLastFailure()).hasMessage("second");
+		verify(this.spanMetricReporter).senderCircuitStateChanged(true);
+	}
+
+	@Test
+	public void should_reset_failures_on_success() {
+		SenderCircuitBreaker circuitBreaker = new SenderCircuitBreaker(2, 1, TimeUnit.HOURS,
+				this.spanMetricReporter);
+
+		circuitBreaker.onFailure(new RuntimeException());
+		circuitBreaker.onSuccess();
+		circuitBreaker.onFailure(new RuntimeException());
+
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.CLOSED);
+		verifyNoMoreInteractions(this.spanMetricReporter);
+	}
+
+	@Test
+	public void should_allow_a_single_probe_after_retry_interval() {
+		SenderCircuitBreaker circuitBreaker = new SenderCircuitBreaker(1, 0, TimeUnit.SECONDS,
+				this.spanMetricReporter);
+		circuitBreaker.onFailure(new RuntimeException());
+
+		then(circuitBreaker.allowsSpans()).isTrue();
+		then(circuitBreaker.tryHalfOpen()).isTrue();
+		then(circuitBreaker.tryHalfOpen()).isFalse();
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.HALF_OPEN);
+	}
+
+	@Test
+	public void should_reopen_circuit_when_probe_fails_and_close_it_when_probe_succeeds() {
+		SenderCircuitBreaker circuitBreaker = new SenderCircuitBreaker(1, 0, TimeUnit.SECONDS,
+				this.spanMetricReporter);
+		circuitBreaker.onFailure(new RuntimeException());
+
+		circuitBreaker.tryHalfOpen();
+		circuitBreaker.onFailure(new RuntimeException());
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.OPEN);
+
+		circuitBreaker.tryHalfOpen();
+		circuitBreaker.onSuccess();
+		then(circuitBreaker.getState()).isEqualTo(SenderCircuitBreaker.State.CLOSED);
+		then(circuitBreaker.getConsecutiveFailures()).isZero();
+		verify(this.spanMetricReporter, times(1)).senderCircuitStateChanged(true);
+		verify(this.spanMetricReporter, times(1)).senderCircuitStateChanged(false);
+	}
+
+	@Test
+	public void should_report_sender_down_while_circuit_is_not_closed() {
+		SenderCircuitBreaker circuitBreaker = new SenderCircuitBreaker(1, 1, TimeUnit.HOURS,
+				this.spanMetricReporter);
+		ZipkinSenderHealthIndicator healthIndicator = new ZipkinSenderHealthIndicator(circuitBreaker);
+		then(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+
+		circuitBreaker.onFailure(new RuntimeException("Ouch"));
+
+		then(healthIndicator.health().getStatus()).isEqualTo(Status.DOWN);
+		then(healthIndicator.health().getDetails()).containsEntry("circuit", SenderCircuitBreaker.State.OPEN);
+	}
+
+	@Test
+	public void should_not_count_fast_failures_of_open_circuit_as_send_failures() {
+		ReporterMetricsAdapter metrics = new ReporterMetricsAdapter(this.spanMetricReporter);
+
+		metrics.incrementMessagesDropped(CircuitBreakingSender.CIRCUIT_OPEN);
+		metrics.incrementMessagesDropped(new IllegalStateException("Ouch"));
+
+		verify(this.spanMetricReporter, times(1)).incrementSendFailures(any(Throwable.class));
+	}
+}
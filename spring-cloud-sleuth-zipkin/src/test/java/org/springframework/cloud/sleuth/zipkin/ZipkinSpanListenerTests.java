@@ -40,6 +40,7 @@ import org.springframework.cloud.sleuth.SpanAdjuster;
 import org.springframework.cloud.sleuth.SpanReporter;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.util.CachedInstanceId;
 import org.springframework.cloud.sleuth.zipkin.ZipkinSpanListenerTests.TestConfiguration;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
@@ -66,6 +67,7 @@ public class ZipkinSpanListenerTests {
 	@Autowired ZipkinSpanReporter spanReporter;
 	@Autowired MockEnvironment mockEnvironment;
 	@Autowired EndpointLocator endpointLocator;
+	@Autowired CachedInstanceId instanceId;
 
 	@PostConstruct
 	public void init() {
@@ -284,6 +286,8 @@ public class ZipkinSpanListenerTests {
 	public void shouldAddClientServiceIdTagWhenSpanContainsRpcEvent() {
 		this.parent.logEvent(Span.CLIENT_SEND);
 		this.mockEnvironment.setProperty("vcap.application.instance_id", "foo");
+		// the instance id is cached, simulate an environment change
+		this.instanceId.refresh();
 
 		zipkin.Span result = this.spanListener.convert(this.parent);
 